@@ -103,6 +103,8 @@ public class FeaturesConfig
     private RegexLibrary regexLibrary = JONI;
     private boolean spillEnabled;
     private DataSize aggregationOperatorUnspillMemoryLimit = DataSize.of(4, DataSize.Unit.MEGABYTE);
+    private DataSize joinMaxUnspilledPartitionSize = DataSize.of(1, DataSize.Unit.GIGABYTE);
+    private long distinctLimitMinSpillableLimit = 1_000_000;
     private List<Path> spillerSpillPaths = ImmutableList.of();
     private int spillerThreads = 4;
     private double spillMaxUsedSpaceThreshold = 0.9;
@@ -120,6 +122,7 @@ public class FeaturesConfig
     private boolean forceSpillingJoin;
 
     private boolean columnarFilterEvaluationEnabled = true;
+    private boolean fusedFilterAggregationEnabled;
 
     private boolean faultTolerantExecutionExchangeEncryptionEnabled = true;
 
@@ -270,6 +273,34 @@ public class FeaturesConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getJoinMaxUnspilledPartitionSize()
+    {
+        return joinMaxUnspilledPartitionSize;
+    }
+
+    @Config("join-max-unspilled-partition-size")
+    @ConfigDescription("Maximum size of a spilled join partition unspilled at once, larger partitions are repartitioned")
+    public FeaturesConfig setJoinMaxUnspilledPartitionSize(DataSize joinMaxUnspilledPartitionSize)
+    {
+        this.joinMaxUnspilledPartitionSize = joinMaxUnspilledPartitionSize;
+        return this;
+    }
+
+    @Min(0)
+    public long getDistinctLimitMinSpillableLimit()
+    {
+        return distinctLimitMinSpillableLimit;
+    }
+
+    @Config("distinct-limit-min-spillable-limit")
+    @ConfigDescription("Minimum limit of a DISTINCT with LIMIT for its distinct values to be spilled, smaller limits keep them in memory")
+    public FeaturesConfig setDistinctLimitMinSpillableLimit(long distinctLimitMinSpillableLimit)
+    {
+        this.distinctLimitMinSpillableLimit = distinctLimitMinSpillableLimit;
+        return this;
+    }
+
     public List<Path> getSpillerSpillPaths()
     {
         return spillerSpillPaths;
@@ -502,6 +533,19 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isFusedFilterAggregationEnabled()
+    {
+        return fusedFilterAggregationEnabled;
+    }
+
+    @Config("experimental.fused-filter-aggregation.enabled")
+    @ConfigDescription("Evaluate table scan filters inside the hash aggregation instead of materializing the filtered rows")
+    public FeaturesConfig setFusedFilterAggregationEnabled(boolean fusedFilterAggregationEnabled)
+    {
+        this.fusedFilterAggregationEnabled = fusedFilterAggregationEnabled;
+        return this;
+    }
+
     public boolean isFaultTolerantExecutionExchangeEncryptionEnabled()
     {
         return faultTolerantExecutionExchangeEncryptionEnabled;
@@ -99,13 +99,18 @@ public final class SystemSessionProperties
     public static final String COLOCATED_JOIN = "colocated_join";
     public static final String JOIN_REORDERING_STRATEGY = "join_reordering_strategy";
     public static final String MAX_REORDERED_JOINS = "max_reordered_joins";
+    public static final String GREEDY_JOIN_REORDERING_THRESHOLD = "greedy_join_reordering_threshold";
     public static final String INITIAL_SPLITS_PER_NODE = "initial_splits_per_node";
     public static final String SPLIT_CONCURRENCY_ADJUSTMENT_INTERVAL = "split_concurrency_adjustment_interval";
     public static final String OPTIMIZE_METADATA_QUERIES = "optimize_metadata_queries";
     public static final String QUERY_PRIORITY = "query_priority";
     public static final String SPILL_ENABLED = "spill_enabled";
     public static final String AGGREGATION_OPERATOR_UNSPILL_MEMORY_LIMIT = "aggregation_operator_unspill_memory_limit";
+    public static final String JOIN_MAX_UNSPILLED_PARTITION_SIZE = "join_max_unspilled_partition_size";
+    public static final String DISTINCT_LIMIT_MIN_SPILLABLE_LIMIT = "distinct_limit_min_spillable_limit";
     public static final String ITERATIVE_OPTIMIZER_TIMEOUT = "iterative_optimizer_timeout";
+    public static final String ITERATIVE_OPTIMIZER_RULE_TIME_BUDGET = "iterative_optimizer_rule_time_budget";
+    public static final String ITERATIVE_OPTIMIZER_PHASE_TIME_BUDGET = "iterative_optimizer_phase_time_budget";
     public static final String ENABLE_FORCED_EXCHANGE_BELOW_GROUP_ID = "enable_forced_exchange_below_group_id";
     public static final String EXCHANGE_COMPRESSION_CODEC = "exchange_compression_codec";
     public static final String ENABLE_INTERMEDIATE_AGGREGATIONS = "enable_intermediate_aggregations";
@@ -132,6 +137,7 @@ public final class SystemSessionProperties
     public static final String IGNORE_STATS_CALCULATOR_FAILURES = "ignore_stats_calculator_failures";
     public static final String MAX_DRIVERS_PER_TASK = "max_drivers_per_task";
     public static final String DEFAULT_FILTER_FACTOR_ENABLED = "default_filter_factor_enabled";
+    public static final String USE_HISTORY_BASED_STATISTICS = "use_history_based_statistics";
     public static final String FILTER_CONJUNCTION_INDEPENDENCE_FACTOR = "filter_conjunction_independence_factor";
     public static final String NON_ESTIMATABLE_PREDICATE_APPROXIMATION_ENABLED = "non_estimatable_predicate_approximation_enabled";
     public static final String SKIP_REDUNDANT_SORT = "skip_redundant_sort";
@@ -142,6 +148,7 @@ public final class SystemSessionProperties
     public static final String ENABLE_LARGE_DYNAMIC_FILTERS = "enable_large_dynamic_filters";
     public static final String ENABLE_DYNAMIC_ROW_FILTERING = "enable_dynamic_row_filtering";
     public static final String DYNAMIC_ROW_FILTERING_SELECTIVITY_THRESHOLD = "dynamic_row_filtering_selectivity_threshold";
+    public static final String ENABLE_DYNAMIC_FILTERING_BLOOM_FILTERS = "enable_dynamic_filtering_bloom_filters";
     public static final String QUERY_MAX_MEMORY_PER_NODE = "query_max_memory_per_node";
     public static final String IGNORE_DOWNSTREAM_PREFERENCES = "ignore_downstream_preferences";
     public static final String FILTERING_SEMI_JOIN_TO_INNER = "rewrite_filtering_semi_join_to_inner_join";
@@ -203,6 +210,7 @@ public final class SystemSessionProperties
     public static final String FAULT_TOLERANT_EXECUTION_ADAPTIVE_JOIN_REORDERING_MIN_SIZE_THRESHOLD = "fault_tolerant_execution_adaptive_join_reordering_min_size_threshold";
     public static final String ADAPTIVE_PARTIAL_AGGREGATION_ENABLED = "adaptive_partial_aggregation_enabled";
     public static final String ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD = "adaptive_partial_aggregation_unique_rows_ratio_threshold";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_CARDINALITY_SAMPLING_ENABLED = "adaptive_partial_aggregation_cardinality_sampling_enabled";
     public static final String REMOTE_TASK_ADAPTIVE_UPDATE_REQUEST_SIZE_ENABLED = "remote_task_adaptive_update_request_size_enabled";
     public static final String REMOTE_TASK_MAX_REQUEST_SIZE = "remote_task_max_request_size";
     public static final String REMOTE_TASK_REQUEST_SIZE_HEADROOM = "remote_task_request_size_headroom";
@@ -218,7 +226,10 @@ public final class SystemSessionProperties
     public static final String IDLE_WRITER_MIN_DATA_SIZE_THRESHOLD = "idle_writer_min_data_size_threshold";
     public static final String CLOSE_IDLE_WRITERS_TRIGGER_DURATION = "close_idle_writers_trigger_duration";
     public static final String COLUMNAR_FILTER_EVALUATION_ENABLED = "columnar_filter_evaluation_enabled";
+    public static final String FUSED_FILTER_AGGREGATION_ENABLED = "fused_filter_aggregation_enabled";
     public static final String SPOOLING_ENABLED = "spooling_enabled";
+    public static final String SHARED_SCAN_ENABLED = "shared_scan_enabled";
+    public static final String RESOURCE_GROUP_CPU_WEIGHT = "resource_group_cpu_weight";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -469,6 +480,12 @@ public final class SystemSessionProperties
                             return intValue;
                         },
                         value -> value),
+                integerProperty(
+                        GREEDY_JOIN_REORDERING_THRESHOLD,
+                        "The number of joins above which cost-based join reordering picks the join order greedily instead of exhaustively",
+                        optimizerConfig.getGreedyJoinReorderingThreshold(),
+                        value -> validateIntegerValue(value, GREEDY_JOIN_REORDERING_THRESHOLD, 1, false),
+                        false),
                 booleanProperty(
                         COLOCATED_JOIN,
                         "Use a colocated join when possible",
@@ -494,11 +511,32 @@ public final class SystemSessionProperties
                         "How much memory should be allocated per aggregation operator in unspilling process",
                         featuresConfig.getAggregationOperatorUnspillMemoryLimit(),
                         false),
+                dataSizeProperty(
+                        JOIN_MAX_UNSPILLED_PARTITION_SIZE,
+                        "Maximum size of a spilled join partition unspilled at once, larger partitions are repartitioned",
+                        featuresConfig.getJoinMaxUnspilledPartitionSize(),
+                        false),
+                longProperty(
+                        DISTINCT_LIMIT_MIN_SPILLABLE_LIMIT,
+                        "Minimum limit of a DISTINCT with LIMIT for its distinct values to be spilled",
+                        featuresConfig.getDistinctLimitMinSpillableLimit(),
+                        value -> validateNonNegativeLongValue(value, DISTINCT_LIMIT_MIN_SPILLABLE_LIMIT),
+                        false),
                 durationProperty(
                         ITERATIVE_OPTIMIZER_TIMEOUT,
                         "Timeout for plan optimization in iterative optimizer",
                         optimizerConfig.getIterativeOptimizerTimeout(),
                         false),
+                durationProperty(
+                        ITERATIVE_OPTIMIZER_RULE_TIME_BUDGET,
+                        "Time after which an exploration rule is no longer applied in an optimizer phase",
+                        optimizerConfig.getIterativeOptimizerRuleTimeBudget(),
+                        false),
+                durationProperty(
+                        ITERATIVE_OPTIMIZER_PHASE_TIME_BUDGET,
+                        "Time after which exploration rules are no longer applied in an optimizer phase",
+                        optimizerConfig.getIterativeOptimizerPhaseTimeBudget(),
+                        false),
                 booleanProperty(
                         ENABLE_FORCED_EXCHANGE_BELOW_GROUP_ID,
                         "Enable a stats-based rule adding exchanges below GroupId",
@@ -637,6 +675,11 @@ public final class SystemSessionProperties
                         "use a default filter factor for unknown filters in a filter node",
                         optimizerConfig.isDefaultFilterFactorEnabled(),
                         false),
+                booleanProperty(
+                        USE_HISTORY_BASED_STATISTICS,
+                        "Prefer statistics observed in previous executions of the same table scans and filters over estimates",
+                        optimizerConfig.isUseHistoryBasedStatistics(),
+                        false),
                 new PropertyMetadata<>(
                         FILTER_CONJUNCTION_INDEPENDENCE_FACTOR,
                         "Scales the strength of independence assumption for selectivity estimates of the conjunction of multiple filters",
@@ -697,6 +740,11 @@ public final class SystemSessionProperties
                             }
                         },
                         false),
+                booleanProperty(
+                        ENABLE_DYNAMIC_FILTERING_BLOOM_FILTERS,
+                        "Collect Bloom filters of join keys for dynamic filters applied within the same task, when there are too many distinct values",
+                        dynamicFilterConfig.isEnableBloomFilters(),
+                        false),
                 dataSizeProperty(
                         QUERY_MAX_MEMORY_PER_NODE,
                         "Maximum amount of memory a query can use per node",
@@ -1045,6 +1093,11 @@ public final class SystemSessionProperties
                         "Ratio between aggregation output and input rows above which partial aggregation might be adaptively turned off",
                         optimizerConfig.getAdaptivePartialAggregationUniqueRowsRatioThreshold(),
                         false),
+                booleanProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_CARDINALITY_SAMPLING_ENABLED,
+                        "Sample group cardinality of input rows to re-evaluate whether partial aggregation should be turned off or back on",
+                        optimizerConfig.isAdaptivePartialAggregationCardinalitySamplingEnabled(),
+                        false),
                 booleanProperty(
                         REMOTE_TASK_ADAPTIVE_UPDATE_REQUEST_SIZE_ENABLED,
                         "Experimental: Enable adaptive adjustment for size of remote task update request",
@@ -1107,6 +1160,11 @@ public final class SystemSessionProperties
                         "Enables columnar evaluation of filters",
                         featuresConfig.isColumnarFilterEvaluationEnabled(),
                         false),
+                booleanProperty(
+                        FUSED_FILTER_AGGREGATION_ENABLED,
+                        "Evaluate table scan filters inside the hash aggregation instead of materializing the filtered rows",
+                        featuresConfig.isFusedFilterAggregationEnabled(),
+                        false),
                 integerProperty(PAGE_PARTITIONING_BUFFER_POOL_SIZE,
                         "Maximum number of free buffers in the per task partitioned page buffer pool. Setting this to zero effectively disables the pool",
                         taskManagerConfig.getPagePartitioningBufferPoolSize(),
@@ -1128,6 +1186,17 @@ public final class SystemSessionProperties
                         SPOOLING_ENABLED,
                         "Enable client spooling protocol",
                         true,
+                        true),
+                booleanProperty(
+                        SHARED_SCAN_ENABLED,
+                        "Share scans of the same splits with concurrent queries on a worker",
+                        false,
+                        false),
+                integerProperty(
+                        RESOURCE_GROUP_CPU_WEIGHT,
+                        "CPU weight of the resource group of the query, set by the coordinator",
+                        1,
+                        value -> validateIntegerValue(value, RESOURCE_GROUP_CPU_WEIGHT, 1, false),
                         true));
     }
 
@@ -1312,6 +1381,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(MAX_REORDERED_JOINS, Integer.class);
     }
 
+    public static int getGreedyJoinReorderingThreshold(Session session)
+    {
+        return session.getSystemProperty(GREEDY_JOIN_REORDERING_THRESHOLD, Integer.class);
+    }
+
     public static boolean isColocatedJoinEnabled(Session session)
     {
         return session.getSystemProperty(COLOCATED_JOIN, Boolean.class);
@@ -1366,11 +1440,31 @@ public final class SystemSessionProperties
         return memoryLimitForMerge;
     }
 
+    public static DataSize getJoinMaxUnspilledPartitionSize(Session session)
+    {
+        return session.getSystemProperty(JOIN_MAX_UNSPILLED_PARTITION_SIZE, DataSize.class);
+    }
+
+    public static long getDistinctLimitMinSpillableLimit(Session session)
+    {
+        return session.getSystemProperty(DISTINCT_LIMIT_MIN_SPILLABLE_LIMIT, Long.class);
+    }
+
     public static Duration getOptimizerTimeout(Session session)
     {
         return session.getSystemProperty(ITERATIVE_OPTIMIZER_TIMEOUT, Duration.class);
     }
 
+    public static Duration getOptimizerRuleTimeBudget(Session session)
+    {
+        return session.getSystemProperty(ITERATIVE_OPTIMIZER_RULE_TIME_BUDGET, Duration.class);
+    }
+
+    public static Duration getOptimizerPhaseTimeBudget(Session session)
+    {
+        return session.getSystemProperty(ITERATIVE_OPTIMIZER_PHASE_TIME_BUDGET, Duration.class);
+    }
+
     public static boolean isEnableForcedExchangeBelowGroupId(Session session)
     {
         return session.getSystemProperty(ENABLE_FORCED_EXCHANGE_BELOW_GROUP_ID, Boolean.class);
@@ -1583,6 +1677,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(DEFAULT_FILTER_FACTOR_ENABLED, Boolean.class);
     }
 
+    public static boolean isUseHistoryBasedStatistics(Session session)
+    {
+        return session.getSystemProperty(USE_HISTORY_BASED_STATISTICS, Boolean.class);
+    }
+
     public static double getFilterConjunctionIndependenceFactor(Session session)
     {
         return session.getSystemProperty(FILTER_CONJUNCTION_INDEPENDENCE_FACTOR, Double.class);
@@ -1633,6 +1732,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(DYNAMIC_ROW_FILTERING_SELECTIVITY_THRESHOLD, Double.class);
     }
 
+    public static boolean isEnableDynamicFilteringBloomFilters(Session session)
+    {
+        return session.getSystemProperty(ENABLE_DYNAMIC_FILTERING_BLOOM_FILTERS, Boolean.class);
+    }
+
     public static DataSize getQueryMaxMemoryPerNode(Session session)
     {
         return session.getSystemProperty(QUERY_MAX_MEMORY_PER_NODE, DataSize.class);
@@ -1938,6 +2042,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD, Double.class);
     }
 
+    public static boolean isAdaptivePartialAggregationCardinalitySamplingEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_CARDINALITY_SAMPLING_ENABLED, Boolean.class);
+    }
+
     public static boolean isRemoteTaskAdaptiveUpdateRequestSizeEnabled(Session session)
     {
         return session.getSystemProperty(REMOTE_TASK_ADAPTIVE_UPDATE_REQUEST_SIZE_ENABLED, Boolean.class);
@@ -2013,11 +2122,26 @@ public final class SystemSessionProperties
         return session.getSystemProperty(COLUMNAR_FILTER_EVALUATION_ENABLED, Boolean.class);
     }
 
+    public static boolean isFusedFilterAggregationEnabled(Session session)
+    {
+        return session.getSystemProperty(FUSED_FILTER_AGGREGATION_ENABLED, Boolean.class);
+    }
+
     public static boolean isSpoolingEnabled(Session session)
     {
         return session.getSystemProperty(SPOOLING_ENABLED, Boolean.class);
     }
 
+    public static boolean isSharedScanEnabled(Session session)
+    {
+        return session.getSystemProperty(SHARED_SCAN_ENABLED, Boolean.class);
+    }
+
+    public static int getResourceGroupCpuWeight(Session session)
+    {
+        return session.getSystemProperty(RESOURCE_GROUP_CPU_WEIGHT, Integer.class);
+    }
+
     public static boolean isUnsafePushdownAllowed(Session session)
     {
         return session.getSystemProperty(ALLOW_UNSAFE_PUSHDOWN, Boolean.class);
@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cost;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import io.airlift.json.JsonCodec;
+import io.airlift.log.Logger;
+import io.airlift.units.Duration;
+import io.trino.cache.CacheStatsMBean;
+import io.trino.cache.NonEvictableCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.json.JsonCodec.mapJsonCodec;
+import static io.trino.cache.SafeCaches.buildNonEvictableCache;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Keeps the observed statistics in memory and periodically writes them to a local JSON file,
+ * from which they are loaded again on startup.
+ */
+public class FileHistoricalStatsStore
+        implements HistoricalStatsStore
+{
+    private static final Logger log = Logger.get(FileHistoricalStatsStore.class);
+
+    private static final JsonCodec<Map<String, HistoricalPlanNodeStats>> CODEC = mapJsonCodec(String.class, HistoricalPlanNodeStats.class);
+
+    private final File file;
+    private final Duration flushInterval;
+    private final NonEvictableCache<String, HistoricalPlanNodeStats> stats;
+    private final CacheStatsMBean cacheStats;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ScheduledExecutorService flushExecutor = newSingleThreadScheduledExecutor(daemonThreadsNamed("history-based-statistics-flush"));
+
+    @Inject
+    public FileHistoricalStatsStore(FileHistoricalStatsStoreConfig config)
+    {
+        this.file = requireNonNull(config.getFile(), "file is null");
+        this.flushInterval = config.getFlushInterval();
+        this.stats = buildNonEvictableCache(CacheBuilder.newBuilder()
+                .recordStats()
+                .maximumSize(config.getMaxEntries()));
+        this.cacheStats = new CacheStatsMBean(stats);
+        load();
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            }
+            catch (RuntimeException e) {
+                log.warn(e, "Error writing history based statistics to %s", file);
+            }
+        }, flushInterval.toMillis(), flushInterval.toMillis(), MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        flushExecutor.shutdownNow();
+        try {
+            flush();
+        }
+        catch (RuntimeException e) {
+            log.warn(e, "Error writing history based statistics to %s", file);
+        }
+    }
+
+    @Override
+    public Optional<HistoricalPlanNodeStats> getStats(String planKey)
+    {
+        return Optional.ofNullable(stats.getIfPresent(planKey));
+    }
+
+    @Override
+    public void recordStats(String planKey, HistoricalPlanNodeStats observed)
+    {
+        stats.put(planKey, observed);
+        dirty.set(true);
+    }
+
+    @VisibleForTesting
+    synchronized void flush()
+    {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+
+        byte[] json = CODEC.toJsonBytes(Map.copyOf(stats.asMap()));
+        try {
+            File temporary = new File(file.getPath() + ".tmp");
+            createDirectories(temporary.getAbsoluteFile().getParentFile().toPath());
+            try (FileOutputStream out = new FileOutputStream(temporary)) {
+                out.write(json);
+                out.flush();
+                out.getFD().sync();
+            }
+            Files.move(temporary.toPath(), file.toPath(), REPLACE_EXISTING);
+        }
+        catch (IOException e) {
+            dirty.set(true);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void load()
+    {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            stats.putAll(CODEC.fromJson(Files.readAllBytes(file.toPath())));
+        }
+        catch (IOException | IllegalArgumentException e) {
+            // the statistics are only a hint for the optimizer, so start over rather than fail
+            log.warn(e, "Could not load history based statistics from %s", file);
+        }
+    }
+
+    @Managed
+    public long getEntries()
+    {
+        return stats.size();
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getCacheStats()
+    {
+        return cacheStats;
+    }
+}
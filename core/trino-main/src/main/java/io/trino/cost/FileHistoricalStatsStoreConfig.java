@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cost;
+
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.Duration;
+import io.airlift.units.MinDuration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.File;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+public class FileHistoricalStatsStoreConfig
+{
+    private File file;
+    private int maxEntries = 100_000;
+    private Duration flushInterval = new Duration(1, MINUTES);
+
+    @NotNull
+    public File getFile()
+    {
+        return file;
+    }
+
+    @Config("history-based-statistics.file")
+    @ConfigDescription("JSON file the observed statistics are persisted to")
+    public FileHistoricalStatsStoreConfig setFile(File file)
+    {
+        this.file = file;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    @Config("history-based-statistics.max-entries")
+    @ConfigDescription("Maximum number of plan subtrees to keep statistics for")
+    public FileHistoricalStatsStoreConfig setMaxEntries(int maxEntries)
+    {
+        this.maxEntries = maxEntries;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1s")
+    public Duration getFlushInterval()
+    {
+        return flushInterval;
+    }
+
+    @Config("history-based-statistics.flush-interval")
+    @ConfigDescription("How often statistics recorded since the last write are persisted")
+    public FileHistoricalStatsStoreConfig setFlushInterval(Duration flushInterval)
+    {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+}
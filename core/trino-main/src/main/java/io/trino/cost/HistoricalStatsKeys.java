@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cost;
+
+import io.trino.metadata.TableHandle;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.sql.ir.Expression;
+import io.trino.sql.ir.ExpressionFormatter;
+import io.trino.sql.planner.iterative.Lookup;
+import io.trino.sql.planner.plan.FilterNode;
+import io.trino.sql.planner.plan.PlanNode;
+import io.trino.sql.planner.plan.TableScanNode;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.trino.sql.DynamicFilters.extractDynamicFilters;
+import static io.trino.sql.ir.IrUtils.extractConjuncts;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Computes the key under which statistics of a plan subtree are stored in a {@link HistoricalStatsStore}.
+ * The key must not depend on anything specific to a single query, such as symbol names or plan node ids,
+ * so only table scans and filters directly over table scans are supported. Both are identified by
+ * the connector table handle and the constraint enforced by the connector. The string form of a handle
+ * does not necessarily include the values of the constraint pushed into it, so the values are taken from
+ * the enforced constraint, and handles without a string form of their own are not keyed.
+ */
+public final class HistoricalStatsKeys
+{
+    private HistoricalStatsKeys() {}
+
+    public static Optional<String> planKey(PlanNode node, Lookup lookup, ConnectorSession session)
+    {
+        if (node instanceof TableScanNode tableScan) {
+            return tableScanKey(tableScan, session);
+        }
+        if (node instanceof FilterNode filter && lookup.resolve(filter.getSource()) instanceof TableScanNode tableScan) {
+            return filterKey(filter.getPredicate(), tableScan, session);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<String> tableScanKey(TableScanNode tableScan, ConnectorSession session)
+    {
+        TableHandle table = tableScan.getTable();
+        TupleDomain<ColumnHandle> enforcedConstraint = tableScan.getEnforcedConstraint();
+        // enforced constraint is not available in plans deserialized from JSON
+        if (enforcedConstraint == null || !hasOwnToString(table.connectorHandle())) {
+            return Optional.empty();
+        }
+        return Optional.of("scan(%s, %s, %s)".formatted(
+                table.catalogHandle().getCatalogName(),
+                table.connectorHandle(),
+                constraintKey(enforcedConstraint, session)));
+    }
+
+    private static String constraintKey(TupleDomain<ColumnHandle> constraint, ConnectorSession session)
+    {
+        if (constraint.isAll()) {
+            return "ALL";
+        }
+        if (constraint.isNone()) {
+            return "NONE";
+        }
+        return constraint.getDomains().orElseThrow().entrySet().stream()
+                .map(entry -> "column(%s) IN %s".formatted(entry.getKey(), entry.getValue().toString(session, Integer.MAX_VALUE)))
+                .sorted()
+                .collect(joining(" AND "));
+    }
+
+    private static boolean hasOwnToString(Object handle)
+    {
+        try {
+            return handle.getClass().getMethod("toString").getDeclaringClass() != Object.class;
+        }
+        catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static Optional<String> filterKey(Expression predicate, TableScanNode tableScan, ConnectorSession session)
+    {
+        if (!extractDynamicFilters(predicate).getDynamicConjuncts().isEmpty()) {
+            // rows passing a dynamic filter depend on the other side of the join
+            return Optional.empty();
+        }
+        Optional<String> tableScanKey = tableScanKey(tableScan, session);
+        if (tableScanKey.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<String, ColumnHandle> columns = tableScan.getAssignments().entrySet().stream()
+                .collect(toImmutableMap(entry -> entry.getKey().name(), Map.Entry::getValue));
+        ExpressionFormatter.Formatter formatter = new ExpressionFormatter.Formatter(
+                Optional.empty(),
+                Optional.of(reference -> {
+                    ColumnHandle column = columns.get(reference.name());
+                    return column == null ? reference.name() : "column(" + column + ")";
+                }));
+        String conjuncts = extractConjuncts(predicate).stream()
+                .map(conjunct -> formatter.process(conjunct, null))
+                .sorted()
+                .collect(joining(" AND "));
+        return Optional.of("filter(%s, %s)".formatted(conjuncts, tableScanKey.get()));
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cost;
+
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import jakarta.validation.constraints.NotNull;
+
+public class HistoricalStatsStoreConfig
+{
+    public enum HistoricalStatsStoreKind
+    {
+        NONE, FILE
+    }
+
+    private HistoricalStatsStoreKind kind = HistoricalStatsStoreKind.NONE;
+
+    @NotNull
+    public HistoricalStatsStoreKind getKind()
+    {
+        return kind;
+    }
+
+    @Config("history-based-statistics.store")
+    @ConfigDescription("Where statistics observed in query executions are stored")
+    public HistoricalStatsStoreConfig setKind(HistoricalStatsStoreKind kind)
+    {
+        this.kind = kind;
+        return this;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cost;
+
+import com.google.inject.Inject;
+import io.airlift.log.Logger;
+import io.trino.Session;
+import io.trino.execution.QueryInfo;
+import io.trino.execution.StageInfo;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.sql.planner.PlanFragment;
+import io.trino.sql.planner.plan.DistinctLimitNode;
+import io.trino.sql.planner.plan.FilterNode;
+import io.trino.sql.planner.plan.LimitNode;
+import io.trino.sql.planner.plan.PlanNode;
+import io.trino.sql.planner.plan.PlanNodeId;
+import io.trino.sql.planner.plan.ProjectNode;
+import io.trino.sql.planner.plan.TableScanNode;
+import io.trino.sql.planner.planprinter.PlanNodeStats;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.cost.HistoricalStatsKeys.planKey;
+import static io.trino.execution.QueryState.FINISHED;
+import static io.trino.execution.StageInfo.getAllStages;
+import static io.trino.sql.planner.iterative.Lookup.noLookup;
+import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static io.trino.sql.planner.planprinter.PlanNodeStatsSummarizer.aggregateStageStats;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Records the output of table scans and filters over table scans of finished queries in the {@link HistoricalStatsStore}.
+ */
+public class HistoryBasedStatsRecorder
+{
+    private static final Logger log = Logger.get(HistoryBasedStatsRecorder.class);
+
+    private final HistoricalStatsStore historicalStatsStore;
+
+    @Inject
+    public HistoryBasedStatsRecorder(HistoricalStatsStore historicalStatsStore)
+    {
+        this.historicalStatsStore = requireNonNull(historicalStatsStore, "historicalStatsStore is null");
+    }
+
+    public void queryCompleted(Session session, QueryInfo queryInfo)
+    {
+        if (queryInfo.getState() != FINISHED) {
+            return;
+        }
+
+        try {
+            List<StageInfo> stages = getAllStages(queryInfo.getOutputStage());
+            List<PlanFragment> fragments = stages.stream()
+                    .map(StageInfo::getPlan)
+                    .filter(Objects::nonNull)
+                    .collect(toImmutableList());
+            // a limit stops the scans below it early, so their output is not representative
+            if (fragments.stream().anyMatch(fragment -> searchFrom(fragment.getRoot()).whereIsInstanceOfAny(LimitNode.class, DistinctLimitNode.class).matches())) {
+                return;
+            }
+
+            Map<PlanNodeId, PlanNodeStats> stats = aggregateStageStats(stages);
+            for (PlanFragment fragment : fragments) {
+                record(fragment.getRoot(), Optional.empty(), stats, session.toConnectorSession());
+            }
+        }
+        catch (RuntimeException e) {
+            log.warn(e, "Error recording history based statistics for query %s", queryInfo.getQueryId());
+        }
+    }
+
+    /**
+     * @param projectId the project directly above the node, which is executed together with the table scan and filter below it
+     */
+    private void record(PlanNode node, Optional<PlanNodeId> projectId, Map<PlanNodeId, PlanNodeStats> stats, ConnectorSession session)
+    {
+        if (node instanceof ProjectNode project) {
+            record(project.getSource(), Optional.of(project.getId()), stats, session);
+            return;
+        }
+
+        if (node instanceof TableScanNode tableScan) {
+            Optional<String> tableScanKey = planKey(tableScan, noLookup(), session);
+            if (tableScanKey.isEmpty()) {
+                return;
+            }
+            // the project does not change the number of rows, so its input is the output of the table scan
+            Optional.ofNullable(stats.get(tableScan.getId())).map(HistoryBasedStatsRecorder::outputStats)
+                    .or(() -> projectId.map(stats::get).map(HistoryBasedStatsRecorder::inputStats))
+                    .ifPresent(observed -> historicalStatsStore.recordStats(tableScanKey.get(), observed));
+            return;
+        }
+
+        if (node instanceof FilterNode filter && filter.getSource() instanceof TableScanNode) {
+            // Output of the table scan is not recorded, as the connector may skip data using the part of
+            // the filter it does not enforce, which is not reflected in the key of the table scan.
+            Optional<String> filterKey = planKey(filter, noLookup(), session);
+            if (filterKey.isEmpty()) {
+                return;
+            }
+            // table scan, filter and project are executed by a single operator, which reports its stats for the topmost node
+            Optional.ofNullable(stats.get(filter.getId()))
+                    .or(() -> projectId.map(stats::get))
+                    .map(HistoryBasedStatsRecorder::outputStats)
+                    .ifPresent(observed -> historicalStatsStore.recordStats(filterKey.get(), observed));
+            return;
+        }
+
+        for (PlanNode source : node.getSources()) {
+            record(source, Optional.empty(), stats, session);
+        }
+    }
+
+    private static HistoricalPlanNodeStats outputStats(PlanNodeStats stats)
+    {
+        return new HistoricalPlanNodeStats(stats.getPlanNodeOutputPositions(), stats.getPlanNodeOutputDataSize().toBytes());
+    }
+
+    private static HistoricalPlanNodeStats inputStats(PlanNodeStats stats)
+    {
+        return new HistoricalPlanNodeStats(stats.getPlanNodeInputPositions(), stats.getPlanNodeInputDataSize().toBytes());
+    }
+}
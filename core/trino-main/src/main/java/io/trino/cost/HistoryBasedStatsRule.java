@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cost;
+
+import io.trino.cost.ComposableStatsCalculator.Rule;
+import io.trino.cost.StatsCalculator.Context;
+import io.trino.matching.Pattern;
+import io.trino.sql.planner.plan.PlanNode;
+
+import java.util.Optional;
+
+import static io.trino.SystemSessionProperties.isUseHistoryBasedStatistics;
+import static io.trino.cost.HistoricalStatsKeys.planKey;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Replaces the output row count computed by the delegate rule with the one observed
+ * in previous executions of the same plan subtree, if there are any.
+ */
+public class HistoryBasedStatsRule<T extends PlanNode>
+        extends SimpleStatsRule<T>
+{
+    private final Rule<T> delegate;
+    private final HistoricalStatsStore historicalStatsStore;
+
+    public HistoryBasedStatsRule(Rule<T> delegate, HistoricalStatsStore historicalStatsStore, StatsNormalizer normalizer)
+    {
+        super(normalizer);
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.historicalStatsStore = requireNonNull(historicalStatsStore, "historicalStatsStore is null");
+    }
+
+    @Override
+    public Pattern<T> getPattern()
+    {
+        return delegate.getPattern();
+    }
+
+    @Override
+    protected Optional<PlanNodeStatsEstimate> doCalculate(T node, Context context)
+    {
+        Optional<PlanNodeStatsEstimate> estimate = delegate.calculate(node, context);
+        if (!isUseHistoryBasedStatistics(context.session())) {
+            return estimate;
+        }
+
+        Optional<HistoricalPlanNodeStats> observed = planKey(node, context.lookup(), context.session().toConnectorSession())
+                .flatMap(historicalStatsStore::getStats);
+        if (observed.isEmpty()) {
+            return estimate;
+        }
+        double outputRowCount = observed.get().outputRowCount();
+        return Optional.of(estimate.orElseGet(PlanNodeStatsEstimate::unknown)
+                .mapOutputRowCount(_ -> outputRowCount));
+    }
+}
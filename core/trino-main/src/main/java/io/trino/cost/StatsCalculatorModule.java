@@ -46,13 +46,15 @@ public class StatsCalculatorModule
         private final ScalarStatsCalculator scalarStatsCalculator;
         private final FilterStatsCalculator filterStatsCalculator;
         private final StatsNormalizer normalizer;
+        private final HistoricalStatsStore historicalStatsStore;
 
         @Inject
-        public StatsRulesProvider(ScalarStatsCalculator scalarStatsCalculator, FilterStatsCalculator filterStatsCalculator, StatsNormalizer normalizer)
+        public StatsRulesProvider(ScalarStatsCalculator scalarStatsCalculator, FilterStatsCalculator filterStatsCalculator, StatsNormalizer normalizer, HistoricalStatsStore historicalStatsStore)
         {
             this.scalarStatsCalculator = requireNonNull(scalarStatsCalculator, "scalarStatsCalculator is null");
             this.filterStatsCalculator = requireNonNull(filterStatsCalculator, "filterStatsCalculator is null");
             this.normalizer = requireNonNull(normalizer, "normalizer is null");
+            this.historicalStatsStore = requireNonNull(historicalStatsStore, "historicalStatsStore is null");
         }
 
         @Override
@@ -61,10 +63,10 @@ public class StatsCalculatorModule
             ImmutableList.Builder<ComposableStatsCalculator.Rule<?>> rules = ImmutableList.builder();
 
             rules.add(new OutputStatsRule());
-            rules.add(new TableScanStatsRule(normalizer));
+            rules.add(new HistoryBasedStatsRule<>(new TableScanStatsRule(normalizer), historicalStatsStore, normalizer));
             rules.add(new SimpleFilterProjectSemiJoinStatsRule(normalizer, filterStatsCalculator)); // this must be before FilterStatsRule
             rules.add(new FilterProjectAggregationStatsRule(normalizer, filterStatsCalculator)); // this must be before FilterStatsRule
-            rules.add(new FilterStatsRule(normalizer, filterStatsCalculator));
+            rules.add(new HistoryBasedStatsRule<>(new FilterStatsRule(normalizer, filterStatsCalculator), historicalStatsStore, normalizer));
             rules.add(new ValuesStatsRule());
             rules.add(new LimitStatsRule(normalizer));
             rules.add(new DistinctLimitStatsRule(normalizer));
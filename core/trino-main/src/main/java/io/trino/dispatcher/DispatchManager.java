@@ -51,7 +51,9 @@ import org.weakref.jmx.Flatten;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
@@ -59,6 +61,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.trino.SystemSessionProperties.RESOURCE_GROUP_CPU_WEIGHT;
 import static io.trino.execution.QueryState.FINISHING;
 import static io.trino.execution.QueryState.QUEUED;
 import static io.trino.execution.QueryState.RUNNING;
@@ -240,6 +243,19 @@ public class DispatchManager
             // apply system default session properties (does not override user set properties)
             session = sessionPropertyDefaults.newSessionWithDefaultProperties(session, queryType, selectionContext.getResourceGroupId());
 
+            // the CPU weight of the group is always set by the coordinator, so that users cannot raise the priority of their queries on workers
+            int cpuWeight = resourceGroupManager.getCpuWeight(selectionContext, dispatchExecutor);
+            Map<String, String> systemProperties = new HashMap<>(session.getSystemProperties());
+            if (cpuWeight == 1) {
+                systemProperties.remove(RESOURCE_GROUP_CPU_WEIGHT);
+            }
+            else {
+                systemProperties.put(RESOURCE_GROUP_CPU_WEIGHT, String.valueOf(cpuWeight));
+            }
+            if (!systemProperties.equals(session.getSystemProperties())) {
+                session = session.withProperties(systemProperties, session.getCatalogProperties());
+            }
+
             DispatchQuery dispatchQuery = dispatchQueryFactory.createDispatchQuery(
                     session,
                     sessionContext.getTransactionId(),
@@ -19,6 +19,7 @@ import io.airlift.configuration.DefunctConfig;
 import io.airlift.configuration.LegacyConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.MaxDataSize;
+import io.airlift.units.MinDataSize;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
@@ -44,6 +45,8 @@ public class DynamicFilterConfig
     private boolean enableLargeDynamicFilters = true;
     private boolean enableDynamicRowFiltering = true;
     private double dynamicRowFilterSelectivityThreshold = 0.7;
+    private boolean enableBloomFilters;
+    private DataSize bloomFilterSizePerDriver = DataSize.of(1, MEGABYTE);
 
     /*
      * dynamic-filtering.small.* and dynamic-filtering.large.* limits are applied when
@@ -129,6 +132,35 @@ public class DynamicFilterConfig
         return this;
     }
 
+    public boolean isEnableBloomFilters()
+    {
+        return enableBloomFilters;
+    }
+
+    @Config("enable-dynamic-filtering-bloom-filters")
+    @ConfigDescription("Collect Bloom filters of join keys for dynamic filters applied within the same task, when there are too many distinct values")
+    public DynamicFilterConfig setEnableBloomFilters(boolean enableBloomFilters)
+    {
+        this.enableBloomFilters = enableBloomFilters;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("32B")
+    @MaxDataSize("64MB")
+    public DataSize getBloomFilterSizePerDriver()
+    {
+        return bloomFilterSizePerDriver;
+    }
+
+    @Config("dynamic-filtering.bloom-filter-size-per-driver")
+    @ConfigDescription("Size of the Bloom filter collected for a dynamic filter by a single driver")
+    public DynamicFilterConfig setBloomFilterSizePerDriver(DataSize bloomFilterSizePerDriver)
+    {
+        this.bloomFilterSizePerDriver = bloomFilterSizePerDriver;
+        return this;
+    }
+
     @Min(0)
     public int getSmallMaxDistinctValuesPerDriver()
     {
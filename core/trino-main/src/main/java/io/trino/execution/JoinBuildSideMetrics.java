@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution;
+
+import io.airlift.units.DataSize;
+import io.trino.sql.planner.plan.JoinNode.DistributionType;
+import io.trino.sql.planner.plan.PlanNodeId;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Actual output size of the build side of a join, together with the distribution type this size favors
+ * and the distribution type planned from estimated statistics. These are metrics only, the distribution
+ * type of the running join is not changed.
+ */
+public record JoinBuildSideMetrics(
+        PlanNodeId joinNodeId,
+        DistributionType plannedDistributionType,
+        DistributionType sizeBasedDistributionType,
+        DataSize buildOutputDataSize)
+{
+    public JoinBuildSideMetrics
+    {
+        requireNonNull(joinNodeId, "joinNodeId is null");
+        requireNonNull(plannedDistributionType, "plannedDistributionType is null");
+        requireNonNull(sizeBasedDistributionType, "sizeBasedDistributionType is null");
+        requireNonNull(buildOutputDataSize, "buildOutputDataSize is null");
+    }
+}
@@ -77,6 +77,7 @@ public class QueryManagerConfig
     private Duration minQueryExpireAge = new Duration(15, TimeUnit.MINUTES);
     private int maxQueryHistory = 100;
     private int maxQueryLength = 1_000_000;
+    private int preparedStatementCacheMaxLength = 1_000_000;
     private int maxStageCount = 150;
     private int stageCountWarningThreshold = 50;
 
@@ -331,6 +332,20 @@ public class QueryManagerConfig
         return this;
     }
 
+    @Min(0)
+    public int getPreparedStatementCacheMaxLength()
+    {
+        return preparedStatementCacheMaxLength;
+    }
+
+    @Config("query.prepared-statement-cache-max-length")
+    @ConfigDescription("Maximum total number of characters of the SQL text of prepared statements whose parsed statements are cached on the coordinator")
+    public QueryManagerConfig setPreparedStatementCacheMaxLength(int preparedStatementCacheMaxLength)
+    {
+        this.preparedStatementCacheMaxLength = preparedStatementCacheMaxLength;
+        return this;
+    }
+
     @Min(1)
     public int getMaxStageCount()
     {
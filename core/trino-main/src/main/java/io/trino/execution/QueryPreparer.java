@@ -13,9 +13,13 @@
  */
 package io.trino.execution;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import io.trino.Session;
+import io.trino.cache.CacheStatsMBean;
+import io.trino.cache.NonEvictableCache;
 import io.trino.spi.TrinoException;
 import io.trino.spi.resourcegroups.QueryType;
 import io.trino.sql.parser.ParsingException;
@@ -25,10 +29,16 @@ import io.trino.sql.tree.ExecuteImmediate;
 import io.trino.sql.tree.ExplainAnalyze;
 import io.trino.sql.tree.Expression;
 import io.trino.sql.tree.Statement;
+import jakarta.annotation.Nullable;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.trino.cache.SafeCaches.buildNonEvictableCache;
 import static io.trino.execution.ParameterExtractor.getParameterCount;
 import static io.trino.spi.StandardErrorCode.INVALID_PARAMETER_USAGE;
 import static io.trino.spi.StandardErrorCode.NOT_SUPPORTED;
@@ -42,10 +52,54 @@ public class QueryPreparer
 {
     private final SqlParser sqlParser;
 
-    @Inject
+    // Prepared statements are executed repeatedly with different parameters, so their parsed
+    // statements are cached, weighted by the length of the SQL text. Parameters are bound during
+    // analysis, so the statement can be shared. Analysis and planning are not cached.
+    @Nullable
+    private final NonEvictableCache<String, ParsedStatement> preparedStatementCache;
+    @Nullable
+    private final CacheStatsMBean preparedStatementCacheStats;
+    private final AtomicLong parsingTimeSavedNanos = new AtomicLong();
+
     public QueryPreparer(SqlParser sqlParser)
+    {
+        this(sqlParser, 0);
+    }
+
+    @Inject
+    public QueryPreparer(SqlParser sqlParser, QueryManagerConfig config)
+    {
+        this(sqlParser, config.getPreparedStatementCacheMaxLength());
+    }
+
+    public QueryPreparer(SqlParser sqlParser, int preparedStatementCacheMaxLength)
     {
         this.sqlParser = requireNonNull(sqlParser, "sqlParser is null");
+        checkArgument(preparedStatementCacheMaxLength >= 0, "preparedStatementCacheMaxLength is negative");
+        if (preparedStatementCacheMaxLength > 0) {
+            preparedStatementCache = buildNonEvictableCache(CacheBuilder.newBuilder()
+                    .recordStats()
+                    .maximumWeight(preparedStatementCacheMaxLength)
+                    .weigher((Weigher<String, ParsedStatement>) (sql, _) -> sql.length()));
+            preparedStatementCacheStats = new CacheStatsMBean(preparedStatementCache);
+        }
+        else {
+            preparedStatementCache = null;
+            preparedStatementCacheStats = null;
+        }
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getPreparedStatementCache()
+    {
+        return preparedStatementCacheStats;
+    }
+
+    @Managed(description = "Total parsing time of prepared statements that were found in the cache")
+    public long getParsingTimeSavedNanos()
+    {
+        return parsingTimeSavedNanos.get();
     }
 
     public PreparedQuery prepareQuery(Session session, String query)
@@ -62,7 +116,7 @@ public class QueryPreparer
         Optional<String> prepareSql = Optional.empty();
         if (statement instanceof Execute executeStatement) {
             prepareSql = Optional.of(session.getPreparedStatementFromExecute(executeStatement));
-            statement = sqlParser.createStatement(prepareSql.get());
+            statement = parsePreparedStatement(prepareSql.get());
         }
         else if (statement instanceof ExecuteImmediate executeImmediateStatement) {
             statement = sqlParser.createStatement(
@@ -89,6 +143,32 @@ public class QueryPreparer
         return new PreparedQuery(statement, parameters, prepareSql);
     }
 
+    private Statement parsePreparedStatement(String sql)
+    {
+        if (preparedStatementCache == null) {
+            return sqlParser.createStatement(sql);
+        }
+
+        ParsedStatement cached = preparedStatementCache.getIfPresent(sql);
+        if (cached != null) {
+            parsingTimeSavedNanos.addAndGet(cached.parsingNanos());
+            return cached.statement();
+        }
+
+        long start = System.nanoTime();
+        Statement statement = sqlParser.createStatement(sql);
+        preparedStatementCache.put(sql, new ParsedStatement(statement, System.nanoTime() - start));
+        return statement;
+    }
+
+    private record ParsedStatement(Statement statement, long parsingNanos)
+    {
+        private ParsedStatement
+        {
+            requireNonNull(statement, "statement is null");
+        }
+    }
+
     private static void validateParameters(Statement node, List<Expression> parameterValues)
     {
         int parameterCount = getParameterCount(node);
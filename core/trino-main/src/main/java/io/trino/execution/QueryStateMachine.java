@@ -1421,6 +1421,7 @@ public class QueryStateMachine
                 ImmutableList.of(), // Remove the tasks
                 ImmutableList.of(), // Remove the substages
                 ImmutableMap.of(), // Remove tables
+                ImmutableList.of(), // Remove join build side metrics
                 outputStage.getFailureCause()));
 
         return new QueryInfo(
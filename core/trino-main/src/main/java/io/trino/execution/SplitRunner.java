@@ -32,6 +32,15 @@ public interface SplitRunner
 
     String getInfo();
 
+    /**
+     * Raw {@link io.trino.spi.SplitWeight} of the work processed by this runner.
+     * Queued splits with a higher weight are started first.
+     */
+    default long getSplitWeight()
+    {
+        return 0;
+    }
+
     @Override
     void close();
 }
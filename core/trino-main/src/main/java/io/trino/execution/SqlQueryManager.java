@@ -27,6 +27,7 @@ import io.opentelemetry.context.Context;
 import io.trino.ExceededCpuLimitException;
 import io.trino.ExceededScanLimitException;
 import io.trino.Session;
+import io.trino.cost.HistoryBasedStatsRecorder;
 import io.trino.execution.QueryExecution.QueryOutputInfo;
 import io.trino.execution.StateMachine.StateChangeListener;
 import io.trino.memory.ClusterMemoryManager;
@@ -72,6 +73,7 @@ public class SqlQueryManager
 
     private final ClusterMemoryManager memoryManager;
     private final Tracer tracer;
+    private final HistoryBasedStatsRecorder historyBasedStatsRecorder;
     private final QueryTracker<QueryExecution> queryTracker;
 
     private final Duration maxQueryCpuTime;
@@ -84,10 +86,11 @@ public class SqlQueryManager
     private final ThreadPoolExecutorMBean queryManagementExecutorMBean;
 
     @Inject
-    public SqlQueryManager(ClusterMemoryManager memoryManager, Tracer tracer, QueryManagerConfig queryManagerConfig)
+    public SqlQueryManager(ClusterMemoryManager memoryManager, Tracer tracer, QueryManagerConfig queryManagerConfig, HistoryBasedStatsRecorder historyBasedStatsRecorder)
     {
         this.memoryManager = requireNonNull(memoryManager, "memoryManager is null");
         this.tracer = requireNonNull(tracer, "tracer is null");
+        this.historyBasedStatsRecorder = requireNonNull(historyBasedStatsRecorder, "historyBasedStatsRecorder is null");
 
         this.maxQueryCpuTime = queryManagerConfig.getQueryMaxCpuTime();
         this.maxQueryScanPhysicalBytes = queryManagerConfig.getQueryMaxScanPhysicalBytes();
@@ -264,6 +267,7 @@ public class SqlQueryManager
             // execution MUST be added to the expiration queue or there will be a leak
             queryTracker.expireQuery(queryExecution.getQueryId());
         });
+        queryExecution.addFinalQueryInfoListener(finalQueryInfo -> historyBasedStatsRecorder.queryCompleted(queryExecution.getSession(), finalQueryInfo));
 
         try (SetThreadName _ = new SetThreadName("Query-" + queryExecution.getQueryId())) {
             try (var ignoredStartScope = scopedSpan(tracer.spanBuilder("query-start")
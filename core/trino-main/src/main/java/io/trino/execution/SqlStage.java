@@ -289,6 +289,11 @@ public final class SqlStage
         stateMachine.recordSplitSourceMetrics(nodeId, metrics, start);
     }
 
+    public void recordJoinBuildSideMetrics(JoinBuildSideMetrics metrics)
+    {
+        stateMachine.recordJoinBuildSideMetrics(metrics);
+    }
+
     private void updateTaskStatus(TaskStatus status)
     {
         boolean isDone = status.getState().isDone();
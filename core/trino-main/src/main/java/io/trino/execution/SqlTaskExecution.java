@@ -72,6 +72,7 @@ import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.trino.SystemSessionProperties.getInitialSplitsPerNode;
 import static io.trino.SystemSessionProperties.getMaxDriversPerTask;
+import static io.trino.SystemSessionProperties.getResourceGroupCpuWeight;
 import static io.trino.SystemSessionProperties.getSplitConcurrencyAdjustmentInterval;
 import static io.trino.execution.SqlTaskExecution.SplitsState.ADDING_SPLITS;
 import static io.trino.execution.SqlTaskExecution.SplitsState.FINISHED;
@@ -224,7 +225,8 @@ public class SqlTaskExecution
                 outputBuffer::getUtilization,
                 getInitialSplitsPerNode(taskContext.getSession()),
                 getSplitConcurrencyAdjustmentInterval(taskContext.getSession()),
-                getMaxDriversPerTask(taskContext.getSession()));
+                getMaxDriversPerTask(taskContext.getSession()),
+                getResourceGroupCpuWeight(taskContext.getSession()));
         taskStateMachine.addStateChangeListener(state -> {
             if (state.isTerminatingOrDone()) {
                 if (!taskHandle.isDestroyed()) {
@@ -895,6 +897,12 @@ public class SqlTaskExecution
             return (partitionedSplit == null) ? "" : partitionedSplit.getSplit().toString();
         }
 
+        @Override
+        public long getSplitWeight()
+        {
+            return driverContext.getSplitWeight();
+        }
+
         @Override
         public void close()
         {
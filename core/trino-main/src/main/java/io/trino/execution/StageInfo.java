@@ -45,6 +45,7 @@ public class StageInfo
     private final List<StageInfo> subStages;
     private final ExecutionFailureInfo failureCause;
     private final Map<PlanNodeId, TableInfo> tables;
+    private final List<JoinBuildSideMetrics> joinBuildSideMetrics;
 
     @JsonCreator
     public StageInfo(
@@ -57,6 +58,7 @@ public class StageInfo
             @JsonProperty("tasks") List<TaskInfo> tasks,
             @JsonProperty("subStages") List<StageInfo> subStages,
             @JsonProperty("tables") Map<PlanNodeId, TableInfo> tables,
+            @JsonProperty("joinBuildSideMetrics") List<JoinBuildSideMetrics> joinBuildSideMetrics,
             @JsonProperty("failureCause") ExecutionFailureInfo failureCause)
     {
         requireNonNull(stageId, "stageId is null");
@@ -65,6 +67,7 @@ public class StageInfo
         requireNonNull(tasks, "tasks is null");
         requireNonNull(subStages, "subStages is null");
         requireNonNull(tables, "tables is null");
+        requireNonNull(joinBuildSideMetrics, "joinBuildSideMetrics is null");
 
         this.stageId = stageId;
         this.state = state;
@@ -76,6 +79,7 @@ public class StageInfo
         this.subStages = subStages;
         this.failureCause = failureCause;
         this.tables = ImmutableMap.copyOf(tables);
+        this.joinBuildSideMetrics = ImmutableList.copyOf(joinBuildSideMetrics);
     }
 
     @JsonProperty
@@ -133,6 +137,12 @@ public class StageInfo
         return tables;
     }
 
+    @JsonProperty
+    public List<JoinBuildSideMetrics> getJoinBuildSideMetrics()
+    {
+        return joinBuildSideMetrics;
+    }
+
     @JsonProperty
     public ExecutionFailureInfo getFailureCause()
     {
@@ -165,6 +175,7 @@ public class StageInfo
                 tasks,
                 subStages,
                 tables,
+                joinBuildSideMetrics,
                 failureCause);
     }
 
@@ -180,6 +191,7 @@ public class StageInfo
                 tasks.stream().map(TaskInfo::pruneDigests).collect(toImmutableList()),
                 subStages.stream().map(StageInfo::pruneDigests).collect(toImmutableList()),
                 tables,
+                joinBuildSideMetrics,
                 failureCause);
     }
 
@@ -195,6 +207,7 @@ public class StageInfo
                 ImmutableList.of(),
                 ImmutableList.of(),
                 ImmutableMap.of(),
+                ImmutableList.of(),
                 null);
     }
 
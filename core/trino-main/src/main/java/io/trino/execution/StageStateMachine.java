@@ -93,6 +93,7 @@ public class StageStateMachine
     private final AtomicReference<DateTime> schedulingComplete = new AtomicReference<>();
     private final Map<PlanNodeId, Distribution> getSplitDistribution = new ConcurrentHashMap<>();
     private final Map<PlanNodeId, Metrics> splitSourceMetrics = new ConcurrentHashMap<>();
+    private final Map<PlanNodeId, JoinBuildSideMetrics> joinBuildSideMetrics = new ConcurrentHashMap<>();
 
     private final AtomicLong peakUserMemory = new AtomicLong();
     private final AtomicLong peakRevocableMemory = new AtomicLong();
@@ -696,6 +697,7 @@ public class StageStateMachine
                 taskInfos,
                 ImmutableList.of(),
                 tables,
+                ImmutableList.copyOf(joinBuildSideMetrics.values()),
                 failureInfo);
     }
 
@@ -753,6 +755,11 @@ public class StageStateMachine
         splitSourceMetrics.put(nodeId, metrics);
     }
 
+    public void recordJoinBuildSideMetrics(JoinBuildSideMetrics metrics)
+    {
+        joinBuildSideMetrics.put(metrics.joinNodeId(), metrics);
+    }
+
     @Override
     public String toString()
     {
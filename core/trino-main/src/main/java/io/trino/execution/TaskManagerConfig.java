@@ -51,6 +51,9 @@ public class TaskManagerConfig
     public static final int MAX_WRITER_COUNT = 64;
 
     private boolean threadPerDriverSchedulerEnabled = true;
+    private boolean threadPerDriverSchedulerVirtualThreadsEnabled;
+    private Integer threadPerDriverSchedulerVirtualThreadsMaxRunningDrivers;
+    private boolean threadPerDriverSchedulerNumaAwareEnabled;
     private boolean perOperatorCpuTimerEnabled = true;
     private boolean taskCpuTimerEnabled = true;
     private boolean statisticsCpuTimerEnabled = true;
@@ -121,6 +124,49 @@ public class TaskManagerConfig
         return threadPerDriverSchedulerEnabled;
     }
 
+    @Config("experimental.thread-per-driver-scheduler-virtual-threads-enabled")
+    @ConfigDescription("Run drivers of the thread per driver scheduler on virtual threads, so that drivers blocked on I/O do not hold a platform thread")
+    public TaskManagerConfig setThreadPerDriverSchedulerVirtualThreadsEnabled(boolean enabled)
+    {
+        this.threadPerDriverSchedulerVirtualThreadsEnabled = enabled;
+        return this;
+    }
+
+    public boolean isThreadPerDriverSchedulerVirtualThreadsEnabled()
+    {
+        return threadPerDriverSchedulerVirtualThreadsEnabled;
+    }
+
+    @Min(1)
+    public int getThreadPerDriverSchedulerVirtualThreadsMaxRunningDrivers()
+    {
+        if (threadPerDriverSchedulerVirtualThreadsMaxRunningDrivers == null) {
+            return 4 * maxWorkerThreads;
+        }
+        return threadPerDriverSchedulerVirtualThreadsMaxRunningDrivers;
+    }
+
+    @Config("experimental.thread-per-driver-scheduler-virtual-threads-max-running-drivers")
+    @ConfigDescription("Maximum number of drivers running at the same time on virtual threads, used instead of task.max-worker-threads when virtual threads are enabled")
+    public TaskManagerConfig setThreadPerDriverSchedulerVirtualThreadsMaxRunningDrivers(int maxRunningDrivers)
+    {
+        this.threadPerDriverSchedulerVirtualThreadsMaxRunningDrivers = maxRunningDrivers;
+        return this;
+    }
+
+    @Config("experimental.thread-per-driver-scheduler-numa-aware-enabled")
+    @ConfigDescription("Place each task on a single NUMA node, running its drivers on the CPUs of that node while the node has available slots")
+    public TaskManagerConfig setThreadPerDriverSchedulerNumaAwareEnabled(boolean enabled)
+    {
+        this.threadPerDriverSchedulerNumaAwareEnabled = enabled;
+        return this;
+    }
+
+    public boolean isThreadPerDriverSchedulerNumaAwareEnabled()
+    {
+        return threadPerDriverSchedulerNumaAwareEnabled;
+    }
+
     @MinDuration("1ms")
     @MaxDuration("60s")
     @NotNull
@@ -14,13 +14,16 @@
 package io.trino.execution.buffer;
 
 import com.google.common.base.VerifyException;
+import com.google.common.collect.ImmutableMap;
 import io.airlift.compress.v3.Decompressor;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.Slices;
+import io.trino.plugin.base.metrics.LongCount;
 import io.trino.spi.Page;
 import io.trino.spi.TrinoException;
 import io.trino.spi.block.BlockEncodingSerde;
+import io.trino.spi.metrics.Metrics;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
@@ -43,6 +46,7 @@ import static io.trino.execution.buffer.PagesSerdeUtil.SERIALIZED_PAGE_CIPHER_NA
 import static io.trino.execution.buffer.PagesSerdeUtil.SERIALIZED_PAGE_COMPRESSED_BLOCK_MASK;
 import static io.trino.execution.buffer.PagesSerdeUtil.SERIALIZED_PAGE_HEADER_SIZE;
 import static io.trino.execution.buffer.PagesSerdeUtil.getSerializedPagePositionCount;
+import static io.trino.execution.buffer.PagesSerdeUtil.getSerializedPageUncompressedSizeInBytes;
 import static io.trino.execution.buffer.PagesSerdeUtil.readRawPage;
 import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.trino.util.Ciphers.is256BitSecretKeySpec;
@@ -59,6 +63,9 @@ public class CompressingDecryptingPageDeserializer
     private final BlockEncodingSerde blockEncodingSerde;
     private final SerializedPageInput input;
 
+    private long copiedBytes;
+    private long sharedBytes;
+
     public CompressingDecryptingPageDeserializer(
             BlockEncodingSerde blockEncodingSerde,
             Optional<Decompressor> decompressor,
@@ -83,10 +90,20 @@ public class CompressingDecryptingPageDeserializer
     {
         int positionCount = input.startPage(serializedPage);
         Page page = readRawPage(positionCount, input, blockEncodingSerde);
-        input.finishPage();
+        long pageSharedBytes = input.finishPage();
+        sharedBytes += pageSharedBytes;
+        copiedBytes += getSerializedPageUncompressedSizeInBytes(serializedPage) - pageSharedBytes;
         return page;
     }
 
+    @Override
+    public Metrics getMetrics()
+    {
+        return new Metrics(ImmutableMap.of(
+                "exchangeDeserializerCopiedBytes", new LongCount(copiedBytes),
+                "exchangeDeserializerSharedBytes", new LongCount(sharedBytes)));
+    }
+
     @Override
     public long getRetainedSizeInBytes()
     {
@@ -106,6 +123,10 @@ public class CompressingDecryptingPageDeserializer
 
         private final ReadBuffer[] buffers;
 
+        private boolean pageShareable;
+        private int pageSizeInBytes;
+        private long pageSharedBytes;
+
         private SerializedPageInput(Optional<Decompressor> decompressor, int decompressorRetainedSize, Optional<SecretKey> encryptionKey, int blockSizeInBytes, OptionalInt maxCompressedBlockSizeInBytes)
         {
             this.decompressor = requireNonNull(decompressor, "decompressor is null");
@@ -160,6 +181,12 @@ public class CompressingDecryptingPageDeserializer
             ReadBuffer buffer = new ReadBuffer(page);
             buffer.setPosition(SERIALIZED_PAGE_HEADER_SIZE);
             buffers[buffers.length - 1] = buffer;
+            // When the page is neither compressed nor encrypted, the input buffer is the received page itself.
+            // Pages received by the direct exchange own their whole byte array, which is never modified,
+            // so values can be returned as views over it instead of being copied.
+            pageShareable = buffers.length == 1 && page.byteArrayOffset() == 0 && page.length() == page.byteArray().length;
+            pageSizeInBytes = page.length();
+            pageSharedBytes = 0;
             return positionCount;
         }
 
@@ -438,7 +465,10 @@ public class CompressingDecryptingPageDeserializer
             return (compressedBlockMarker & SERIALIZED_PAGE_COMPRESSED_BLOCK_MASK) == SERIALIZED_PAGE_COMPRESSED_BLOCK_MASK;
         }
 
-        public void finishPage()
+        /**
+         * @return number of bytes of the page shared with the deserialized blocks instead of being copied
+         */
+        public long finishPage()
         {
             buffers[buffers.length - 1] = null;
             for (ReadBuffer buffer : buffers) {
@@ -447,6 +477,7 @@ public class CompressingDecryptingPageDeserializer
                     buffer.setLimit(buffer.getSlice().length());
                 }
             }
+            return pageSharedBytes;
         }
 
         @Override
@@ -470,6 +501,12 @@ public class CompressingDecryptingPageDeserializer
         @Override
         public Slice readSlice(int length)
         {
+            // A view retains the whole page, so it is only used when it covers at least half of it,
+            // which also guarantees that at most one block of a page retains it
+            if (pageShareable && length >= pageSizeInBytes / 2 && buffers[0].available() >= length) {
+                pageSharedBytes += length;
+                return buffers[0].readSlice(length);
+            }
             Slice slice = Slices.allocate(length);
             readBytes(slice, 0, length);
             return slice;
@@ -683,6 +720,13 @@ public class CompressingDecryptingPageDeserializer
             position += length;
         }
 
+        public Slice readSlice(int length)
+        {
+            Slice value = slice.slice(position, length);
+            position += length;
+            return value;
+        }
+
         public long getRetainedSizeInBytes()
         {
             return INSTANCE_SIZE + slice.getRetainedSize();
@@ -51,6 +51,7 @@ import static io.trino.execution.buffer.PagesSerdeUtil.SERIALIZED_PAGE_UNCOMPRES
 import static io.trino.execution.buffer.PagesSerdeUtil.writeRawPage;
 import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.trino.util.Ciphers.is256BitSecretKeySpec;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.Math.round;
 import static java.lang.Math.toIntExact;
@@ -108,6 +109,7 @@ public class CompressingEncryptingPageSerializer
         Metrics finalMetrics = getMetrics();
         inputBytes = 0;
         outputBytes = 0;
+        output.resetCompressionSkippedBytes();
         return finalMetrics;
     }
 
@@ -116,7 +118,8 @@ public class CompressingEncryptingPageSerializer
     {
         return new Metrics(ImmutableMap.of(
                 "exchangeSerializerInputBytes", new LongCount(inputBytes),
-                "exchangeSerializerOutputBytes", new LongCount(outputBytes)));
+                "exchangeSerializerOutputBytes", new LongCount(outputBytes),
+                "exchangeSerializerCompressionSkippedBytes", new LongCount(output.getCompressionSkippedBytes())));
     }
 
     private static class SerializedPageOutput
@@ -126,6 +129,7 @@ public class CompressingEncryptingPageSerializer
         private static final int ENCRYPTION_KEY_RETAINED_SIZE = toIntExact(instanceSize(SecretKeySpec.class) + sizeOfByteArray(256 / 8));
 
         private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+        private static final int MAX_COMPRESSION_SKIPPED_BLOCKS = 128;
 
         private final Optional<Compressor> compressor;
         private final Optional<SecretKey> encryptionKey;
@@ -135,6 +139,12 @@ public class CompressingEncryptingPageSerializer
         private final WriteBuffer[] buffers;
         private int uncompressedSize;
 
+        // number of blocks to write uncompressed without trying to compress them, after the last attempt
+        // did not reach the minimum compression ratio; doubled after every unsuccessful attempt
+        private int compressionSkippedBlocks;
+        private int remainingCompressionSkippedBlocks;
+        private long compressionSkippedBytes;
+
         private SerializedPageOutput(
                 Optional<Compressor> compressor,
                 Optional<SecretKey> encryptionKey,
@@ -410,15 +420,29 @@ public class CompressingEncryptingPageSerializer
             sinkBuffer.ensureCapacityFor(maxCompressedLength + Integer.BYTES);
 
             int uncompressedSize = sourceBuffer.getPosition();
-            int compressedSize = compressor.compress(
-                    sourceBuffer.getSlice().byteArray(),
-                    sourceBuffer.getSlice().byteArrayOffset(),
-                    uncompressedSize,
-                    sinkBuffer.getSlice().byteArray(),
-                    sinkBuffer.getSlice().byteArrayOffset() + sinkBuffer.getPosition() + Integer.BYTES,
-                    maxCompressedLength);
-
-            boolean compressed = uncompressedSize * MINIMUM_COMPRESSION_RATIO > compressedSize;
+            boolean compressed;
+            int compressedSize = 0;
+            if (remainingCompressionSkippedBlocks > 0) {
+                // recent data did not compress well, do not waste CPU on compressing it
+                remainingCompressionSkippedBlocks--;
+                compressionSkippedBytes += uncompressedSize;
+                compressed = false;
+            }
+            else {
+                compressedSize = compressor.compress(
+                        sourceBuffer.getSlice().byteArray(),
+                        sourceBuffer.getSlice().byteArrayOffset(),
+                        uncompressedSize,
+                        sinkBuffer.getSlice().byteArray(),
+                        sinkBuffer.getSlice().byteArrayOffset() + sinkBuffer.getPosition() + Integer.BYTES,
+                        maxCompressedLength);
+                compressed = uncompressedSize * MINIMUM_COMPRESSION_RATIO > compressedSize;
+                if (uncompressedSize > 0) {
+                    compressionSkippedBlocks = compressed ? 0 : min(max(compressionSkippedBlocks * 2, 1), MAX_COMPRESSION_SKIPPED_BLOCKS);
+                    remainingCompressionSkippedBlocks = compressionSkippedBlocks;
+                }
+            }
+
             int blockSize;
             if (!compressed) {
                 System.arraycopy(
@@ -439,6 +463,16 @@ public class CompressingEncryptingPageSerializer
             sourceBuffer.reset();
         }
 
+        public long getCompressionSkippedBytes()
+        {
+            return compressionSkippedBytes;
+        }
+
+        public void resetCompressionSkippedBytes()
+        {
+            compressionSkippedBytes = 0;
+        }
+
         private static int createBlockMarker(boolean compressed, int size)
         {
             if (compressed) {
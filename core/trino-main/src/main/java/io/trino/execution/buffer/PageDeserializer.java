@@ -15,10 +15,16 @@ package io.trino.execution.buffer;
 
 import io.airlift.slice.Slice;
 import io.trino.spi.Page;
+import io.trino.spi.metrics.Metrics;
 
 public interface PageDeserializer
 {
     Page deserialize(Slice slice);
 
     long getRetainedSizeInBytes();
+
+    default Metrics getMetrics()
+    {
+        return Metrics.EMPTY;
+    }
 }
@@ -33,6 +33,22 @@ public interface TaskExecutor
             Duration splitConcurrencyAdjustFrequency,
             OptionalInt maxDriversPerTask);
 
+    /**
+     * Adds a task whose drivers are prioritized according to the CPU weight of its resource group.
+     * A task with a higher weight receives a proportionally larger share of the CPU under contention.
+     * Executors that do not prioritize tasks ignore the weight.
+     */
+    default TaskHandle addTask(
+            TaskId taskId,
+            DoubleSupplier utilizationSupplier,
+            int initialSplitConcurrency,
+            Duration splitConcurrencyAdjustFrequency,
+            OptionalInt maxDriversPerTask,
+            int cpuWeight)
+    {
+        return addTask(taskId, utilizationSupplier, initialSplitConcurrency, splitConcurrencyAdjustFrequency, maxDriversPerTask);
+    }
+
     void removeTask(TaskHandle taskHandle);
 
     List<ListenableFuture<Void>> enqueueSplits(TaskHandle taskHandle, boolean intermediate, List<? extends SplitRunner> taskSplits);
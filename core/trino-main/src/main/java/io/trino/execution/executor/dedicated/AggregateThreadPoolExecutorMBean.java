@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.executor.dedicated;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.concurrent.ThreadPoolExecutorMBean;
+import org.weakref.jmx.Managed;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Stats of thread pool executors, such as the executors of all NUMA nodes, summed across the executors.
+ * There is no executor of tasks when tasks run on virtual threads, as virtual threads are not pooled.
+ */
+public class AggregateThreadPoolExecutorMBean
+{
+    private final List<ThreadPoolExecutorMBean> executors;
+
+    public AggregateThreadPoolExecutorMBean(List<ThreadPoolExecutorMBean> executors)
+    {
+        this.executors = ImmutableList.copyOf(executors);
+    }
+
+    @Managed
+    public int getExecutorCount()
+    {
+        return executors.size();
+    }
+
+    @Managed
+    public long getCorePoolSize()
+    {
+        return sum(ThreadPoolExecutorMBean::getCorePoolSize);
+    }
+
+    @Managed
+    public long getMaximumPoolSize()
+    {
+        return sum(ThreadPoolExecutorMBean::getMaximumPoolSize);
+    }
+
+    @Managed
+    public long getPoolSize()
+    {
+        return sum(ThreadPoolExecutorMBean::getPoolSize);
+    }
+
+    @Managed
+    public long getActiveCount()
+    {
+        return sum(ThreadPoolExecutorMBean::getActiveCount);
+    }
+
+    @Managed(description = "Sum of the largest pool size of each executor")
+    public long getLargestPoolSize()
+    {
+        return sum(ThreadPoolExecutorMBean::getLargestPoolSize);
+    }
+
+    @Managed
+    public long getTaskCount()
+    {
+        return sum(ThreadPoolExecutorMBean::getTaskCount);
+    }
+
+    @Managed
+    public long getCompletedTaskCount()
+    {
+        return sum(ThreadPoolExecutorMBean::getCompletedTaskCount);
+    }
+
+    @Managed
+    public long getQueuedTaskCount()
+    {
+        return sum(ThreadPoolExecutorMBean::getQueuedTaskCount);
+    }
+
+    private long sum(ToLongFunction<ThreadPoolExecutorMBean> stat)
+    {
+        return executors.stream()
+                .mapToLong(stat)
+                .sum();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.executor.dedicated;
+
+import io.trino.execution.executor.scheduler.FairScheduler;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Scheduler running the drivers of the tasks placed on one NUMA node.
+ */
+public class NumaNode
+{
+    private final int id;
+    private final int cpuCount;
+    private final FairScheduler scheduler;
+    private final AggregateThreadPoolExecutorMBean taskExecutorMBean;
+    private final AtomicInteger tasks = new AtomicInteger();
+
+    public NumaNode(int id, int cpuCount, FairScheduler scheduler)
+    {
+        this.id = id;
+        this.cpuCount = cpuCount;
+        this.scheduler = requireNonNull(scheduler, "scheduler is null");
+        this.taskExecutorMBean = new AggregateThreadPoolExecutorMBean(scheduler.getTaskExecutor().stream().toList());
+    }
+
+    public int id()
+    {
+        return id;
+    }
+
+    public FairScheduler scheduler()
+    {
+        return scheduler;
+    }
+
+    void taskAdded()
+    {
+        tasks.incrementAndGet();
+    }
+
+    void taskRemoved()
+    {
+        tasks.decrementAndGet();
+    }
+
+    @Managed
+    public int getCpuCount()
+    {
+        return cpuCount;
+    }
+
+    @Managed
+    public int getTasks()
+    {
+        return tasks.get();
+    }
+
+    @Managed
+    public int getConcurrencyControlTotalSlots()
+    {
+        return scheduler.getConcurrencyControlTotalSlots();
+    }
+
+    @Managed
+    public int getConcurrencyControlAvailableSlots()
+    {
+        return scheduler.getConcurrencyControlAvailableSlots();
+    }
+
+    @Managed(description = "Fraction of the concurrency slots in use")
+    public double getUtilization()
+    {
+        int totalSlots = scheduler.getConcurrencyControlTotalSlots();
+        return (double) (totalSlots - scheduler.getConcurrencyControlAvailableSlots()) / totalSlots;
+    }
+
+    @Managed(description = "Task executor")
+    @Nested
+    public AggregateThreadPoolExecutorMBean getTaskExecutor()
+    {
+        return taskExecutorMBean;
+    }
+}
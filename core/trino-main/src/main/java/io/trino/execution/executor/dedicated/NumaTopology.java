@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.executor.dedicated;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import io.airlift.log.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * CPUs of the NUMA nodes of the machine, as reported by Linux in {@code /sys/devices/system/node}.
+ * Nodes without CPUs (memory only nodes) are skipped.
+ */
+public record NumaTopology(List<SortedSet<Integer>> nodeCpus)
+{
+    private static final Logger log = Logger.get(NumaTopology.class);
+
+    private static final Path NODES_DIRECTORY = Paths.get("/sys/devices/system/node");
+    private static final Pattern NODE_DIRECTORY_NAME = Pattern.compile("node(\\d+)");
+
+    public NumaTopology
+    {
+        nodeCpus = ImmutableList.copyOf(requireNonNull(nodeCpus, "nodeCpus is null"));
+    }
+
+    public static NumaTopology discover()
+    {
+        try {
+            return discover(NODES_DIRECTORY);
+        }
+        catch (RuntimeException e) {
+            log.warn(e, "Failed to discover NUMA topology from %s", NODES_DIRECTORY);
+            return new NumaTopology(ImmutableList.of());
+        }
+    }
+
+    @VisibleForTesting
+    static NumaTopology discover(Path nodesDirectory)
+    {
+        if (!Files.isDirectory(nodesDirectory)) {
+            return new NumaTopology(ImmutableList.of());
+        }
+
+        try (Stream<Path> paths = Files.list(nodesDirectory)) {
+            List<Path> nodeDirectories = paths
+                    .filter(path -> NODE_DIRECTORY_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingInt(NumaTopology::nodeNumber))
+                    .collect(toImmutableList());
+
+            ImmutableList.Builder<SortedSet<Integer>> nodeCpus = ImmutableList.builder();
+            for (Path nodeDirectory : nodeDirectories) {
+                SortedSet<Integer> cpus = parseCpuList(Files.readString(nodeDirectory.resolve("cpulist"), UTF_8));
+                if (!cpus.isEmpty()) {
+                    nodeCpus.add(cpus);
+                }
+            }
+            return new NumaTopology(nodeCpus.build());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses a Linux CPU list, like {@code 0-3,8,10-11}.
+     */
+    @VisibleForTesting
+    static SortedSet<Integer> parseCpuList(String cpuList)
+    {
+        ImmutableSortedSet.Builder<Integer> cpus = ImmutableSortedSet.naturalOrder();
+        for (String range : Splitter.on(',').trimResults().omitEmptyStrings().split(cpuList)) {
+            int separator = range.indexOf('-');
+            if (separator < 0) {
+                cpus.add(Integer.parseInt(range));
+                continue;
+            }
+            int first = Integer.parseInt(range.substring(0, separator));
+            int last = Integer.parseInt(range.substring(separator + 1));
+            checkArgument(first <= last, "Invalid CPU range: %s", range);
+            for (int cpu = first; cpu <= last; cpu++) {
+                cpus.add(cpu);
+            }
+        }
+        return cpus.build();
+    }
+
+    public int nodeCount()
+    {
+        return nodeCpus.size();
+    }
+
+    public int totalCpuCount()
+    {
+        return nodeCpus.stream()
+                .mapToInt(SortedSet::size)
+                .sum();
+    }
+
+    private static int nodeNumber(Path nodeDirectory)
+    {
+        Matcher matcher = NODE_DIRECTORY_NAME.matcher(nodeDirectory.getFileName().toString());
+        checkArgument(matcher.matches(), "Not a NUMA node directory: %s", nodeDirectory);
+        return Integer.parseInt(matcher.group(1));
+    }
+}
@@ -27,7 +27,9 @@ import io.trino.execution.executor.scheduler.SchedulerContext;
 import io.trino.spi.VersionEmbedder;
 
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -40,7 +42,6 @@ class TaskEntry
         implements TaskHandle
 {
     private final TaskId taskId;
-    private final Group group;
     private final FairScheduler scheduler;
     private final VersionEmbedder versionEmbedder;
     private final Tracer tracer;
@@ -50,6 +51,10 @@ class TaskEntry
     @GuardedBy("this")
     private final ConcurrencyController concurrency;
 
+    // groups of the task in each scheduler running its drivers, the first one being the scheduler of the task
+    @GuardedBy("this")
+    private final Map<FairScheduler, Group> groups = new LinkedHashMap<>();
+
     private volatile boolean destroyed;
 
     @GuardedBy("this")
@@ -69,7 +74,7 @@ class TaskEntry
         this.tracer = requireNonNull(tracer, "tracer is null");
         this.utilization = requireNonNull(utilization, "utilization is null");
 
-        this.group = scheduler.createGroup(taskId.toString());
+        groups.put(scheduler, scheduler.createGroup(taskId.toString()));
         this.concurrency = new ConcurrencyController(initialConcurrency);
     }
 
@@ -80,7 +85,8 @@ class TaskEntry
 
     public synchronized void destroy()
     {
-        scheduler.removeGroup(group);
+        groups.forEach(FairScheduler::removeGroup);
+        groups.clear();
 
         destroyed = true;
 
@@ -107,13 +113,24 @@ class TaskEntry
      * @return true if a split was scheduled; false if no splits are pending
      */
     public synchronized boolean dequeueAndRunLeafSplit(Runnable doneCallback)
+    {
+        return dequeueAndRunLeafSplit(scheduler, doneCallback);
+    }
+
+    /**
+     * Runs the split on the given scheduler, which can differ from the scheduler of the task
+     * when the split overflows to another NUMA node.
+     *
+     * @return true if a split was scheduled; false if no splits are pending
+     */
+    public synchronized boolean dequeueAndRunLeafSplit(FairScheduler scheduler, Runnable doneCallback)
     {
         QueuedSplit split = pending.poll();
         if (split == null) {
             return false;
         }
 
-        runSplit(split.split())
+        runSplit(scheduler, split.split())
                 .addListener(() -> {
                     leafSplitDone(split);
                     doneCallback.run();
@@ -131,8 +148,14 @@ class TaskEntry
     }
 
     public synchronized ListenableFuture<Void> runSplit(SplitRunner split)
+    {
+        return runSplit(scheduler, split);
+    }
+
+    private synchronized ListenableFuture<Void> runSplit(FairScheduler scheduler, SplitRunner split)
     {
         int splitId = nextSplitId();
+        Group group = groups.computeIfAbsent(scheduler, _ -> scheduler.createGroup(taskId.toString()));
         ListenableFuture<Void> done = scheduler.submit(
                 group,
                 splitId,
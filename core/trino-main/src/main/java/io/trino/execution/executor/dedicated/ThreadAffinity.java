@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.executor.dedicated;
+
+import com.google.common.base.StandardSystemProperty;
+import io.airlift.log.Logger;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandle;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.concurrent.ThreadFactory;
+
+import static java.lang.Math.max;
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Restricts threads to a set of CPUs with the Linux {@code sched_setaffinity} call.
+ * On other platforms, or when native access is not permitted, threads are left unpinned.
+ */
+final class ThreadAffinity
+{
+    private static final Logger log = Logger.get(ThreadAffinity.class);
+
+    // size of the cpu_set_t of glibc, in 64-bit words
+    private static final int CPU_SET_WORDS = 1024 / Long.SIZE;
+
+    private static final Optional<MethodHandle> SCHED_SETAFFINITY = lookupSchedSetAffinity();
+
+    private ThreadAffinity() {}
+
+    public static ThreadFactory pinnedThreads(ThreadFactory delegate, SortedSet<Integer> cpus)
+    {
+        requireNonNull(delegate, "delegate is null");
+        requireNonNull(cpus, "cpus is null");
+        return runnable -> delegate.newThread(() -> {
+            pinCurrentThread(cpus);
+            runnable.run();
+        });
+    }
+
+    /**
+     * @return true if the current thread was restricted to the given CPUs
+     */
+    public static boolean pinCurrentThread(SortedSet<Integer> cpus)
+    {
+        if (SCHED_SETAFFINITY.isEmpty() || cpus.isEmpty()) {
+            return false;
+        }
+
+        long[] mask = new long[max(CPU_SET_WORDS, cpus.last() / Long.SIZE + 1)];
+        for (int cpu : cpus) {
+            mask[cpu / Long.SIZE] |= 1L << (cpu % Long.SIZE);
+        }
+
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment cpuSet = arena.allocateFrom(JAVA_LONG, mask);
+            // pid 0 is the calling thread
+            int result = (int) SCHED_SETAFFINITY.get().invokeExact(0, cpuSet.byteSize(), cpuSet);
+            if (result != 0) {
+                log.debug("Failed to set affinity of thread %s to CPUs %s", Thread.currentThread().getName(), cpus);
+                return false;
+            }
+            return true;
+        }
+        catch (Throwable e) {
+            log.debug(e, "Failed to set affinity of thread %s to CPUs %s", Thread.currentThread().getName(), cpus);
+            return false;
+        }
+    }
+
+    private static Optional<MethodHandle> lookupSchedSetAffinity()
+    {
+        if (!"Linux".equals(StandardSystemProperty.OS_NAME.value())) {
+            return Optional.empty();
+        }
+        try {
+            Linker linker = Linker.nativeLinker();
+            return linker.defaultLookup().find("sched_setaffinity")
+                    .map(address -> linker.downcallHandle(address, FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_LONG, ADDRESS)));
+        }
+        catch (RuntimeException e) {
+            log.warn(e, "Native access is not available, threads will not be pinned to CPUs");
+            return Optional.empty();
+        }
+    }
+}
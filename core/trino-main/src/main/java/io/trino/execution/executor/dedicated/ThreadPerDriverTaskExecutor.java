@@ -15,12 +15,12 @@ package io.trino.execution.executor.dedicated;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.errorprone.annotations.ThreadSafe;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
 import com.google.inject.Inject;
-import io.airlift.concurrent.ThreadPoolExecutorMBean;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import io.opentelemetry.api.trace.Tracer;
@@ -39,19 +39,23 @@ import org.weakref.jmx.Nested;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
 import java.util.Queue;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.DoubleSupplier;
 import java.util.function.Predicate;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.trino.execution.executor.dedicated.ThreadAffinity.pinnedThreads;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.util.Objects.requireNonNull;
@@ -62,51 +66,122 @@ public class ThreadPerDriverTaskExecutor
 {
     private static final Logger LOG = Logger.get(ThreadPerDriverTaskExecutor.class);
 
-    private final FairScheduler scheduler;
+    private final List<NumaNode> nodes;
     private final Tracer tracer;
     private final VersionEmbedder versionEmbedder;
     private final int targetGlobalLeafDrivers;
     private final int minDriversPerTask;
     private final int maxDriversPerTask;
     private final ScheduledThreadPoolExecutor backgroundTasks = new ScheduledThreadPoolExecutor(2, daemonThreadsNamed("task-executor-scheduler-%s"));
+    private final AggregateThreadPoolExecutorMBean schedulerExecutorMBean;
+    private final AggregateThreadPoolExecutorMBean taskExecutorMBean;
 
     @GuardedBy("this")
     private final Map<TaskId, TaskEntry> tasks = new HashMap<>();
 
+    @GuardedBy("this")
+    private final Map<TaskId, NumaNode> taskNodes = new HashMap<>();
+
     @GuardedBy("this")
     private boolean closed;
 
     @GuardedBy("this")
     private int runningLeafDrivers;
 
+    @GuardedBy("this")
+    private long overflowedLeafDrivers;
+
     @Inject
     public ThreadPerDriverTaskExecutor(TaskManagerConfig config, Tracer tracer, VersionEmbedder versionEmbedder)
     {
         this(
                 tracer,
                 versionEmbedder,
-                new FairScheduler(config.getMaxWorkerThreads(), "SplitRunner-%d", Ticker.systemTicker()),
+                createNodes(config),
                 config.getMinDriversPerTask(),
                 config.getMaxDriversPerTask(),
-                config.getMinDrivers());
+                targetGlobalLeafDrivers(config));
     }
 
     @VisibleForTesting
     public ThreadPerDriverTaskExecutor(Tracer tracer, VersionEmbedder versionEmbedder, FairScheduler scheduler, int minDriversPerTask, int maxDriversPerTask, int targetGlobalLeafDrivers)
     {
-        this.scheduler = scheduler;
+        this(
+                tracer,
+                versionEmbedder,
+                ImmutableList.of(new NumaNode(0, Runtime.getRuntime().availableProcessors(), scheduler)),
+                minDriversPerTask,
+                maxDriversPerTask,
+                targetGlobalLeafDrivers);
+    }
+
+    @VisibleForTesting
+    ThreadPerDriverTaskExecutor(Tracer tracer, VersionEmbedder versionEmbedder, List<NumaNode> nodes, int minDriversPerTask, int maxDriversPerTask, int targetGlobalLeafDrivers)
+    {
+        this.nodes = ImmutableList.copyOf(nodes);
+        checkArgument(!this.nodes.isEmpty(), "nodes is empty");
         this.tracer = requireNonNull(tracer, "tracer is null");
         this.versionEmbedder = requireNonNull(versionEmbedder, "versionEmbedder is null");
         this.minDriversPerTask = minDriversPerTask;
         this.maxDriversPerTask = maxDriversPerTask;
         this.targetGlobalLeafDrivers = targetGlobalLeafDrivers;
+        this.schedulerExecutorMBean = new AggregateThreadPoolExecutorMBean(this.nodes.stream()
+                .map(node -> node.scheduler().getSchedulerExecutor())
+                .collect(toImmutableList()));
+        this.taskExecutorMBean = new AggregateThreadPoolExecutorMBean(this.nodes.stream()
+                .flatMap(node -> node.scheduler().getTaskExecutor().stream())
+                .collect(toImmutableList()));
+    }
+
+    private static int targetGlobalLeafDrivers(TaskManagerConfig config)
+    {
+        if (config.isThreadPerDriverSchedulerVirtualThreadsEnabled()) {
+            // keep enough leaf drivers queued to use the running drivers not limited by platform threads
+            return max(config.getMinDrivers(), config.getThreadPerDriverSchedulerVirtualThreadsMaxRunningDrivers());
+        }
+        return config.getMinDrivers();
+    }
+
+    private static List<NumaNode> createNodes(TaskManagerConfig config)
+    {
+        boolean virtualThreads = config.isThreadPerDriverSchedulerVirtualThreadsEnabled();
+        // drivers blocked on I/O in a virtual thread do not hold a platform thread, so their number is not limited by the worker threads
+        int maxRunningDrivers = virtualThreads ? config.getThreadPerDriverSchedulerVirtualThreadsMaxRunningDrivers() : config.getMaxWorkerThreads();
+        NumaTopology topology = config.isThreadPerDriverSchedulerNumaAwareEnabled() ? NumaTopology.discover() : new NumaTopology(ImmutableList.of());
+        if (topology.nodeCount() <= 1) {
+            if (config.isThreadPerDriverSchedulerNumaAwareEnabled()) {
+                LOG.info("Found %s NUMA nodes with CPUs, drivers are not placed by NUMA node", topology.nodeCount());
+            }
+            return ImmutableList.of(new NumaNode(
+                    0,
+                    Runtime.getRuntime().availableProcessors(),
+                    new FairScheduler(maxRunningDrivers, "SplitRunner-%d", virtualThreads, Ticker.systemTicker())));
+        }
+
+        if (virtualThreads) {
+            // carrier threads of virtual threads are shared by the whole JVM
+            LOG.warn("Virtual threads are enabled, drivers are placed by NUMA node but not pinned to its CPUs");
+        }
+
+        ImmutableList.Builder<NumaNode> nodes = ImmutableList.builder();
+        for (int node = 0; node < topology.nodeCount(); node++) {
+            SortedSet<Integer> cpus = topology.nodeCpus().get(node);
+            // split the running drivers between the nodes in proportion to their CPUs
+            int concurrency = max(1, maxRunningDrivers * cpus.size() / topology.totalCpuCount());
+            String threadNameFormat = "SplitRunner-node" + node + "-%d";
+            FairScheduler scheduler = virtualThreads
+                    ? new FairScheduler(concurrency, threadNameFormat, true, Ticker.systemTicker())
+                    : new FairScheduler(concurrency, pinnedThreads(daemonThreadsNamed(threadNameFormat), cpus), Ticker.systemTicker());
+            nodes.add(new NumaNode(node, cpus.size(), scheduler));
+        }
+        return nodes.build();
     }
 
     @PostConstruct
     @Override
     public synchronized void start()
     {
-        scheduler.start();
+        nodes.forEach(node -> node.scheduler().start());
         backgroundTasks.scheduleWithFixedDelay(this::scheduleMoreLeafSplits, 0, 100, TimeUnit.MILLISECONDS);
         backgroundTasks.scheduleWithFixedDelay(this::adjustConcurrency, 0, 10, TimeUnit.MILLISECONDS);
         backgroundTasks.scheduleWithFixedDelay(this::logDiagnostics, 0, 30, TimeUnit.SECONDS);
@@ -119,7 +194,7 @@ public class ThreadPerDriverTaskExecutor
         closed = true;
         tasks.values().forEach(TaskEntry::destroy);
         backgroundTasks.shutdownNow();
-        scheduler.close();
+        nodes.forEach(node -> node.scheduler().close());
     }
 
     @Override
@@ -131,14 +206,20 @@ public class ThreadPerDriverTaskExecutor
             OptionalInt maxDriversPerTask)
     {
         checkArgument(!closed, "Executor is already closed");
+        // all drivers of a task, including the ones exchanging data through local exchanges, run on the same node
+        NumaNode node = nodes.stream()
+                .min(Comparator.comparingInt(NumaNode::getTasks).thenComparingDouble(NumaNode::getUtilization))
+                .orElseThrow();
         TaskEntry task = new TaskEntry(
                 taskId,
-                scheduler,
+                node.scheduler(),
                 versionEmbedder,
                 tracer,
                 initialSplitConcurrency,
                 utilizationSupplier);
         tasks.put(taskId, task);
+        taskNodes.put(taskId, node);
+        node.taskAdded();
         return task;
     }
 
@@ -147,6 +228,10 @@ public class ThreadPerDriverTaskExecutor
     {
         TaskEntry entry = (TaskEntry) handle;
         tasks.remove(entry.taskId());
+        NumaNode node = taskNodes.remove(entry.taskId());
+        if (node != null) {
+            node.taskRemoved();
+        }
         if (!entry.isDestroyed()) {
             entry.destroy();
         }
@@ -175,14 +260,35 @@ public class ThreadPerDriverTaskExecutor
 
     private boolean scheduleLeafSplit(TaskEntry task)
     {
-        boolean scheduled = task.dequeueAndRunLeafSplit(this::leafSplitDone);
+        NumaNode taskNode = taskNodes.get(task.taskId());
+        NumaNode node = leafDriverNode(taskNode);
+        boolean scheduled = task.dequeueAndRunLeafSplit(node.scheduler(), this::leafSplitDone);
         if (scheduled) {
             runningLeafDrivers++;
+            if (node != taskNode) {
+                overflowedLeafDrivers++;
+            }
         }
 
         return scheduled;
     }
 
+    /**
+     * Leaf drivers do not exchange data with the other drivers of the task through memory of the node,
+     * so they overflow to the node with the most available slots when all the slots of the node of the task are in use,
+     * rather than waiting while the other nodes are idle.
+     */
+    private NumaNode leafDriverNode(NumaNode taskNode)
+    {
+        if (taskNode.getConcurrencyControlAvailableSlots() > 0) {
+            return taskNode;
+        }
+        return nodes.stream()
+                .filter(node -> node.getConcurrencyControlAvailableSlots() > 0)
+                .max(Comparator.comparingInt(NumaNode::getConcurrencyControlAvailableSlots))
+                .orElse(taskNode);
+    }
+
     private synchronized void leafSplitDone()
     {
         runningLeafDrivers--;
@@ -226,8 +332,10 @@ public class ThreadPerDriverTaskExecutor
     {
         if (LOG.isDebugEnabled()) {
             StringBuilder builder = new StringBuilder();
-            builder.append("Queue:\n");
-            builder.append(scheduler.diagnostics().indent(4));
+            for (NumaNode node : nodes) {
+                builder.append("Queue (node %s):\n".formatted(node.id()));
+                builder.append(node.scheduler().diagnostics().indent(4));
+            }
 
             builder.append("Query tasks:\n");
             for (TaskEntry task : tasks.values()) {
@@ -280,29 +388,54 @@ public class ThreadPerDriverTaskExecutor
                 .sum();
     }
 
-    @Managed(description = "Scheduler executor")
+    @Managed(description = "Leaf drivers run on another node than the node of their task")
+    public synchronized long getOverflowedLeafDrivers()
+    {
+        return overflowedLeafDrivers;
+    }
+
+    @Managed(description = "Scheduler executors of all nodes")
     @Nested
-    public ThreadPoolExecutorMBean getSchedulerExecutor()
+    public AggregateThreadPoolExecutorMBean getSchedulerExecutor()
     {
-        return scheduler.getSchedulerExecutor();
+        return schedulerExecutorMBean;
     }
 
-    @Managed(description = "Task executor")
+    @Managed(description = "Task executors of all nodes")
     @Nested
-    public ThreadPoolExecutorMBean getTaskExecutor()
+    public AggregateThreadPoolExecutorMBean getTaskExecutor()
     {
-        return scheduler.getTaskExecutor();
+        return taskExecutorMBean;
     }
 
     @Managed
     public int getConcurrencyControlTotalSlots()
     {
-        return scheduler.getConcurrencyControlTotalSlots();
+        return nodes.stream()
+                .mapToInt(NumaNode::getConcurrencyControlTotalSlots)
+                .sum();
     }
 
     @Managed
     public int getConcurrencyControlAvailableSlots()
     {
-        return scheduler.getConcurrencyControlAvailableSlots();
+        return nodes.stream()
+                .mapToInt(NumaNode::getConcurrencyControlAvailableSlots)
+                .sum();
+    }
+
+    @Managed
+    public int getNumaNodeCount()
+    {
+        return nodes.size();
+    }
+
+    /**
+     * Nodes the drivers are placed on, exported individually by {@link NumaNodeExporter}.
+     * There is a single node when drivers are not placed by NUMA node.
+     */
+    public List<NumaNode> getNodes()
+    {
+        return nodes;
     }
 }
@@ -22,11 +22,13 @@ import com.google.errorprone.annotations.concurrent.GuardedBy;
 import io.airlift.concurrent.ThreadPoolExecutorMBean;
 import io.airlift.log.Logger;
 
+import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -57,8 +59,8 @@ public final class FairScheduler
     private final ExecutorService schedulerExecutor;
     private final ThreadPoolExecutorMBean schedulerExecutorMBean;
     private final ListeningExecutorService taskExecutor;
-    private final ThreadPoolExecutor executor; // instance underlying taskExecutor, for diagnostics
-    private final ThreadPoolExecutorMBean executorMBean;
+    private final Optional<ThreadPoolExecutor> executor; // instance underlying taskExecutor when tasks run on platform threads, for diagnostics
+    private final Optional<ThreadPoolExecutorMBean> executorMBean;
     private final BlockingSchedulingQueue<Group, TaskControl> queue = new BlockingSchedulingQueue<>();
     private final Reservation<TaskControl> concurrencyControl;
     private final Ticker ticker;
@@ -69,6 +71,29 @@ public final class FairScheduler
     private boolean closed;
 
     public FairScheduler(int maxConcurrentTasks, String threadNameFormat, Ticker ticker)
+    {
+        this(maxConcurrentTasks, threadNameFormat, false, ticker);
+    }
+
+    /**
+     * @param virtualThreads whether tasks run on virtual threads. A task blocked in I/O then releases
+     * its carrier thread, while the number of concurrently running tasks is still limited by
+     * {@code maxConcurrentTasks}. Virtual threads are not pooled, every task runs on a new one.
+     */
+    public FairScheduler(int maxConcurrentTasks, String threadNameFormat, boolean virtualThreads, Ticker ticker)
+    {
+        this(
+                maxConcurrentTasks,
+                virtualThreads ? Executors.newThreadPerTaskExecutor(virtualThreadsNamed(threadNameFormat)) : newThreadPool(daemonThreadsNamed(threadNameFormat)),
+                ticker);
+    }
+
+    public FairScheduler(int maxConcurrentTasks, ThreadFactory threadFactory, Ticker ticker)
+    {
+        this(maxConcurrentTasks, newThreadPool(threadFactory), ticker);
+    }
+
+    private FairScheduler(int maxConcurrentTasks, ExecutorService executor, Ticker ticker)
     {
         this.ticker = requireNonNull(ticker, "ticker is null");
 
@@ -77,11 +102,24 @@ public final class FairScheduler
         schedulerExecutor = Executors.newCachedThreadPool(daemonThreadsNamed("fair-scheduler-%d"));
         schedulerExecutorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) schedulerExecutor);
 
-        executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), daemonThreadsNamed(threadNameFormat));
-        executorMBean = new ThreadPoolExecutorMBean(executor);
+        this.executor = executor instanceof ThreadPoolExecutor threadPool ? Optional.of(threadPool) : Optional.empty();
+        executorMBean = this.executor.map(ThreadPoolExecutorMBean::new);
         taskExecutor = MoreExecutors.listeningDecorator(executor);
     }
 
+    private static ThreadPoolExecutor newThreadPool(ThreadFactory threadFactory)
+    {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+    }
+
+    private static ThreadFactory virtualThreadsNamed(String nameFormat)
+    {
+        checkArgument(nameFormat.endsWith("%d"), "nameFormat must end with the thread number: %s", nameFormat);
+        return Thread.ofVirtual()
+                .name(nameFormat.substring(0, nameFormat.length() - "%d".length()), 0)
+                .factory();
+    }
+
     public static FairScheduler newInstance(int maxConcurrentTasks)
     {
         return newInstance(maxConcurrentTasks, Ticker.systemTicker());
@@ -311,10 +349,12 @@ public final class FairScheduler
         StringBuilder builder = new StringBuilder();
         builder.append(queue);
 
-        builder.append("Task executor: pool=%s, active=%s, queue=%s\n".formatted(
-                executor.getPoolSize(),
-                executor.getActiveCount(),
-                executor.getQueue().size()));
+        builder.append(executor
+                .map(threadPool -> "Task executor: pool=%s, active=%s, queue=%s\n".formatted(
+                        threadPool.getPoolSize(),
+                        threadPool.getActiveCount(),
+                        threadPool.getQueue().size()))
+                .orElse("Task executor: virtual thread per task\n"));
 
         builder.append("Concurrency control: slots=%s, available=%s\n".formatted(
                 concurrencyControl.totalSlots(),
@@ -350,7 +390,10 @@ public final class FairScheduler
         return schedulerExecutorMBean;
     }
 
-    public ThreadPoolExecutorMBean getTaskExecutor()
+    /**
+     * @return stats of the pool of threads running the tasks, or empty if tasks run on virtual threads
+     */
+    public Optional<ThreadPoolExecutorMBean> getTaskExecutor()
     {
         return executorMBean;
     }
@@ -31,6 +31,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.math.DoubleMath.roundToLong;
+import static com.google.common.math.LongMath.saturatedMultiply;
 import static java.math.RoundingMode.HALF_UP;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -213,31 +214,47 @@ public class MultilevelSplitQueue
      */
     public Priority updatePriority(Priority oldPriority, long quantaNanos, long scheduledNanos)
     {
+        return updatePriority(oldPriority, quantaNanos, scheduledNanos, 1);
+    }
+
+    /**
+     * Same as {@link #updatePriority(Priority, long, long)} for a task with a CPU weight. The level is
+     * charged the full quanta run time, while the task is charged the run time divided by its weight,
+     * so a task with a higher weight stays longer in each level and ahead of its peers within a level.
+     *
+     * @param weightedScheduledNanos the scheduled time of the task divided by its weight
+     * @return the new priority for the task
+     */
+    public Priority updatePriority(Priority oldPriority, long quantaNanos, long weightedScheduledNanos, int cpuWeight)
+    {
+        checkArgument(cpuWeight > 0, "cpuWeight must be positive");
         int oldLevel = oldPriority.getLevel();
-        int newLevel = computeLevel(scheduledNanos);
+        int newLevel = computeLevel(weightedScheduledNanos);
 
         long levelContribution = Math.min(quantaNanos, LEVEL_CONTRIBUTION_CAP);
+        long weightedQuantaNanos = quantaNanos / cpuWeight;
 
         if (oldLevel == newLevel) {
             addLevelTime(oldLevel, levelContribution);
-            return new Priority(oldLevel, oldPriority.getLevelPriority() + quantaNanos);
+            return new Priority(oldLevel, oldPriority.getLevelPriority() + weightedQuantaNanos);
         }
 
         long remainingLevelContribution = levelContribution;
-        long remainingTaskTime = quantaNanos;
+        long remainingTaskTime = weightedQuantaNanos;
 
         // a task normally slowly accrues scheduled time in a level and then moves to the next, but
         // if the split had a particularly long quanta, accrue time to each level as if it had run
         // in that level up to the level limit.
         for (int currentLevel = oldLevel; currentLevel < newLevel; currentLevel++) {
-            long timeAccruedToLevel = Math.min(SECONDS.toNanos(LEVEL_THRESHOLD_SECONDS[currentLevel + 1] - LEVEL_THRESHOLD_SECONDS[currentLevel]), remainingLevelContribution);
+            long levelTaskTime = SECONDS.toNanos(LEVEL_THRESHOLD_SECONDS[currentLevel + 1] - LEVEL_THRESHOLD_SECONDS[currentLevel]);
+            long timeAccruedToLevel = Math.min(saturatedMultiply(levelTaskTime, cpuWeight), remainingLevelContribution);
             addLevelTime(currentLevel, timeAccruedToLevel);
             remainingLevelContribution -= timeAccruedToLevel;
-            remainingTaskTime -= timeAccruedToLevel;
+            remainingTaskTime = Math.max(remainingTaskTime - timeAccruedToLevel / cpuWeight, 0);
         }
 
         addLevelTime(newLevel, remainingLevelContribution);
-        long newLevelMinPriority = getLevelMinPriority(newLevel, scheduledNanos);
+        long newLevelMinPriority = getLevelMinPriority(newLevel, weightedScheduledNanos);
         return new Priority(newLevel, newLevelMinPriority + remainingTaskTime);
     }
 
@@ -267,6 +267,11 @@ public final class PrioritizedSplitRunner
         return splitId;
     }
 
+    public long getSplitWeight()
+    {
+        return split.getSplitWeight();
+    }
+
     public Priority getPriority()
     {
         return priority.get();
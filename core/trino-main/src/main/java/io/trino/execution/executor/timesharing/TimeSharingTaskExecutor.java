@@ -53,6 +53,7 @@ import java.util.Map;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutorService;
@@ -62,6 +63,7 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.DoubleSupplier;
 import java.util.function.Predicate;
 
@@ -76,10 +78,12 @@ import static io.trino.execution.executor.timesharing.MultilevelSplitQueue.compu
 import static io.trino.util.EmbedVersion.testingVersionEmbedder;
 import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.joining;
 
 @ThreadSafe
 public class TimeSharingTaskExecutor
@@ -133,6 +137,11 @@ public class TimeSharingTaskExecutor
      */
     private final Map<PrioritizedSplitRunner, Future<Void>> blockedSplits = new ConcurrentHashMap<>();
 
+    /**
+     * Scheduled time of the tasks of each resource group CPU weight.
+     */
+    private final Map<Integer, LongAdder> scheduledNanosPerCpuWeight = new ConcurrentHashMap<>();
+
     private final AtomicLongArray completedTasksPerLevel = new AtomicLongArray(5);
     private final AtomicLongArray completedSplitsPerLevel = new AtomicLongArray(5);
 
@@ -269,21 +278,42 @@ public class TimeSharingTaskExecutor
     }
 
     @Override
-    public synchronized TimeSharingTaskHandle addTask(
+    public TimeSharingTaskHandle addTask(
             TaskId taskId,
             DoubleSupplier utilizationSupplier,
             int initialSplitConcurrency,
             Duration splitConcurrencyAdjustFrequency,
             OptionalInt maxDriversPerTask)
+    {
+        return addTask(taskId, utilizationSupplier, initialSplitConcurrency, splitConcurrencyAdjustFrequency, maxDriversPerTask, 1);
+    }
+
+    @Override
+    public synchronized TimeSharingTaskHandle addTask(
+            TaskId taskId,
+            DoubleSupplier utilizationSupplier,
+            int initialSplitConcurrency,
+            Duration splitConcurrencyAdjustFrequency,
+            OptionalInt maxDriversPerTask,
+            int cpuWeight)
     {
         requireNonNull(taskId, "taskId is null");
         requireNonNull(utilizationSupplier, "utilizationSupplier is null");
         checkArgument(maxDriversPerTask.isEmpty() || maxDriversPerTask.getAsInt() <= maximumNumberOfDriversPerTask,
                 "maxDriversPerTask cannot be greater than the configured value");
+        checkArgument(cpuWeight > 0, "cpuWeight must be positive");
 
         log.debug("Task scheduled %s", taskId);
 
-        TimeSharingTaskHandle taskHandle = new TimeSharingTaskHandle(taskId, waitingSplits, utilizationSupplier, initialSplitConcurrency, splitConcurrencyAdjustFrequency, maxDriversPerTask);
+        TimeSharingTaskHandle taskHandle = new TimeSharingTaskHandle(
+                taskId,
+                waitingSplits,
+                utilizationSupplier,
+                initialSplitConcurrency,
+                splitConcurrencyAdjustFrequency,
+                maxDriversPerTask,
+                cpuWeight,
+                scheduledNanosPerCpuWeight.computeIfAbsent(cpuWeight, _ -> new LongAdder()));
 
         tasks.add(taskHandle);
         return taskHandle;
@@ -688,6 +718,20 @@ public class TimeSharingTaskExecutor
         return blockedSplits.size();
     }
 
+    @Managed(description = "Fraction of the scheduled time used by the tasks of each resource group CPU weight")
+    public String getCpuShareByCpuWeight()
+    {
+        Map<Integer, Long> scheduledNanos = new TreeMap<>();
+        scheduledNanosPerCpuWeight.forEach((cpuWeight, nanos) -> scheduledNanos.put(cpuWeight, nanos.sum()));
+        long totalNanos = scheduledNanos.values().stream().mapToLong(Long::longValue).sum();
+        if (totalNanos == 0) {
+            return "";
+        }
+        return scheduledNanos.entrySet().stream()
+                .map(entry -> format(ENGLISH, "%s=%.4f", entry.getKey(), (double) entry.getValue() / totalNanos))
+                .collect(joining(", "));
+    }
+
     @Managed
     public long getCompletedTasksLevel0()
     {
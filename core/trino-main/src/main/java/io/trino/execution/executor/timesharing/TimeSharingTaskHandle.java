@@ -20,16 +20,19 @@ import io.airlift.units.Duration;
 import io.trino.execution.TaskId;
 import io.trino.execution.executor.TaskHandle;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.OptionalInt;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.DoubleSupplier;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Comparator.comparingLong;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -40,8 +43,11 @@ public class TimeSharingTaskHandle
     private final TaskId taskId;
     private final DoubleSupplier utilizationSupplier;
 
+    // Heavier splits are started first, so that a heavy split queued last does not become the tail of the task.
+    // Splits with the same weight are started in the order they were added.
     @GuardedBy("this")
-    protected final Queue<PrioritizedSplitRunner> queuedLeafSplits = new ArrayDeque<>(10);
+    protected final Queue<PrioritizedSplitRunner> queuedLeafSplits = new PriorityQueue<>(10, comparingLong(PrioritizedSplitRunner::getSplitWeight).reversed()
+            .thenComparingInt(PrioritizedSplitRunner::getSplitId));
     @GuardedBy("this")
     protected final List<PrioritizedSplitRunner> runningLeafSplits = new ArrayList<>(10);
     @GuardedBy("this")
@@ -56,6 +62,8 @@ public class TimeSharingTaskHandle
     private final AtomicReference<Priority> priority = new AtomicReference<>(new Priority(0, 0));
     private final MultilevelSplitQueue splitQueue;
     private final OptionalInt maxDriversPerTask;
+    private final int cpuWeight;
+    private final LongAdder cpuWeightScheduledNanos;
 
     public TimeSharingTaskHandle(
             TaskId taskId,
@@ -65,10 +73,29 @@ public class TimeSharingTaskHandle
             Duration splitConcurrencyAdjustFrequency,
             OptionalInt maxDriversPerTask)
     {
+        this(taskId, splitQueue, utilizationSupplier, initialSplitConcurrency, splitConcurrencyAdjustFrequency, maxDriversPerTask, 1, new LongAdder());
+    }
+
+    /**
+     * @param cpuWeightScheduledNanos accumulates the scheduled time of all the tasks with the same CPU weight
+     */
+    public TimeSharingTaskHandle(
+            TaskId taskId,
+            MultilevelSplitQueue splitQueue,
+            DoubleSupplier utilizationSupplier,
+            int initialSplitConcurrency,
+            Duration splitConcurrencyAdjustFrequency,
+            OptionalInt maxDriversPerTask,
+            int cpuWeight,
+            LongAdder cpuWeightScheduledNanos)
+    {
+        checkArgument(cpuWeight > 0, "cpuWeight must be positive");
         this.taskId = requireNonNull(taskId, "taskId is null");
         this.splitQueue = requireNonNull(splitQueue, "splitQueue is null");
         this.utilizationSupplier = requireNonNull(utilizationSupplier, "utilizationSupplier is null");
         this.maxDriversPerTask = requireNonNull(maxDriversPerTask, "maxDriversPerTask is null");
+        this.cpuWeight = cpuWeight;
+        this.cpuWeightScheduledNanos = requireNonNull(cpuWeightScheduledNanos, "cpuWeightScheduledNanos is null");
         this.concurrencyController = new SplitConcurrencyController(
                 initialSplitConcurrency,
                 requireNonNull(splitConcurrencyAdjustFrequency, "splitConcurrencyAdjustFrequency is null"));
@@ -78,8 +105,9 @@ public class TimeSharingTaskHandle
     {
         concurrencyController.update(durationNanos, utilizationSupplier.getAsDouble(), runningLeafSplits.size());
         scheduledNanos += durationNanos;
+        cpuWeightScheduledNanos.add(durationNanos);
 
-        Priority newPriority = splitQueue.updatePriority(priority.get(), durationNanos, scheduledNanos);
+        Priority newPriority = splitQueue.updatePriority(priority.get(), durationNanos, scheduledNanos / cpuWeight, cpuWeight);
 
         priority.set(newPriority);
         return newPriority;
@@ -88,7 +116,7 @@ public class TimeSharingTaskHandle
     public synchronized Priority resetLevelPriority()
     {
         Priority currentPriority = priority.get();
-        long levelMinPriority = splitQueue.getLevelMinPriority(currentPriority.getLevel(), scheduledNanos);
+        long levelMinPriority = splitQueue.getLevelMinPriority(currentPriority.getLevel(), scheduledNanos / cpuWeight);
 
         if (currentPriority.getLevelPriority() < levelMinPriority) {
             Priority newPriority = new Priority(currentPriority.getLevel(), levelMinPriority);
@@ -120,6 +148,11 @@ public class TimeSharingTaskHandle
         return maxDriversPerTask;
     }
 
+    public int getCpuWeight()
+    {
+        return cpuWeight;
+    }
+
     // Returns any remaining splits. The caller must destroy these.
     public synchronized List<PrioritizedSplitRunner> destroy()
     {
@@ -103,6 +103,8 @@ public class InternalResourceGroup
     @GuardedBy("root")
     private int schedulingWeight = DEFAULT_WEIGHT;
     @GuardedBy("root")
+    private int cpuWeight = DEFAULT_WEIGHT;
+    @GuardedBy("root")
     private SchedulingPolicy schedulingPolicy = FAIR;
     @GuardedBy("root")
     private boolean jmxExport;
@@ -542,6 +544,24 @@ public class InternalResourceGroup
         }
     }
 
+    @Managed
+    @Override
+    public int getCpuWeight()
+    {
+        synchronized (root) {
+            return cpuWeight;
+        }
+    }
+
+    @Override
+    public void setCpuWeight(int weight)
+    {
+        checkArgument(weight > 0, "weight must be positive");
+        synchronized (root) {
+            this.cpuWeight = weight;
+        }
+    }
+
     @Managed
     @Override
     public SchedulingPolicy getSchedulingPolicy()
@@ -646,6 +666,8 @@ public class InternalResourceGroup
                 return subGroups.get(name);
             }
             InternalResourceGroup subGroup = new InternalResourceGroup(Optional.of(this), name, jmxExportListener, executor);
+            // Sub group inherits the CPU weight, unless configured otherwise
+            subGroup.setCpuWeight(cpuWeight);
             // Sub group must use query priority to ensure ordering
             if (schedulingPolicy == QUERY_PRIORITY) {
                 subGroup.setSchedulingPolicy(QUERY_PRIORITY);
@@ -122,6 +122,14 @@ public final class InternalResourceGroupManager<C>
         groups.get(selectionContext.getResourceGroupId()).run(queryExecution);
     }
 
+    @Override
+    public int getCpuWeight(SelectionContext<C> selectionContext, Executor executor)
+    {
+        checkState(configurationManager.get() != null, "configurationManager not set");
+        createGroupIfNecessary(selectionContext, executor);
+        return groups.get(selectionContext.getResourceGroupId()).getCpuWeight();
+    }
+
     @Override
     public SelectionContext<C> selectGroup(SelectionCriteria criteria)
     {
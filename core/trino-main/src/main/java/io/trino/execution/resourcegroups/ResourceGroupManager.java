@@ -33,6 +33,11 @@ public interface ResourceGroupManager<C>
 
     SelectionContext<C> selectGroup(SelectionCriteria criteria);
 
+    /**
+     * Returns the CPU weight of the selected group, which is used to prioritize the tasks of its queries on workers.
+     */
+    int getCpuWeight(SelectionContext<C> selectionContext, Executor executor);
+
     void addConfigurationManagerFactory(ResourceGroupConfigurationManagerFactory factory);
 
     void loadConfigurationManager()
@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.scheduler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import io.trino.Session;
+import io.trino.execution.JoinBuildSideMetrics;
+import io.trino.execution.SqlStage;
+import io.trino.execution.StageId;
+import io.trino.execution.TaskStatus;
+import io.trino.sql.planner.PlanFragment;
+import io.trino.sql.planner.plan.ExchangeNode;
+import io.trino.sql.planner.plan.JoinNode;
+import io.trino.sql.planner.plan.JoinNode.DistributionType;
+import io.trino.sql.planner.plan.PlanFragmentId;
+import io.trino.sql.planner.plan.PlanNode;
+import io.trino.sql.planner.plan.ProjectNode;
+import io.trino.sql.planner.plan.RemoteSourceNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.trino.SystemSessionProperties.getJoinDistributionType;
+import static io.trino.SystemSessionProperties.getJoinMaxBroadcastTableSize;
+import static io.trino.execution.scheduler.StageExecution.State.FINISHED;
+import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static io.trino.sql.planner.plan.ExchangeNode.Scope.LOCAL;
+import static io.trino.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static io.trino.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static io.trino.sql.planner.plan.JoinType.FULL;
+import static io.trino.sql.planner.plan.JoinType.RIGHT;
+import static java.util.function.Function.identity;
+
+/**
+ * Once all stages producing the build side of a join finish, records the actual build side output size
+ * in the stage info of the join stage, together with the distribution type this size favors, chosen the
+ * same way the cost based optimizer does from estimates.
+ * <p>
+ * These are metrics only. Fragments of a pipelined query cannot be changed once its tasks are created,
+ * so the distribution type of the running join is not changed.
+ */
+final class JoinBuildSideMetricsTracker
+{
+    private static final Logger log = Logger.get(JoinBuildSideMetricsTracker.class);
+
+    private JoinBuildSideMetricsTracker() {}
+
+    public static void track(Session session, StageManager stageManager, Map<StageId, StageExecution> stageExecutions)
+    {
+        if (!getJoinDistributionType(session).canReplicate() || !getJoinDistributionType(session).canPartition()) {
+            // distribution type is forced by the session
+            return;
+        }
+        DataSize maxBroadcastTableSize = getJoinMaxBroadcastTableSize(session);
+        Map<PlanFragmentId, StageExecution> stageExecutionsByFragment = stageExecutions.values().stream()
+                .collect(toImmutableMap(stageExecution -> stageExecution.getFragment().getId(), identity()));
+
+        for (StageExecution stageExecution : stageExecutions.values()) {
+            PlanFragment fragment = stageExecution.getFragment();
+            List<JoinNode> joins = searchFrom(fragment.getRoot())
+                    .whereIsInstanceOfAny(JoinNode.class)
+                    .findAll();
+            for (JoinNode join : joins) {
+                if (!isTracked(join)) {
+                    continue;
+                }
+                List<StageExecution> buildStages = getBuildSourceFragments(join.getRight()).stream()
+                        .map(stageExecutionsByFragment::get)
+                        .collect(toImmutableList());
+                if (buildStages.isEmpty()) {
+                    continue;
+                }
+                trackJoin(stageManager.get(fragment.getId()), join, buildStages, maxBroadcastTableSize);
+            }
+        }
+    }
+
+    /**
+     * Joins which can only be executed with a single distribution type are not tracked.
+     */
+    @VisibleForTesting
+    static boolean isTracked(JoinNode join)
+    {
+        return join.getDistributionType().isPresent() && !join.getCriteria().isEmpty() && join.getType() != RIGHT && join.getType() != FULL;
+    }
+
+    /**
+     * Returns the fragments producing the build side, if it is produced as a whole by other stages.
+     */
+    @VisibleForTesting
+    static List<PlanFragmentId> getBuildSourceFragments(PlanNode buildSide)
+    {
+        PlanNode node = buildSide;
+        while ((node instanceof ExchangeNode exchange && exchange.getScope() == LOCAL && exchange.getSources().size() == 1) || node instanceof ProjectNode) {
+            node = node.getSources().getFirst();
+        }
+        if (!(node instanceof RemoteSourceNode remoteSource)) {
+            return ImmutableList.of();
+        }
+        return remoteSource.getSourceFragmentIds();
+    }
+
+    @VisibleForTesting
+    static JoinBuildSideMetrics createMetrics(JoinNode join, long buildOutputBytes, DataSize maxBroadcastTableSize)
+    {
+        DistributionType sizeBasedDistributionType = buildOutputBytes <= maxBroadcastTableSize.toBytes() ? REPLICATED : PARTITIONED;
+        return new JoinBuildSideMetrics(
+                join.getId(),
+                join.getDistributionType().orElseThrow(),
+                sizeBasedDistributionType,
+                DataSize.ofBytes(buildOutputBytes).succinct());
+    }
+
+    private static void trackJoin(SqlStage joinStage, JoinNode join, List<StageExecution> buildStages, DataSize maxBroadcastTableSize)
+    {
+        AtomicInteger remainingBuildStages = new AtomicInteger(buildStages.size());
+        for (StageExecution buildStage : buildStages) {
+            buildStage.addStateChangeListener(state -> {
+                if (state == FINISHED && remainingBuildStages.decrementAndGet() == 0) {
+                    long buildOutputBytes = buildStages.stream()
+                            .flatMap(stage -> stage.getTaskStatuses().stream())
+                            .map(TaskStatus::getOutputDataSize)
+                            .mapToLong(DataSize::toBytes)
+                            .sum();
+                    JoinBuildSideMetrics metrics = createMetrics(join, buildOutputBytes, maxBroadcastTableSize);
+                    if (metrics.plannedDistributionType() != metrics.sizeBasedDistributionType()) {
+                        log.debug("Join %s in stage %s was planned with %s distribution, but actual build side size %s favors %s distribution",
+                                join.getId(),
+                                joinStage.getStageId(),
+                                metrics.plannedDistributionType(),
+                                metrics.buildOutputDataSize(),
+                                metrics.sizeBasedDistributionType());
+                    }
+                    joinStage.recordJoinBuildSideMetrics(metrics);
+                }
+            });
+        }
+    }
+}
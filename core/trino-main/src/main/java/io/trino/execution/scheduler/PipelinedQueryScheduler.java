@@ -926,6 +926,7 @@ public class PipelinedQueryScheduler
                         attempt);
                 stageExecutions.put(stage.getStageId(), stageExecution);
             }
+            JoinBuildSideMetricsTracker.track(queryStateMachine.getSession(), stageManager, stageExecutions);
 
             ImmutableMap.Builder<StageId, StageScheduler> stageSchedulers = ImmutableMap.builder();
             for (StageExecution stageExecution : stageExecutions.values()) {
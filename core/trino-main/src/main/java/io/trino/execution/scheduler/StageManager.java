@@ -276,6 +276,7 @@ class StageManager
                 parent.getTasks(),
                 childStages,
                 parent.getTables(),
+                parent.getJoinBuildSideMetrics(),
                 parent.getFailureCause());
     }
 
@@ -26,12 +26,18 @@ public class AggregationMetrics
 {
     @VisibleForTesting
     static final String INPUT_ROWS_WITH_PARTIAL_AGGREGATION_DISABLED_METRIC_NAME = "Input rows processed without partial aggregation enabled";
+    @VisibleForTesting
+    static final String PARTIAL_AGGREGATION_DISABLED_METRIC_NAME = "Partial aggregation turned off";
+    @VisibleForTesting
+    static final String PARTIAL_AGGREGATION_ENABLED_METRIC_NAME = "Partial aggregation turned back on";
     private static final String ACCUMULATOR_TIME_METRIC_NAME = "Accumulator update CPU time";
     private static final String GROUP_BY_HASH_TIME_METRIC_NAME = "Group by hash update CPU time";
 
     private long accumulatorTimeNanos;
     private long groupByHashTimeNanos;
     private long inputRowsProcessedWithPartialAggregationDisabled;
+    private long partialAggregationDisabledCount;
+    private long partialAggregationEnabledCount;
 
     public void recordAccumulatorUpdateTimeSince(long startNanos)
     {
@@ -48,10 +54,22 @@ public class AggregationMetrics
         inputRowsProcessedWithPartialAggregationDisabled += rows;
     }
 
+    public void recordPartialAggregationDisabled()
+    {
+        partialAggregationDisabledCount++;
+    }
+
+    public void recordPartialAggregationEnabled()
+    {
+        partialAggregationEnabledCount++;
+    }
+
     public Metrics getMetrics()
     {
         return new Metrics(ImmutableMap.of(
                 INPUT_ROWS_WITH_PARTIAL_AGGREGATION_DISABLED_METRIC_NAME, new LongCount(inputRowsProcessedWithPartialAggregationDisabled),
+                PARTIAL_AGGREGATION_DISABLED_METRIC_NAME, new LongCount(partialAggregationDisabledCount),
+                PARTIAL_AGGREGATION_ENABLED_METRIC_NAME, new LongCount(partialAggregationEnabledCount),
                 ACCUMULATOR_TIME_METRIC_NAME, new DurationTiming(new Duration(accumulatorTimeNanos, NANOSECONDS)),
                 GROUP_BY_HASH_TIME_METRIC_NAME, new DurationTiming(new Duration(groupByHashTimeNanos, NANOSECONDS))));
     }
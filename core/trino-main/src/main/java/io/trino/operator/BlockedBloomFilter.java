@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator;
+
+import io.airlift.units.DataSize;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.instanceSize;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Split block Bloom filter over 64-bit hashes of values, as used by Parquet and Impala.
+ * Every value sets one bit in each of the eight words of a single 256-bit block,
+ * so a lookup touches one cache line. Filters of the same size can be merged.
+ * <p>
+ * The filter is not thread safe.
+ */
+public final class BlockedBloomFilter
+{
+    private static final int INSTANCE_SIZE = instanceSize(BlockedBloomFilter.class);
+
+    private static final int BLOCK_WORDS = 8;
+    private static final int BLOCK_BYTES = BLOCK_WORDS * Integer.BYTES;
+    private static final int[] SALT = {
+            0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d,
+            0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31};
+
+    private final int[] blocks;
+    private final int blockCount;
+
+    public BlockedBloomFilter(DataSize size)
+    {
+        checkArgument(size.toBytes() >= BLOCK_BYTES, "size must be at least %s bytes", BLOCK_BYTES);
+        this.blockCount = toIntExact(size.toBytes() / BLOCK_BYTES);
+        this.blocks = new int[blockCount * BLOCK_WORDS];
+    }
+
+    public void put(long hash)
+    {
+        int offset = blockOffset(hash);
+        int key = (int) hash;
+        for (int i = 0; i < BLOCK_WORDS; i++) {
+            blocks[offset + i] |= mask(key, i);
+        }
+    }
+
+    public boolean mightContain(long hash)
+    {
+        int offset = blockOffset(hash);
+        int key = (int) hash;
+        for (int i = 0; i < BLOCK_WORDS; i++) {
+            if ((blocks[offset + i] & mask(key, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds all values of the other filter to this filter.
+     */
+    public void merge(BlockedBloomFilter other)
+    {
+        checkArgument(blockCount == other.blockCount, "Cannot merge Bloom filters of different sizes: %s and %s", blockCount, other.blockCount);
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] |= other.blocks[i];
+        }
+    }
+
+    public long getSizeInBytes()
+    {
+        return (long) blocks.length * Integer.BYTES;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(blocks);
+    }
+
+    private int blockOffset(long hash)
+    {
+        // upper half of the hash selects the block, lower half the bits within the block
+        int block = (int) (((hash >>> 32) * blockCount) >>> 32);
+        return block * BLOCK_WORDS;
+    }
+
+    private static int mask(int key, int word)
+    {
+        return 1 << ((key * SALT[word]) >>> 27);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("sizeInBytes", getSizeInBytes())
+                .toString();
+    }
+}
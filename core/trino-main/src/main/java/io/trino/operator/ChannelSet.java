@@ -13,14 +13,20 @@
  */
 package io.trino.operator;
 
+import com.google.common.collect.AbstractIterator;
 import io.trino.memory.context.LocalMemoryContext;
+import io.trino.spi.Page;
 import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
 import io.trino.spi.block.RunLengthEncodedBlock;
 import io.trino.spi.type.Type;
 import io.trino.spi.type.TypeOperators;
 
+import java.util.Iterator;
+
 import static io.trino.spi.function.InvocationConvention.InvocationArgumentConvention.BLOCK_POSITION_NOT_NULL;
 import static io.trino.spi.function.InvocationConvention.InvocationArgumentConvention.FLAT;
+import static io.trino.spi.function.InvocationConvention.InvocationReturnConvention.BLOCK_BUILDER;
 import static io.trino.spi.function.InvocationConvention.InvocationReturnConvention.FAIL_ON_NULL;
 import static io.trino.spi.function.InvocationConvention.InvocationReturnConvention.FLAT_RETURN;
 import static io.trino.spi.function.InvocationConvention.simpleConvention;
@@ -29,10 +35,14 @@ import static java.util.Objects.requireNonNull;
 
 public class ChannelSet
 {
+    private static final int VALUES_PER_PAGE = 8192;
+
+    private final Type type;
     private final FlatSet set;
 
-    private ChannelSet(FlatSet set)
+    private ChannelSet(Type type, FlatSet set)
     {
+        this.type = type;
         this.set = set;
     }
 
@@ -66,15 +76,44 @@ public class ChannelSet
         return set.contains(valueBlock, position, rawHash);
     }
 
+    /**
+     * Returns single channel pages with the non-null values of this set.
+     * The set must not be modified while the pages are consumed.
+     */
+    public Iterator<Page> getValuePages()
+    {
+        return new AbstractIterator<>()
+        {
+            private int nextIndex;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (nextIndex < 0) {
+                    return endOfData();
+                }
+                BlockBuilder blockBuilder = type.createBlockBuilder(null, VALUES_PER_PAGE);
+                nextIndex = set.appendValuesTo(nextIndex, blockBuilder, VALUES_PER_PAGE);
+                if (blockBuilder.getPositionCount() == 0) {
+                    return endOfData();
+                }
+                return new Page(blockBuilder.build());
+            }
+        };
+    }
+
     public static class ChannelSetBuilder
     {
         private final LocalMemoryContext memoryContext;
+        private final Type type;
         private final FlatSet set;
 
         public ChannelSetBuilder(Type type, TypeOperators typeOperators, LocalMemoryContext memoryContext)
         {
+            this.type = requireNonNull(type, "type is null");
             set = new FlatSet(
                     type,
+                    typeOperators.getReadValueOperator(type, simpleConvention(BLOCK_BUILDER, FLAT)),
                     typeOperators.getReadValueOperator(type, simpleConvention(FLAT_RETURN, BLOCK_POSITION_NOT_NULL)),
                     typeOperators.getHashCodeOperator(type, simpleConvention(FAIL_ON_NULL, FLAT)),
                     typeOperators.getIdenticalOperator(type, simpleConvention(FAIL_ON_NULL, FLAT, BLOCK_POSITION_NOT_NULL)),
@@ -85,7 +124,7 @@ public class ChannelSet
 
         public ChannelSet build()
         {
-            return new ChannelSet(set);
+            return new ChannelSet(type, set);
         }
 
         public void addAll(Block valueBlock, Block hashBlock)
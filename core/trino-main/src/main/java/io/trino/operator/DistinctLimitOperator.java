@@ -16,20 +16,31 @@ package io.trino.operator;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.trino.memory.context.LocalMemoryContext;
 import io.trino.spi.Page;
 import io.trino.spi.type.Type;
+import io.trino.spi.type.TypeOperators;
+import io.trino.spiller.PartitioningSpillerFactory;
 import io.trino.sql.planner.plan.PlanNodeId;
+import jakarta.annotation.Nullable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.base.Verify.verifyNotNull;
 import static com.google.common.collect.ImmutableList.toImmutableList;
-import static io.trino.operator.GroupByHash.createGroupByHash;
+import static io.trino.SystemSessionProperties.getDistinctLimitMinSpillableLimit;
+import static io.trino.operator.DistinctSpiller.PARTITION_COUNT;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
@@ -48,6 +59,9 @@ public class DistinctLimitOperator
         private final Optional<Integer> hashChannel;
         private boolean closed;
         private final FlatHashStrategyCompiler hashStrategyCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
+        private final TypeOperators typeOperators;
 
         public DistinctLimitOperatorFactory(
                 int operatorId,
@@ -57,6 +71,21 @@ public class DistinctLimitOperator
                 long limit,
                 Optional<Integer> hashChannel,
                 FlatHashStrategyCompiler hashStrategyCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, hashStrategyCompiler, false, unsupportedPartitioningSpillerFactory(), new TypeOperators());
+        }
+
+        public DistinctLimitOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> distinctChannels,
+                long limit,
+                Optional<Integer> hashChannel,
+                FlatHashStrategyCompiler hashStrategyCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory,
+                TypeOperators typeOperators)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -67,6 +96,9 @@ public class DistinctLimitOperator
             this.limit = limit;
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.hashStrategyCompiler = requireNonNull(hashStrategyCompiler, "hashStrategyCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+            this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
         }
 
         @Override
@@ -77,7 +109,7 @@ public class DistinctLimitOperator
             List<Type> distinctTypes = distinctChannels.stream()
                     .map(sourceTypes::get)
                     .collect(toImmutableList());
-            return new DistinctLimitOperator(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, hashStrategyCompiler);
+            return new DistinctLimitOperator(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, hashStrategyCompiler, spillEnabled, partitioningSpillerFactory, typeOperators);
         }
 
         @Override
@@ -89,12 +121,13 @@ public class DistinctLimitOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new DistinctLimitOperatorFactory(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, hashStrategyCompiler);
+            return new DistinctLimitOperatorFactory(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, hashStrategyCompiler, spillEnabled, partitioningSpillerFactory, typeOperators);
         }
     }
 
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
     private Page inputPage;
     private long remainingLimit;
@@ -102,13 +135,28 @@ public class DistinctLimitOperator
     private boolean finishing;
 
     private final int[] inputChannels;
-    private final GroupByHash groupByHash;
+    private final List<Type> distinctTypes;
+    private final boolean hasPrecomputedHash;
+    private final int expectedPositions;
+    private final FlatHashStrategyCompiler hashStrategyCompiler;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private final TypeOperators typeOperators;
+    // null once the distinct values have been spilled, until the first spilled partition is loaded
+    @Nullable
+    private GroupByHash groupByHash;
     private long nextDistinctId;
 
     // for yield when memory is not available
     private int[] groupByIds;
     private Work<int[]> unfinishedWork;
 
+    // used once the distinct values have been spilled
+    private Optional<DistinctSpiller> spiller = Optional.empty();
+    private int unspillPartition;
+    @Nullable
+    private Iterator<Page> unspilledInput;
+
     public DistinctLimitOperator(
             OperatorContext operatorContext,
             List<Integer> distinctChannels,
@@ -116,9 +164,24 @@ public class DistinctLimitOperator
             long limit,
             Optional<Integer> hashChannel,
             FlatHashStrategyCompiler hashStrategyCompiler)
+    {
+        this(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, hashStrategyCompiler, false, unsupportedPartitioningSpillerFactory(), new TypeOperators());
+    }
+
+    public DistinctLimitOperator(
+            OperatorContext operatorContext,
+            List<Integer> distinctChannels,
+            List<Type> distinctTypes,
+            long limit,
+            Optional<Integer> hashChannel,
+            FlatHashStrategyCompiler hashStrategyCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory,
+            TypeOperators typeOperators)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
         checkArgument(limit >= 0, "limit must be at least zero");
         checkArgument(distinctTypes.size() == distinctChannels.size(), "distinctTypes and distinctChannels sizes don't match");
 
@@ -133,15 +196,28 @@ public class DistinctLimitOperator
             this.inputChannels = Ints.toArray(distinctChannels);
         }
 
-        this.groupByHash = createGroupByHash(
+        this.distinctTypes = ImmutableList.copyOf(distinctTypes);
+        this.hasPrecomputedHash = hashChannel.isPresent();
+        this.expectedPositions = toIntExact(min(limit, 10_000));
+        this.hashStrategyCompiler = requireNonNull(hashStrategyCompiler, "hashStrategyCompiler is null");
+        // a smaller limit is reached after a bounded number of distinct values, which are kept in memory
+        this.spillEnabled = spillEnabled && limit >= getDistinctLimitMinSpillableLimit(operatorContext.getSession());
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
+        this.groupByHash = createGroupByHash();
+        remainingLimit = limit;
+    }
+
+    private GroupByHash createGroupByHash()
+    {
+        return GroupByHash.createGroupByHash(
                 operatorContext.getSession(),
                 distinctTypes,
-                hashChannel.isPresent(),
+                hasPrecomputedHash,
                 false,
-                toIntExact(min(limit, 10_000)),
+                expectedPositions,
                 hashStrategyCompiler,
                 this::updateMemoryReservation);
-        remainingLimit = limit;
     }
 
     @Override
@@ -159,13 +235,22 @@ public class DistinctLimitOperator
     @Override
     public boolean isFinished()
     {
-        return !hasUnfinishedInput() && (finishing || remainingLimit == 0);
+        return !hasUnfinishedInput() && ((finishing && spiller.isEmpty()) || remainingLimit == 0);
+    }
+
+    @Override
+    public ListenableFuture<Void> isBlocked()
+    {
+        if (spiller.isPresent() && !spiller.get().getSpillInProgress().isDone()) {
+            return spiller.get().getSpillInProgress();
+        }
+        return NOT_BLOCKED;
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && remainingLimit > 0 && !hasUnfinishedInput();
+        return !finishing && remainingLimit > 0 && !hasUnfinishedInput() && isBlocked().isDone();
     }
 
     @Override
@@ -173,8 +258,14 @@ public class DistinctLimitOperator
     {
         checkState(needsInput());
 
+        if (spiller.isPresent()) {
+            // input can only be deduplicated once all distinct values seen before are known
+            spiller.get().spillInput(page.getColumns(inputChannels));
+            return;
+        }
+
         inputPage = page.getColumns(inputChannels);
-        unfinishedWork = groupByHash.getGroupIds(inputPage);
+        unfinishedWork = requireNonNull(groupByHash, "groupByHash is null").getGroupIds(inputPage);
         processUnfinishedWork();
         updateMemoryReservation();
     }
@@ -187,10 +278,13 @@ public class DistinctLimitOperator
         }
 
         if (groupByIds == null) {
-            return null;
+            if (!finishing || spiller.isEmpty() || !isBlocked().isDone() || !unspillNextPage() || !processUnfinishedWork()) {
+                return null;
+            }
         }
 
         verifyNotNull(inputPage);
+        GroupByHash groupByHash = requireNonNull(this.groupByHash, "groupByHash is null");
 
         long resultingPositions = min(groupByHash.getGroupCount() - nextDistinctId, remainingLimit);
         Page result = null;
@@ -215,6 +309,45 @@ public class DistinctLimitOperator
         return result;
     }
 
+    /**
+     * Loads the next spilled input page, together with the distinct values spilled for its partition.
+     *
+     * @return false if there are no more pages to process
+     */
+    private boolean unspillNextPage()
+    {
+        DistinctSpiller spiller = this.spiller.orElseThrow();
+        while (remainingLimit > 0) {
+            if (unspilledInput == null) {
+                if (unspillPartition == PARTITION_COUNT) {
+                    break;
+                }
+                GroupByHash groupByHash = createGroupByHash();
+                this.groupByHash = groupByHash;
+                Iterator<Page> distinctValues = spiller.getDistinctValues(unspillPartition);
+                while (distinctValues.hasNext()) {
+                    verify(groupByHash.addPage(distinctValues.next()).process(), "Spillable hash does not yield");
+                }
+                // spilled distinct values have already been produced
+                nextDistinctId = groupByHash.getGroupCount();
+                unspilledInput = spiller.getInput(unspillPartition);
+                unspillPartition++;
+                updateMemoryReservation();
+            }
+
+            if (unspilledInput.hasNext()) {
+                inputPage = unspilledInput.next();
+                unfinishedWork = requireNonNull(groupByHash, "groupByHash is null").getGroupIds(inputPage);
+                return true;
+            }
+            unspilledInput = null;
+        }
+        groupByHash = null;
+        closeSpiller();
+        updateMemoryReservation();
+        return false;
+    }
+
     private boolean processUnfinishedWork()
     {
         verifyNotNull(unfinishedWork);
@@ -232,6 +365,42 @@ public class DistinctLimitOperator
         return inputPage != null || unfinishedWork != null;
     }
 
+    @Override
+    public ListenableFuture<Void> startMemoryRevoke()
+    {
+        if (finishing || spiller.isPresent() || localRevocableMemoryContext.getBytes() == 0) {
+            return NOT_BLOCKED;
+        }
+        checkState(spillEnabled, "Spill is not enabled");
+        if (hasUnfinishedInput()) {
+            // the pending output refers to the hash, so it is not spilled until the page is processed
+            return NOT_BLOCKED;
+        }
+
+        ImmutableList.Builder<Type> spilledTypes = ImmutableList.<Type>builder().addAll(distinctTypes);
+        if (hasPrecomputedHash) {
+            spilledTypes.add(BIGINT);
+        }
+        spiller = Optional.of(new DistinctSpiller(
+                spilledTypes.build(),
+                IntStream.range(0, distinctTypes.size()).toArray(),
+                hasPrecomputedHash,
+                partitioningSpillerFactory,
+                typeOperators,
+                operatorContext.getSpillContext(),
+                operatorContext.newAggregateUserMemoryContext()));
+        return spiller.get().spillDistinctValues(requireNonNull(groupByHash, "groupByHash is null"));
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (spiller.isPresent() && unspillPartition == 0 && groupByHash != null) {
+            groupByHash = null;
+            updateMemoryReservation();
+        }
+    }
+
     /**
      * Update memory usage.
      *
@@ -242,16 +411,43 @@ public class DistinctLimitOperator
     // The following implementation is a hybrid model, where the push model is going to call the pull model causing reentrancy
     private boolean updateMemoryReservation()
     {
+        long hashSize = groupByHash == null ? 0 : groupByHash.getEstimatedSize();
+        if (spillEnabled) {
+            // memory of the hash can be revoked until it is spilled, so it never yields
+            // spilled partitions are loaded one at a time, in user memory
+            localRevocableMemoryContext.setBytes(spiller.isPresent() ? 0 : hashSize);
+            localUserMemoryContext.setBytes(spiller.isPresent() ? hashSize : 0);
+            return true;
+        }
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
-        localUserMemoryContext.setBytes(groupByHash.getEstimatedSize());
+        localUserMemoryContext.setBytes(hashSize);
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
 
+    @Override
+    public void close()
+    {
+        closeSpiller();
+    }
+
+    private void closeSpiller()
+    {
+        try {
+            if (spiller.isPresent()) {
+                spiller.get().close();
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        spiller = Optional.empty();
+    }
+
     @VisibleForTesting
     public int getCapacity()
     {
-        return groupByHash.getCapacity();
+        return requireNonNull(groupByHash, "groupByHash is null").getCapacity();
     }
 }
@@ -0,0 +1,187 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.trino.memory.context.AggregatedMemoryContext;
+import io.trino.operator.exchange.LocalPartitionGenerator;
+import io.trino.spi.Page;
+import io.trino.spi.PageBuilder;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.TypeOperators;
+import io.trino.spiller.PartitioningSpiller;
+import io.trino.spiller.PartitioningSpillerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
+import static io.trino.operator.InterpretedHashGenerator.createChannelsHashGenerator;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spills the distinct values collected by an operator before its memory was revoked, together with
+ * all input received afterwards. Both are partitioned by the distinct channels, so that each partition
+ * can be processed independently with only the distinct values of that partition in memory.
+ */
+class DistinctSpiller
+        implements Closeable
+{
+    static final int PARTITION_COUNT = 16;
+
+    private final List<Type> valueTypes;
+    private final PartitioningSpiller valuesSpiller;
+    private final PartitioningSpiller inputSpiller;
+    private ListenableFuture<Void> spillInProgress = immediateVoidFuture();
+
+    /**
+     * @param distinctChannels input channels with the distinct values, not including the precomputed hash channel
+     */
+    DistinctSpiller(
+            List<Type> sourceTypes,
+            int[] distinctChannels,
+            boolean hasPrecomputedHash,
+            PartitioningSpillerFactory partitioningSpillerFactory,
+            TypeOperators typeOperators,
+            SpillContext spillContext,
+            AggregatedMemoryContext memoryContext)
+    {
+        requireNonNull(sourceTypes, "sourceTypes is null");
+        requireNonNull(distinctChannels, "distinctChannels is null");
+        requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        requireNonNull(typeOperators, "typeOperators is null");
+
+        List<Type> distinctTypes = IntStream.of(distinctChannels)
+                .mapToObj(sourceTypes::get)
+                .collect(toImmutableList());
+        ImmutableList.Builder<Type> valueTypes = ImmutableList.<Type>builder().addAll(distinctTypes);
+        if (hasPrecomputedHash) {
+            valueTypes.add(BIGINT);
+        }
+        this.valueTypes = valueTypes.build();
+
+        // distinct values and input rows must use the same partitioning, so the hash is not taken from the precomputed hash channel
+        int[] valueChannels = IntStream.range(0, distinctChannels.length).toArray();
+        this.valuesSpiller = partitioningSpillerFactory.create(
+                this.valueTypes,
+                new LocalPartitionGenerator(createChannelsHashGenerator(distinctTypes, valueChannels, typeOperators), PARTITION_COUNT),
+                spillContext,
+                memoryContext);
+        this.inputSpiller = partitioningSpillerFactory.create(
+                sourceTypes,
+                new LocalPartitionGenerator(createChannelsHashGenerator(distinctTypes, distinctChannels, typeOperators), PARTITION_COUNT),
+                spillContext,
+                memoryContext);
+    }
+
+    /**
+     * Spills the values of all groups of the {@code groupByHash}. The hash must not be modified until spilling has finished.
+     */
+    public ListenableFuture<Void> spillDistinctValues(GroupByHash groupByHash)
+    {
+        checkState(spillInProgress.isDone(), "Previous spill has not finished yet");
+        spillInProgress = spillPages(valuesSpiller, distinctValuePages(groupByHash));
+        return spillInProgress;
+    }
+
+    public ListenableFuture<Void> spillInput(Page page)
+    {
+        checkState(spillInProgress.isDone(), "Previous spill has not finished yet");
+        checkSuccess(spillInProgress, "spilling failed");
+        spillInProgress = inputSpiller.partitionAndSpill(page, _ -> true).getSpillingFuture();
+        return spillInProgress;
+    }
+
+    public ListenableFuture<Void> getSpillInProgress()
+    {
+        return spillInProgress;
+    }
+
+    /**
+     * Returns the spilled distinct values of the partition, followed by the precomputed hash channel if present.
+     */
+    public Iterator<Page> getDistinctValues(int partition)
+    {
+        checkState(spillInProgress.isDone(), "Spill has not finished yet");
+        checkSuccess(spillInProgress, "spilling failed");
+        return valuesSpiller.getSpilledPages(partition);
+    }
+
+    public Iterator<Page> getInput(int partition)
+    {
+        checkState(spillInProgress.isDone(), "Spill has not finished yet");
+        checkSuccess(spillInProgress, "spilling failed");
+        return inputSpiller.getSpilledPages(partition);
+    }
+
+    private Iterator<Page> distinctValuePages(GroupByHash groupByHash)
+    {
+        int groupCount = groupByHash.getGroupCount();
+        PageBuilder pageBuilder = new PageBuilder(valueTypes);
+        return new AbstractIterator<>()
+        {
+            private int groupId;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (groupId == groupCount) {
+                    return endOfData();
+                }
+                pageBuilder.reset();
+                while (!pageBuilder.isFull() && groupId < groupCount) {
+                    groupByHash.appendValuesTo(groupId, pageBuilder);
+                    pageBuilder.declarePosition();
+                    groupId++;
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
+    private static ListenableFuture<Void> spillPages(PartitioningSpiller spiller, Iterator<Page> pages)
+    {
+        while (pages.hasNext()) {
+            ListenableFuture<Void> spillingFuture = spiller.partitionAndSpill(pages.next(), _ -> true).getSpillingFuture();
+            if (!spillingFuture.isDone()) {
+                // spiller may not be called until previous pages are written
+                return Futures.transformAsync(spillingFuture, _ -> spillPages(spiller, pages), directExecutor());
+            }
+            checkSuccess(spillingFuture, "spilling failed");
+        }
+        return immediateVoidFuture();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        try (Closer closer = Closer.create()) {
+            closer.register(valuesSpiller);
+            closer.register(inputSpiller);
+        }
+    }
+}
@@ -28,6 +28,7 @@ import io.trino.sql.planner.plan.PlanNodeId;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
@@ -39,7 +40,8 @@ import static java.util.stream.Collectors.toSet;
  * This operator acts as a simple "pass-through" pipe, while saving a summary of input pages.
  * The collected values are used for creating a run-time filtering constraint (for probe-side table scan in an inner join).
  * We record all values for the run-time filter only for small build-side pages (which should be the case when using "broadcast" join).
- * For large inputs on the build side, we can optionally record the min and max values per channel for orderable types (except Double and Real).
+ * For large inputs on the build side, we can optionally record the min and max values per channel for orderable types (except Double and Real),
+ * and a Bloom filter of the values per channel.
  */
 public class DynamicFilterSourceOperator
         implements Operator
@@ -56,6 +58,7 @@ public class DynamicFilterSourceOperator
         private final int maxDistinctValues;
         private final DataSize maxFilterSize;
         private final int minMaxCollectionLimit;
+        private final Optional<DataSize> bloomFilterSize;
         private final TypeOperators typeOperators;
 
         private boolean closed;
@@ -70,6 +73,20 @@ public class DynamicFilterSourceOperator
                 DataSize maxFilterSize,
                 int minMaxCollectionLimit,
                 TypeOperators typeOperators)
+        {
+            this(operatorId, planNodeId, dynamicPredicateConsumer, channels, maxDistinctValues, maxFilterSize, minMaxCollectionLimit, Optional.empty(), typeOperators);
+        }
+
+        public DynamicFilterSourceOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                DynamicFilterSourceConsumer dynamicPredicateConsumer,
+                List<Channel> channels,
+                int maxDistinctValues,
+                DataSize maxFilterSize,
+                int minMaxCollectionLimit,
+                Optional<DataSize> bloomFilterSize,
+                TypeOperators typeOperators)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -82,6 +99,7 @@ public class DynamicFilterSourceOperator
             this.maxDistinctValues = maxDistinctValues;
             this.maxFilterSize = maxFilterSize;
             this.minMaxCollectionLimit = minMaxCollectionLimit;
+            this.bloomFilterSize = requireNonNull(bloomFilterSize, "bloomFilterSize is null");
             this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
         }
 
@@ -99,6 +117,7 @@ public class DynamicFilterSourceOperator
                         maxDistinctValues,
                         maxFilterSize,
                         minMaxCollectionLimit,
+                        bloomFilterSize,
                         typeOperators);
             }
             // Return a pass-through operator which adds little overhead
@@ -144,6 +163,7 @@ public class DynamicFilterSourceOperator
                     maxDistinctValues,
                     maxFilterSize,
                     minMaxCollectionLimit,
+                    bloomFilterSize,
                     typeOperators);
         }
     }
@@ -167,6 +187,7 @@ public class DynamicFilterSourceOperator
             int maxDistinctValues,
             DataSize maxFilterSize,
             int minMaxCollectionLimit,
+            Optional<DataSize> bloomFilterSize,
             TypeOperators typeOperators)
     {
         this.context = requireNonNull(context, "context is null");
@@ -182,6 +203,7 @@ public class DynamicFilterSourceOperator
                         maxDistinctValues,
                         maxFilterSize,
                         minMaxCollectionLimit > 0,
+                        bloomFilterSize,
                         this::finishDomainCollectionIfNecessary,
                         typeOperators))
                 .toArray(JoinDomainBuilder[]::new);
@@ -258,11 +280,14 @@ public class DynamicFilterSourceOperator
         }
 
         ImmutableMap.Builder<DynamicFilterId, Domain> domainsBuilder = ImmutableMap.builder();
+        ImmutableMap.Builder<DynamicFilterId, BlockedBloomFilter> bloomFiltersBuilder = ImmutableMap.builder();
         for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
             DynamicFilterId filterId = channels.get(channelIndex).filterId();
             domainsBuilder.put(filterId, joinDomainBuilders[channelIndex].build());
+            joinDomainBuilders[channelIndex].buildBloomFilter()
+                    .ifPresent(bloomFilter -> bloomFiltersBuilder.put(filterId, bloomFilter));
         }
-        dynamicPredicateConsumer.addPartition(TupleDomain.withColumnDomains(domainsBuilder.buildOrThrow()));
+        dynamicPredicateConsumer.addPartition(TupleDomain.withColumnDomains(domainsBuilder.buildOrThrow()), bloomFiltersBuilder.buildOrThrow());
         userMemoryContext.setBytes(0);
         Arrays.fill(joinDomainBuilders, null);
     }
@@ -241,6 +241,7 @@ public class ExchangeOperator
         Page deserializedPage = deserializer.deserialize(page);
         operatorContext.recordNetworkInput(page.length(), deserializedPage.getPositionCount());
         operatorContext.recordProcessedInput(deserializedPage.getSizeInBytes(), deserializedPage.getPositionCount());
+        operatorContext.setLatestMetrics(deserializer.getMetrics());
 
         return deserializedPage;
     }
@@ -16,6 +16,7 @@ package io.trino.operator;
 import com.google.common.base.Throwables;
 import io.trino.spi.TrinoException;
 import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
 import io.trino.spi.type.Type;
 
 import java.lang.invoke.MethodHandle;
@@ -49,6 +50,7 @@ final class FlatSet
     private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, LITTLE_ENDIAN);
 
     private final Type type;
+    private final MethodHandle readFlat;
     private final MethodHandle writeFlat;
     private final MethodHandle hashFlat;
     private final MethodHandle identicalFlatBlock;
@@ -71,6 +73,7 @@ final class FlatSet
 
     public FlatSet(
             Type type,
+            MethodHandle readFlat,
             MethodHandle writeFlat,
             MethodHandle hashFlat,
             MethodHandle identicalFlatBlock,
@@ -78,6 +81,7 @@ final class FlatSet
     {
         this.type = requireNonNull(type, "type is null");
 
+        this.readFlat = requireNonNull(readFlat, "readFlat is null");
         this.writeFlat = requireNonNull(writeFlat, "writeFlat is null");
         this.hashFlat = requireNonNull(hashFlat, "hashFlat is null");
         this.identicalFlatBlock = requireNonNull(identicalFlatBlock, "identicalFlatBlock is null");
@@ -161,6 +165,44 @@ final class FlatSet
         addNonNull(block, position, hash);
     }
 
+    /**
+     * Appends non-null values stored in the hash table, starting from {@code startIndex}, to the {@code blockBuilder}.
+     *
+     * @return the index to continue from, or -1 if all values have been appended
+     */
+    public int appendValuesTo(int startIndex, BlockBuilder blockBuilder, int maxValues)
+    {
+        int appended = 0;
+        for (int index = startIndex; index < capacity; index++) {
+            if (control[index] == 0) {
+                continue;
+            }
+            if (appended == maxValues) {
+                return index;
+            }
+
+            byte[] records = getRecords(index);
+            int recordOffset = getRecordOffset(index);
+
+            byte[] variableWidthChunk = null;
+            int variableWidthChunkOffset = 0;
+            if (variableWidthData != null) {
+                variableWidthChunk = variableWidthData.getChunk(records, recordOffset);
+                variableWidthChunkOffset = getChunkOffset(records, recordOffset);
+            }
+
+            try {
+                readFlat.invokeExact(records, recordOffset + recordValueOffset, variableWidthChunk, variableWidthChunkOffset, blockBuilder);
+            }
+            catch (Throwable throwable) {
+                Throwables.throwIfUnchecked(throwable);
+                throw new RuntimeException(throwable);
+            }
+            appended++;
+        }
+        return -1;
+    }
+
     private void addNonNull(Block block, int position, long hash)
     {
         int index = getIndex(block, position, hash);
@@ -14,6 +14,7 @@
 package io.trino.operator;
 
 import io.trino.spi.Page;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 
 import java.util.Iterator;
 
@@ -26,5 +27,24 @@ public interface GroupedTopNBuilder
 
     Iterator<Page> buildResult();
 
+    /**
+     * Returns the retained rows of every group, without the ranking channel, with groups ordered
+     * by their raw hash value. Result of multiple builders can be merged with {@link MergeHashSort}.
+     */
+    Iterator<Page> buildHashSortedResult();
+
     long getEstimatedSizeInBytes();
+
+    static int[] hashSortedGroupIds(GroupByHash groupByHash)
+    {
+        int[] groupIds = new int[groupByHash.getGroupCount()];
+        for (int i = 0; i < groupIds.length; i++) {
+            groupIds[i] = i;
+        }
+        if (groupIds.length > 1) {
+            IntArrays.quickSort(groupIds, (leftGroupId, rightGroupId) ->
+                    Long.compare(groupByHash.getRawHash(leftGroupId), groupByHash.getRawHash(rightGroupId)));
+        }
+        return groupIds;
+    }
 }
@@ -20,6 +20,7 @@ import io.trino.operator.RowReferencePageManager.LoadCursor;
 import io.trino.spi.Page;
 import io.trino.spi.PageBuilder;
 import io.trino.spi.type.Type;
+import jakarta.annotation.Nullable;
 
 import java.util.Iterator;
 import java.util.List;
@@ -113,7 +114,13 @@ public class GroupedTopNRankBuilder
     @Override
     public Iterator<Page> buildResult()
     {
-        return new ResultIterator();
+        return new ResultIterator(null, produceRanking);
+    }
+
+    @Override
+    public Iterator<Page> buildHashSortedResult()
+    {
+        return new ResultIterator(GroupedTopNBuilder.hashSortedGroupIds(groupByHash), false);
     }
 
     @Override
@@ -149,14 +156,20 @@ public class GroupedTopNRankBuilder
     {
         private final PageBuilder pageBuilder;
         private final int groupIdCount = groupByHash.getGroupCount();
-        private int currentGroupId = -1;
+        // null indicates that groups are produced in group id order
+        @Nullable
+        private final int[] groupIds;
+        private final boolean produceRanking;
+        private int currentGroupIndex = -1;
         private final LongBigArray rowIdOutput = new LongBigArray();
         private final LongBigArray rankingOutput = new LongBigArray();
         private long currentGroupSize;
         private int currentIndexInGroup;
 
-        ResultIterator()
+        ResultIterator(@Nullable int[] groupIds, boolean produceRanking)
         {
+            this.groupIds = groupIds;
+            this.produceRanking = produceRanking;
             ImmutableList.Builder<Type> sourceTypesBuilders = ImmutableList.<Type>builder().addAll(sourceTypes);
             if (produceRanking) {
                 sourceTypesBuilders.add(BIGINT);
@@ -170,13 +183,14 @@ public class GroupedTopNRankBuilder
             pageBuilder.reset();
             while (!pageBuilder.isFull()) {
                 while (currentIndexInGroup >= currentGroupSize) {
-                    if (currentGroupId + 1 >= groupIdCount) {
+                    if (currentGroupIndex + 1 >= groupIdCount) {
                         if (pageBuilder.isEmpty()) {
                             return endOfData();
                         }
                         return pageBuilder.build();
                     }
-                    currentGroupId++;
+                    currentGroupIndex++;
+                    int currentGroupId = groupIds == null ? currentGroupIndex : groupIds[currentGroupIndex];
                     currentGroupSize = produceRanking
                             ? groupedTopNRankAccumulator.drainTo(currentGroupId, rowIdOutput, rankingOutput)
                             : groupedTopNRankAccumulator.drainTo(currentGroupId, rowIdOutput);
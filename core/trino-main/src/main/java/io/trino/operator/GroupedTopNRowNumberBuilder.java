@@ -21,6 +21,7 @@ import io.trino.operator.RowReferencePageManager.LoadCursor;
 import io.trino.spi.Page;
 import io.trino.spi.PageBuilder;
 import io.trino.spi.type.Type;
+import jakarta.annotation.Nullable;
 
 import java.util.Iterator;
 import java.util.List;
@@ -88,7 +89,13 @@ public class GroupedTopNRowNumberBuilder
     @Override
     public Iterator<Page> buildResult()
     {
-        return new ResultIterator();
+        return new ResultIterator(null, produceRowNumber);
+    }
+
+    @Override
+    public Iterator<Page> buildHashSortedResult()
+    {
+        return new ResultIterator(GroupedTopNBuilder.hashSortedGroupIds(groupByHash), false);
     }
 
     @Override
@@ -130,13 +137,19 @@ public class GroupedTopNRowNumberBuilder
     {
         private final PageBuilder pageBuilder;
         private final int groupIdCount = groupByHash.getGroupCount();
-        private int currentGroupId = -1;
+        // null indicates that groups are produced in group id order
+        @Nullable
+        private final int[] groupIds;
+        private final boolean produceRowNumber;
+        private int currentGroupIndex = -1;
         private final LongBigArray rowIdOutput = new LongBigArray();
         private long currentGroupSize;
         private int currentIndexInGroup;
 
-        ResultIterator()
+        ResultIterator(@Nullable int[] groupIds, boolean produceRowNumber)
         {
+            this.groupIds = groupIds;
+            this.produceRowNumber = produceRowNumber;
             ImmutableList.Builder<Type> sourceTypesBuilders = ImmutableList.<Type>builder().addAll(sourceTypes);
             if (produceRowNumber) {
                 sourceTypesBuilders.add(BIGINT);
@@ -150,13 +163,14 @@ public class GroupedTopNRowNumberBuilder
             pageBuilder.reset();
             while (!pageBuilder.isFull()) {
                 while (currentIndexInGroup >= currentGroupSize) {
-                    if (currentGroupId + 1 >= groupIdCount) {
+                    if (currentGroupIndex + 1 >= groupIdCount) {
                         if (pageBuilder.isEmpty()) {
                             return endOfData();
                         }
                         return pageBuilder.build();
                     }
-                    currentGroupId++;
+                    currentGroupIndex++;
+                    int currentGroupId = groupIds == null ? currentGroupIndex : groupIds[currentGroupIndex];
                     currentGroupSize = groupedTopNRowNumberAccumulator.drainTo(currentGroupId, rowIdOutput);
                     currentIndexInGroup = 0;
                 }
@@ -22,27 +22,35 @@ import io.trino.operator.aggregation.AggregatorFactory;
 import io.trino.operator.aggregation.builder.HashAggregationBuilder;
 import io.trino.operator.aggregation.builder.InMemoryHashAggregationBuilder;
 import io.trino.operator.aggregation.builder.SpillableHashAggregationBuilder;
+import io.trino.operator.aggregation.partial.GroupCardinalitySampler;
 import io.trino.operator.aggregation.partial.PartialAggregationController;
 import io.trino.operator.aggregation.partial.SkipAggregationBuilder;
+import io.trino.operator.project.SelectedPositions;
 import io.trino.operator.scalar.CombineHashFunction;
 import io.trino.spi.Page;
 import io.trino.spi.PageBuilder;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.SourcePage;
 import io.trino.spi.type.BigintType;
 import io.trino.spi.type.Type;
 import io.trino.spi.type.TypeOperators;
 import io.trino.spiller.SpillerFactory;
+import io.trino.sql.gen.columnar.FilterEvaluator;
 import io.trino.sql.planner.plan.AggregationNode.Step;
 import io.trino.sql.planner.plan.PlanNodeId;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.trino.operator.HashGenerator.INITIAL_HASH_VALUE;
+import static io.trino.operator.aggregation.builder.HashAggregationBuilder.selectPositions;
 import static io.trino.operator.aggregation.builder.InMemoryHashAggregationBuilder.toTypes;
+import static io.trino.operator.project.SelectedPositions.positionsRange;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.type.TypeUtils.NULL_HASH_CODE;
 import static java.util.Objects.requireNonNull;
@@ -52,6 +60,19 @@ public class HashAggregationOperator
 {
     private static final double MERGE_WITH_MEMORY_RATIO = 0.9;
 
+    /**
+     * Filter evaluated on the input pages of the aggregation. The positions it reads and selects are
+     * reported as a separate operator, under the plan node id of the filter.
+     */
+    public record InputFilter(int operatorId, PlanNodeId planNodeId, Supplier<FilterEvaluator> filterEvaluator)
+    {
+        public InputFilter
+        {
+            requireNonNull(planNodeId, "planNodeId is null");
+            requireNonNull(filterEvaluator, "filterEvaluator is null");
+        }
+    }
+
     public static class HashAggregationOperatorFactory
             implements OperatorFactory
     {
@@ -75,6 +96,7 @@ public class HashAggregationOperator
         private final FlatHashStrategyCompiler hashStrategyCompiler;
         private final TypeOperators typeOperators;
         private final Optional<PartialAggregationController> partialAggregationController;
+        private final Optional<InputFilter> inputFilter;
 
         private boolean closed;
 
@@ -115,7 +137,8 @@ public class HashAggregationOperator
                     },
                     hashStrategyCompiler,
                     typeOperators,
-                    partialAggregationController);
+                    partialAggregationController,
+                    Optional.empty());
         }
 
         public HashAggregationOperatorFactory(
@@ -137,6 +160,51 @@ public class HashAggregationOperator
                 FlatHashStrategyCompiler hashStrategyCompiler,
                 TypeOperators typeOperators,
                 Optional<PartialAggregationController> partialAggregationController)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    produceDefaultOutput,
+                    aggregatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    unspillMemoryLimit,
+                    spillerFactory,
+                    hashStrategyCompiler,
+                    typeOperators,
+                    partialAggregationController,
+                    Optional.empty());
+        }
+
+        /**
+         * @param inputFilter filter evaluated on the input pages, only the selected positions are aggregated
+         */
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                boolean produceDefaultOutput,
+                List<AggregatorFactory> aggregatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                Optional<DataSize> maxPartialMemory,
+                boolean spillEnabled,
+                DataSize unspillMemoryLimit,
+                SpillerFactory spillerFactory,
+                FlatHashStrategyCompiler hashStrategyCompiler,
+                TypeOperators typeOperators,
+                Optional<PartialAggregationController> partialAggregationController,
+                Optional<InputFilter> inputFilter)
         {
             this(operatorId,
                     planNodeId,
@@ -156,7 +224,8 @@ public class HashAggregationOperator
                     spillerFactory,
                     hashStrategyCompiler,
                     typeOperators,
-                    partialAggregationController);
+                    partialAggregationController,
+                    inputFilter);
         }
 
         @VisibleForTesting
@@ -179,7 +248,8 @@ public class HashAggregationOperator
                 SpillerFactory spillerFactory,
                 FlatHashStrategyCompiler hashStrategyCompiler,
                 TypeOperators typeOperators,
-                Optional<PartialAggregationController> partialAggregationController)
+                Optional<PartialAggregationController> partialAggregationController,
+                Optional<InputFilter> inputFilter)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -200,6 +270,8 @@ public class HashAggregationOperator
             this.hashStrategyCompiler = requireNonNull(hashStrategyCompiler, "hashStrategyCompiler is null");
             this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
             this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
+            this.inputFilter = requireNonNull(inputFilter, "inputFilter is null");
+            checkArgument(inputFilter.isEmpty() || step.isInputRaw(), "inputFilter is supported only for raw input");
         }
 
         @Override
@@ -207,6 +279,8 @@ public class HashAggregationOperator
         {
             checkState(!closed, "Factory is already closed");
 
+            // the filter precedes the aggregation in the driver
+            Optional<OperatorContext> inputFilterContext = inputFilter.map(filter -> driverContext.addOperatorContext(filter.operatorId(), filter.planNodeId(), "FusedFilterOperator"));
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, HashAggregationOperator.class.getSimpleName());
             HashAggregationOperator hashAggregationOperator = new HashAggregationOperator(
                     operatorContext,
@@ -226,7 +300,9 @@ public class HashAggregationOperator
                     spillerFactory,
                     hashStrategyCompiler,
                     typeOperators,
-                    partialAggregationController);
+                    partialAggregationController,
+                    inputFilter.map(filter -> filter.filterEvaluator().get()),
+                    inputFilterContext);
             return hashAggregationOperator;
         }
 
@@ -258,7 +334,8 @@ public class HashAggregationOperator
                     spillerFactory,
                     hashStrategyCompiler,
                     typeOperators,
-                    partialAggregationController.map(PartialAggregationController::duplicate));
+                    partialAggregationController.map(PartialAggregationController::duplicate),
+                    inputFilter);
         }
     }
 
@@ -281,6 +358,10 @@ public class HashAggregationOperator
     private final FlatHashStrategyCompiler flatHashStrategyCompiler;
     private final TypeOperators typeOperators;
     private final AggregationMetrics aggregationMetrics = new AggregationMetrics();
+    private final Optional<GroupCardinalitySampler> cardinalitySampler;
+    private final Optional<FilterEvaluator> inputFilter;
+    private final Optional<OperatorContext> inputFilterContext;
+    private final ConnectorSession connectorSession;
 
     private final List<Type> types;
 
@@ -290,6 +371,7 @@ public class HashAggregationOperator
     private long totalInputRowsProcessed;
     private boolean finishing;
     private boolean finished;
+    private boolean partialAggregationSkipped;
 
     // for yield when memory is not available
     private Work<?> unfinishedWork;
@@ -315,7 +397,9 @@ public class HashAggregationOperator
             SpillerFactory spillerFactory,
             FlatHashStrategyCompiler flatHashStrategyCompiler,
             TypeOperators typeOperators,
-            Optional<PartialAggregationController> partialAggregationController)
+            Optional<PartialAggregationController> partialAggregationController,
+            Optional<FilterEvaluator> inputFilter,
+            Optional<OperatorContext> inputFilterContext)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationControl is null");
@@ -341,6 +425,13 @@ public class HashAggregationOperator
         this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         this.flatHashStrategyCompiler = requireNonNull(flatHashStrategyCompiler, "hashStrategyCompiler is null");
         this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
+        this.cardinalitySampler = partialAggregationController
+                .filter(controller -> controller.isCardinalitySamplingEnabled() && !groupByChannels.isEmpty())
+                .map(_ -> new GroupCardinalitySampler(groupByChannels, flatHashStrategyCompiler.getFlatHashStrategy(groupByTypes)));
+        this.inputFilter = requireNonNull(inputFilter, "inputFilter is null");
+        this.inputFilterContext = requireNonNull(inputFilterContext, "inputFilterContext is null");
+        checkArgument(inputFilter.isPresent() == inputFilterContext.isPresent(), "inputFilter and inputFilterContext must be both present or both absent");
+        this.connectorSession = operatorContext.getSession().toConnectorSession();
 
         this.memoryContext = operatorContext.localUserMemoryContext();
     }
@@ -363,6 +454,16 @@ public class HashAggregationOperator
         return finished;
     }
 
+    @Override
+    public ListenableFuture<Void> isBlocked()
+    {
+        // merging of spilled pages is blocked while spilled pages are read ahead
+        if (outputPages != null && outputPages.isBlocked()) {
+            return outputPages.getBlockedFuture();
+        }
+        return NOT_BLOCKED;
+    }
+
     @Override
     public boolean needsInput()
     {
@@ -381,12 +482,24 @@ public class HashAggregationOperator
         checkState(unfinishedWork == null, "Operator has unfinished work");
         checkState(!finishing, "Operator is already finishing");
         requireNonNull(page, "page is null");
-        totalInputRowsProcessed += page.getPositionCount();
+
+        SelectedPositions selectedPositions = positionsRange(0, page.getPositionCount());
+        if (inputFilter.isPresent()) {
+            selectedPositions = inputFilter.get().evaluate(connectorSession, selectedPositions, SourcePage.create(page)).selectedPositions();
+            OperatorContext filterContext = inputFilterContext.orElseThrow();
+            filterContext.recordProcessedInput(page.getSizeInBytes(), page.getPositionCount());
+            filterContext.recordOutput(page.getSizeInBytes() * selectedPositions.size() / page.getPositionCount(), selectedPositions.size());
+            if (selectedPositions.isEmpty()) {
+                return;
+            }
+        }
+        totalInputRowsProcessed += selectedPositions.size();
 
         if (aggregationBuilder == null) {
             boolean partialAggregationDisabled = partialAggregationController
                     .map(PartialAggregationController::isPartialAggregationDisabled)
                     .orElse(false);
+            updatePartialAggregationSkipped(step.isOutputPartial() && partialAggregationDisabled);
             if (step.isOutputPartial() && partialAggregationDisabled) {
                 aggregationBuilder = new SkipAggregationBuilder(groupByChannels, hashChannel, aggregatorFactories, memoryContext, aggregationMetrics);
             }
@@ -437,13 +550,53 @@ public class HashAggregationOperator
         }
 
         // process the current page; save the unfinished work if we are waiting for memory
-        unfinishedWork = aggregationBuilder.processPage(page);
+        unfinishedWork = aggregationBuilder.processPage(page, selectedPositions);
         if (unfinishedWork.process()) {
             unfinishedWork = null;
         }
         aggregationBuilder.updateMemory();
-        aggregationInputBytesProcessed += page.getSizeInBytes();
-        aggregationInputRowsProcessed += page.getPositionCount();
+        if (selectedPositions.size() == page.getPositionCount()) {
+            aggregationInputBytesProcessed += page.getSizeInBytes();
+        }
+        else {
+            // only the selected positions are aggregated, so estimate their size from the size of the page
+            aggregationInputBytesProcessed += page.getSizeInBytes() * selectedPositions.size() / page.getPositionCount();
+        }
+        aggregationInputRowsProcessed += selectedPositions.size();
+
+        if (partialAggregationSkipped) {
+            sampleGroupCardinality(selectPositions(page, selectedPositions));
+        }
+    }
+
+    private void updatePartialAggregationSkipped(boolean skipped)
+    {
+        if (skipped == partialAggregationSkipped) {
+            return;
+        }
+        partialAggregationSkipped = skipped;
+        if (skipped) {
+            aggregationMetrics.recordPartialAggregationDisabled();
+        }
+        else {
+            aggregationMetrics.recordPartialAggregationEnabled();
+            // samples of input which was not aggregated are stale once aggregation is turned back on
+            cardinalitySampler.ifPresent(GroupCardinalitySampler::reset);
+        }
+    }
+
+    private void sampleGroupCardinality(Page page)
+    {
+        if (cardinalitySampler.isEmpty()) {
+            return;
+        }
+        GroupCardinalitySampler sampler = cardinalitySampler.get();
+        PartialAggregationController controller = partialAggregationController.orElseThrow();
+        sampler.addPage(page);
+        if (sampler.getSampledBytes() >= controller.getCardinalitySampleBytes()) {
+            controller.onCardinalitySample(sampler.getSampledRows(), sampler.getEstimatedUniqueRows());
+            sampler.reset();
+        }
     }
 
     private boolean isSpillable()
@@ -525,6 +678,7 @@ public class HashAggregationOperator
     public void close()
     {
         closeAggregationBuilder();
+        inputFilterContext.ifPresent(OperatorContext::destroy);
     }
 
     @VisibleForTesting
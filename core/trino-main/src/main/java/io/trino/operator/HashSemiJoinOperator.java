@@ -25,23 +25,33 @@ import io.trino.spi.Page;
 import io.trino.spi.block.Block;
 import io.trino.spi.block.BlockBuilder;
 import io.trino.spi.type.Type;
+import io.trino.spi.type.TypeOperators;
+import io.trino.spiller.PartitioningSpiller;
+import io.trino.spiller.PartitioningSpillerFactory;
 import io.trino.sql.planner.plan.PlanNodeId;
 import jakarta.annotation.Nullable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.trino.operator.SpilledChannelSet.createPartitionFunction;
 import static io.trino.operator.WorkProcessor.TransformationState.blocked;
 import static io.trino.operator.WorkProcessor.TransformationState.finished;
+import static io.trino.operator.WorkProcessor.TransformationState.needsMoreData;
 import static io.trino.operator.WorkProcessor.TransformationState.ofResult;
 import static io.trino.operator.WorkProcessorOperatorAdapter.createAdapterOperatorFactory;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.BooleanType.BOOLEAN;
+import static io.trino.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static java.util.Objects.requireNonNull;
 
 public class HashSemiJoinOperator
@@ -55,7 +65,20 @@ public class HashSemiJoinOperator
             int probeJoinChannel,
             Optional<Integer> probeJoinHashChannel)
     {
-        return createAdapterOperatorFactory(new Factory(operatorId, planNodeId, setSupplier, probeTypes, probeJoinChannel, probeJoinHashChannel));
+        return createOperatorFactory(operatorId, planNodeId, setSupplier, probeTypes, probeJoinChannel, probeJoinHashChannel, unsupportedPartitioningSpillerFactory(), new TypeOperators());
+    }
+
+    public static OperatorFactory createOperatorFactory(
+            int operatorId,
+            PlanNodeId planNodeId,
+            SetSupplier setSupplier,
+            List<? extends Type> probeTypes,
+            int probeJoinChannel,
+            Optional<Integer> probeJoinHashChannel,
+            PartitioningSpillerFactory partitioningSpillerFactory,
+            TypeOperators typeOperators)
+    {
+        return createAdapterOperatorFactory(new Factory(operatorId, planNodeId, setSupplier, probeTypes, probeJoinChannel, probeJoinHashChannel, partitioningSpillerFactory, typeOperators));
     }
 
     private static class Factory
@@ -67,9 +90,19 @@ public class HashSemiJoinOperator
         private final List<Type> probeTypes;
         private final int probeJoinChannel;
         private final Optional<Integer> probeJoinHashChannel;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
+        private final TypeOperators typeOperators;
         private boolean closed;
 
-        private Factory(int operatorId, PlanNodeId planNodeId, SetSupplier setSupplier, List<? extends Type> probeTypes, int probeJoinChannel, Optional<Integer> probeJoinHashChannel)
+        private Factory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                SetSupplier setSupplier,
+                List<? extends Type> probeTypes,
+                int probeJoinChannel,
+                Optional<Integer> probeJoinHashChannel,
+                PartitioningSpillerFactory partitioningSpillerFactory,
+                TypeOperators typeOperators)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -78,13 +111,24 @@ public class HashSemiJoinOperator
             checkArgument(probeJoinChannel >= 0, "probeJoinChannel is negative");
             this.probeJoinChannel = probeJoinChannel;
             this.probeJoinHashChannel = probeJoinHashChannel;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+            this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
         }
 
         @Override
         public WorkProcessorOperator create(ProcessorContext processorContext, WorkProcessor<Page> sourcePages)
         {
             checkState(!closed, "Factory is already closed");
-            return new HashSemiJoinOperator(sourcePages, setSupplier, probeJoinChannel, probeJoinHashChannel, processorContext.getMemoryTrackingContext());
+            return new HashSemiJoinOperator(
+                    sourcePages,
+                    setSupplier,
+                    probeTypes,
+                    probeJoinChannel,
+                    probeJoinHashChannel,
+                    partitioningSpillerFactory,
+                    typeOperators,
+                    processorContext.getSpillContext(),
+                    processorContext.getMemoryTrackingContext());
         }
 
         @Override
@@ -114,25 +158,34 @@ public class HashSemiJoinOperator
         @Override
         public Factory duplicate()
         {
-            return new Factory(operatorId, planNodeId, setSupplier, probeTypes, probeJoinChannel, probeJoinHashChannel);
+            return new Factory(operatorId, planNodeId, setSupplier, probeTypes, probeJoinChannel, probeJoinHashChannel, partitioningSpillerFactory, typeOperators);
         }
     }
 
     private final WorkProcessor<Page> pages;
+    private final SemiJoinPages semiJoinPages;
 
     private HashSemiJoinOperator(
             WorkProcessor<Page> sourcePages,
-            SetSupplier channelSetFuture,
+            SetSupplier setSupplier,
+            List<Type> probeTypes,
             int probeJoinChannel,
             Optional<Integer> probeHashChannel,
+            PartitioningSpillerFactory partitioningSpillerFactory,
+            TypeOperators typeOperators,
+            SpillContext spillContext,
             MemoryTrackingContext memoryTrackingContext)
     {
-        pages = sourcePages
-                .transform(new SemiJoinPages(
-                        channelSetFuture,
-                        probeJoinChannel,
-                        probeHashChannel,
-                        memoryTrackingContext.aggregateUserMemoryContext()));
+        semiJoinPages = new SemiJoinPages(
+                setSupplier,
+                probeTypes,
+                probeJoinChannel,
+                probeHashChannel,
+                partitioningSpillerFactory,
+                typeOperators,
+                spillContext,
+                memoryTrackingContext.aggregateUserMemoryContext());
+        pages = sourcePages.transform(semiJoinPages);
     }
 
     @Override
@@ -141,49 +194,157 @@ public class HashSemiJoinOperator
         return pages;
     }
 
+    @Override
+    public void close()
+    {
+        semiJoinPages.close();
+    }
+
     private static class SemiJoinPages
             implements WorkProcessor.Transformation<Page, Page>
     {
         private static final int NO_PRECOMPUTED_HASH_CHANNEL = -1;
 
+        private final SetSupplier setSupplier;
+        private final List<Type> probeTypes;
         private final int probeJoinChannel;
         private final int probeHashChannel; // when >= 0, this is the precomputed hash channel
-        private final ListenableFuture<ChannelSet> channelSetFuture;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
+        private final TypeOperators typeOperators;
+        private final SpillContext spillContext;
+        private final AggregatedMemoryContext aggregatedMemoryContext;
+        private final ListenableFuture<Void> buildFinishedFuture;
         private final LocalMemoryContext localMemoryContext;
 
         @Nullable
         private ChannelSet channelSet;
 
-        public SemiJoinPages(SetSupplier channelSetFuture, int probeJoinChannel, Optional<Integer> probeHashChannel, AggregatedMemoryContext aggregatedMemoryContext)
+        // used when the build side has been spilled
+        @Nullable
+        private SpilledChannelSet spilledChannelSet;
+        private Optional<PartitioningSpiller> spiller = Optional.empty();
+        private ListenableFuture<Void> spillInProgress = immediateVoidFuture();
+        private int currentPartition;
+        @Nullable
+        private ListenableFuture<ChannelSet> currentPartitionSet;
+        @Nullable
+        private Iterator<Page> currentPartitionPages;
+
+        public SemiJoinPages(
+                SetSupplier setSupplier,
+                List<Type> probeTypes,
+                int probeJoinChannel,
+                Optional<Integer> probeHashChannel,
+                PartitioningSpillerFactory partitioningSpillerFactory,
+                TypeOperators typeOperators,
+                SpillContext spillContext,
+                AggregatedMemoryContext aggregatedMemoryContext)
         {
             checkArgument(probeJoinChannel >= 0, "probeJoinChannel is negative");
 
-            this.channelSetFuture = channelSetFuture.getChannelSet();
+            this.setSupplier = requireNonNull(setSupplier, "setSupplier is null");
+            this.probeTypes = requireNonNull(probeTypes, "probeTypes is null");
             this.probeJoinChannel = probeJoinChannel;
             this.probeHashChannel = probeHashChannel.orElse(NO_PRECOMPUTED_HASH_CHANNEL);
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+            this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
+            this.spillContext = requireNonNull(spillContext, "spillContext is null");
+            this.aggregatedMemoryContext = requireNonNull(aggregatedMemoryContext, "aggregatedMemoryContext is null");
+            this.buildFinishedFuture = setSupplier.getBuildFinishedFuture();
             this.localMemoryContext = aggregatedMemoryContext.newLocalMemoryContext(SemiJoinPages.class.getSimpleName());
         }
 
         @Override
         public TransformationState<Page> process(Page inputPage)
         {
+            if (channelSet == null && spilledChannelSet == null) {
+                if (!buildFinishedFuture.isDone()) {
+                    if (inputPage != null) {
+                        // This will materialize page, but it shouldn't matter for the first page
+                        localMemoryContext.setBytes(inputPage.getSizeInBytes());
+                    }
+                    return blocked(buildFinishedFuture);
+                }
+                checkSuccess(buildFinishedFuture, "ChannelSet building failed");
+                spilledChannelSet = setSupplier.getSpilledChannelSet().orElse(null);
+                if (spilledChannelSet == null) {
+                    channelSet = setSupplier.getChannelSet();
+                }
+                localMemoryContext.setBytes(0);
+            }
+
+            if (spilledChannelSet != null) {
+                return processSpilled(spilledChannelSet, inputPage);
+            }
+
             if (inputPage == null) {
                 return finished();
             }
+            // use an effectively-final local variable instead of the non-final instance field inside the loop
+            ChannelSet channelSet = requireNonNull(this.channelSet, "channelSet is null");
+            // add the new boolean column to the page
+            return ofResult(semiJoin(inputPage, channelSet, channelSet.isEmpty(), channelSet.containsNull()));
+        }
+
+        /**
+         * Build side has been partitioned and spilled, so the probe side is partitioned and spilled the same way,
+         * and each probe partition is joined once the matching build partition has been loaded.
+         */
+        private TransformationState<Page> processSpilled(SpilledChannelSet spilledChannelSet, Page inputPage)
+        {
+            if (!spillInProgress.isDone()) {
+                return blocked(spillInProgress);
+            }
+            checkSuccess(spillInProgress, "spilling failed");
+
+            if (inputPage != null) {
+                if (spiller.isEmpty()) {
+                    spiller = Optional.of(partitioningSpillerFactory.create(
+                            probeTypes,
+                            createPartitionFunction(probeTypes.get(probeJoinChannel), probeJoinChannel, spilledChannelSet.getPartitionCount(), typeOperators),
+                            spillContext,
+                            aggregatedMemoryContext));
+                }
+                spillInProgress = spiller.get().partitionAndSpill(inputPage, _ -> true).getSpillingFuture();
+                return needsMoreData();
+            }
+
+            if (spiller.isEmpty()) {
+                // probe side had no input, so no partition is needed
+                spilledChannelSet.releasePartitionsFrom(currentPartition);
+                currentPartition = spilledChannelSet.getPartitionCount();
+                return finished();
+            }
 
-            if (channelSet == null) {
-                if (!channelSetFuture.isDone()) {
-                    // This will materialize page, but it shouldn't matter for the first page
-                    localMemoryContext.setBytes(inputPage.getSizeInBytes());
-                    return blocked(asVoid(channelSetFuture));
+            while (currentPartition < spilledChannelSet.getPartitionCount()) {
+                if (currentPartitionSet == null) {
+                    currentPartitionSet = spilledChannelSet.getPartition(currentPartition);
                 }
-                checkSuccess(channelSetFuture, "ChannelSet building failed");
-                channelSet = getFutureValue(channelSetFuture);
-                localMemoryContext.setBytes(0);
+                if (!currentPartitionSet.isDone()) {
+                    return blocked(asVoid(currentPartitionSet));
+                }
+                ChannelSet partitionSet = getFutureValue(currentPartitionSet);
+
+                if (currentPartitionPages == null) {
+                    currentPartitionPages = spiller.get().getSpilledPages(currentPartition);
+                }
+                if (currentPartitionPages.hasNext()) {
+                    // null handling depends on the whole build side, not only on the current partition
+                    Page page = semiJoin(currentPartitionPages.next(), partitionSet, spilledChannelSet.isEmpty(), spilledChannelSet.containsNull());
+                    return ofResult(page, false);
+                }
+
+                currentPartitionPages = null;
+                currentPartitionSet = null;
+                spilledChannelSet.releasePartition(currentPartition);
+                currentPartition++;
             }
-            // use an effectively-final local variable instead of the non-final instance field inside the loop
-            ChannelSet channelSet = requireNonNull(this.channelSet, "channelSet is null");
+            closeSpiller();
+            return finished();
+        }
 
+        private Page semiJoin(Page inputPage, ChannelSet channelSet, boolean buildEmpty, boolean buildContainsNull)
+        {
             // create the block builder for the new boolean column
             // we know the exact size required for the block
             BlockBuilder blockBuilder = BOOLEAN.createFixedSizeBlockBuilder(inputPage.getPositionCount());
@@ -195,7 +356,7 @@ public class HashSemiJoinOperator
             // update hashing strategy to use probe cursor
             for (int position = 0; position < inputPage.getPositionCount(); position++) {
                 if (probeMayHaveNull && probeBlock.isNull(position)) {
-                    if (channelSet.isEmpty()) {
+                    if (buildEmpty) {
                         BOOLEAN.writeBoolean(blockBuilder, false);
                     }
                     else {
@@ -211,7 +372,7 @@ public class HashSemiJoinOperator
                     else {
                         contains = channelSet.contains(probeBlock, position);
                     }
-                    if (!contains && channelSet.containsNull()) {
+                    if (!contains && buildContainsNull) {
                         blockBuilder.appendNull();
                     }
                     else {
@@ -219,8 +380,27 @@ public class HashSemiJoinOperator
                     }
                 }
             }
-            // add the new boolean column to the page
-            return ofResult(inputPage.appendColumn(blockBuilder.build()));
+            return inputPage.appendColumn(blockBuilder.build());
+        }
+
+        public void close()
+        {
+            // let the build side unspill and release partitions this operator will never process
+            setSupplier.probeOperatorClosed(currentPartition);
+            closeSpiller();
+        }
+
+        private void closeSpiller()
+        {
+            try {
+                if (spiller.isPresent()) {
+                    spiller.get().close();
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            spiller = Optional.empty();
         }
     }
 
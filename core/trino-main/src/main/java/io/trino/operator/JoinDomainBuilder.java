@@ -29,6 +29,7 @@ import io.trino.spi.type.TypeOperators;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
+import java.util.Optional;
 
 import static io.airlift.slice.SizeOf.instanceSize;
 import static io.airlift.slice.SizeOf.sizeOf;
@@ -64,6 +65,7 @@ public class JoinDomainBuilder
 
     private final int maxDistinctValues;
     private final long maxFilterSizeInBytes;
+    private final Optional<DataSize> bloomFilterSize;
     private final Runnable notifyStateChange;
 
     private final MethodHandle readFlat;
@@ -96,6 +98,7 @@ public class JoinDomainBuilder
 
     private boolean collectDistinctValues = true;
     private boolean collectMinMax;
+    private BlockedBloomFilter bloomFilter;
 
     private long retainedSizeInBytes = INSTANCE_SIZE;
 
@@ -106,11 +109,28 @@ public class JoinDomainBuilder
             boolean minMaxEnabled,
             Runnable notifyStateChange,
             TypeOperators typeOperators)
+    {
+        this(type, maxDistinctValues, maxFilterSize, minMaxEnabled, Optional.empty(), notifyStateChange, typeOperators);
+    }
+
+    /**
+     * @param bloomFilterSize when present, values are additionally collected into a Bloom filter of this size
+     * once there are too many distinct values, so that the filter stays selective beyond the min and max values
+     */
+    public JoinDomainBuilder(
+            Type type,
+            int maxDistinctValues,
+            DataSize maxFilterSize,
+            boolean minMaxEnabled,
+            Optional<DataSize> bloomFilterSize,
+            Runnable notifyStateChange,
+            TypeOperators typeOperators)
     {
         this.type = requireNonNull(type, "type is null");
 
         this.maxDistinctValues = maxDistinctValues;
         this.maxFilterSizeInBytes = maxFilterSize.toBytes();
+        this.bloomFilterSize = requireNonNull(bloomFilterSize, "bloomFilterSize is null");
         this.notifyStateChange = requireNonNull(notifyStateChange, "notifyStateChange is null");
 
         // Skipping DOUBLE and REAL in collectMinMaxValues to avoid dealing with NaN values
@@ -155,11 +175,15 @@ public class JoinDomainBuilder
 
     public boolean isCollecting()
     {
-        return collectMinMax || collectDistinctValues;
+        return collectMinMax || collectDistinctValues || bloomFilter != null;
     }
 
     public void add(Block block)
     {
+        if (bloomFilter != null) {
+            addToBloomFilter(block);
+        }
+
         if (collectDistinctValues) {
             switch (block) {
                 case ValueBlock valueBlock -> {
@@ -179,6 +203,15 @@ public class JoinDomainBuilder
             // if the distinct size is too large, fall back to min max, and drop the distinct values
             if (distinctSize > maxDistinctValues || getRetainedSizeInBytes() > maxFilterSizeInBytes) {
                 retainedSizeInBytes = INSTANCE_SIZE;
+                if (bloomFilterSize.isPresent()) {
+                    bloomFilter = new BlockedBloomFilter(bloomFilterSize.get());
+                    for (int index = 0; index < distinctCapacity; index++) {
+                        if (distinctControl[index] != 0) {
+                            bloomFilter.put(valueHashCode(distinctRecords, index));
+                        }
+                    }
+                    retainedSizeInBytes += bloomFilter.getRetainedSizeInBytes();
+                }
                 if (collectMinMax) {
                     int minIndex = -1;
                     int maxIndex = -1;
@@ -204,7 +237,7 @@ public class JoinDomainBuilder
                         retainedSizeInBytes += minValue.getRetainedSizeInBytes() + maxValue.getRetainedSizeInBytes();
                     }
                 }
-                else {
+                else if (bloomFilter == null) {
                     notifyStateChange.run();
                 }
 
@@ -305,6 +338,33 @@ public class JoinDomainBuilder
         return Domain.all(type);
     }
 
+    /**
+     * Returns the Bloom filter of all non-null values, if too many distinct values were collected
+     * for the domain returned by {@link #build()} to be exact.
+     */
+    public Optional<BlockedBloomFilter> buildBloomFilter()
+    {
+        return Optional.ofNullable(bloomFilter);
+    }
+
+    private void addToBloomFilter(Block block)
+    {
+        if (block instanceof RunLengthEncodedBlock rleBlock) {
+            if (!rleBlock.getValue().isNull(0)) {
+                bloomFilter.put(valueHashCode(rleBlock.getValue(), 0));
+            }
+            return;
+        }
+        ValueBlock valueBlock = block.getUnderlyingValueBlock();
+        for (int i = 0; i < block.getPositionCount(); i++) {
+            int position = block.getUnderlyingValuePosition(i);
+            // Inner and right join doesn't match rows with null key column values.
+            if (!valueBlock.isNull(position)) {
+                bloomFilter.put(valueHashCode(valueBlock, position));
+            }
+        }
+    }
+
     private void add(ValueBlock block, int position)
     {
         // Inner and right join doesn't match rows with null key column values.
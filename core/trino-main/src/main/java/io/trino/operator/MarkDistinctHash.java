@@ -14,6 +14,7 @@
 package io.trino.operator;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.trino.Session;
 import io.trino.spi.Page;
 import io.trino.spi.block.Block;
@@ -52,6 +53,14 @@ public class MarkDistinctHash
         return new TransformWork<>(groupByHash.getGroupIds(page), groupIds -> processNextGroupIds(groupByHash.getGroupCount(), groupIds, page.getPositionCount()));
     }
 
+    /**
+     * Spills the distinct values seen so far. The hash must not be modified until spilling has finished.
+     */
+    ListenableFuture<Void> spillDistinctValues(DistinctSpiller spiller)
+    {
+        return spiller.spillDistinctValues(groupByHash);
+    }
+
     @VisibleForTesting
     public int getCapacity()
     {
@@ -16,19 +16,29 @@ package io.trino.operator;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.trino.memory.context.LocalMemoryContext;
 import io.trino.spi.Page;
 import io.trino.spi.block.Block;
 import io.trino.spi.type.Type;
+import io.trino.spi.type.TypeOperators;
+import io.trino.spiller.PartitioningSpillerFactory;
 import io.trino.sql.planner.plan.PlanNodeId;
+import jakarta.annotation.Nullable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
+import static io.trino.operator.DistinctSpiller.PARTITION_COUNT;
 import static io.trino.spi.type.BooleanType.BOOLEAN;
+import static io.trino.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static java.util.Objects.requireNonNull;
 
 public class MarkDistinctOperator
@@ -43,6 +53,9 @@ public class MarkDistinctOperator
         private final List<Integer> markDistinctChannels;
         private final List<Type> types;
         private final FlatHashStrategyCompiler hashStrategyCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
+        private final TypeOperators typeOperators;
         private boolean closed;
 
         public MarkDistinctOperatorFactory(
@@ -52,6 +65,20 @@ public class MarkDistinctOperator
                 Collection<Integer> markDistinctChannels,
                 Optional<Integer> hashChannel,
                 FlatHashStrategyCompiler hashStrategyCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, markDistinctChannels, hashChannel, hashStrategyCompiler, false, unsupportedPartitioningSpillerFactory(), new TypeOperators());
+        }
+
+        public MarkDistinctOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                Collection<Integer> markDistinctChannels,
+                Optional<Integer> hashChannel,
+                FlatHashStrategyCompiler hashStrategyCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory,
+                TypeOperators typeOperators)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -59,6 +86,9 @@ public class MarkDistinctOperator
             checkArgument(!markDistinctChannels.isEmpty(), "markDistinctChannels is empty");
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.hashStrategyCompiler = requireNonNull(hashStrategyCompiler, "hashStrategyCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+            this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
             this.types = ImmutableList.<Type>builder()
                     .addAll(sourceTypes)
                     .add(BOOLEAN)
@@ -70,7 +100,7 @@ public class MarkDistinctOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MarkDistinctOperator.class.getSimpleName());
-            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, hashStrategyCompiler);
+            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, hashStrategyCompiler, spillEnabled, partitioningSpillerFactory, typeOperators);
         }
 
         @Override
@@ -82,22 +112,56 @@ public class MarkDistinctOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, hashStrategyCompiler);
+            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, hashStrategyCompiler, spillEnabled, partitioningSpillerFactory, typeOperators);
         }
     }
 
     private final OperatorContext operatorContext;
-    private final MarkDistinctHash markDistinctHash;
+    private final List<Type> sourceTypes;
+    private final List<Type> distinctTypes;
+    private final List<Integer> distinctChannels;
+    private final boolean hasPrecomputedHash;
+    private final FlatHashStrategyCompiler hashStrategyCompiler;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private final TypeOperators typeOperators;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
     private final int[] markDistinctChannels;
 
+    // null once the distinct values have been spilled
+    @Nullable
+    private MarkDistinctHash markDistinctHash;
+
     private Page inputPage;
+    private Page outputPage;
     private boolean finishing;
 
     // for yield when memory is not available
     private Work<Block> unfinishedWork;
 
+    // used once the distinct values have been spilled
+    private Optional<DistinctSpiller> spiller = Optional.empty();
+    private int unspillPartition;
+    @Nullable
+    private MarkDistinctHash unspilledHash;
+    @Nullable
+    private Iterator<Page> unspilledInput;
+
     public MarkDistinctOperator(OperatorContext operatorContext, List<Type> types, List<Integer> markDistinctChannels, Optional<Integer> hashChannel, FlatHashStrategyCompiler hashStrategyCompiler)
+    {
+        this(operatorContext, types, markDistinctChannels, hashChannel, hashStrategyCompiler, false, unsupportedPartitioningSpillerFactory(), new TypeOperators());
+    }
+
+    public MarkDistinctOperator(
+            OperatorContext operatorContext,
+            List<Type> types,
+            List<Integer> markDistinctChannels,
+            Optional<Integer> hashChannel,
+            FlatHashStrategyCompiler hashStrategyCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory,
+            TypeOperators typeOperators)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
 
@@ -119,8 +183,23 @@ public class MarkDistinctOperator
             this.markDistinctChannels = Ints.toArray(markDistinctChannels);
         }
 
-        this.markDistinctHash = new MarkDistinctHash(operatorContext.getSession(), distinctTypes.build(), hashChannel.isPresent(), hashStrategyCompiler, this::updateMemoryReservation);
+        // the output types include the boolean mark channel
+        this.sourceTypes = ImmutableList.copyOf(types.subList(0, types.size() - 1));
+        this.distinctTypes = distinctTypes.build();
+        this.distinctChannels = ImmutableList.copyOf(markDistinctChannels);
+        this.hasPrecomputedHash = hashChannel.isPresent();
+        this.hashStrategyCompiler = requireNonNull(hashStrategyCompiler, "hashStrategyCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        this.markDistinctHash = createMarkDistinctHash();
+    }
+
+    private MarkDistinctHash createMarkDistinctHash()
+    {
+        return new MarkDistinctHash(operatorContext.getSession(), distinctTypes, hasPrecomputedHash, hashStrategyCompiler, this::updateMemoryReservation);
     }
 
     @Override
@@ -138,13 +217,22 @@ public class MarkDistinctOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && !hasUnfinishedInput();
+        return finishing && !hasUnfinishedInput() && spiller.isEmpty();
+    }
+
+    @Override
+    public ListenableFuture<Void> isBlocked()
+    {
+        if (spiller.isPresent() && !spiller.get().getSpillInProgress().isDone()) {
+            return spiller.get().getSpillInProgress();
+        }
+        return NOT_BLOCKED;
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && !hasUnfinishedInput();
+        return !finishing && !hasUnfinishedInput() && isBlocked().isDone();
     }
 
     @Override
@@ -153,36 +241,121 @@ public class MarkDistinctOperator
         requireNonNull(page, "page is null");
         checkState(needsInput());
 
+        if (spiller.isPresent()) {
+            // input can only be marked once all distinct values seen before are known
+            spiller.get().spillInput(page);
+            return;
+        }
+
         inputPage = page;
 
-        unfinishedWork = markDistinctHash.markDistinctRows(page.getColumns(markDistinctChannels));
+        unfinishedWork = requireNonNull(markDistinctHash, "markDistinctHash is null").markDistinctRows(page.getColumns(markDistinctChannels));
         updateMemoryReservation();
     }
 
     @Override
     public Page getOutput()
     {
-        if (unfinishedWork == null) {
+        if (unfinishedWork != null && !processUnfinishedWork()) {
             return null;
         }
 
+        if (outputPage != null) {
+            Page result = outputPage;
+            outputPage = null;
+            updateMemoryReservation();
+            return result;
+        }
+
+        if (finishing && spiller.isPresent() && isBlocked().isDone()) {
+            return getUnspilledOutput();
+        }
+        return null;
+    }
+
+    private boolean processUnfinishedWork()
+    {
         if (!unfinishedWork.process()) {
-            return null;
+            return false;
         }
 
         // add the new boolean column to the page
-        Page outputPage = inputPage.appendColumn(unfinishedWork.getResult());
+        outputPage = inputPage.appendColumn(unfinishedWork.getResult());
 
         unfinishedWork = null;
         inputPage = null;
+        return true;
+    }
 
-        updateMemoryReservation();
-        return outputPage;
+    private Page getUnspilledOutput()
+    {
+        DistinctSpiller spiller = this.spiller.orElseThrow();
+        while (true) {
+            if (unspilledInput == null) {
+                if (unspillPartition == PARTITION_COUNT) {
+                    closeSpiller();
+                    return null;
+                }
+                unspilledHash = createMarkDistinctHash();
+                Iterator<Page> distinctValues = spiller.getDistinctValues(unspillPartition);
+                while (distinctValues.hasNext()) {
+                    verify(unspilledHash.markDistinctRows(distinctValues.next()).process(), "Spillable hash does not yield");
+                }
+                updateMemoryReservation();
+                unspilledInput = spiller.getInput(unspillPartition);
+                unspillPartition++;
+            }
+
+            if (unspilledInput.hasNext()) {
+                Page page = unspilledInput.next();
+                Work<Block> work = requireNonNull(unspilledHash, "unspilledHash is null").markDistinctRows(page.getColumns(markDistinctChannels));
+                verify(work.process(), "Spillable hash does not yield");
+                updateMemoryReservation();
+                return page.appendColumn(work.getResult());
+            }
+
+            unspilledInput = null;
+            unspilledHash = null;
+            updateMemoryReservation();
+        }
     }
 
     private boolean hasUnfinishedInput()
     {
-        return inputPage != null || unfinishedWork != null;
+        return inputPage != null || unfinishedWork != null || outputPage != null;
+    }
+
+    @Override
+    public ListenableFuture<Void> startMemoryRevoke()
+    {
+        if (finishing || markDistinctHash == null || localRevocableMemoryContext.getBytes() == 0) {
+            return NOT_BLOCKED;
+        }
+        checkState(spillEnabled, "Spill is not enabled");
+
+        // hash does not yield when spill is enabled, so the pending page is marked before the hash is spilled
+        if (unfinishedWork != null) {
+            verify(processUnfinishedWork(), "Spillable hash does not yield");
+        }
+
+        spiller = Optional.of(new DistinctSpiller(
+                sourceTypes,
+                Ints.toArray(distinctChannels),
+                hasPrecomputedHash,
+                partitioningSpillerFactory,
+                typeOperators,
+                operatorContext.getSpillContext(),
+                operatorContext.newAggregateUserMemoryContext()));
+        return markDistinctHash.spillDistinctValues(spiller.get());
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (spiller.isPresent() && markDistinctHash != null) {
+            markDistinctHash = null;
+            updateMemoryReservation();
+        }
     }
 
     /**
@@ -195,16 +368,41 @@ public class MarkDistinctOperator
     // The following implementation is a hybrid model, where the push model is going to call the pull model causing reentrancy
     private boolean updateMemoryReservation()
     {
+        if (spillEnabled) {
+            // memory of the hash can be revoked, so it never yields
+            localRevocableMemoryContext.setBytes(markDistinctHash == null ? 0 : markDistinctHash.getEstimatedSize());
+            localUserMemoryContext.setBytes(unspilledHash == null ? 0 : unspilledHash.getEstimatedSize());
+            return true;
+        }
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
-        localUserMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
+        localUserMemoryContext.setBytes(requireNonNull(markDistinctHash, "markDistinctHash is null").getEstimatedSize());
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
 
+    @Override
+    public void close()
+    {
+        closeSpiller();
+    }
+
+    private void closeSpiller()
+    {
+        try {
+            if (spiller.isPresent()) {
+                spiller.get().close();
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        spiller = Optional.empty();
+    }
+
     @VisibleForTesting
     public int getCapacity()
     {
-        return markDistinctHash.getCapacity();
+        return requireNonNull(markDistinctHash, "markDistinctHash is null").getCapacity();
     }
 }
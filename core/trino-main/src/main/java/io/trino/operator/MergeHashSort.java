@@ -26,6 +26,7 @@ import java.util.function.BiPredicate;
 import java.util.stream.IntStream;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.operator.InterpretedHashGenerator.createChannelsHashGenerator;
 import static io.trino.operator.InterpretedHashGenerator.createPagePrefixHashGenerator;
 import static io.trino.util.MergeSortedPages.mergeSortedPages;
 
@@ -53,7 +54,20 @@ public class MergeHashSort
      */
     public WorkProcessor<Page> merge(List<Type> keyTypes, List<Type> allTypes, List<WorkProcessor<Page>> channels, DriverYieldSignal driverYieldSignal)
     {
-        InterpretedHashGenerator hashGenerator = createPagePrefixHashGenerator(keyTypes, typeOperators);
+        return merge(createPagePrefixHashGenerator(keyTypes, typeOperators), allTypes, channels, driverYieldSignal);
+    }
+
+    /**
+     * Same as {@link #merge(List, List, List, DriverYieldSignal)}, but the hash is computed
+     * over the {@code keyChannels} instead of the page prefix.
+     */
+    public WorkProcessor<Page> merge(List<Type> keyTypes, int[] keyChannels, List<Type> allTypes, List<WorkProcessor<Page>> channels, DriverYieldSignal driverYieldSignal)
+    {
+        return merge(createChannelsHashGenerator(keyTypes, keyChannels, typeOperators), allTypes, channels, driverYieldSignal);
+    }
+
+    private WorkProcessor<Page> merge(InterpretedHashGenerator hashGenerator, List<Type> allTypes, List<WorkProcessor<Page>> channels, DriverYieldSignal driverYieldSignal)
+    {
         return mergeSortedPages(
                 channels,
                 createHashPageWithPositionComparator(hashGenerator),
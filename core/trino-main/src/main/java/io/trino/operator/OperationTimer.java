@@ -90,6 +90,10 @@ class OperationTimer
 
     private static long currentThreadCpuTime()
     {
+        if (Thread.currentThread().isVirtual()) {
+            // the JVM does not measure CPU time of virtual threads, so it is reported as unavailable
+            return 0;
+        }
         return THREAD_MX_BEAN.getCurrentThreadCpuTime();
     }
 
@@ -34,7 +34,6 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.base.Verify.verifyNotNull;
 import static com.google.common.collect.ImmutableList.toImmutableList;
-import static com.google.common.collect.Iterators.transform;
 import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
 import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static io.airlift.concurrent.MoreFutures.getFutureValue;
@@ -158,7 +157,7 @@ public class OrderByOperator
     private ListenableFuture<Void> spillInProgress = immediateVoidFuture();
     private Optional<Runnable> finishMemoryRevoke = Optional.empty();
 
-    private Iterator<Optional<Page>> sortedPages;
+    private WorkProcessor<Page> sortedPages;
 
     private State state = State.NEEDS_INPUT;
 
@@ -232,10 +231,10 @@ public class OrderByOperator
 
             List<WorkProcessor<Page>> spilledPages = getSpilledPages();
             if (spilledPages.isEmpty()) {
-                sortedPages = transform(sortedPagesIndex, Optional::of);
+                sortedPages = WorkProcessor.fromIterator(sortedPagesIndex);
             }
             else {
-                sortedPages = mergeSpilledAndMemoryPages(spilledPages, sortedPagesIndex).yieldingIterator();
+                sortedPages = mergeSpilledAndMemoryPages(spilledPages, sortedPagesIndex);
             }
         }
     }
@@ -275,17 +274,25 @@ public class OrderByOperator
         }
 
         verifyNotNull(sortedPages, "sortedPages is null");
-        if (!sortedPages.hasNext()) {
+        if (!sortedPages.process()) {
+            // merging of spilled pages has yielded or is blocked on reading spilled pages
+            return null;
+        }
+        if (sortedPages.isFinished()) {
             state = State.FINISHED;
             return null;
         }
 
-        Optional<Page> next = sortedPages.next();
-        if (next.isEmpty()) {
-            return null;
+        return sortedPages.getResult().getColumns(outputChannels);
+    }
+
+    @Override
+    public ListenableFuture<Void> isBlocked()
+    {
+        if (sortedPages != null && sortedPages.isBlocked()) {
+            return sortedPages.getBlockedFuture();
         }
-        Page nextPage = next.get();
-        return nextPage.getColumns(outputChannels);
+        return NOT_BLOCKED;
     }
 
     @Override
@@ -337,9 +344,7 @@ public class OrderByOperator
             return ImmutableList.of();
         }
 
-        return spiller.get().getSpills().stream()
-                .map(WorkProcessor::fromIterator)
-                .collect(toImmutableList());
+        return spiller.get().getSpillProcessors();
     }
 
     private WorkProcessor<Page> mergeSpilledAndMemoryPages(List<WorkProcessor<Page>> spilledPages, Iterator<Page> sortedPagesIndex)
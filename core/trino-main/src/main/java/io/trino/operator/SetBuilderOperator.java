@@ -13,20 +13,38 @@
  */
 package io.trino.operator;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import io.trino.memory.context.LocalMemoryContext;
 import io.trino.operator.ChannelSet.ChannelSetBuilder;
 import io.trino.spi.Page;
+import io.trino.spi.block.Block;
 import io.trino.spi.type.Type;
 import io.trino.spi.type.TypeOperators;
+import io.trino.spiller.PartitioningSpiller;
+import io.trino.spiller.PartitioningSpillerFactory;
 import io.trino.sql.gen.JoinCompiler;
 import io.trino.sql.planner.plan.PlanNodeId;
+import jakarta.annotation.Nullable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
+import static io.airlift.concurrent.MoreFutures.getDone;
+import static io.trino.operator.SpilledChannelSet.createPartitionFunction;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -36,7 +54,15 @@ public class SetBuilderOperator
     public static class SetSupplier
     {
         private final Type type;
-        private final SettableFuture<ChannelSet> channelSetFuture = SettableFuture.create();
+        private final SettableFuture<Void> buildFinished = SettableFuture.create();
+        @GuardedBy("this")
+        @Nullable
+        private ChannelSet channelSet;
+        @GuardedBy("this")
+        @Nullable
+        private SpilledChannelSet spilledChannelSet;
+        @GuardedBy("this")
+        private int probeOperatorsClosedBeforeBuildFinished;
 
         public SetSupplier(Type type)
         {
@@ -48,15 +74,58 @@ public class SetBuilderOperator
             return type;
         }
 
-        public ListenableFuture<ChannelSet> getChannelSet()
+        /**
+         * Completed once either {@link #getChannelSet()} or {@link #getSpilledChannelSet()} is available.
+         */
+        public ListenableFuture<Void> getBuildFinishedFuture()
         {
-            return channelSetFuture;
+            return buildFinished;
+        }
+
+        public synchronized ChannelSet getChannelSet()
+        {
+            checkState(channelSet != null, "ChannelSet is not available");
+            return channelSet;
+        }
+
+        public synchronized Optional<SpilledChannelSet> getSpilledChannelSet()
+        {
+            checkState(buildFinished.isDone(), "Build has not finished yet");
+            return Optional.ofNullable(spilledChannelSet);
+        }
+
+        /**
+         * Called by probe operators on close. {@code nextPartition} is the first spilled partition the operator has not released yet.
+         */
+        public synchronized void probeOperatorClosed(int nextPartition)
+        {
+            if (spilledChannelSet != null) {
+                spilledChannelSet.releasePartitionsFrom(nextPartition);
+            }
+            else if (!buildFinished.isDone()) {
+                probeOperatorsClosedBeforeBuildFinished++;
+            }
         }
 
         void setChannelSet(ChannelSet channelSet)
         {
-            boolean wasSet = channelSetFuture.set(requireNonNull(channelSet, "channelSet is null"));
-            checkState(wasSet, "ChannelSet already set");
+            synchronized (this) {
+                checkState(!buildFinished.isDone(), "ChannelSet already set");
+                this.channelSet = requireNonNull(channelSet, "channelSet is null");
+            }
+            buildFinished.set(null);
+        }
+
+        void setSpilledChannelSet(SpilledChannelSet spilledChannelSet)
+        {
+            synchronized (this) {
+                checkState(!buildFinished.isDone(), "ChannelSet already set");
+                this.spilledChannelSet = requireNonNull(spilledChannelSet, "spilledChannelSet is null");
+                for (int i = 0; i < probeOperatorsClosedBeforeBuildFinished; i++) {
+                    spilledChannelSet.releasePartitionsFrom(0);
+                }
+            }
+            buildFinished.set(null);
         }
     }
 
@@ -72,6 +141,10 @@ public class SetBuilderOperator
         private boolean closed;
         private final JoinCompiler joinCompiler;
         private final TypeOperators typeOperators;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
+        private final int spillPartitionCount;
+        private final OptionalInt probeOperatorsCount;
 
         public SetBuilderOperatorFactory(
                 int operatorId,
@@ -82,6 +155,23 @@ public class SetBuilderOperator
                 int expectedPositions,
                 JoinCompiler joinCompiler,
                 TypeOperators typeOperators)
+        {
+            this(operatorId, planNodeId, type, setChannel, hashChannel, expectedPositions, joinCompiler, typeOperators, false, PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory(), 1, OptionalInt.empty());
+        }
+
+        public SetBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                Type type,
+                int setChannel,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                JoinCompiler joinCompiler,
+                TypeOperators typeOperators,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory,
+                int spillPartitionCount,
+                OptionalInt probeOperatorsCount)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -92,6 +182,12 @@ public class SetBuilderOperator
             this.expectedPositions = expectedPositions;
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
             this.typeOperators = requireNonNull(typeOperators, "blockTypeOperators is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+            checkArgument(Integer.bitCount(spillPartitionCount) == 1, "spillPartitionCount must be a power of 2");
+            this.spillPartitionCount = spillPartitionCount;
+            this.probeOperatorsCount = requireNonNull(probeOperatorsCount, "probeOperatorsCount is null");
+            checkArgument(!spillEnabled || probeOperatorsCount.isPresent(), "probeOperatorsCount must be present when spill is enabled");
         }
 
         public SetSupplier getSetProvider()
@@ -104,7 +200,18 @@ public class SetBuilderOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, SetBuilderOperator.class.getSimpleName());
-            return new SetBuilderOperator(operatorContext, setProvider, setChannel, hashChannel, expectedPositions, joinCompiler, typeOperators);
+            return new SetBuilderOperator(
+                    operatorContext,
+                    setProvider,
+                    setChannel,
+                    hashChannel,
+                    expectedPositions,
+                    joinCompiler,
+                    typeOperators,
+                    spillEnabled,
+                    partitioningSpillerFactory,
+                    spillPartitionCount,
+                    probeOperatorsCount);
         }
 
         @Override
@@ -116,18 +223,66 @@ public class SetBuilderOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new SetBuilderOperatorFactory(operatorId, planNodeId, setProvider.getType(), setChannel, hashChannel, expectedPositions, joinCompiler, typeOperators);
+            return new SetBuilderOperatorFactory(operatorId, planNodeId, setProvider.getType(), setChannel, hashChannel, expectedPositions, joinCompiler, typeOperators, spillEnabled, partitioningSpillerFactory, spillPartitionCount, probeOperatorsCount);
         }
     }
 
+    private enum State
+    {
+        /**
+         * Input is accumulated in the in-memory set
+         */
+        CONSUMING_INPUT,
+
+        /**
+         * Memory has been revoked, so all input is partitioned and spilled to disk
+         */
+        SPILLING_INPUT,
+
+        /**
+         * Spilled set has been published, waiting for probe operators to request the next partition
+         */
+        INPUT_SPILLED,
+
+        /**
+         * Requested spilled partition is being loaded
+         */
+        INPUT_UNSPILLING,
+
+        /**
+         * Spilled partition has been loaded, waiting for probe operators to release it
+         */
+        INPUT_UNSPILLED_AND_BUILT,
+
+        FINISHED
+    }
+
     private final OperatorContext operatorContext;
     private final SetSupplier setSupplier;
     private final int setChannel;
     private final int hashChannel;
+    private final TypeOperators typeOperators;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private final int spillPartitionCount;
+    private final OptionalInt probeOperatorsCount;
+    private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
-    private final ChannelSetBuilder channelSetBuilder;
+    @Nullable
+    private ChannelSetBuilder channelSetBuilder;
 
-    private boolean finished;
+    private State state = State.CONSUMING_INPUT;
+    private Optional<PartitioningSpiller> spiller = Optional.empty();
+    private ListenableFuture<Void> spillInProgress = immediateVoidFuture();
+    // tracked only once the input is spilled
+    private boolean spilledInputEmpty = true;
+    private boolean spilledInputContainsNull;
+    @Nullable
+    private SpilledChannelSet spilledChannelSet;
+    private int unspillingPartition;
+    @Nullable
+    private ListenableFuture<List<Page>> unspillInProgress;
 
     public SetBuilderOperator(
             OperatorContext operatorContext,
@@ -137,17 +292,41 @@ public class SetBuilderOperator
             int expectedPositions,
             JoinCompiler joinCompiler,
             TypeOperators typeOperators)
+    {
+        this(operatorContext, setSupplier, setChannel, hashChannel, expectedPositions, joinCompiler, typeOperators, false, PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory(), 1, OptionalInt.empty());
+    }
+
+    public SetBuilderOperator(
+            OperatorContext operatorContext,
+            SetSupplier setSupplier,
+            int setChannel,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            JoinCompiler joinCompiler,
+            TypeOperators typeOperators,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory,
+            int spillPartitionCount,
+            OptionalInt probeOperatorsCount)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.setSupplier = requireNonNull(setSupplier, "setSupplier is null");
 
         this.setChannel = setChannel;
         this.hashChannel = hashChannel.orElse(-1);
+        this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        this.spillPartitionCount = spillPartitionCount;
+        this.probeOperatorsCount = requireNonNull(probeOperatorsCount, "probeOperatorsCount is null");
+        this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
 
         // Set builder has a single channel which goes in channel 0, if hash is present, add a hashBlock to channel 1
         this.channelSetBuilder = new ChannelSetBuilder(
                 setSupplier.getType(),
-                requireNonNull(typeOperators, "typeOperators is null"), operatorContext.localUserMemoryContext());
+                typeOperators,
+                spillEnabled ? localRevocableMemoryContext : localUserMemoryContext);
     }
 
     @Override
@@ -159,20 +338,110 @@ public class SetBuilderOperator
     @Override
     public void finish()
     {
-        if (finished) {
-            return;
+        switch (state) {
+            case CONSUMING_INPUT -> finishInput();
+            case SPILLING_INPUT -> finishSpilledInput();
+            case INPUT_SPILLED -> unspillPartition();
+            case INPUT_UNSPILLING -> buildUnspilledPartition();
+            case INPUT_UNSPILLED_AND_BUILT -> releaseUnspilledPartition();
+            case FINISHED -> {}
         }
+    }
 
-        ChannelSet channelSet = channelSetBuilder.build();
+    private void finishInput()
+    {
+        ChannelSet channelSet = requireNonNull(channelSetBuilder, "channelSetBuilder is null").build();
+        if (spillEnabled) {
+            // the set is handed over to probe operators, so it can no longer be revoked
+            localUserMemoryContext.setBytes(channelSet.getEstimatedSizeInBytes());
+            localRevocableMemoryContext.setBytes(0);
+        }
         setSupplier.setChannelSet(channelSet);
         operatorContext.recordOutput(channelSet.getEstimatedSizeInBytes(), channelSet.size());
-        finished = true;
+        state = State.FINISHED;
+    }
+
+    private void finishSpilledInput()
+    {
+        if (!spillInProgress.isDone()) {
+            return;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
+        spilledChannelSet = new SpilledChannelSet(spillPartitionCount, probeOperatorsCount.orElseThrow(), spilledInputEmpty, spilledInputContainsNull);
+        setSupplier.setSpilledChannelSet(spilledChannelSet);
+        state = State.INPUT_SPILLED;
+    }
+
+    private void unspillPartition()
+    {
+        SpilledChannelSet spilledChannelSet = requireNonNull(this.spilledChannelSet, "spilledChannelSet is null");
+        if (!spilledChannelSet.getPartitionRequestedFuture(unspillingPartition).isDone()) {
+            return;
+        }
+        if (spilledChannelSet.getPartitionReleasedFuture(unspillingPartition).isDone()) {
+            // no probe operator needs this partition
+            nextPartition();
+            return;
+        }
+
+        unspillInProgress = spiller.orElseThrow().getAllSpilledPages(unspillingPartition);
+        state = State.INPUT_UNSPILLING;
+    }
+
+    private void buildUnspilledPartition()
+    {
+        ListenableFuture<List<Page>> unspillInProgress = requireNonNull(this.unspillInProgress, "unspillInProgress is null");
+        if (!unspillInProgress.isDone()) {
+            return;
+        }
+        List<Page> spilledPages = getDone(unspillInProgress);
+        this.unspillInProgress = null;
+
+        ChannelSetBuilder partitionBuilder = new ChannelSetBuilder(setSupplier.getType(), typeOperators, localUserMemoryContext);
+        for (Page page : spilledPages) {
+            partitionBuilder.addAll(page.getBlock(0), null);
+        }
+        requireNonNull(spilledChannelSet, "spilledChannelSet is null").setPartition(unspillingPartition, partitionBuilder.build());
+        state = State.INPUT_UNSPILLED_AND_BUILT;
+    }
+
+    private void releaseUnspilledPartition()
+    {
+        if (!requireNonNull(spilledChannelSet, "spilledChannelSet is null").getPartitionReleasedFuture(unspillingPartition).isDone()) {
+            return;
+        }
+        localUserMemoryContext.setBytes(0);
+        nextPartition();
+    }
+
+    private void nextPartition()
+    {
+        unspillingPartition++;
+        if (unspillingPartition < spillPartitionCount) {
+            state = State.INPUT_SPILLED;
+            return;
+        }
+        closeSpiller();
+        state = State.FINISHED;
     }
 
     @Override
     public boolean isFinished()
     {
-        return finished;
+        return state == State.FINISHED;
+    }
+
+    @Override
+    public ListenableFuture<Void> isBlocked()
+    {
+        return switch (state) {
+            case CONSUMING_INPUT, FINISHED -> NOT_BLOCKED;
+            case SPILLING_INPUT -> spillInProgress;
+            case INPUT_SPILLED -> requireNonNull(spilledChannelSet, "spilledChannelSet is null").getPartitionRequestedFuture(unspillingPartition);
+            case INPUT_UNSPILLING -> asVoid(requireNonNull(unspillInProgress, "unspillInProgress is null"));
+            case INPUT_UNSPILLED_AND_BUILT -> requireNonNull(spilledChannelSet, "spilledChannelSet is null").getPartitionReleasedFuture(unspillingPartition);
+        };
     }
 
     @Override
@@ -180,16 +449,25 @@ public class SetBuilderOperator
     {
         // Since SetBuilderOperator doesn't produce any output, the getOutput()
         // method may never be called.
-        return !finished;
+        return state == State.CONSUMING_INPUT || (state == State.SPILLING_INPUT && spillInProgress.isDone());
     }
 
     @Override
     public void addInput(Page page)
     {
         requireNonNull(page, "page is null");
-        checkState(!isFinished(), "Operator is already finished");
+        checkState(needsInput(), "Operator is already finished");
+
+        if (state == State.SPILLING_INPUT) {
+            checkSuccess(spillInProgress, "spilling failed");
+            Block block = page.getBlock(setChannel);
+            spilledInputEmpty &= block.getPositionCount() == 0;
+            spilledInputContainsNull |= containsNull(block);
+            spillInProgress = spiller.orElseThrow().partitionAndSpill(new Page(block), _ -> true).getSpillingFuture();
+            return;
+        }
 
-        channelSetBuilder.addAll(page.getBlock(setChannel), hashChannel == -1 ? null : page.getBlock(hashChannel));
+        requireNonNull(channelSetBuilder, "channelSetBuilder is null").addAll(page.getBlock(setChannel), hashChannel == -1 ? null : page.getBlock(hashChannel));
     }
 
     @Override
@@ -197,4 +475,93 @@ public class SetBuilderOperator
     {
         return null;
     }
+
+    @Override
+    public ListenableFuture<Void> startMemoryRevoke()
+    {
+        if (state != State.CONSUMING_INPUT || localRevocableMemoryContext.getBytes() == 0) {
+            return NOT_BLOCKED;
+        }
+        checkState(spillEnabled, "Spill is not enabled");
+
+        ChannelSet channelSet = requireNonNull(channelSetBuilder, "channelSetBuilder is null").build();
+        spilledInputEmpty = channelSet.isEmpty();
+        spilledInputContainsNull = channelSet.containsNull();
+        spiller = Optional.of(partitioningSpillerFactory.create(
+                ImmutableList.of(setSupplier.getType()),
+                createPartitionFunction(setSupplier.getType(), 0, spillPartitionCount, typeOperators),
+                operatorContext.getSpillContext(),
+                operatorContext.newAggregateUserMemoryContext()));
+        spillInProgress = spillPages(channelSet.getValuePages());
+        state = State.SPILLING_INPUT;
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (state != State.SPILLING_INPUT || channelSetBuilder == null) {
+            return;
+        }
+        // the in-memory set has been spilled, all further input goes directly to the spiller
+        channelSetBuilder = null;
+        localRevocableMemoryContext.setBytes(0);
+    }
+
+    private ListenableFuture<Void> spillPages(Iterator<Page> pages)
+    {
+        PartitioningSpiller spiller = this.spiller.orElseThrow();
+        while (pages.hasNext()) {
+            ListenableFuture<Void> spillingFuture = spiller.partitionAndSpill(pages.next(), _ -> true).getSpillingFuture();
+            if (!spillingFuture.isDone()) {
+                // continue once previous pages are written, as a spill writer may not be used concurrently
+                return Futures.transformAsync(spillingFuture, _ -> spillPages(pages), directExecutor());
+            }
+            checkSuccess(spillingFuture, "spilling failed");
+        }
+        return immediateVoidFuture();
+    }
+
+    private static <T> ListenableFuture<Void> asVoid(ListenableFuture<T> future)
+    {
+        return Futures.transform(future, v -> null, directExecutor());
+    }
+
+    private static boolean containsNull(Block block)
+    {
+        if (!block.mayHaveNull()) {
+            return false;
+        }
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close()
+    {
+        if (unspillInProgress != null) {
+            unspillInProgress.cancel(true);
+            unspillInProgress = null;
+        }
+        closeSpiller();
+        channelSetBuilder = null;
+        localRevocableMemoryContext.setBytes(0);
+    }
+
+    private void closeSpiller()
+    {
+        try {
+            if (spiller.isPresent()) {
+                spiller.get().close();
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        spiller = Optional.empty();
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.errorprone.annotations.ThreadSafe;
+import io.trino.operator.exchange.LocalPartitionGenerator;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.TypeOperators;
+
+import static io.trino.operator.InterpretedHashGenerator.createChannelsHashGenerator;
+
+/**
+ * Coordinates unspilling of a semi join build side that has been partitioned and spilled by
+ * {@link SetBuilderOperator}. Partitions are loaded by the build operator one at a time, when requested
+ * by a probe operator, and kept in memory until all probe operators have released them.
+ */
+@ThreadSafe
+public class SpilledChannelSet
+{
+    private final SpilledPartitions<ChannelSet> partitions;
+    private final boolean empty;
+    private final boolean containsNull;
+
+    public SpilledChannelSet(int partitionCount, int probeOperatorsCount, boolean empty, boolean containsNull)
+    {
+        this.partitions = new SpilledPartitions<>(partitionCount, probeOperatorsCount);
+        this.empty = empty;
+        this.containsNull = containsNull;
+    }
+
+    /**
+     * Both build and probe sides must use this partitioning, so that a probe row
+     * is matched against the partition of the build side that could contain its value.
+     */
+    public static PartitionFunction createPartitionFunction(Type type, int channel, int partitionCount, TypeOperators typeOperators)
+    {
+        return new LocalPartitionGenerator(createChannelsHashGenerator(ImmutableList.of(type), new int[] {channel}, typeOperators), partitionCount);
+    }
+
+    public int getPartitionCount()
+    {
+        return partitions.getPartitionCount();
+    }
+
+    /**
+     * Returns true if the build side had no rows, including null rows.
+     */
+    public boolean isEmpty()
+    {
+        return empty;
+    }
+
+    public boolean containsNull()
+    {
+        return containsNull;
+    }
+
+    /**
+     * Called by probe operators. Partitions must be requested in order.
+     */
+    public ListenableFuture<ChannelSet> getPartition(int partition)
+    {
+        return partitions.getPartition(partition);
+    }
+
+    /**
+     * Called by probe operators once the partition is no longer needed.
+     */
+    public void releasePartition(int partition)
+    {
+        partitions.releasePartition(partition);
+    }
+
+    /**
+     * Called by probe operators which are closed before all partitions have been processed.
+     */
+    public void releasePartitionsFrom(int partition)
+    {
+        partitions.releasePartitionsFrom(partition);
+    }
+
+    ListenableFuture<Void> getPartitionRequestedFuture(int partition)
+    {
+        return partitions.getPartitionRequestedFuture(partition);
+    }
+
+    ListenableFuture<Void> getPartitionReleasedFuture(int partition)
+    {
+        return partitions.getPartitionReleasedFuture(partition);
+    }
+
+    void setPartition(int partition, ChannelSet channelSet)
+    {
+        partitions.setPartition(partition, channelSet);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * Coordinates unspilling of a build side that has been spilled in partitions. Partitions are loaded by the
+ * build operator one at a time, when requested by a probe operator, and kept in memory until all probe
+ * operators have released them.
+ */
+@ThreadSafe
+public class SpilledPartitions<T>
+{
+    private final int partitionCount;
+    private final int probeOperatorsCount;
+
+    private final List<SettableFuture<Void>> partitionRequested;
+    private final List<SettableFuture<T>> partitionLoaded;
+    private final List<SettableFuture<Void>> partitionReleased;
+    @GuardedBy("this")
+    private final int[] releasedCount;
+
+    public SpilledPartitions(int partitionCount, int probeOperatorsCount)
+    {
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        checkArgument(probeOperatorsCount > 0, "probeOperatorsCount must be positive");
+        this.partitionCount = partitionCount;
+        this.probeOperatorsCount = probeOperatorsCount;
+        this.partitionRequested = createFutures(partitionCount);
+        this.partitionLoaded = createFutures(partitionCount);
+        this.partitionReleased = createFutures(partitionCount);
+        this.releasedCount = new int[partitionCount];
+    }
+
+    public int getPartitionCount()
+    {
+        return partitionCount;
+    }
+
+    /**
+     * Called by probe operators. Partitions must be requested in order.
+     */
+    public ListenableFuture<T> getPartition(int partition)
+    {
+        partitionRequested.get(partition).set(null);
+        return partitionLoaded.get(partition);
+    }
+
+    /**
+     * Called by probe operators once the partition is no longer needed.
+     */
+    public synchronized void releasePartition(int partition)
+    {
+        releasedCount[partition]++;
+        checkState(releasedCount[partition] <= probeOperatorsCount, "Partition %s released too many times", partition);
+        if (releasedCount[partition] == probeOperatorsCount) {
+            // build operator might be waiting for the request of a partition no probe operator needs
+            partitionRequested.get(partition).set(null);
+            partitionReleased.get(partition).set(null);
+        }
+    }
+
+    /**
+     * Called by probe operators which are closed before all partitions have been processed.
+     */
+    public synchronized void releasePartitionsFrom(int partition)
+    {
+        for (int i = partition; i < partitionCount; i++) {
+            releasePartition(i);
+        }
+    }
+
+    /**
+     * Called by the build operator, which loads the partition once this future is completed.
+     */
+    public ListenableFuture<Void> getPartitionRequestedFuture(int partition)
+    {
+        return partitionRequested.get(partition);
+    }
+
+    /**
+     * Called by the build operator, which can drop the partition once this future is completed.
+     */
+    public ListenableFuture<Void> getPartitionReleasedFuture(int partition)
+    {
+        return partitionReleased.get(partition);
+    }
+
+    public void setPartition(int partition, T value)
+    {
+        boolean wasSet = partitionLoaded.get(partition).set(value);
+        checkState(wasSet, "Partition %s already loaded", partition);
+    }
+
+    private static <T> List<SettableFuture<T>> createFutures(int count)
+    {
+        return IntStream.range(0, count)
+                .mapToObj(_ -> SettableFuture.<T>create())
+                .collect(toImmutableList());
+    }
+}
@@ -18,11 +18,17 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 import io.trino.Session;
 import io.trino.memory.context.LocalMemoryContext;
+import io.trino.operator.WorkProcessor.Transformation;
+import io.trino.operator.WorkProcessor.TransformationState;
 import io.trino.spi.Page;
 import io.trino.spi.type.Type;
+import io.trino.spi.type.TypeOperators;
+import io.trino.spiller.Spiller;
+import io.trino.spiller.SpillerFactory;
 import io.trino.sql.planner.plan.PlanNodeId;
 import io.trino.sql.planner.plan.TopNRankingNode.RankingType;
 import io.trino.type.BlockTypeOperators;
@@ -33,7 +39,11 @@ import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.trino.operator.GroupByHash.createGroupByHash;
 import static java.util.Objects.requireNonNull;
 
@@ -64,6 +74,10 @@ public class TopNRankingOperator
         private final PageWithPositionComparator comparator;
         private final BlockTypeOperators blockTypeOperators;
         private final Optional<DataSize> maxPartialMemory;
+        private final boolean spillEnabled;
+        private final Optional<SpillerFactory> spillerFactory;
+        private final DataSize unspillMemoryLimit;
+        private final TypeOperators typeOperators;
 
         public TopNRankingOperatorFactory(
                 int operatorId,
@@ -81,7 +95,11 @@ public class TopNRankingOperator
                 Optional<DataSize> maxPartialMemory,
                 FlatHashStrategyCompiler hashStrategyCompiler,
                 PageWithPositionComparator comparator,
-                BlockTypeOperators blockTypeOperators)
+                BlockTypeOperators blockTypeOperators,
+                boolean spillEnabled,
+                Optional<SpillerFactory> spillerFactory,
+                DataSize unspillMemoryLimit,
+                TypeOperators typeOperators)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -102,6 +120,12 @@ public class TopNRankingOperator
             this.comparator = requireNonNull(comparator, "comparator is null");
             this.blockTypeOperators = requireNonNull(blockTypeOperators, "blockTypeOperators is null");
             this.maxPartialMemory = requireNonNull(maxPartialMemory, "maxPartialMemory is null");
+            this.spillEnabled = spillEnabled;
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+            this.unspillMemoryLimit = requireNonNull(unspillMemoryLimit, "unspillMemoryLimit is null");
+            this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
+            checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
+            checkArgument(!spillEnabled || !partial, "Spill is not supported for partial TopN ranking");
         }
 
         @Override
@@ -124,7 +148,11 @@ public class TopNRankingOperator
                     maxPartialMemory,
                     hashStrategyCompiler,
                     comparator,
-                    blockTypeOperators);
+                    blockTypeOperators,
+                    spillEnabled,
+                    spillerFactory,
+                    unspillMemoryLimit,
+                    typeOperators);
         }
 
         @Override
@@ -152,22 +180,41 @@ public class TopNRankingOperator
                     maxPartialMemory,
                     hashStrategyCompiler,
                     comparator,
-                    blockTypeOperators);
+                    blockTypeOperators,
+                    spillEnabled,
+                    spillerFactory,
+                    unspillMemoryLimit,
+                    typeOperators);
         }
     }
 
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localMemoryContext;
+    private final LocalMemoryContext revocableMemoryContext;
 
     private final int[] outputChannels;
     private final Supplier<GroupedTopNBuilder> groupedTopNBuilderSupplier;
     private final boolean partial;
     private final long maxFlushableBytes;
 
+    private final List<Type> sourceTypes;
+    private final List<Type> partitionTypes;
+    private final int[] partitionChannels;
+    private final boolean spillEnabled;
+    private final Optional<SpillerFactory> spillerFactory;
+    private final long memoryLimitForMerge;
+    private final TypeOperators typeOperators;
+
     private GroupedTopNBuilder groupedTopNBuilder;
     private boolean finishing;
+    private boolean producingOutput;
     private Work<?> unfinishedWork;
-    private Iterator<Page> outputIterator;
+    private WorkProcessor<Page> outputPages;
+
+    private Optional<Spiller> spiller = Optional.empty();
+    private Optional<MergeHashSort> mergeHashSort = Optional.empty();
+    private Optional<LocalMemoryContext> mergeMemoryContext = Optional.empty();
+    private ListenableFuture<Void> spillInProgress = immediateVoidFuture();
 
     public TopNRankingOperator(
             OperatorContext operatorContext,
@@ -184,11 +231,16 @@ public class TopNRankingOperator
             Optional<DataSize> maxPartialMemory,
             FlatHashStrategyCompiler hashStrategyCompiler,
             PageWithPositionComparator comparator,
-            BlockTypeOperators blockTypeOperators)
+            BlockTypeOperators blockTypeOperators,
+            boolean spillEnabled,
+            Optional<SpillerFactory> spillerFactory,
+            DataSize unspillMemoryLimit,
+            TypeOperators typeOperators)
     {
         requireNonNull(maxPartialMemory, "maxPartialMemory is null");
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localMemoryContext = operatorContext.localUserMemoryContext();
+        this.revocableMemoryContext = operatorContext.localRevocableMemoryContext();
 
         ImmutableList.Builder<Integer> outputChannelsBuilder = ImmutableList.builder();
         for (int channel : requireNonNull(outputChannels, "outputChannels is null")) {
@@ -205,6 +257,16 @@ public class TopNRankingOperator
         checkArgument(maxPartialMemory.isEmpty() || !generateRanking, "no partial memory on final TopN");
         this.maxFlushableBytes = maxPartialMemory.map(DataSize::toBytes).orElse(Long.MAX_VALUE);
 
+        checkArgument(!spillEnabled || generateRanking, "spill is not supported for partial TopN");
+        checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
+        this.partitionTypes = ImmutableList.copyOf(requireNonNull(partitionTypes, "partitionTypes is null"));
+        this.partitionChannels = Ints.toArray(partitionChannels);
+        this.spillEnabled = spillEnabled;
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.memoryLimitForMerge = requireNonNull(unspillMemoryLimit, "unspillMemoryLimit is null").toBytes();
+        this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
+
         int[] groupByChannels;
         if (hashChannel.isPresent()) {
             groupByChannels = new int[partitionChannels.size() + 1];
@@ -313,14 +375,14 @@ public class TopNRankingOperator
     public boolean isFinished()
     {
         // has no more input, has finished flushing, and has no unfinished work
-        return finishing && outputIterator == null && groupedTopNBuilder == null && unfinishedWork == null;
+        return finishing && outputPages == null && groupedTopNBuilder == null && spiller.isEmpty() && unfinishedWork == null;
     }
 
     @Override
     public boolean needsInput()
     {
         // still has more input, has not started flushing yet, and has no unfinished work
-        return !finishing && outputIterator == null && !isBuilderFull() && unfinishedWork == null;
+        return !finishing && outputPages == null && !isBuilderFull() && unfinishedWork == null;
     }
 
     @Override
@@ -328,9 +390,10 @@ public class TopNRankingOperator
     {
         checkState(!finishing, "Operator is already finishing");
         checkState(unfinishedWork == null, "Cannot add input with the operator when unfinished work is not empty");
-        checkState(outputIterator == null, "Cannot add input with the operator when flushing");
+        checkState(outputPages == null, "Cannot add input with the operator when flushing");
         requireNonNull(page, "page is null");
         checkState(!isBuilderFull(), "TopN buffer is already full");
+        checkSuccess(spillInProgress, "spilling failed");
 
         if (groupedTopNBuilder == null) {
             groupedTopNBuilder = groupedTopNBuilderSupplier.get();
@@ -345,6 +408,7 @@ public class TopNRankingOperator
     @Override
     public Page getOutput()
     {
+        checkSuccess(spillInProgress, "spilling failed");
         if (unfinishedWork != null) {
             boolean finished = unfinishedWork.process();
             updateMemoryReservation();
@@ -354,51 +418,210 @@ public class TopNRankingOperator
             unfinishedWork = null;
         }
 
-        if (!finishing && (!partial || !isBuilderFull()) && outputIterator == null) {
+        if (!finishing && (!partial || !isBuilderFull()) && outputPages == null) {
             return null;
         }
 
-        if (outputIterator == null && groupedTopNBuilder != null) {
+        if (outputPages == null && (groupedTopNBuilder != null || spiller.isPresent())) {
             // start flushing
-            outputIterator = groupedTopNBuilder.buildResult();
+            outputPages = buildResult();
         }
 
-        Page output;
-        if (outputIterator != null && outputIterator.hasNext()) {
-            // rewrite to expected column ordering
-            output = outputIterator.next().getColumns(outputChannels);
+        if (outputPages == null) {
+            closeGroupedTopNBuilder();
+            return null;
         }
-        else {
+        if (!outputPages.process()) {
+            // merging of spilled pages has yielded or is blocked on reading spilled pages
+            return null;
+        }
+        if (outputPages.isFinished()) {
             closeGroupedTopNBuilder();
             return null;
         }
+        // rewrite to expected column ordering
+        Page output = outputPages.getResult().getColumns(outputChannels);
         updateMemoryReservation();
         return output;
     }
 
+    @Override
+    public ListenableFuture<Void> isBlocked()
+    {
+        if (outputPages != null && outputPages.isBlocked()) {
+            return outputPages.getBlockedFuture();
+        }
+        return NOT_BLOCKED;
+    }
+
+    @Override
+    public ListenableFuture<Void> startMemoryRevoke()
+    {
+        if (producingOutput) {
+            // all revocable memory has been converted to user memory in buildResult method
+            verify(revocableMemoryContext.getBytes() == 0);
+            return NOT_BLOCKED;
+        }
+        // spillable builder never yields on memory, so there cannot be a partially processed page
+        verify(unfinishedWork == null, "Cannot spill with unfinished work");
+        return spillToDisk();
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        updateMemoryReservation();
+    }
+
     @Override
     public void close()
     {
         closeGroupedTopNBuilder();
     }
 
+    private WorkProcessor<Page> buildResult()
+    {
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        checkSuccess(spillInProgress, "spilling failed");
+
+        // Convert revocable memory to user memory as returned iterator holds on to memory so we no longer can revoke.
+        if (revocableMemoryContext.getBytes() > 0) {
+            long currentRevocableBytes = revocableMemoryContext.getBytes();
+            revocableMemoryContext.setBytes(0);
+            if (!localMemoryContext.trySetBytes(localMemoryContext.getBytes() + currentRevocableBytes)) {
+                // TODO: this might fail (even though we have just released memory), but we don't
+                // have a proper way to atomically convert memory reservations
+                revocableMemoryContext.setBytes(currentRevocableBytes);
+                // spill since revocable memory could not be converted to user memory immediately
+                // TODO: this should be asynchronous
+                getFutureValue(spillToDisk());
+                updateMemoryReservation();
+            }
+        }
+        producingOutput = true;
+
+        if (spiller.isEmpty()) {
+            return WorkProcessor.fromIterator(groupedTopNBuilder.buildResult());
+        }
+        return mergeFromDiskAndMemory();
+    }
+
+    private ListenableFuture<Void> spillToDisk()
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+        if (groupedTopNBuilder == null) {
+            // stale revoke request
+            return immediateVoidFuture();
+        }
+
+        if (spiller.isEmpty()) {
+            spiller = Optional.of(spillerFactory.orElseThrow().create(
+                    sourceTypes,
+                    operatorContext.getSpillContext(),
+                    operatorContext.newAggregateUserMemoryContext()));
+        }
+
+        // start spilling process with current content of the groupedTopNBuilder...
+        spillInProgress = spiller.get().spill(groupedTopNBuilder.buildHashSortedResult());
+        // ... and drop it, so that effectively memory ownership over groupedTopNBuilder
+        // is transferred from this thread to a spilling thread. A new builder is created on next input.
+        groupedTopNBuilder = null;
+
+        return spillInProgress;
+    }
+
+    private WorkProcessor<Page> mergeFromDiskAndMemory()
+    {
+        checkState(spiller.isPresent());
+
+        ImmutableList.Builder<WorkProcessor<Page>> hashSortedStreams = ImmutableList.builder();
+        hashSortedStreams.addAll(spiller.get().getSpillProcessors());
+        if (groupedTopNBuilder != null) {
+            hashSortedStreams.add(WorkProcessor.fromIterator(groupedTopNBuilder.buildHashSortedResult()));
+        }
+
+        mergeHashSort = Optional.of(new MergeHashSort(operatorContext.newAggregateUserMemoryContext(), typeOperators));
+        WorkProcessor<Page> mergedPages = mergeHashSort.get().merge(
+                partitionTypes,
+                partitionChannels,
+                sourceTypes,
+                hashSortedStreams.build(),
+                operatorContext.getDriverContext().getYieldSignal());
+
+        LocalMemoryContext memoryContext = operatorContext.aggregateUserMemoryContext().newLocalMemoryContext(TopNRankingOperator.class.getSimpleName());
+        mergeMemoryContext = Optional.of(memoryContext);
+        return mergedPages.flatTransform(new Transformation<>()
+        {
+            private GroupedTopNBuilder mergingBuilder;
+
+            @Override
+            public TransformationState<WorkProcessor<Page>> process(Page inputPage)
+            {
+                boolean inputFinished = inputPage == null;
+                if (inputFinished && mergingBuilder == null) {
+                    memoryContext.setBytes(0);
+                    return TransformationState.finished();
+                }
+
+                if (!inputFinished) {
+                    if (mergingBuilder == null) {
+                        mergingBuilder = groupedTopNBuilderSupplier.get();
+                    }
+                    boolean done = mergingBuilder.processPage(inputPage).process();
+                    // spillable builder does not yield on memory
+                    verify(done);
+                    long memorySize = mergingBuilder.getEstimatedSizeInBytes();
+                    memoryContext.setBytes(memorySize);
+                    if (memorySize < memoryLimitForMerge) {
+                        return TransformationState.needsMoreData();
+                    }
+                }
+
+                // we can produce output after every input page, because input pages do not have
+                // hash values that span multiple pages (guaranteed by MergeHashSort), so all rows of
+                // a partition are always processed by the same merging builder
+                Iterator<Page> result = mergingBuilder.buildResult();
+                mergingBuilder = null;
+                return TransformationState.ofResult(WorkProcessor.fromIterator(result), !inputFinished);
+            }
+        });
+    }
+
     private void closeGroupedTopNBuilder()
     {
-        outputIterator = null;
+        outputPages = null;
         groupedTopNBuilder = null;
+        producingOutput = false;
+        spiller.ifPresent(Spiller::close);
+        spiller = Optional.empty();
+        mergeHashSort.ifPresent(MergeHashSort::close);
+        mergeHashSort = Optional.empty();
+        mergeMemoryContext.ifPresent(LocalMemoryContext::close);
+        mergeMemoryContext = Optional.empty();
         localMemoryContext.setBytes(0);
+        revocableMemoryContext.setBytes(0);
     }
 
     private boolean updateMemoryReservation()
     {
         if (groupedTopNBuilder == null) {
             localMemoryContext.setBytes(0);
+            revocableMemoryContext.setBytes(0);
+            return true;
+        }
+        long estimatedSizeInBytes = groupedTopNBuilder.getEstimatedSizeInBytes();
+        if (spillEnabled && !producingOutput) {
+            localMemoryContext.setBytes(0);
+            revocableMemoryContext.setBytes(estimatedSizeInBytes);
+            // revocable memory is reclaimed by spilling, so there is no need to yield
             return true;
         }
+        revocableMemoryContext.setBytes(0);
         // TODO: may need to use trySetMemoryReservation with a compaction to free memory (but that may cause GC pressure)
-        localMemoryContext.setBytes(groupedTopNBuilder.getEstimatedSizeInBytes());
-        if (partial) {
-            // do not yield on memory for partial aggregations
+        localMemoryContext.setBytes(estimatedSizeInBytes);
+        if (partial || spillEnabled) {
+            // do not yield on memory for partial aggregations. Merging of spilled pages does not yield either,
+            // as it processes each page at once; its memory is bounded by the unspill memory limit instead.
             return true;
         }
         return operatorContext.isWaitingForMemory().isDone();
@@ -116,6 +116,48 @@ public final class AggregationMask
         return selectedPositions;
     }
 
+    /**
+     * Unselects all positions that are not in the specified positions. The positions must be sorted in ascending order.
+     */
+    public void retainPositions(int[] positions, int positionsCount)
+    {
+        checkArgument(positionsCount <= positionCount, "positionsCount cannot be greater than positionCount");
+        if (isSelectNone()) {
+            return;
+        }
+
+        if (positionCount == selectedPositionCount) {
+            if (selectedPositions.length < positionsCount) {
+                selectedPositions = new int[positionsCount];
+            }
+            System.arraycopy(positions, 0, selectedPositions, 0, positionsCount);
+            selectedPositionCount = positionsCount;
+            return;
+        }
+
+        // intersect the sorted selected positions with the sorted retained positions
+        int selectedIndex = 0;
+        int retainedIndex = 0;
+        int newIndex = 0;
+        while (selectedIndex < selectedPositionCount && retainedIndex < positionsCount) {
+            int position = selectedPositions[selectedIndex];
+            int retainedPosition = positions[retainedIndex];
+            if (position == retainedPosition) {
+                selectedPositions[newIndex] = position;
+                newIndex++;
+                selectedIndex++;
+                retainedIndex++;
+            }
+            else if (position < retainedPosition) {
+                selectedIndex++;
+            }
+            else {
+                retainedIndex++;
+            }
+        }
+        selectedPositionCount = newIndex;
+    }
+
     public void unselectNullPositions(Block block)
     {
         unselectPositions(block, false);
@@ -27,6 +27,7 @@ import java.util.Optional;
 import java.util.OptionalInt;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
 public class GroupedAggregator
@@ -80,18 +81,8 @@ public class GroupedAggregator
 
         if (step.isInputRaw()) {
             Page arguments = page.getColumns(inputChannels);
-            Optional<Block> maskBlock = Optional.empty();
-            if (maskChannel.isPresent()) {
-                maskBlock = Optional.of(page.getBlock(maskChannel.getAsInt()));
-            }
-            AggregationMask mask = maskBuilder.buildAggregationMask(arguments, maskBlock);
-
-            if (mask.isSelectNone()) {
-                return;
-            }
-            long start = System.nanoTime();
-            accumulator.addInput(groupIds, arguments, mask);
-            metrics.recordAccumulatorUpdateTimeSince(start);
+            AggregationMask mask = buildAggregationMask(arguments, page);
+            addInput(groupIds, arguments, mask);
         }
         else {
             long start = System.nanoTime();
@@ -100,6 +91,40 @@ public class GroupedAggregator
         }
     }
 
+    /**
+     * Adds only the selected positions of the page, which must be sorted in ascending order.
+     * The group ids are indexed by page position, and are only read for the selected positions.
+     */
+    public void processPage(int groupCount, int[] groupIds, Page page, int[] selectedPositions, int selectedPositionCount)
+    {
+        checkState(step.isInputRaw(), "selected positions are only supported for raw input");
+        accumulator.setGroupCount(groupCount);
+
+        Page arguments = page.getColumns(inputChannels);
+        AggregationMask mask = buildAggregationMask(arguments, page);
+        mask.retainPositions(selectedPositions, selectedPositionCount);
+        addInput(groupIds, arguments, mask);
+    }
+
+    private AggregationMask buildAggregationMask(Page arguments, Page page)
+    {
+        Optional<Block> maskBlock = Optional.empty();
+        if (maskChannel.isPresent()) {
+            maskBlock = Optional.of(page.getBlock(maskChannel.getAsInt()));
+        }
+        return maskBuilder.buildAggregationMask(arguments, maskBlock);
+    }
+
+    private void addInput(int[] groupIds, Page arguments, AggregationMask mask)
+    {
+        if (mask.isSelectNone()) {
+            return;
+        }
+        long start = System.nanoTime();
+        accumulator.addInput(groupIds, arguments, mask);
+        metrics.recordAccumulatorUpdateTimeSince(start);
+    }
+
     public void prepareFinal()
     {
         accumulator.prepareFinal();
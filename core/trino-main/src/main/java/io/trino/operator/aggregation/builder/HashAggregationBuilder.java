@@ -16,13 +16,25 @@ package io.trino.operator.aggregation.builder;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.trino.operator.Work;
 import io.trino.operator.WorkProcessor;
+import io.trino.operator.project.SelectedPositions;
 import io.trino.spi.Page;
 
+import java.util.Arrays;
+
 public interface HashAggregationBuilder
         extends AutoCloseable
 {
     Work<?> processPage(Page page);
 
+    /**
+     * Processes only the selected positions of the page. Implementations that can aggregate
+     * the selected positions in place should override this to avoid building a filtered page.
+     */
+    default Work<?> processPage(Page page, SelectedPositions selectedPositions)
+    {
+        return processPage(selectPositions(page, selectedPositions));
+    }
+
     WorkProcessor<Page> buildResult();
 
     boolean isFull();
@@ -35,4 +47,18 @@ public interface HashAggregationBuilder
     ListenableFuture<Void> startMemoryRevoke();
 
     void finishMemoryRevoke();
+
+    static Page selectPositions(Page page, SelectedPositions selectedPositions)
+    {
+        if (selectedPositions.isList()) {
+            int offset = selectedPositions.getOffset();
+            // the positions array can be reused by the filter, so the page gets its own copy
+            int[] positions = Arrays.copyOfRange(selectedPositions.getPositions(), offset, offset + selectedPositions.size());
+            return page.getPositions(positions, 0, positions.length);
+        }
+        if (selectedPositions.size() == page.getPositionCount()) {
+            return page;
+        }
+        return page.getRegion(selectedPositions.getOffset(), selectedPositions.size());
+    }
 }
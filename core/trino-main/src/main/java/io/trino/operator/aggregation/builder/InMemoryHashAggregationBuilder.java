@@ -31,6 +31,7 @@ import io.trino.operator.WorkProcessor;
 import io.trino.operator.WorkProcessor.ProcessState;
 import io.trino.operator.aggregation.AggregatorFactory;
 import io.trino.operator.aggregation.GroupedAggregator;
+import io.trino.operator.project.SelectedPositions;
 import io.trino.spi.Page;
 import io.trino.spi.PageBuilder;
 import io.trino.spi.block.BlockBuilder;
@@ -41,6 +42,7 @@ import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.ints.IntIterators;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
@@ -172,6 +174,34 @@ public class InMemoryHashAggregationBuilder
                 });
     }
 
+    @Override
+    public Work<?> processPage(Page page, SelectedPositions selectedPositions)
+    {
+        if (groupedAggregators.isEmpty() || !selectedPositions.isList()) {
+            // a range of positions is selected as a region of the page without copying
+            return HashAggregationBuilder.super.processPage(page, selectedPositions);
+        }
+
+        // only the grouping keys of the selected positions are viewed through the positions, the
+        // accumulators read the selected positions of the unfiltered page directly
+        int offset = selectedPositions.getOffset();
+        int[] positions = Arrays.copyOfRange(selectedPositions.getPositions(), offset, offset + selectedPositions.size());
+        return new TransformWork<>(
+                new MeasuredGroupByHashWork<>(groupByHash.getGroupIds(page.getColumns(groupByChannels).getPositions(positions, 0, positions.length)), aggregationMetrics),
+                selectedGroupIds -> {
+                    int[] groupIds = new int[page.getPositionCount()];
+                    for (int i = 0; i < positions.length; i++) {
+                        groupIds[positions[i]] = selectedGroupIds[i];
+                    }
+                    int groupCount = groupByHash.getGroupCount();
+                    for (GroupedAggregator groupedAggregator : groupedAggregators) {
+                        groupedAggregator.processPage(groupCount, groupIds, page, positions, positions.length);
+                    }
+                    // we do not need any output from TransformWork for this case
+                    return null;
+                });
+    }
+
     @Override
     public void updateMemory()
     {
@@ -38,7 +38,6 @@ import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
-import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
 import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.trino.operator.Operator.NOT_BLOCKED;
@@ -266,9 +265,7 @@ public class SpillableHashAggregationBuilder
                 groupByTypes,
                 hashAggregationBuilder.buildSpillTypes(),
                 ImmutableList.<WorkProcessor<Page>>builder()
-                        .addAll(spiller.get().getSpills().stream()
-                                .map(WorkProcessor::fromIterator)
-                                .collect(toImmutableList()))
+                        .addAll(spiller.get().getSpillProcessors())
                         .add(hashAggregationBuilder.buildHashSortedResult())
                         .build(),
                 operatorContext.getDriverContext().getYieldSignal());
@@ -285,9 +282,7 @@ public class SpillableHashAggregationBuilder
         WorkProcessor<Page> mergedSpilledPages = mergeHashSort.get().merge(
                 groupByTypes,
                 hashAggregationBuilder.buildSpillTypes(),
-                spiller.get().getSpills().stream()
-                        .map(WorkProcessor::fromIterator)
-                        .collect(toImmutableList()),
+                spiller.get().getSpillProcessors(),
                 operatorContext.getDriverContext().getYieldSignal());
 
         return mergeSortedPages(mergedSpilledPages, memoryLimitForMerge);
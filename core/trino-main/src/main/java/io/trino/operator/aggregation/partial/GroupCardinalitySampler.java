@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.aggregation.partial;
+
+import com.google.common.primitives.Ints;
+import io.airlift.slice.XxHash64;
+import io.airlift.stats.cardinality.HyperLogLog;
+import io.trino.operator.FlatHashStrategy;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimates the number of distinct groups in input rows which bypass partial aggregation,
+ * so that {@link PartialAggregationController} can decide when aggregating the input would pay off again.
+ * <p>
+ * The class is not thread safe.
+ */
+public class GroupCardinalitySampler
+{
+    // ~2.3% standard error, with 2kB of memory
+    private static final int HYPER_LOG_LOG_BUCKETS = 2048;
+
+    private final int[] groupByChannels;
+    private final FlatHashStrategy hashStrategy;
+    private final Block[] groupByBlocks;
+
+    private HyperLogLog hyperLogLog = HyperLogLog.newInstance(HYPER_LOG_LOG_BUCKETS);
+    private long[] hashes = new long[0];
+    private long sampledBytes;
+    private long sampledRows;
+
+    public GroupCardinalitySampler(List<Integer> groupByChannels, FlatHashStrategy hashStrategy)
+    {
+        this.groupByChannels = Ints.toArray(requireNonNull(groupByChannels, "groupByChannels is null"));
+        this.hashStrategy = requireNonNull(hashStrategy, "hashStrategy is null");
+        this.groupByBlocks = new Block[this.groupByChannels.length];
+    }
+
+    public void addPage(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        if (hashes.length < positionCount) {
+            hashes = new long[positionCount];
+        }
+
+        for (int i = 0; i < groupByChannels.length; i++) {
+            groupByBlocks[i] = page.getBlock(groupByChannels[i]);
+        }
+        hashStrategy.hashBlocksBatched(groupByBlocks, hashes, 0, positionCount);
+        // do not retain the blocks of the sampled page
+        Arrays.fill(groupByBlocks, null);
+        for (int position = 0; position < positionCount; position++) {
+            // combined hashes of multiple columns are not uniformly distributed enough for HyperLogLog
+            hyperLogLog.addHash(XxHash64.hash(hashes[position]));
+        }
+
+        sampledBytes += page.getSizeInBytes();
+        sampledRows += positionCount;
+    }
+
+    public long getSampledBytes()
+    {
+        return sampledBytes;
+    }
+
+    public long getSampledRows()
+    {
+        return sampledRows;
+    }
+
+    public long getEstimatedUniqueRows()
+    {
+        return hyperLogLog.cardinality();
+    }
+
+    public void reset()
+    {
+        hyperLogLog = HyperLogLog.newInstance(HYPER_LOG_LOG_BUCKETS);
+        sampledBytes = 0;
+        sampledRows = 0;
+    }
+}
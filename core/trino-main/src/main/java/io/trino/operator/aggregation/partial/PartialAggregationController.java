@@ -26,9 +26,14 @@ import static java.util.Objects.requireNonNull;
  * Partial aggregation is disabled after sampling sufficient amount of input
  * and the ratio between output(unique) and input rows is too high (> {@link #uniqueRowsRatioThreshold}).
  * <p>
+ * With cardinality sampling enabled, the decision is re-evaluated for every window of input
+ * instead of over all input seen so far. While partial aggregation is disabled, operators report
+ * the estimated number of groups of the input they pass through via {@link #onCardinalitySample},
+ * and partial aggregation is turned back on as soon as the input would be reduced well enough again.
+ * <p>
  * The class is thread safe and objects of this class are used potentially by multiple threads/drivers simultaneously.
  * Different threads either:
- * - modify fields via synchronized {@link #onFlush}.
+ * - modify fields via synchronized {@link #onFlush} and {@link #onCardinalitySample}.
  * - read volatile {@link #partialAggregationDisabled} (volatile here gives visibility).
  */
 public class PartialAggregationController
@@ -45,6 +50,7 @@ public class PartialAggregationController
 
     private final DataSize maxPartialMemory;
     private final double uniqueRowsRatioThreshold;
+    private final boolean cardinalitySamplingEnabled;
 
     private volatile boolean partialAggregationDisabled;
     private long totalBytesProcessed;
@@ -52,9 +58,15 @@ public class PartialAggregationController
     private long totalUniqueRowsProduced;
 
     public PartialAggregationController(DataSize maxPartialMemory, double uniqueRowsRatioThreshold)
+    {
+        this(maxPartialMemory, uniqueRowsRatioThreshold, false);
+    }
+
+    public PartialAggregationController(DataSize maxPartialMemory, double uniqueRowsRatioThreshold, boolean cardinalitySamplingEnabled)
     {
         this.maxPartialMemory = requireNonNull(maxPartialMemory, "maxPartialMemory is null");
         this.uniqueRowsRatioThreshold = uniqueRowsRatioThreshold;
+        this.cardinalitySamplingEnabled = cardinalitySamplingEnabled;
     }
 
     public boolean isPartialAggregationDisabled()
@@ -62,6 +74,19 @@ public class PartialAggregationController
         return partialAggregationDisabled;
     }
 
+    public boolean isCardinalitySamplingEnabled()
+    {
+        return cardinalitySamplingEnabled;
+    }
+
+    /**
+     * Amount of input after which operators should report a cardinality sample.
+     */
+    public long getCardinalitySampleBytes()
+    {
+        return (long) (maxPartialMemory.toBytes() * DISABLE_AGGREGATION_BUFFER_SIZE_TO_INPUT_BYTES_FACTOR);
+    }
+
     public synchronized void onFlush(long bytesProcessed, long rowsProcessed, OptionalLong uniqueRowsProduced)
     {
         if (!partialAggregationDisabled && uniqueRowsProduced.isEmpty()) {
@@ -76,24 +101,54 @@ public class PartialAggregationController
         if (!partialAggregationDisabled && shouldDisablePartialAggregation()) {
             partialAggregationDisabled = true;
         }
+        else if (!partialAggregationDisabled && cardinalitySamplingEnabled && isSampleWindowComplete()) {
+            // input of this window was reduced well enough, evaluate the next window on its own
+            resetStatistics();
+        }
 
         if (partialAggregationDisabled
+                && !cardinalitySamplingEnabled
                 && totalBytesProcessed >= maxPartialMemory.toBytes() * ENABLE_AGGREGATION_BUFFER_SIZE_TO_INPUT_BYTES_FACTOR) {
-            totalBytesProcessed = 0;
-            totalRowProcessed = 0;
-            totalUniqueRowsProduced = 0;
+            resetStatistics();
             partialAggregationDisabled = false;
         }
     }
 
+    /**
+     * Reports the estimated number of groups in input which was passed through while partial aggregation was disabled.
+     */
+    public synchronized void onCardinalitySample(long rowsProcessed, long estimatedUniqueRows)
+    {
+        if (!partialAggregationDisabled || rowsProcessed == 0) {
+            return;
+        }
+
+        if (((double) estimatedUniqueRows / rowsProcessed) <= uniqueRowsRatioThreshold) {
+            resetStatistics();
+            partialAggregationDisabled = false;
+        }
+    }
+
+    private boolean isSampleWindowComplete()
+    {
+        return totalBytesProcessed >= maxPartialMemory.toBytes() * DISABLE_AGGREGATION_BUFFER_SIZE_TO_INPUT_BYTES_FACTOR;
+    }
+
+    private void resetStatistics()
+    {
+        totalBytesProcessed = 0;
+        totalRowProcessed = 0;
+        totalUniqueRowsProduced = 0;
+    }
+
     private boolean shouldDisablePartialAggregation()
     {
-        return totalBytesProcessed >= maxPartialMemory.toBytes() * DISABLE_AGGREGATION_BUFFER_SIZE_TO_INPUT_BYTES_FACTOR
+        return isSampleWindowComplete()
                 && ((double) totalUniqueRowsProduced / totalRowProcessed) > uniqueRowsRatioThreshold;
     }
 
     public PartialAggregationController duplicate()
     {
-        return new PartialAggregationController(maxPartialMemory, uniqueRowsRatioThreshold);
+        return new PartialAggregationController(maxPartialMemory, uniqueRowsRatioThreshold, cardinalitySamplingEnabled);
     }
 }
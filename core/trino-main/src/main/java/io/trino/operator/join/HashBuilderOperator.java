@@ -23,19 +23,24 @@ import io.airlift.log.Logger;
 import io.trino.memory.context.LocalMemoryContext;
 import io.trino.operator.DriverContext;
 import io.trino.operator.HashArraySizeSupplier;
+import io.trino.operator.HashGenerator;
 import io.trino.operator.Operator;
 import io.trino.operator.OperatorContext;
 import io.trino.operator.OperatorFactory;
 import io.trino.operator.PagesIndex;
+import io.trino.operator.PartitionFunction;
 import io.trino.spi.Page;
 import io.trino.spiller.SingleStreamSpiller;
 import io.trino.spiller.SingleStreamSpillerFactory;
 import io.trino.sql.gen.JoinFilterFunctionCompiler.JoinFilterFunctionFactory;
 import io.trino.sql.planner.plan.PlanNodeId;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import jakarta.annotation.Nullable;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -45,11 +50,13 @@ import java.util.Queue;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static io.airlift.concurrent.MoreFutures.getDone;
 import static io.airlift.units.DataSize.succinctBytes;
+import static io.trino.SystemSessionProperties.getJoinMaxUnspilledPartitionSize;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
@@ -181,6 +188,11 @@ public class HashBuilderOperator
          */
         INPUT_SPILLED,
 
+        /**
+         * Spilled input is too large to be unspilled and is being split into sub-partitions
+         */
+        INPUT_REPARTITIONING,
+
         /**
          * Spilled input is being unspilled
          */
@@ -199,6 +211,9 @@ public class HashBuilderOperator
 
     private static final double INDEX_COMPACTION_ON_REVOCATION_TARGET = 0.8;
 
+    private static final int SPILL_REPARTITIONING_PARTITIONS = 8;
+    static final int MAX_SPILL_REPARTITIONING_LEVEL = 3;
+
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
     private final LocalMemoryContext localRevocableMemoryContext;
@@ -218,6 +233,7 @@ public class HashBuilderOperator
 
     private final boolean spillEnabled;
     private final SingleStreamSpillerFactory singleStreamSpillerFactory;
+    private final long maxUnspilledPartitionSize;
 
     private State state = State.CONSUMING_INPUT;
     private Optional<ListenableFuture<Void>> lookupSourceNotNeeded = Optional.empty();
@@ -229,6 +245,17 @@ public class HashBuilderOperator
     private LookupSourceSupplier lookupSourceSupplier;
     private OptionalLong lookupSourceChecksum = OptionalLong.empty();
 
+    // Spilled partitions to be unspilled or disposed, the current one on top. The partition spilled by this operator
+    // is at the bottom, sub-partitions of a repartitioned partition are pushed on top of it in the order of consumption.
+    private final Deque<SpilledPartition> spilledPartitions = new ArrayDeque<>();
+    @Nullable
+    private HashGenerator buildHashGenerator;
+    @Nullable
+    private PartitionFunction repartitionFunction;
+    @Nullable
+    private Iterator<Page> pagesToRepartition;
+    private List<SingleStreamSpiller> subPartitionSpillers = ImmutableList.of();
+
     private Optional<Runnable> finishMemoryRevoke = Optional.empty();
 
     public HashBuilderOperator(
@@ -268,6 +295,7 @@ public class HashBuilderOperator
         this.spillEnabled = spillEnabled;
         this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
         this.hashArraySizeSupplier = requireNonNull(hashArraySizeSupplier, "hashArraySizeSupplier is null");
+        this.maxUnspilledPartitionSize = getJoinMaxUnspilledPartitionSize(operatorContext.getSession()).toBytes();
     }
 
     @Override
@@ -289,9 +317,14 @@ public class HashBuilderOperator
             case CONSUMING_INPUT -> NOT_BLOCKED;
             case SPILLING_INPUT -> spillInProgress;
             case LOOKUP_SOURCE_BUILT -> lookupSourceNotNeeded.orElseThrow(() -> new IllegalStateException("Lookup source built, but disposal future not set"));
-            case INPUT_SPILLED -> spilledLookupSourceHandle.getUnspillingOrDisposeRequested();
+            case INPUT_SPILLED -> {
+                SpilledPartition partition = getCurrentSpilledPartition();
+                // sub-partitions of a repartitioned partition have been consumed already, only disposal remains
+                yield partition.isRepartitioned() ? partition.handle().getDisposeRequested() : partition.handle().getUnspillingOrDisposeRequested();
+            }
+            case INPUT_REPARTITIONING -> spillInProgress;
             case INPUT_UNSPILLING -> unspillInProgress.map(HashBuilderOperator::asVoid).orElseThrow(() -> new IllegalStateException("Unspilling in progress, but unspilling future not set"));
-            case INPUT_UNSPILLED_AND_BUILT -> spilledLookupSourceHandle.getDisposeRequested();
+            case INPUT_UNSPILLED_AND_BUILT -> getCurrentSpilledPartition().handle().getDisposeRequested();
             case CLOSED -> NOT_BLOCKED;
         };
     }
@@ -384,6 +417,7 @@ public class HashBuilderOperator
                 localRevocableMemoryContext.setBytes(0);
                 lookupSourceChecksum = OptionalLong.of(lookupSourceSupplier.checksum());
                 lookupSourceSupplier = null;
+                spilledPartitions.push(new SpilledPartition(spilledLookupSourceHandle, getSpiller(), 0));
                 state = State.INPUT_SPILLED;
             });
             return spillIndex();
@@ -400,11 +434,16 @@ public class HashBuilderOperator
     private ListenableFuture<Void> spillIndex()
     {
         checkState(spiller.isEmpty(), "Spiller already created");
-        spiller = Optional.of(singleStreamSpillerFactory.create(
+        spiller = Optional.of(createSpiller());
+        return getSpiller().spill(index.getPages());
+    }
+
+    private SingleStreamSpiller createSpiller()
+    {
+        return singleStreamSpillerFactory.create(
                 index.getTypes(),
                 operatorContext.getSpillContext().newLocalSpillContext(),
-                operatorContext.newLocalUserMemoryContext(HashBuilderOperator.class.getSimpleName())));
-        return getSpiller().spill(index.getPages());
+                operatorContext.newLocalUserMemoryContext(HashBuilderOperator.class.getSimpleName()));
     }
 
     @Override
@@ -447,14 +486,18 @@ public class HashBuilderOperator
                 return;
 
             case INPUT_SPILLED:
-                if (spilledLookupSourceHandle.getDisposeRequested().isDone()) {
-                    close();
+                if (getCurrentSpilledPartition().handle().getDisposeRequested().isDone()) {
+                    disposeSpilledPartition();
                 }
-                else {
+                else if (!getCurrentSpilledPartition().isRepartitioned()) {
                     unspillLookupSourceIfRequested();
                 }
                 return;
 
+            case INPUT_REPARTITIONING:
+                repartitionSpilledPartition();
+                return;
+
             case INPUT_UNSPILLING:
                 finishLookupSourceUnspilling();
                 return;
@@ -514,26 +557,135 @@ public class HashBuilderOperator
             return;
         }
         checkSuccess(spillInProgress, "spilling failed");
+        spilledPartitions.push(new SpilledPartition(spilledLookupSourceHandle, getSpiller(), 0));
         state = State.INPUT_SPILLED;
     }
 
     private void unspillLookupSourceIfRequested()
     {
         checkState(state == State.INPUT_SPILLED);
-        if (!spilledLookupSourceHandle.getUnspillingRequested().isDone()) {
+        SpilledPartition partition = getCurrentSpilledPartition();
+        if (!partition.handle().getUnspillingRequested().isDone()) {
             // Nothing to do yet.
             return;
         }
 
-        verify(spiller.isPresent());
         verify(unspillInProgress.isEmpty());
 
-        localUserMemoryContext.setBytes(getSpiller().getSpilledPagesInMemorySize() + index.getEstimatedSize().toBytes());
-        unspillInProgress = Optional.of(getSpiller().getAllSpilledPages());
+        long spilledSize = partition.spiller().getSpilledPagesInMemorySize();
+        long unspilledSize = spilledSize + index.getEstimatedSize().toBytes();
+        if (canRepartition(partition) && (spilledSize > maxUnspilledPartitionSize || !localUserMemoryContext.trySetBytes(unspilledSize))) {
+            startRepartitioning(partition);
+            return;
+        }
+
+        localUserMemoryContext.setBytes(unspilledSize);
+        unspillInProgress = Optional.of(partition.spiller().getAllSpilledPages());
 
         state = State.INPUT_UNSPILLING;
     }
 
+    private boolean canRepartition(SpilledPartition partition)
+    {
+        if (partition.level() >= MAX_SPILL_REPARTITIONING_LEVEL) {
+            return false;
+        }
+        // Partition spilled after its lookup source has been built might have been partially probed already.
+        // Probe side then keeps positions within the original lookup source, so it must be unspilled as a whole.
+        return partition.level() > 0 || lookupSourceChecksum.isEmpty();
+    }
+
+    private void startRepartitioning(SpilledPartition partition)
+    {
+        int level = partition.level() + 1;
+        log.debug(
+                "Repartitioning for operator %s, partition %d, level %d, spilledPagesInMemorySize %s",
+                operatorContext,
+                partitionIndex,
+                partition.level(),
+                succinctBytes(partition.spiller().getSpilledPagesInMemorySize()));
+
+        if (buildHashGenerator == null) {
+            buildHashGenerator = lookupSourceFactory.createBuildHashGenerator(hashChannels, preComputedHashChannel);
+        }
+        repartitionFunction = new SpillRepartitionFunction(buildHashGenerator, level, SPILL_REPARTITIONING_PARTITIONS);
+        ImmutableList.Builder<SingleStreamSpiller> subPartitionSpillers = ImmutableList.builderWithExpectedSize(SPILL_REPARTITIONING_PARTITIONS);
+        for (int i = 0; i < SPILL_REPARTITIONING_PARTITIONS; i++) {
+            subPartitionSpillers.add(createSpiller());
+        }
+        this.subPartitionSpillers = subPartitionSpillers.build();
+        pagesToRepartition = partition.spiller().getSpilledPages();
+        spillInProgress = NOT_BLOCKED;
+
+        localUserMemoryContext.setBytes(index.getEstimatedSize().toBytes());
+        state = State.INPUT_REPARTITIONING;
+    }
+
+    private void repartitionSpilledPartition()
+    {
+        checkState(state == State.INPUT_REPARTITIONING);
+        SpilledPartition partition = getCurrentSpilledPartition();
+        if (partition.handle().getDisposeRequested().isDone()) {
+            // sub-partitions will never be requested
+            closeSubPartitionSpillers();
+            disposeSpilledPartition();
+            return;
+        }
+        if (!spillInProgress.isDone()) {
+            return;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
+        // repartition a single page at a time, so that the driver can yield between pages
+        if (pagesToRepartition.hasNext()) {
+            spillInProgress = spillSubPartitions(pagesToRepartition.next());
+            return;
+        }
+
+        int level = partition.level() + 1;
+        List<SpilledPartition> subPartitions = subPartitionSpillers.stream()
+                .map(subPartitionSpiller -> new SpilledPartition(new SpilledLookupSourceHandle(), subPartitionSpiller, level))
+                .collect(toImmutableList());
+        pagesToRepartition = null;
+        repartitionFunction = null;
+        subPartitionSpillers = ImmutableList.of();
+
+        partition.setRepartitioned();
+        // sub-partitions are consumed in order, so the first one must be on top
+        for (int i = subPartitions.size() - 1; i >= 0; i--) {
+            spilledPartitions.push(subPartitions.get(i));
+        }
+        state = State.INPUT_SPILLED;
+
+        partition.handle().setRepartitioned(
+                level,
+                subPartitions.stream()
+                        .map(SpilledPartition::handle)
+                        .collect(toImmutableList()));
+    }
+
+    private ListenableFuture<Void> spillSubPartitions(Page page)
+    {
+        IntArrayList[] positions = new IntArrayList[SPILL_REPARTITIONING_PARTITIONS];
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int subPartition = repartitionFunction.getPartition(page, position);
+            if (positions[subPartition] == null) {
+                positions[subPartition] = new IntArrayList();
+            }
+            positions[subPartition].add(position);
+        }
+
+        ImmutableList.Builder<ListenableFuture<Void>> spills = ImmutableList.builder();
+        for (int subPartition = 0; subPartition < SPILL_REPARTITIONING_PARTITIONS; subPartition++) {
+            IntArrayList subPartitionPositions = positions[subPartition];
+            if (subPartitionPositions != null) {
+                Page subPartitionPage = page.getPositions(subPartitionPositions.elements(), 0, subPartitionPositions.size());
+                spills.add(subPartitionSpillers.get(subPartition).spill(subPartitionPage));
+            }
+        }
+        return asVoid(Futures.allAsList(spills.build()));
+    }
+
     private void finishLookupSourceUnspilling()
     {
         checkState(state == State.INPUT_UNSPILLING);
@@ -552,9 +704,10 @@ public class HashBuilderOperator
                 .mapToLong(Page::getRetainedSizeInBytes)
                 .sum();
         log.debug(
-                "Unspilling for operator %s, unspilled partition %d, sizeOfUnspilledPages %s, retainedSizeOfUnspilledPages %s",
+                "Unspilling for operator %s, unspilled partition %d, level %d, sizeOfUnspilledPages %s, retainedSizeOfUnspilledPages %s",
                 operatorContext,
                 partitionIndex,
+                getCurrentSpilledPartition().level(),
                 succinctBytes(sizeOfUnspilledPages),
                 succinctBytes(retainedSizeOfUnspilledPages));
         localUserMemoryContext.setBytes(retainedSizeOfUnspilledPages + index.getEstimatedSize().toBytes());
@@ -568,11 +721,13 @@ public class HashBuilderOperator
         }
 
         LookupSourceSupplier partition = buildLookupSource();
-        lookupSourceChecksum.ifPresent(checksum ->
-                checkState(partition.checksum() == checksum, "Unspilled lookupSource checksum does not match original one"));
+        if (getCurrentSpilledPartition().level() == 0) {
+            lookupSourceChecksum.ifPresent(checksum ->
+                    checkState(partition.checksum() == checksum, "Unspilled lookupSource checksum does not match original one"));
+        }
         localUserMemoryContext.setBytes(partition.get().getInMemorySizeInBytes());
 
-        spilledLookupSourceHandle.setLookupSource(partition);
+        getCurrentSpilledPartition().handle().setLookupSource(partition);
 
         state = State.INPUT_UNSPILLED_AND_BUILT;
     }
@@ -580,15 +735,30 @@ public class HashBuilderOperator
     private void disposeUnspilledLookupSourceIfRequested()
     {
         checkState(state == State.INPUT_UNSPILLED_AND_BUILT);
-        if (!spilledLookupSourceHandle.getDisposeRequested().isDone()) {
+        if (!getCurrentSpilledPartition().handle().getDisposeRequested().isDone()) {
             return;
         }
 
+        disposeSpilledPartition();
+    }
+
+    private void disposeSpilledPartition()
+    {
+        SpilledPartition partition = spilledPartitions.pop();
+
         index.clear();
         localUserMemoryContext.setBytes(index.getEstimatedSize().toBytes());
+        lookupSourceSupplier = null;
 
-        close();
-        spilledLookupSourceHandle.setDisposeCompleted();
+        if (spilledPartitions.isEmpty()) {
+            close();
+        }
+        else {
+            // Spiller of the partition spilled by this operator is closed in close()
+            partition.spiller().close();
+            state = State.INPUT_SPILLED;
+        }
+        partition.handle().setDisposeCompleted();
     }
 
     private LookupSourceSupplier buildLookupSource()
@@ -616,6 +786,24 @@ public class HashBuilderOperator
         return spiller.orElseThrow(() -> new IllegalStateException("Spiller not created"));
     }
 
+    private SpilledPartition getCurrentSpilledPartition()
+    {
+        return requireNonNull(spilledPartitions.peek(), "No spilled partition");
+    }
+
+    private void closeSubPartitionSpillers()
+    {
+        pagesToRepartition = null;
+        repartitionFunction = null;
+        try (Closer closer = Closer.create()) {
+            subPartitionSpillers.forEach(closer::register);
+            subPartitionSpillers = ImmutableList.of();
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public void close()
     {
@@ -632,6 +820,11 @@ public class HashBuilderOperator
         try (Closer closer = Closer.create()) {
             closer.register(index::clear);
             spiller.ifPresent(closer::register);
+            spilledPartitions.stream()
+                    .filter(partition -> partition.level() > 0)
+                    .forEach(partition -> closer.register(partition.spiller()));
+            spilledPartitions.clear();
+            closer.register(this::closeSubPartitionSpillers);
             closer.register(() -> localUserMemoryContext.setBytes(0));
             closer.register(() -> localRevocableMemoryContext.setBytes(0));
         }
@@ -639,4 +832,44 @@ public class HashBuilderOperator
             throw new RuntimeException(e);
         }
     }
+
+    private static final class SpilledPartition
+    {
+        private final SpilledLookupSourceHandle handle;
+        private final SingleStreamSpiller spiller;
+        private final int level;
+        private boolean repartitioned;
+
+        private SpilledPartition(SpilledLookupSourceHandle handle, SingleStreamSpiller spiller, int level)
+        {
+            this.handle = requireNonNull(handle, "handle is null");
+            this.spiller = requireNonNull(spiller, "spiller is null");
+            this.level = level;
+        }
+
+        public SpilledLookupSourceHandle handle()
+        {
+            return handle;
+        }
+
+        public SingleStreamSpiller spiller()
+        {
+            return spiller;
+        }
+
+        public int level()
+        {
+            return level;
+        }
+
+        public boolean isRepartitioned()
+        {
+            return repartitioned;
+        }
+
+        public void setRepartitioned()
+        {
+            repartitioned = true;
+        }
+    }
 }
@@ -25,6 +25,7 @@ import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static io.trino.operator.join.JoinStatisticsCounter.HISTOGRAM_BUCKETS;
+import static io.trino.operator.join.JoinStatisticsCounter.SPILL_LEVELS;
 
 public class JoinOperatorInfo
         implements Mergeable<JoinOperatorInfo>, OperatorInfo
@@ -35,8 +36,19 @@ public class JoinOperatorInfo
     private final OptionalLong lookupSourcePositions;
     private final long rleProbes;
     private final long totalProbes;
-
-    public static JoinOperatorInfo createJoinOperatorInfo(JoinType joinType, long[] logHistogramCounters, OptionalLong lookupSourcePositions, long rleProbes, long totalProbes)
+    private final long[] spilledPartitions;
+    private final long[] repartitionedPartitions;
+    private final long[] repartitionedProbePositions;
+
+    public static JoinOperatorInfo createJoinOperatorInfo(
+            JoinType joinType,
+            long[] logHistogramCounters,
+            OptionalLong lookupSourcePositions,
+            long rleProbes,
+            long totalProbes,
+            long[] spilledPartitions,
+            long[] repartitionedPartitions,
+            long[] repartitionedProbePositions)
     {
         long[] logHistogramProbes = new long[HISTOGRAM_BUCKETS];
         long[] logHistogramOutput = new long[HISTOGRAM_BUCKETS];
@@ -44,7 +56,16 @@ public class JoinOperatorInfo
             logHistogramProbes[i] = logHistogramCounters[2 * i];
             logHistogramOutput[i] = logHistogramCounters[2 * i + 1];
         }
-        return new JoinOperatorInfo(joinType, logHistogramProbes, logHistogramOutput, lookupSourcePositions, rleProbes, totalProbes);
+        return new JoinOperatorInfo(
+                joinType,
+                logHistogramProbes,
+                logHistogramOutput,
+                lookupSourcePositions,
+                rleProbes,
+                totalProbes,
+                spilledPartitions.clone(),
+                repartitionedPartitions.clone(),
+                repartitionedProbePositions.clone());
     }
 
     @JsonCreator
@@ -54,16 +75,25 @@ public class JoinOperatorInfo
             @JsonProperty("logHistogramOutput") long[] logHistogramOutput,
             @JsonProperty("lookupSourcePositions") OptionalLong lookupSourcePositions,
             @JsonProperty("rleProbes") long rleProbes,
-            @JsonProperty("totalProbes") long totalProbes)
+            @JsonProperty("totalProbes") long totalProbes,
+            @JsonProperty("spilledPartitions") long[] spilledPartitions,
+            @JsonProperty("repartitionedPartitions") long[] repartitionedPartitions,
+            @JsonProperty("repartitionedProbePositions") long[] repartitionedProbePositions)
     {
         checkArgument(logHistogramProbes.length == HISTOGRAM_BUCKETS);
         checkArgument(logHistogramOutput.length == HISTOGRAM_BUCKETS);
+        checkArgument(spilledPartitions.length == SPILL_LEVELS);
+        checkArgument(repartitionedPartitions.length == SPILL_LEVELS);
+        checkArgument(repartitionedProbePositions.length == SPILL_LEVELS);
         this.joinType = joinType;
         this.logHistogramProbes = logHistogramProbes;
         this.logHistogramOutput = logHistogramOutput;
         this.lookupSourcePositions = lookupSourcePositions;
         this.rleProbes = rleProbes;
         this.totalProbes = totalProbes;
+        this.spilledPartitions = spilledPartitions;
+        this.repartitionedPartitions = repartitionedPartitions;
+        this.repartitionedProbePositions = repartitionedProbePositions;
     }
 
     @JsonProperty
@@ -105,6 +135,33 @@ public class JoinOperatorInfo
         return totalProbes;
     }
 
+    /**
+     * Number of spilled partitions joined after unspilling, by repartitioning level
+     */
+    @JsonProperty
+    public long[] getSpilledPartitions()
+    {
+        return spilledPartitions;
+    }
+
+    /**
+     * Number of spilled partitions which were too large to be unspilled and have been repartitioned, by repartitioning level
+     */
+    @JsonProperty
+    public long[] getRepartitionedPartitions()
+    {
+        return repartitionedPartitions;
+    }
+
+    /**
+     * Number of probe positions spilled again into sub-partitions, by repartitioning level of the sub-partitions
+     */
+    @JsonProperty
+    public long[] getRepartitionedProbePositions()
+    {
+        return repartitionedProbePositions;
+    }
+
     @Override
     public String toString()
     {
@@ -115,6 +172,9 @@ public class JoinOperatorInfo
                 .add("lookupSourcePositions", lookupSourcePositions)
                 .add("rleProbes", rleProbes)
                 .add("totalProbes", totalProbes)
+                .add("spilledPartitions", spilledPartitions)
+                .add("repartitionedPartitions", repartitionedPartitions)
+                .add("repartitionedProbePositions", repartitionedProbePositions)
                 .toString();
     }
 
@@ -134,7 +194,25 @@ public class JoinOperatorInfo
             mergedSourcePositions = OptionalLong.of(this.lookupSourcePositions.orElse(0L) + other.lookupSourcePositions.orElse(0L));
         }
 
-        return new JoinOperatorInfo(this.joinType, logHistogramProbes, logHistogramOutput, mergedSourcePositions, this.rleProbes + other.rleProbes, this.totalProbes + other.totalProbes);
+        long[] spilledPartitions = new long[SPILL_LEVELS];
+        long[] repartitionedPartitions = new long[SPILL_LEVELS];
+        long[] repartitionedProbePositions = new long[SPILL_LEVELS];
+        for (int i = 0; i < SPILL_LEVELS; i++) {
+            spilledPartitions[i] = this.spilledPartitions[i] + other.spilledPartitions[i];
+            repartitionedPartitions[i] = this.repartitionedPartitions[i] + other.repartitionedPartitions[i];
+            repartitionedProbePositions[i] = this.repartitionedProbePositions[i] + other.repartitionedProbePositions[i];
+        }
+
+        return new JoinOperatorInfo(
+                this.joinType,
+                logHistogramProbes,
+                logHistogramOutput,
+                mergedSourcePositions,
+                this.rleProbes + other.rleProbes,
+                this.totalProbes + other.totalProbes,
+                spilledPartitions,
+                repartitionedPartitions,
+                repartitionedProbePositions);
     }
 
     @Override
@@ -19,6 +19,7 @@ import io.trino.operator.join.LookupJoinOperatorFactory.JoinType;
 import java.util.OptionalLong;
 import java.util.function.Supplier;
 
+import static io.trino.operator.join.HashBuilderOperator.MAX_SPILL_REPARTITIONING_LEVEL;
 import static io.trino.operator.join.JoinOperatorInfo.createJoinOperatorInfo;
 import static java.util.Objects.requireNonNull;
 
@@ -26,6 +27,7 @@ public class JoinStatisticsCounter
         implements Supplier<OperatorInfo>
 {
     public static final int HISTOGRAM_BUCKETS = 8;
+    public static final int SPILL_LEVELS = MAX_SPILL_REPARTITIONING_LEVEL + 1;
 
     private static final int INDIVIDUAL_BUCKETS = 4;
 
@@ -40,6 +42,11 @@ public class JoinStatisticsCounter
     private long rleProbes;
     private long totalProbes;
 
+    // Indexed by repartitioning level of spilled partitions, level 0 being the partitions spilled originally
+    private final long[] spilledPartitions = new long[SPILL_LEVELS];
+    private final long[] repartitionedPartitions = new long[SPILL_LEVELS];
+    private final long[] repartitionedProbePositions = new long[SPILL_LEVELS];
+
     /**
      * Estimated number of positions in on the build side
      */
@@ -84,9 +91,32 @@ public class JoinStatisticsCounter
         totalProbes++;
     }
 
+    public void recordSpilledPartition(int level)
+    {
+        spilledPartitions[level]++;
+    }
+
+    public void recordRepartitionedPartition(int level)
+    {
+        repartitionedPartitions[level]++;
+    }
+
+    public void recordRepartitionedProbePositions(int level, long positions)
+    {
+        repartitionedProbePositions[level] += positions;
+    }
+
     @Override
     public JoinOperatorInfo get()
     {
-        return createJoinOperatorInfo(joinType, logHistogramCounters, lookupSourcePositions, rleProbes, totalProbes);
+        return createJoinOperatorInfo(
+                joinType,
+                logHistogramCounters,
+                lookupSourcePositions,
+                rleProbes,
+                totalProbes,
+                spilledPartitions,
+                repartitionedPartitions,
+                repartitionedProbePositions);
     }
 }
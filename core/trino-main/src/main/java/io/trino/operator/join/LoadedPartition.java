@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.join;
+
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Build side of a spilled partition, once loaded by {@link HashBuilderOperator}.
+ */
+public sealed interface LoadedPartition
+{
+    /**
+     * The partition has been unspilled and its lookup source built.
+     */
+    record Built(Supplier<LookupSource> lookupSource)
+            implements LoadedPartition
+    {
+        public Built
+        {
+            requireNonNull(lookupSource, "lookupSource is null");
+        }
+    }
+
+    /**
+     * The partition was too large to be unspilled and has been split into sub-partitions
+     * using {@link SpillRepartitionFunction} for the given level. Probe rows of the partition
+     * must be split the same way and joined with every sub-partition in turn.
+     */
+    record Repartitioned(int level, int partitionCount, PartitionedConsumption<LoadedPartition> subPartitions)
+            implements LoadedPartition
+    {
+        public Repartitioned
+        {
+            checkArgument(level > 0, "level must be positive");
+            checkArgument(partitionCount > 0, "partitionCount must be positive");
+            requireNonNull(subPartitions, "subPartitions is null");
+        }
+    }
+}
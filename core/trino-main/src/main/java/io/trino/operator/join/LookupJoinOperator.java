@@ -79,7 +79,11 @@ public class LookupJoinOperator
                 waitForBuild,
                 lookupSourceFactory,
                 lookupSourceProviderFuture,
+                probeTypes,
+                hashGenerator,
                 partitioningSpillerFactory,
+                processorContext,
+                statisticsCounter,
                 pageJoinerFactory,
                 sourcePages);
         WorkProcessor<Page> pages = flatten(WorkProcessor.create(joinProcessor));
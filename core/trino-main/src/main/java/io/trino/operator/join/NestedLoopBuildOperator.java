@@ -13,6 +13,8 @@
  */
 package io.trino.operator.join;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.trino.memory.context.LocalMemoryContext;
 import io.trino.operator.DriverContext;
@@ -20,12 +22,24 @@ import io.trino.operator.Operator;
 import io.trino.operator.OperatorContext;
 import io.trino.operator.OperatorFactory;
 import io.trino.spi.Page;
+import io.trino.spi.type.Type;
+import io.trino.spiller.SingleStreamSpiller;
+import io.trino.spiller.SingleStreamSpillerFactory;
 import io.trino.sql.planner.plan.PlanNodeId;
+import jakarta.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.Future;
+import java.util.OptionalInt;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
+import static io.airlift.concurrent.MoreFutures.getDone;
+import static io.trino.spiller.SingleStreamSpillerFactory.unsupportedSingleStreamSpillerFactory;
 import static java.util.Objects.requireNonNull;
 
 public class NestedLoopBuildOperator
@@ -37,14 +51,32 @@ public class NestedLoopBuildOperator
         private final int operatorId;
         private final PlanNodeId planNodeId;
         private final JoinBridgeManager<NestedLoopJoinBridge> nestedLoopJoinBridgeManager;
+        private final boolean spillEnabled;
+        private final SingleStreamSpillerFactory singleStreamSpillerFactory;
+        private final OptionalInt probeOperatorsCount;
 
         private boolean closed;
 
         public NestedLoopBuildOperatorFactory(int operatorId, PlanNodeId planNodeId, JoinBridgeManager<NestedLoopJoinBridge> nestedLoopJoinBridgeManager)
+        {
+            this(operatorId, planNodeId, nestedLoopJoinBridgeManager, false, unsupportedSingleStreamSpillerFactory(), OptionalInt.empty());
+        }
+
+        public NestedLoopBuildOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                JoinBridgeManager<NestedLoopJoinBridge> nestedLoopJoinBridgeManager,
+                boolean spillEnabled,
+                SingleStreamSpillerFactory singleStreamSpillerFactory,
+                OptionalInt probeOperatorsCount)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
             this.nestedLoopJoinBridgeManager = requireNonNull(nestedLoopJoinBridgeManager, "nestedLoopJoinBridgeManager is null");
+            this.spillEnabled = spillEnabled;
+            this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
+            this.probeOperatorsCount = requireNonNull(probeOperatorsCount, "probeOperatorsCount is null");
+            checkArgument(!spillEnabled || probeOperatorsCount.isPresent(), "probeOperatorsCount must be present when spill is enabled");
         }
 
         @Override
@@ -52,7 +84,13 @@ public class NestedLoopBuildOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, NestedLoopBuildOperator.class.getSimpleName());
-            return new NestedLoopBuildOperator(operatorContext, nestedLoopJoinBridgeManager.getJoinBridge());
+            return new NestedLoopBuildOperator(
+                    operatorContext,
+                    nestedLoopJoinBridgeManager.getJoinBridge(),
+                    nestedLoopJoinBridgeManager.getBuildOutputTypes(),
+                    spillEnabled,
+                    singleStreamSpillerFactory,
+                    probeOperatorsCount);
         }
 
         @Override
@@ -67,26 +105,93 @@ public class NestedLoopBuildOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new NestedLoopBuildOperatorFactory(operatorId, planNodeId, nestedLoopJoinBridgeManager);
+            return new NestedLoopBuildOperatorFactory(operatorId, planNodeId, nestedLoopJoinBridgeManager, spillEnabled, singleStreamSpillerFactory, probeOperatorsCount);
         }
     }
 
+    private enum State
+    {
+        /**
+         * Input is accumulated in memory. If memory has been revoked before, the accumulated pages form the next spilled block.
+         */
+        CONSUMING_INPUT,
+
+        /**
+         * Input has finished and the pages accumulated since the last revocation are spilled as the last block
+         */
+        SPILLING_LAST_BLOCK,
+
+        /**
+         * Build pages have been handed over to probe operators, waiting until they are no longer needed
+         */
+        PAGES_BUILT,
+
+        /**
+         * Spilled blocks have been published, waiting for probe operators to request the next block
+         */
+        INPUT_SPILLED,
+
+        /**
+         * Spilled block is being loaded
+         */
+        INPUT_UNSPILLING,
+
+        /**
+         * Spilled block has been loaded, waiting for probe operators to release it
+         */
+        INPUT_UNSPILLED,
+
+        FINISHED
+    }
+
     private final OperatorContext operatorContext;
     private final NestedLoopJoinBridge nestedLoopJoinBridge;
-    private final NestedLoopJoinPagesBuilder nestedLoopJoinPagesBuilder;
+    private final List<Type> buildTypes;
+    private final boolean spillEnabled;
+    private final SingleStreamSpillerFactory singleStreamSpillerFactory;
+    private final OptionalInt probeOperatorsCount;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
+
+    @Nullable
+    private NestedLoopJoinPagesBuilder nestedLoopJoinPagesBuilder;
+    private State state = State.CONSUMING_INPUT;
 
-    // Initially, probeDoneWithPages is not present.
-    // Once finish is called, probeDoneWithPages will be set to a future that completes when the pages are no longer needed by the probe side.
+    // Set once pages are handed over to probe operators.
+    // The future completes when the pages are no longer needed by the probe side.
     // When the pages are no longer needed, the isFinished method on this operator will return true.
     private Optional<ListenableFuture<Void>> probeDoneWithPages = Optional.empty();
 
+    // Every memory revocation spills the accumulated pages as a separate block, so that each block fits in memory when it is loaded back
+    private final List<SingleStreamSpiller> spilledBlocks = new ArrayList<>();
+    private ListenableFuture<Void> spillInProgress = immediateVoidFuture();
+    @Nullable
+    private SpilledNestedLoopJoinPages spilledPages;
+    private int unspillingBlock;
+    private Optional<ListenableFuture<List<Page>>> unspillInProgress = Optional.empty();
+
     public NestedLoopBuildOperator(OperatorContext operatorContext, NestedLoopJoinBridge nestedLoopJoinBridge)
+    {
+        this(operatorContext, nestedLoopJoinBridge, ImmutableList.of(), false, unsupportedSingleStreamSpillerFactory(), OptionalInt.empty());
+    }
+
+    public NestedLoopBuildOperator(
+            OperatorContext operatorContext,
+            NestedLoopJoinBridge nestedLoopJoinBridge,
+            List<Type> buildTypes,
+            boolean spillEnabled,
+            SingleStreamSpillerFactory singleStreamSpillerFactory,
+            OptionalInt probeOperatorsCount)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.nestedLoopJoinBridge = requireNonNull(nestedLoopJoinBridge, "nestedLoopJoinBridge is null");
+        this.buildTypes = ImmutableList.copyOf(requireNonNull(buildTypes, "buildTypes is null"));
+        this.spillEnabled = spillEnabled;
+        this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
+        this.probeOperatorsCount = requireNonNull(probeOperatorsCount, "probeOperatorsCount is null");
         this.nestedLoopJoinPagesBuilder = new NestedLoopJoinPagesBuilder(operatorContext);
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
     }
 
     @Override
@@ -98,47 +203,150 @@ public class NestedLoopBuildOperator
     @Override
     public void finish()
     {
-        if (probeDoneWithPages.isPresent()) {
+        switch (state) {
+            case CONSUMING_INPUT -> finishInput();
+            case SPILLING_LAST_BLOCK -> finishSpilledInput();
+            case INPUT_SPILLED -> unspillBlock();
+            case INPUT_UNSPILLING -> finishBlockUnspilling();
+            case INPUT_UNSPILLED -> releaseUnspilledBlock();
+            case PAGES_BUILT, FINISHED -> {}
+        }
+    }
+
+    private void finishInput()
+    {
+        if (!spilledBlocks.isEmpty()) {
+            NestedLoopJoinPages lastBlock = nestedLoopJoinPagesBuilder.build();
+            if (!lastBlock.getPages().isEmpty()) {
+                spillInProgress = spillBlock(lastBlock.getPages());
+            }
+            state = State.SPILLING_LAST_BLOCK;
+            finishSpilledInput();
             return;
         }
 
         // nestedLoopJoinPagesBuilder and the built NestedLoopJoinPages will mostly share the same objects.
         // Extra allocation is minimal during build call. As a result, memory accounting is not updated here.
-        probeDoneWithPages = Optional.of(nestedLoopJoinBridge.setPages(nestedLoopJoinPagesBuilder.build()));
+        NestedLoopJoinPages nestedLoopJoinPages = nestedLoopJoinPagesBuilder.build();
+        if (spillEnabled) {
+            // the pages are handed over to probe operators, so they can no longer be revoked
+            localUserMemoryContext.setBytes(localRevocableMemoryContext.getBytes());
+            localRevocableMemoryContext.setBytes(0);
+        }
+        probeDoneWithPages = Optional.of(nestedLoopJoinBridge.setPages(nestedLoopJoinPages));
+        state = State.PAGES_BUILT;
+    }
+
+    private void finishSpilledInput()
+    {
+        if (!spillInProgress.isDone()) {
+            return;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+        nestedLoopJoinPagesBuilder = null;
+        localRevocableMemoryContext.setBytes(0);
+
+        spilledPages = new SpilledNestedLoopJoinPages(spilledBlocks.size(), probeOperatorsCount.orElseThrow());
+        probeDoneWithPages = Optional.of(nestedLoopJoinBridge.setPages(new NestedLoopJoinPages(spilledPages)));
+        state = State.INPUT_SPILLED;
+    }
+
+    private void unspillBlock()
+    {
+        SpilledNestedLoopJoinPages spilledPages = requireNonNull(this.spilledPages, "spilledPages is null");
+        if (!spilledPages.getBlockRequestedFuture(unspillingBlock).isDone()) {
+            return;
+        }
+        if (spilledPages.getBlockReleasedFuture(unspillingBlock).isDone()) {
+            // no probe operator needs this block
+            nextBlock();
+            return;
+        }
+
+        SingleStreamSpiller spiller = spilledBlocks.get(unspillingBlock);
+        localUserMemoryContext.setBytes(spiller.getSpilledPagesInMemorySize());
+        unspillInProgress = Optional.of(spiller.getAllSpilledPages());
+        state = State.INPUT_UNSPILLING;
+    }
+
+    private void finishBlockUnspilling()
+    {
+        ListenableFuture<List<Page>> unspillInProgress = this.unspillInProgress.orElseThrow();
+        if (!unspillInProgress.isDone()) {
+            return;
+        }
+        List<Page> pages = getDone(unspillInProgress);
+        this.unspillInProgress = Optional.empty();
+        localUserMemoryContext.setBytes(pages.stream()
+                .mapToLong(Page::getRetainedSizeInBytes)
+                .sum());
+        requireNonNull(spilledPages, "spilledPages is null").setBlock(unspillingBlock, pages);
+        state = State.INPUT_UNSPILLED;
+    }
+
+    private void releaseUnspilledBlock()
+    {
+        if (!requireNonNull(spilledPages, "spilledPages is null").getBlockReleasedFuture(unspillingBlock).isDone()) {
+            return;
+        }
+        localUserMemoryContext.setBytes(0);
+        nextBlock();
+    }
+
+    private void nextBlock()
+    {
+        spilledBlocks.get(unspillingBlock).close();
+        unspillingBlock++;
+        if (unspillingBlock < spilledBlocks.size()) {
+            state = State.INPUT_SPILLED;
+            return;
+        }
+        state = State.FINISHED;
     }
 
     @Override
     public boolean isFinished()
     {
-        return probeDoneWithPages.map(Future::isDone).orElse(false);
+        if (state == State.PAGES_BUILT) {
+            return probeDoneWithPages.orElseThrow().isDone();
+        }
+        return state == State.FINISHED;
     }
 
     @Override
     public ListenableFuture<Void> isBlocked()
     {
-        return probeDoneWithPages.orElse(NOT_BLOCKED);
+        return switch (state) {
+            case CONSUMING_INPUT, FINISHED -> NOT_BLOCKED;
+            case SPILLING_LAST_BLOCK -> spillInProgress;
+            case PAGES_BUILT -> probeDoneWithPages.orElseThrow();
+            case INPUT_SPILLED -> requireNonNull(spilledPages, "spilledPages is null").getBlockRequestedFuture(unspillingBlock);
+            case INPUT_UNSPILLING -> asVoid(unspillInProgress.orElseThrow());
+            case INPUT_UNSPILLED -> requireNonNull(spilledPages, "spilledPages is null").getBlockReleasedFuture(unspillingBlock);
+        };
     }
 
     @Override
     public boolean needsInput()
     {
-        return probeDoneWithPages.isEmpty();
+        return state == State.CONSUMING_INPUT;
     }
 
     @Override
     public void addInput(Page page)
     {
         requireNonNull(page, "page is null");
-        checkState(!isFinished(), "Operator is already finished");
+        checkState(needsInput(), "Operator is already finished");
 
         if (page.getPositionCount() == 0) {
             return;
         }
 
+        LocalMemoryContext memoryContext = spillEnabled ? localRevocableMemoryContext : localUserMemoryContext;
         nestedLoopJoinPagesBuilder.addPage(page);
-        if (!localUserMemoryContext.trySetBytes(nestedLoopJoinPagesBuilder.getEstimatedSize().toBytes())) {
+        if (!memoryContext.trySetBytes(nestedLoopJoinPagesBuilder.getEstimatedSize().toBytes())) {
             nestedLoopJoinPagesBuilder.compact();
-            localUserMemoryContext.setBytes(nestedLoopJoinPagesBuilder.getEstimatedSize().toBytes());
+            memoryContext.setBytes(nestedLoopJoinPagesBuilder.getEstimatedSize().toBytes());
         }
         operatorContext.recordOutput(page.getSizeInBytes(), page.getPositionCount());
     }
@@ -148,4 +356,58 @@ public class NestedLoopBuildOperator
     {
         return null;
     }
+
+    @Override
+    public ListenableFuture<Void> startMemoryRevoke()
+    {
+        if (state != State.CONSUMING_INPUT || localRevocableMemoryContext.getBytes() == 0) {
+            return NOT_BLOCKED;
+        }
+        checkState(spillEnabled, "Spill is not enabled");
+
+        NestedLoopJoinPages block = nestedLoopJoinPagesBuilder.build();
+        nestedLoopJoinPagesBuilder = new NestedLoopJoinPagesBuilder(operatorContext);
+        if (block.getPages().isEmpty()) {
+            return NOT_BLOCKED;
+        }
+        spillInProgress = spillBlock(block.getPages());
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (state != State.CONSUMING_INPUT) {
+            return;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+        localRevocableMemoryContext.setBytes(nestedLoopJoinPagesBuilder.getEstimatedSize().toBytes());
+    }
+
+    private ListenableFuture<Void> spillBlock(List<Page> pages)
+    {
+        SingleStreamSpiller spiller = singleStreamSpillerFactory.create(
+                buildTypes,
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.newLocalUserMemoryContext(NestedLoopBuildOperator.class.getSimpleName()));
+        spilledBlocks.add(spiller);
+        return spiller.spill(pages.iterator());
+    }
+
+    private static <T> ListenableFuture<Void> asVoid(ListenableFuture<T> future)
+    {
+        return Futures.transform(future, _ -> null, directExecutor());
+    }
+
+    @Override
+    public void close()
+    {
+        for (int i = unspillingBlock; i < spilledBlocks.size(); i++) {
+            spilledBlocks.get(i).close();
+        }
+        nestedLoopJoinPagesBuilder = null;
+        unspillInProgress = Optional.empty();
+        localRevocableMemoryContext.setBytes(0);
+        localUserMemoryContext.setBytes(0);
+    }
 }
@@ -25,6 +25,11 @@ public interface NestedLoopJoinBridge
 
     ListenableFuture<Void> setPages(NestedLoopJoinPages nestedLoopJoinPages);
 
+    /**
+     * Called by probe operators on close. {@code nextSpilledBlock} is the first spilled build block the operator has not released yet.
+     */
+    void probeOperatorClosed(int nextSpilledBlock);
+
     @Override
     void destroy();
 
@@ -26,17 +26,28 @@ import io.trino.operator.project.PageProcessor;
 import io.trino.spi.Page;
 import io.trino.spi.block.Block;
 import io.trino.spi.block.RunLengthEncodedBlock;
+import io.trino.spi.type.Type;
+import io.trino.spiller.SingleStreamSpiller;
+import io.trino.spiller.SingleStreamSpillerFactory;
 import io.trino.sql.planner.plan.PlanNodeId;
+import jakarta.annotation.Nullable;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
+import static io.airlift.concurrent.MoreFutures.getDone;
 import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
+import static io.trino.spiller.SingleStreamSpillerFactory.unsupportedSingleStreamSpillerFactory;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.Math.multiplyExact;
@@ -53,6 +64,8 @@ public class NestedLoopJoinOperator
         private final JoinBridgeManager<NestedLoopJoinBridge> joinBridgeManager;
         private final List<Integer> probeChannels;
         private final List<Integer> buildChannels;
+        private final List<Type> probeTypes;
+        private final SingleStreamSpillerFactory singleStreamSpillerFactory;
         private boolean closed;
 
         public NestedLoopJoinOperatorFactory(
@@ -61,6 +74,18 @@ public class NestedLoopJoinOperator
                 JoinBridgeManager<NestedLoopJoinBridge> nestedLoopJoinBridgeManager,
                 List<Integer> probeChannels,
                 List<Integer> buildChannels)
+        {
+            this(operatorId, planNodeId, nestedLoopJoinBridgeManager, probeChannels, buildChannels, ImmutableList.of(), unsupportedSingleStreamSpillerFactory());
+        }
+
+        public NestedLoopJoinOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                JoinBridgeManager<NestedLoopJoinBridge> nestedLoopJoinBridgeManager,
+                List<Integer> probeChannels,
+                List<Integer> buildChannels,
+                List<Type> probeTypes,
+                SingleStreamSpillerFactory singleStreamSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -68,6 +93,8 @@ public class NestedLoopJoinOperator
             joinBridgeManager.incrementProbeFactoryCount();
             this.probeChannels = ImmutableList.copyOf(requireNonNull(probeChannels, "probeChannels is null"));
             this.buildChannels = ImmutableList.copyOf(requireNonNull(buildChannels, "buildChannels is null"));
+            this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
+            this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
         }
 
         private NestedLoopJoinOperatorFactory(NestedLoopJoinOperatorFactory other)
@@ -80,6 +107,8 @@ public class NestedLoopJoinOperator
 
             this.probeChannels = ImmutableList.copyOf(other.probeChannels);
             this.buildChannels = ImmutableList.copyOf(other.buildChannels);
+            this.probeTypes = other.probeTypes;
+            this.singleStreamSpillerFactory = other.singleStreamSpillerFactory;
 
             // closed is intentionally not copied
             closed = false;
@@ -100,6 +129,8 @@ public class NestedLoopJoinOperator
                     nestedLoopJoinBridge,
                     probeChannels,
                     buildChannels,
+                    probeTypes,
+                    singleStreamSpillerFactory,
                     joinBridgeManager::probeOperatorClosed);
         }
 
@@ -120,6 +151,7 @@ public class NestedLoopJoinOperator
         }
     }
 
+    private final NestedLoopJoinBridge joinBridge;
     private final ListenableFuture<NestedLoopJoinPages> nestedLoopJoinPagesFuture;
     private final ListenableFuture<Void> blockedFutureView;
 
@@ -128,6 +160,9 @@ public class NestedLoopJoinOperator
 
     private final int[] probeChannels;
     private final int[] buildChannels;
+    private final int[] spilledProbeChannels;
+    private final List<Type> probeTypes;
+    private final SingleStreamSpillerFactory singleStreamSpillerFactory;
     private List<Page> buildPages;
     private Page probePage;
     private Iterator<Page> buildPageIterator;
@@ -135,13 +170,38 @@ public class NestedLoopJoinOperator
     private boolean finishing;
     private boolean closed;
 
-    private NestedLoopJoinOperator(OperatorContext operatorContext, NestedLoopJoinBridge joinBridge, List<Integer> probeChannels, List<Integer> buildChannels, Runnable afterClose)
+    // Set if the build side has been spilled. Probe input is then spilled as well, and joined with one
+    // build block at a time once all input is received. Only probe output channels are spilled.
+    @Nullable
+    private SpilledNestedLoopJoinPages spilledBuildPages;
+    private int currentBuildBlock;
+    @Nullable
+    private ListenableFuture<List<Page>> currentBuildBlockFuture;
+    // Probe input is spilled once and read again for every build block
+    @Nullable
+    private SingleStreamSpiller probeSpiller;
+    @Nullable
+    private Iterator<Page> spilledProbePages;
+    private ListenableFuture<Void> spillInProgress = immediateVoidFuture();
+
+    private NestedLoopJoinOperator(
+            OperatorContext operatorContext,
+            NestedLoopJoinBridge joinBridge,
+            List<Integer> probeChannels,
+            List<Integer> buildChannels,
+            List<Type> probeTypes,
+            SingleStreamSpillerFactory singleStreamSpillerFactory,
+            Runnable afterClose)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.joinBridge = requireNonNull(joinBridge, "joinBridge is null");
         this.nestedLoopJoinPagesFuture = joinBridge.getPagesFuture();
         blockedFutureView = asVoid(nestedLoopJoinPagesFuture);
         this.probeChannels = Ints.toArray(requireNonNull(probeChannels, "probeChannels is null"));
         this.buildChannels = Ints.toArray(requireNonNull(buildChannels, "buildChannels is null"));
+        this.spilledProbeChannels = IntStream.range(0, probeChannels.size()).toArray();
+        this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
+        this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
         this.afterClose = requireNonNull(afterClose, "afterClose is null");
     }
 
@@ -165,7 +225,7 @@ public class NestedLoopJoinOperator
     @Override
     public boolean isFinished()
     {
-        boolean finished = finishing && probePage == null;
+        boolean finished = finishing && probePage == null && (spilledBuildPages == null || (probeSpiller == null && spillInProgress.isDone()));
 
         if (finished) {
             close();
@@ -176,7 +236,16 @@ public class NestedLoopJoinOperator
     @Override
     public ListenableFuture<Void> isBlocked()
     {
-        return blockedFutureView;
+        if (spilledBuildPages == null) {
+            return blockedFutureView;
+        }
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        if (currentBuildBlockFuture != null && !currentBuildBlockFuture.isDone()) {
+            return asVoid(currentBuildBlockFuture);
+        }
+        return NOT_BLOCKED;
     }
 
     @Override
@@ -186,12 +255,18 @@ public class NestedLoopJoinOperator
             return false;
         }
 
-        if (buildPages == null) {
+        if (buildPages == null && spilledBuildPages == null) {
             Optional<NestedLoopJoinPages> nestedLoopJoinPages = tryGetFutureValue(nestedLoopJoinPagesFuture);
             if (nestedLoopJoinPages.isPresent()) {
-                buildPages = nestedLoopJoinPages.get().getPages();
+                spilledBuildPages = nestedLoopJoinPages.get().getSpilledPages().orElse(null);
+                if (spilledBuildPages == null) {
+                    buildPages = nestedLoopJoinPages.get().getPages();
+                }
             }
         }
+        if (spilledBuildPages != null) {
+            return spillInProgress.isDone();
+        }
         return buildPages != null;
     }
 
@@ -200,10 +275,21 @@ public class NestedLoopJoinOperator
     {
         requireNonNull(page, "page is null");
         checkState(!finishing, "Operator is finishing");
-        checkState(buildPages != null, "Page source has not been built yet");
+        checkState(buildPages != null || spilledBuildPages != null, "Page source has not been built yet");
         checkState(probePage == null, "Current page has not been completely processed yet");
         checkState(buildPageIterator == null || !buildPageIterator.hasNext(), "Current buildPageIterator has not been completely processed yet");
 
+        if (spilledBuildPages != null) {
+            checkSuccess(spillInProgress, "spilling failed");
+            if (page.getPositionCount() > 0) {
+                if (probeSpiller == null) {
+                    probeSpiller = createProbeSpiller();
+                }
+                spillInProgress = probeSpiller.spill(page.getColumns(probeChannels));
+            }
+            return;
+        }
+
         if (page.getPositionCount() > 0) {
             probePage = page;
             buildPageIterator = buildPages.iterator();
@@ -213,6 +299,10 @@ public class NestedLoopJoinOperator
     @Override
     public Page getOutput()
     {
+        if (spilledBuildPages != null && finishing && probePage == null) {
+            nextSpilledProbePage();
+        }
+
         // Either probe side or build side is not ready
         if (probePage == null || buildPages == null) {
             return null;
@@ -223,6 +313,8 @@ public class NestedLoopJoinOperator
         }
 
         if (buildPageIterator.hasNext()) {
+            // spilled probe pages contain only the output channels
+            int[] probeChannels = spilledBuildPages == null ? this.probeChannels : spilledProbeChannels;
             nestedLoopPageBuilder = createNestedLoopOutputIterator(probePage, buildPageIterator.next(), probeChannels, buildChannels);
             return nestedLoopPageBuilder.next();
         }
@@ -232,6 +324,61 @@ public class NestedLoopJoinOperator
         return null;
     }
 
+    /**
+     * Sets the next spilled probe page to be joined with the current build block, loading the next block when
+     * all spilled probe pages have been joined with the current one.
+     */
+    private void nextSpilledProbePage()
+    {
+        SpilledNestedLoopJoinPages spilledBuildPages = requireNonNull(this.spilledBuildPages, "spilledBuildPages is null");
+        while (probeSpiller != null) {
+            if (!spillInProgress.isDone()) {
+                return;
+            }
+            checkSuccess(spillInProgress, "spilling failed");
+
+            if (buildPages == null) {
+                if (currentBuildBlockFuture == null) {
+                    currentBuildBlockFuture = spilledBuildPages.getBlock(currentBuildBlock);
+                }
+                if (!currentBuildBlockFuture.isDone()) {
+                    return;
+                }
+                buildPages = getDone(currentBuildBlockFuture);
+                spilledProbePages = probeSpiller.getRereadableSpilledPages();
+            }
+
+            Iterator<Page> spilledProbePages = requireNonNull(this.spilledProbePages, "spilledProbePages is null");
+            if (spilledProbePages.hasNext()) {
+                probePage = spilledProbePages.next();
+                buildPageIterator = buildPages.iterator();
+                return;
+            }
+
+            // all probe pages have been joined with the current block
+            spilledBuildPages.releaseBlock(currentBuildBlock);
+            currentBuildBlock++;
+            currentBuildBlockFuture = null;
+            buildPages = null;
+            this.spilledProbePages = null;
+            if (currentBuildBlock == spilledBuildPages.getBlockCount()) {
+                probeSpiller.close();
+                probeSpiller = null;
+            }
+        }
+    }
+
+    private SingleStreamSpiller createProbeSpiller()
+    {
+        List<Type> spilledTypes = Arrays.stream(probeChannels)
+                .mapToObj(probeTypes::get)
+                .collect(toImmutableList());
+        return singleStreamSpillerFactory.create(
+                spilledTypes,
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.newLocalUserMemoryContext(NestedLoopJoinOperator.class.getSimpleName()));
+    }
+
     @Override
     public void close()
     {
@@ -239,11 +386,18 @@ public class NestedLoopJoinOperator
         probePage = null;
         nestedLoopPageBuilder = null;
         buildPageIterator = null;
+        spilledProbePages = null;
+        currentBuildBlockFuture = null;
+        if (probeSpiller != null) {
+            probeSpiller.close();
+            probeSpiller = null;
+        }
         // We don't want to release the supplier multiple times, since its reference counted
         if (closed) {
             return;
         }
         closed = true;
+        joinBridge.probeOperatorClosed(currentBuildBlock);
         // `afterClose` must be run last.
         afterClose.run();
     }
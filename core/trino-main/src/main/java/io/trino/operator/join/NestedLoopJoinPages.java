@@ -19,6 +19,7 @@ import io.trino.operator.OperatorContext;
 import io.trino.spi.Page;
 
 import java.util.List;
+import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
@@ -26,6 +27,7 @@ public final class NestedLoopJoinPages
 {
     private final List<Page> pages;
     private final DataSize estimatedSize;
+    private final Optional<SpilledNestedLoopJoinPages> spilledPages;
 
     NestedLoopJoinPages(List<Page> pages, DataSize estimatedSize, OperatorContext operatorContext)
     {
@@ -34,13 +36,33 @@ public final class NestedLoopJoinPages
         requireNonNull(estimatedSize, "estimatedSize is null");
         this.pages = ImmutableList.copyOf(pages);
         this.estimatedSize = estimatedSize;
+        this.spilledPages = Optional.empty();
     }
 
+    NestedLoopJoinPages(SpilledNestedLoopJoinPages spilledPages)
+    {
+        this.pages = ImmutableList.of();
+        this.estimatedSize = DataSize.ofBytes(0);
+        this.spilledPages = Optional.of(requireNonNull(spilledPages, "spilledPages is null"));
+    }
+
+    /**
+     * Returns the build pages, which are empty if the build side has been spilled.
+     */
     public List<Page> getPages()
     {
         return pages;
     }
 
+    /**
+     * Present if the build side has been spilled, in which case the build pages have to be
+     * loaded block by block.
+     */
+    public Optional<SpilledNestedLoopJoinPages> getSpilledPages()
+    {
+        return spilledPages;
+    }
+
     public DataSize getEstimatedSize()
     {
         return estimatedSize;
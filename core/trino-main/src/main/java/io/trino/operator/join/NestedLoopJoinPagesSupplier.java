@@ -16,10 +16,12 @@ package io.trino.operator.join;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.util.concurrent.Futures.transformAsync;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static java.util.Objects.requireNonNull;
 
 public final class NestedLoopJoinPagesSupplier
@@ -27,6 +29,8 @@ public final class NestedLoopJoinPagesSupplier
 {
     private final SettableFuture<NestedLoopJoinPages> pagesFuture = SettableFuture.create();
     private final SettableFuture<Void> pagesNoLongerNeeded = SettableFuture.create();
+    @GuardedBy("this")
+    private int probeOperatorsClosedBeforePagesSet;
 
     @Override
     public ListenableFuture<NestedLoopJoinPages> getPagesFuture()
@@ -38,11 +42,29 @@ public final class NestedLoopJoinPagesSupplier
     public ListenableFuture<Void> setPages(NestedLoopJoinPages nestedLoopJoinPages)
     {
         requireNonNull(nestedLoopJoinPages, "nestedLoopJoinPages is null");
-        boolean wasSet = pagesFuture.set(nestedLoopJoinPages);
-        checkState(wasSet, "pagesFuture already set");
+        synchronized (this) {
+            checkState(!pagesFuture.isDone(), "pagesFuture already set");
+            nestedLoopJoinPages.getSpilledPages().ifPresent(spilledPages -> {
+                for (int i = 0; i < probeOperatorsClosedBeforePagesSet; i++) {
+                    spilledPages.releaseBlocksFrom(0);
+                }
+            });
+            pagesFuture.set(nestedLoopJoinPages);
+        }
         return pagesNoLongerNeeded;
     }
 
+    @Override
+    public synchronized void probeOperatorClosed(int nextSpilledBlock)
+    {
+        if (!pagesFuture.isDone()) {
+            probeOperatorsClosedBeforePagesSet++;
+            return;
+        }
+        getFutureValue(pagesFuture).getSpilledPages()
+                .ifPresent(spilledPages -> spilledPages.releaseBlocksFrom(nextSpilledBlock));
+    }
+
     @Override
     public void destroy()
     {
@@ -15,11 +15,14 @@ package io.trino.operator.join;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.errorprone.annotations.Immutable;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
 import io.trino.annotation.NotThreadSafe;
+import io.trino.operator.HashGenerator;
+import io.trino.operator.PrecomputedHashGenerator;
 import io.trino.operator.join.LookupSourceProvider.LookupSourceLease;
 import io.trino.spi.Page;
 import io.trino.spi.PageBuilder;
@@ -47,6 +50,7 @@ import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
 import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
 import static com.google.common.util.concurrent.Futures.transform;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.trino.operator.InterpretedHashGenerator.createChannelsHashGenerator;
 import static io.trino.operator.join.OuterLookupSource.createOuterLookupSourceSupplier;
 import static io.trino.operator.join.PartitionedLookupSource.createPartitionedLookupSourceSupplier;
 import static java.util.Collections.emptyList;
@@ -96,7 +100,7 @@ public final class PartitionedLookupSourceFactory
     private OptionalInt partitionedConsumptionParticipants = OptionalInt.empty();
 
     @GuardedBy("lock")
-    private final SettableFuture<PartitionedConsumption<Supplier<LookupSource>>> partitionedConsumption = SettableFuture.create();
+    private final SettableFuture<PartitionedConsumption<LoadedPartition>> partitionedConsumption = SettableFuture.create();
 
     /**
      * Cached LookupSource on behalf of LookupJoinOperator (represented by SpillAwareLookupSourceProvider). LookupSource instantiation has non-negligible cost.
@@ -142,6 +146,18 @@ public final class PartitionedLookupSourceFactory
         return partitions.length;
     }
 
+    /**
+     * Hash generator for build side rows, producing the same hashes as the probe side, so that
+     * rows of a spilled partition can be repartitioned consistently on both sides.
+     */
+    HashGenerator createBuildHashGenerator(List<Integer> hashChannels, OptionalInt preComputedHashChannel)
+    {
+        if (preComputedHashChannel.isPresent()) {
+            return new PrecomputedHashGenerator(preComputedHashChannel.getAsInt());
+        }
+        return createChannelsHashGenerator(hashChannelTypes, Ints.toArray(hashChannels), typeOperators);
+    }
+
     @Override
     public ListenableFuture<LookupSourceProvider> createLookupSourceProvider()
     {
@@ -296,7 +312,7 @@ public final class PartitionedLookupSourceFactory
     }
 
     @Override
-    public ListenableFuture<PartitionedConsumption<Supplier<LookupSource>>> finishProbeOperator(OptionalInt lookupJoinsCount)
+    public ListenableFuture<PartitionedConsumption<LoadedPartition>> finishProbeOperator(OptionalInt lookupJoinsCount)
     {
         lock.writeLock().lock();
         try {
@@ -336,10 +352,11 @@ public final class PartitionedLookupSourceFactory
                 // We can dispose partitions now since right outer is not supported with spill
                 freePartitions();
                 verify(!partitionedConsumption.isDone());
+                int participants = partitionedConsumptionParticipants.getAsInt();
                 partitionedConsumption.set(new PartitionedConsumption<>(
-                        partitionedConsumptionParticipants.getAsInt(),
+                        participants,
                         spilledPartitions.keySet(),
-                        this::loadSpilledLookupSource,
+                        partition -> loadSpilledLookupSource(partition, participants),
                         this::disposeSpilledLookupSource,
                         this::spilledLookupSourceDisposed));
             }
@@ -351,9 +368,9 @@ public final class PartitionedLookupSourceFactory
         }
     }
 
-    private ListenableFuture<Supplier<LookupSource>> loadSpilledLookupSource(int partitionNumber)
+    private ListenableFuture<LoadedPartition> loadSpilledLookupSource(int partitionNumber, int consumersCount)
     {
-        return getSpilledLookupSourceHandle(partitionNumber).getLookupSource();
+        return getSpilledLookupSourceHandle(partitionNumber).getLookupSource(consumersCount);
     }
 
     private void disposeSpilledLookupSource(int partitionNumber)
@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.join;
+
+import io.airlift.slice.XxHash64;
+import io.trino.operator.HashGenerator;
+import io.trino.operator.PartitionFunction;
+import io.trino.spi.Page;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Splits rows of a spilled join partition into sub-partitions. Every level of repartitioning
+ * mixes the raw hash with a different seed, so rows which ended up in the same partition at
+ * the previous level are distributed independently of that partitioning.
+ * <p>
+ * Build and probe side must use the same level and partition count.
+ */
+final class SpillRepartitionFunction
+        implements PartitionFunction
+{
+    // golden ratio, so that seeds of consecutive levels differ in many bits
+    private static final long LEVEL_SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final HashGenerator hashGenerator;
+    private final long seed;
+    private final int partitionCount;
+    private final int hashMask;
+
+    public SpillRepartitionFunction(HashGenerator hashGenerator, int level, int partitionCount)
+    {
+        checkArgument(level > 0, "level must be positive");
+        checkArgument(Integer.bitCount(partitionCount) == 1, "partitionCount must be a power of 2");
+        this.hashGenerator = requireNonNull(hashGenerator, "hashGenerator is null");
+        this.seed = level * LEVEL_SEED_MULTIPLIER;
+        this.partitionCount = partitionCount;
+        this.hashMask = partitionCount - 1;
+    }
+
+    @Override
+    public int partitionCount()
+    {
+        return partitionCount;
+    }
+
+    @Override
+    public int getPartition(Page page, int position)
+    {
+        long rawHash = hashGenerator.hashPosition(position, page);
+        return (int) XxHash64.hash(Long.reverse(rawHash) ^ seed) & hashMask;
+    }
+}
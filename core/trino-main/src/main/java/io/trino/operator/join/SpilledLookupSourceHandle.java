@@ -18,11 +18,17 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.errorprone.annotations.ThreadSafe;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
+import io.trino.operator.join.LoadedPartition.Built;
+import io.trino.operator.join.LoadedPartition.Repartitioned;
 import jakarta.annotation.Nullable;
 
+import java.util.List;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.concurrent.MoreFutures.whenAnyComplete;
 import static java.util.Objects.requireNonNull;
 
@@ -42,9 +48,15 @@ final class SpilledLookupSourceHandle
 
     private final SettableFuture<Void> unspillingRequested = SettableFuture.create();
 
+    @GuardedBy("this")
+    private int consumersCount;
+
     @GuardedBy("this")
     @Nullable
-    private SettableFuture<Supplier<LookupSource>> unspilledLookupSource;
+    private SettableFuture<LoadedPartition> unspilledLookupSource;
+
+    @GuardedBy("this")
+    private List<SpilledLookupSourceHandle> subPartitions = ImmutableList.of();
 
     private final SettableFuture<Void> disposeRequested = SettableFuture.create();
     private final SettableFuture<Void> disposeCompleted = SettableFuture.create();
@@ -56,9 +68,11 @@ final class SpilledLookupSourceHandle
         return unspillingRequested;
     }
 
-    public synchronized ListenableFuture<Supplier<LookupSource>> getLookupSource()
+    public synchronized ListenableFuture<LoadedPartition> getLookupSource(int consumersCount)
     {
+        checkArgument(consumersCount > 0, "consumersCount must be positive");
         assertState(State.SPILLED);
+        this.consumersCount = consumersCount;
         unspillingRequested.set(null);
         setState(State.UNSPILLING);
         checkState(unspilledLookupSource == null, "unspilledLookupSource already set");
@@ -76,16 +90,55 @@ final class SpilledLookupSourceHandle
 
         assertState(State.UNSPILLING);
         checkState(unspilledLookupSource != null, "unspilledLookupSource not set");
-        unspilledLookupSource.set(lookupSource);
+        unspilledLookupSource.set(new Built(lookupSource));
         unspilledLookupSource = null; // let the memory go
         setState(State.PRODUCED);
     }
 
-    public synchronized void dispose()
+    /**
+     * Called by the build operator instead of {@link #setLookupSource} when the partition has been split
+     * into sub-partitions, which are then unspilled one by one when requested by the probe operators.
+     */
+    public void setRepartitioned(int level, List<SpilledLookupSourceHandle> subPartitions)
     {
-        disposeRequested.set(null);
-        unspilledLookupSource = null; // let the memory go
-        setState(State.DISPOSE_REQUESTED);
+        List<SpilledLookupSourceHandle> handles = ImmutableList.copyOf(requireNonNull(subPartitions, "subPartitions is null"));
+
+        synchronized (this) {
+            if (state != State.DISPOSE_REQUESTED) {
+                assertState(State.UNSPILLING);
+                checkState(unspilledLookupSource != null, "unspilledLookupSource not set");
+                this.subPartitions = handles;
+                int consumersCount = this.consumersCount;
+                unspilledLookupSource.set(new Repartitioned(
+                        level,
+                        handles.size(),
+                        new PartitionedConsumption<>(
+                                consumersCount,
+                                IntStream.range(0, handles.size()).boxed().collect(toImmutableList()),
+                                partition -> handles.get(partition).getLookupSource(consumersCount),
+                                partition -> handles.get(partition).dispose(),
+                                partition -> handles.get(partition).getDisposeCompleted())));
+                unspilledLookupSource = null;
+                setState(State.PRODUCED);
+                return;
+            }
+        }
+        // sub-partitions will never be requested
+        handles.forEach(SpilledLookupSourceHandle::dispose);
+    }
+
+    public void dispose()
+    {
+        List<SpilledLookupSourceHandle> subPartitions;
+        synchronized (this) {
+            disposeRequested.set(null);
+            unspilledLookupSource = null; // let the memory go
+            setState(State.DISPOSE_REQUESTED);
+            subPartitions = this.subPartitions;
+            this.subPartitions = ImmutableList.of();
+        }
+        // sub-partitions not consumed yet, when the query is being torn down
+        subPartitions.forEach(SpilledLookupSourceHandle::dispose);
     }
 
     public SettableFuture<Void> getDisposeRequested()
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.join;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.errorprone.annotations.ThreadSafe;
+import io.trino.operator.SpilledPartitions;
+import io.trino.spi.Page;
+
+import java.util.List;
+
+/**
+ * Coordinates unspilling of a nested loop join build side that has been spilled in blocks by
+ * {@link NestedLoopBuildOperator}. Blocks are loaded by the build operator one at a time, when requested
+ * by a probe operator, and kept in memory until all probe operators have joined their input with them.
+ */
+@ThreadSafe
+public class SpilledNestedLoopJoinPages
+{
+    private final SpilledPartitions<List<Page>> blocks;
+
+    public SpilledNestedLoopJoinPages(int blockCount, int probeOperatorsCount)
+    {
+        this.blocks = new SpilledPartitions<>(blockCount, probeOperatorsCount);
+    }
+
+    public int getBlockCount()
+    {
+        return blocks.getPartitionCount();
+    }
+
+    /**
+     * Called by probe operators. Blocks must be requested in order.
+     */
+    public ListenableFuture<List<Page>> getBlock(int block)
+    {
+        return blocks.getPartition(block);
+    }
+
+    /**
+     * Called by probe operators once the block is no longer needed.
+     */
+    public void releaseBlock(int block)
+    {
+        blocks.releasePartition(block);
+    }
+
+    /**
+     * Called by probe operators which are closed before all blocks have been processed.
+     */
+    public void releaseBlocksFrom(int block)
+    {
+        blocks.releasePartitionsFrom(block);
+    }
+
+    ListenableFuture<Void> getBlockRequestedFuture(int block)
+    {
+        return blocks.getPartitionRequestedFuture(block);
+    }
+
+    ListenableFuture<Void> getBlockReleasedFuture(int block)
+    {
+        return blocks.getPartitionReleasedFuture(block);
+    }
+
+    void setBlock(int block, List<Page> pages)
+    {
+        blocks.setPartition(block, pages);
+    }
+}
@@ -16,22 +16,37 @@ package io.trino.operator.join;
 import com.google.common.io.Closer;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.trino.operator.HashGenerator;
+import io.trino.operator.ProcessorContext;
 import io.trino.operator.WorkProcessor;
 import io.trino.operator.join.DefaultPageJoiner.SavedRow;
+import io.trino.operator.join.LoadedPartition.Built;
+import io.trino.operator.join.LoadedPartition.Repartitioned;
 import io.trino.operator.join.PageJoiner.PageJoinerFactory;
+import io.trino.operator.join.PartitionedConsumption.Partition;
 import io.trino.spi.Page;
+import io.trino.spi.type.Type;
+import io.trino.spiller.PartitioningSpiller;
 import io.trino.spiller.PartitioningSpillerFactory;
 import jakarta.annotation.Nullable;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
-import java.util.function.Supplier;
+import java.util.function.IntFunction;
 
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterators.singletonIterator;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static io.airlift.concurrent.MoreFutures.getDone;
+import static io.trino.operator.Operator.NOT_BLOCKED;
 import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
@@ -43,6 +58,11 @@ public class SpillingJoinProcessor
     private final boolean waitForBuild;
     private final LookupSourceFactory lookupSourceFactory;
     private final ListenableFuture<LookupSourceProvider> lookupSourceProvider;
+    private final List<Type> probeTypes;
+    private final HashGenerator probeHashGenerator;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private final ProcessorContext processorContext;
+    private final JoinStatisticsCounter statisticsCounter;
     private final PageJoinerFactory pageJoinerFactory;
     private final PageJoiner sourcePagesJoiner;
     private final WorkProcessor<Page> joinedSourcePages;
@@ -50,13 +70,10 @@ public class SpillingJoinProcessor
     private boolean closed;
 
     @Nullable
-    private ListenableFuture<PartitionedConsumption<Supplier<LookupSource>>> partitionedConsumption;
+    private ListenableFuture<PartitionedConsumption<LoadedPartition>> partitionedConsumption;
+    // Spilled partitions being consumed, sub-partitions of a repartitioned partition on top
     @Nullable
-    private Iterator<PartitionedConsumption.Partition<Supplier<LookupSource>>> lookupPartitions;
-    @Nullable
-    private PartitionedConsumption.Partition<Supplier<LookupSource>> previousPartition;
-    @Nullable
-    private ListenableFuture<Supplier<LookupSource>> previousPartitionLookupSource;
+    private Deque<SpillLevel> spillLevels;
 
     public SpillingJoinProcessor(
             Runnable afterClose,
@@ -64,7 +81,11 @@ public class SpillingJoinProcessor
             boolean waitForBuild,
             LookupSourceFactory lookupSourceFactory,
             ListenableFuture<LookupSourceProvider> lookupSourceProvider,
+            List<Type> probeTypes,
+            HashGenerator probeHashGenerator,
             PartitioningSpillerFactory partitioningSpillerFactory,
+            ProcessorContext processorContext,
+            JoinStatisticsCounter statisticsCounter,
             PageJoinerFactory pageJoinerFactory,
             WorkProcessor<Page> sourcePages)
     {
@@ -73,6 +94,11 @@ public class SpillingJoinProcessor
         this.waitForBuild = waitForBuild;
         this.lookupSourceFactory = requireNonNull(lookupSourceFactory, "lookupSourceFactory is null");
         this.lookupSourceProvider = requireNonNull(lookupSourceProvider, "lookupSourceProvider is null");
+        this.probeTypes = requireNonNull(probeTypes, "probeTypes is null");
+        this.probeHashGenerator = requireNonNull(probeHashGenerator, "probeHashGenerator is null");
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        this.processorContext = requireNonNull(processorContext, "processorContext is null");
+        this.statisticsCounter = requireNonNull(statisticsCounter, "statisticsCounter is null");
         this.pageJoinerFactory = requireNonNull(pageJoinerFactory, "pageJoinerFactory is null");
         sourcePagesJoiner = pageJoinerFactory.getPageJoiner(
                 lookupSourceProvider,
@@ -95,6 +121,9 @@ public class SpillingJoinProcessor
 
             closer.register(sourcePagesJoiner);
             sourcePagesJoiner.getSpiller().ifPresent(closer::register);
+            if (spillLevels != null) {
+                spillLevels.forEach(closer::register);
+            }
         }
         catch (IOException e) {
             throw new RuntimeException(e);
@@ -119,32 +148,82 @@ public class SpillingJoinProcessor
             return WorkProcessor.ProcessState.blocked(asVoid(partitionedConsumption));
         }
 
-        if (lookupPartitions == null) {
-            lookupPartitions = getDone(partitionedConsumption).beginConsumption();
+        if (spillLevels == null) {
+            spillLevels = new ArrayDeque<>();
+            spillLevels.push(new SpillLevel(
+                    0,
+                    getDone(partitionedConsumption).beginConsumption(),
+                    emptyIterator(),
+                    partition -> sourcePagesJoiner.getSpiller()
+                            .map(spiller -> spiller.getSpilledPages(partition))
+                            .orElse(emptyIterator()),
+                    Optional.empty()));
         }
 
-        if (previousPartition != null) {
-            // If we had no rows for the previous spill partition, we would finish before it is unspilled.
-            // Partition must be loaded before it can be released. // TODO remove this constraint
-            if (!previousPartitionLookupSource.isDone()) {
-                return WorkProcessor.ProcessState.blocked(asVoid(previousPartitionLookupSource));
+        while (!spillLevels.isEmpty()) {
+            SpillLevel spillLevel = spillLevels.peek();
+
+            // probe rows of a repartitioned partition must be spilled before its sub-partitions are joined
+            if (!spillLevel.spillInProgress.isDone()) {
+                return WorkProcessor.ProcessState.blocked(spillLevel.spillInProgress);
+            }
+            checkSuccess(spillLevel.spillInProgress, "spilling failed");
+            if (spillLevel.pagesToRepartition.hasNext()) {
+                Page page = spillLevel.pagesToRepartition.next();
+                statisticsCounter.recordRepartitionedProbePositions(spillLevel.level, page.getPositionCount());
+                spillLevel.spillInProgress = spillLevel.spiller.orElseThrow()
+                        .partitionAndSpill(page, partition -> true)
+                        .getSpillingFuture();
+                continue;
             }
 
-            previousPartition.release();
-            previousPartition = null;
-            previousPartitionLookupSource = null;
-        }
+            if (spillLevel.currentPartition != null) {
+                // If we had no rows for the current spill partition, we would finish before it is unspilled.
+                // Partition must be loaded before it can be released. // TODO remove this constraint
+                if (!spillLevel.currentPartitionLoaded.isDone()) {
+                    return WorkProcessor.ProcessState.blocked(asVoid(spillLevel.currentPartitionLoaded));
+                }
 
-        if (!lookupPartitions.hasNext()) {
-            close();
-            return WorkProcessor.ProcessState.finished();
-        }
+                if (!spillLevel.currentPartitionJoined) {
+                    spillLevel.currentPartitionJoined = true;
+                    int partitionNumber = spillLevel.currentPartition.number();
+                    switch (getDone(spillLevel.currentPartitionLoaded)) {
+                        case Built built -> {
+                            statisticsCounter.recordSpilledPartition(spillLevel.level);
+                            return WorkProcessor.ProcessState.ofResult(joinUnspilledPages(spillLevel, partitionNumber, built));
+                        }
+                        case Repartitioned repartitioned -> {
+                            statisticsCounter.recordRepartitionedPartition(spillLevel.level);
+                            spillLevels.push(repartitionProbePages(spillLevel, partitionNumber, repartitioned));
+                            continue;
+                        }
+                    }
+                }
 
-        PartitionedConsumption.Partition<Supplier<LookupSource>> partition = lookupPartitions.next();
-        previousPartition = partition;
-        previousPartitionLookupSource = partition.load();
+                // sub-partitions of a repartitioned partition are released before the partition itself
+                spillLevel.currentPartition.release();
+                spillLevel.currentPartition = null;
+                spillLevel.currentPartitionLoaded = null;
+            }
+
+            if (!spillLevel.partitions.hasNext()) {
+                spillLevels.pop();
+                try {
+                    spillLevel.close();
+                }
+                catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                continue;
+            }
 
-        return WorkProcessor.ProcessState.ofResult(joinUnspilledPages(partition));
+            spillLevel.currentPartition = spillLevel.partitions.next();
+            spillLevel.currentPartitionLoaded = spillLevel.currentPartition.load();
+            spillLevel.currentPartitionJoined = false;
+        }
+
+        close();
+        return WorkProcessor.ProcessState.finished();
     }
 
     private static <T> ListenableFuture<Void> asVoid(ListenableFuture<T> future)
@@ -152,24 +231,80 @@ public class SpillingJoinProcessor
         return Futures.transform(future, v -> null, directExecutor());
     }
 
-    private WorkProcessor<Page> joinUnspilledPages(PartitionedConsumption.Partition<Supplier<LookupSource>> partition)
+    private WorkProcessor<Page> joinUnspilledPages(SpillLevel spillLevel, int partitionNumber, Built partition)
     {
-        int partitionNumber = partition.number();
-        WorkProcessor<Page> unspilledInputPages = WorkProcessor.fromIterator(sourcePagesJoiner.getSpiller()
-                .map(spiller -> spiller.getSpilledPages(partitionNumber))
-                .orElse(emptyIterator()));
-        Iterator<SavedRow> savedRow = Optional.ofNullable(sourcePagesJoiner.getSpilledRows().remove(partitionNumber))
-                .map(row -> (Iterator<SavedRow>) singletonIterator(row))
-                .orElse(emptyIterator());
-
-        ListenableFuture<LookupSourceProvider> unspilledLookupSourceProvider = Futures.transform(
-                partition.load(),
-                supplier -> new StaticLookupSourceProvider(supplier.get()),
-                directExecutor());
+        WorkProcessor<Page> unspilledInputPages = WorkProcessor.fromIterator(spillLevel.probePages.apply(partitionNumber));
+        Iterator<SavedRow> savedRow = emptyIterator();
+        if (spillLevel.level == 0) {
+            savedRow = Optional.ofNullable(sourcePagesJoiner.getSpilledRows().remove(partitionNumber))
+                    .map(row -> (Iterator<SavedRow>) singletonIterator(row))
+                    .orElse(emptyIterator());
+        }
+
+        ListenableFuture<LookupSourceProvider> unspilledLookupSourceProvider = immediateFuture(new StaticLookupSourceProvider(partition.lookupSource().get()));
 
         return unspilledInputPages.transform(pageJoinerFactory.getPageJoiner(
                 unspilledLookupSourceProvider,
                 Optional.empty(),
                 savedRow));
     }
+
+    private SpillLevel repartitionProbePages(SpillLevel spillLevel, int partitionNumber, Repartitioned partition)
+    {
+        // partitions with a row saved in the middle of probing are never repartitioned by the build side
+        checkState(spillLevel.level > 0 || !sourcePagesJoiner.getSpilledRows().containsKey(partitionNumber), "Repartitioned partition %s has a saved probe row", partitionNumber);
+
+        PartitioningSpiller spiller = partitioningSpillerFactory.create(
+                probeTypes,
+                new SpillRepartitionFunction(probeHashGenerator, partition.level(), partition.partitionCount()),
+                processorContext.getSpillContext().newLocalSpillContext(),
+                processorContext.getMemoryTrackingContext().newAggregateUserMemoryContext());
+        return new SpillLevel(
+                partition.level(),
+                partition.subPartitions().beginConsumption(),
+                spillLevel.probePages.apply(partitionNumber),
+                spiller::getSpilledPages,
+                Optional.of(spiller));
+    }
+
+    private static final class SpillLevel
+            implements Closeable
+    {
+        private final int level;
+        private final Iterator<Partition<LoadedPartition>> partitions;
+        private final Iterator<Page> pagesToRepartition;
+        private final IntFunction<Iterator<Page>> probePages;
+        private final Optional<PartitioningSpiller> spiller;
+
+        private ListenableFuture<Void> spillInProgress = NOT_BLOCKED;
+        @Nullable
+        private Partition<LoadedPartition> currentPartition;
+        @Nullable
+        private ListenableFuture<LoadedPartition> currentPartitionLoaded;
+        private boolean currentPartitionJoined;
+
+        private SpillLevel(
+                int level,
+                Iterator<Partition<LoadedPartition>> partitions,
+                Iterator<Page> pagesToRepartition,
+                IntFunction<Iterator<Page>> probePages,
+                Optional<PartitioningSpiller> spiller)
+        {
+            this.level = level;
+            this.partitions = requireNonNull(partitions, "partitions is null");
+            this.pagesToRepartition = requireNonNull(pagesToRepartition, "pagesToRepartition is null");
+            this.probePages = requireNonNull(probePages, "probePages is null");
+            this.spiller = requireNonNull(spiller, "spiller is null");
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            // spiller of the probe side rows spilled originally is owned by the source pages joiner
+            if (spiller.isPresent()) {
+                spiller.get().close();
+            }
+        }
+    }
 }
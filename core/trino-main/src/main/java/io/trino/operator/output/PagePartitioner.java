@@ -13,6 +13,8 @@
  */
 package io.trino.operator.output;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
@@ -56,6 +58,8 @@ public class PagePartitioner
         implements Closeable
 {
     private static final int COLUMNAR_STRATEGY_COEFFICIENT = 2;
+    @VisibleForTesting
+    static final String OUTPUT_PARTITION_ROWS_METRIC_NAME = "Output partition rows";
     private final OutputBuffer outputBuffer;
     private final PartitionFunction partitionFunction;
     private final int[] partitionChannels;
@@ -64,6 +68,10 @@ public class PagePartitioner
     private final Block[] partitionConstantBlocks; // when null, no constants are present. Only non-null elements are constants
     private final PageSerializer serializer;
     private final PositionsAppenderPageBuilder[] positionsAppenders;
+    // rows are counted per flushed page, so that counting does not slow down partitioning of each row
+    private final long[] partitionRowCounts;
+    // rows still buffered in positionsAppenders, which were already reported on release
+    private final long[] reportedBufferedRowCounts;
     private final boolean replicatesAnyRow;
     private final boolean partitionProcessRleAndDictionaryBlocks;
     private final int nullChannel; // when >= 0, send the position to every partition if this channel is null
@@ -122,6 +130,8 @@ public class PagePartitioner
         for (int i = 0; i < partitionCount; i++) {
             positionsAppenders[i] = PositionsAppenderPageBuilder.withMaxPageSize(pageSize, requireNonNull(sourceTypes, "sourceTypes is null"), positionsAppenderFactory);
         }
+        this.partitionRowCounts = new long[partitionCount];
+        this.reportedBufferedRowCounts = new long[partitionCount];
         this.memoryContext = aggregatedMemoryContext.newLocalMemoryContext(PagePartitioner.class.getSimpleName());
         updateMemoryUsage();
     }
@@ -209,13 +219,34 @@ public class PagePartitioner
                 // eagerly
                 bufferedSizeInBytes += positionsAppender.getSizeInBytes();
             }
+            // Buffered rows are reported eagerly too, and subtracted once they are flushed
+            int bufferedRows = positionsAppender.getPositionCount();
+            partitionRowCounts[partition] += bufferedRows - reportedBufferedRowCounts[partition];
+            reportedBufferedRowCounts[partition] = bufferedRows;
         }
         updateMemoryUsage();
         // Adjust flushed and buffered values against the previously eagerly reported sizes
         outputSizeInBytes = adjustFlushedOutputSizeWithEagerlyReportedBytes(outputSizeInBytes);
         bufferedSizeInBytes = adjustEagerlyReportedBytesWithBufferedBytesOnRelease(bufferedSizeInBytes);
         operatorContext.recordOutput(outputSizeInBytes + bufferedSizeInBytes, 0 /* no new positions */);
-        return serializer.getAndResetMetrics();
+        Metrics partitionRowsMetrics = getAndResetPartitionRowsMetrics();
+        return serializer.getAndResetMetrics().mergeWith(partitionRowsMetrics);
+    }
+
+    /**
+     * Reports how many rows were sent to each output partition since the last release. The counts are merged across
+     * all drivers and tasks of the stage, so a few partitions receiving most of the rows (e.g. because of hot join or
+     * grouping keys), which make the consuming tasks for those partitions run much longer than the others, show up
+     * as skewed partitions.
+     */
+    private Metrics getAndResetPartitionRowsMetrics()
+    {
+        if (partitionRowCounts.length <= 1) {
+            return Metrics.EMPTY;
+        }
+        PartitionRowCounts rowCounts = new PartitionRowCounts(partitionRowCounts.clone());
+        Arrays.fill(partitionRowCounts, 0);
+        return new Metrics(ImmutableMap.of(OUTPUT_PARTITION_ROWS_METRIC_NAME, rowCounts));
     }
 
     public void partitionPageByRow(Page page)
@@ -506,6 +537,7 @@ public class PagePartitioner
 
     private void enqueuePage(Page pagePartition, int partition)
     {
+        partitionRowCounts[partition] += pagePartition.getPositionCount();
         outputBuffer.enqueue(partition, splitAndSerializePage(pagePartition, serializer));
     }
 
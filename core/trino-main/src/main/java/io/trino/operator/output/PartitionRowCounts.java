@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.output;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.trino.spi.metrics.Metric;
+
+import java.util.Arrays;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Number of rows sent to each output partition. Counts are merged per partition across drivers and tasks,
+ * so skew is computed from the rows each consumer of the stage receives.
+ */
+public class PartitionRowCounts
+        implements Metric<PartitionRowCounts>
+{
+    // a partition is skewed when it receives this many times more rows than an average partition
+    private static final int SKEWED_PARTITION_ROWS_FACTOR = 4;
+    private static final long SKEWED_PARTITION_MIN_ROWS = 10_000;
+
+    private final long[] rowCounts;
+
+    @JsonCreator
+    public PartitionRowCounts(@JsonProperty("rowCounts") long[] rowCounts)
+    {
+        this.rowCounts = requireNonNull(rowCounts, "rowCounts is null");
+    }
+
+    @JsonProperty
+    public long[] getRowCounts()
+    {
+        return rowCounts;
+    }
+
+    public long getTotalRows()
+    {
+        return Arrays.stream(rowCounts).sum();
+    }
+
+    public long getMaxRows()
+    {
+        return Arrays.stream(rowCounts).max().orElse(0);
+    }
+
+    /**
+     * Returns the number of partitions which received over {@value #SKEWED_PARTITION_ROWS_FACTOR} times
+     * the average number of rows, and at least {@value #SKEWED_PARTITION_MIN_ROWS} rows.
+     */
+    public long getSkewedPartitions()
+    {
+        if (rowCounts.length == 0) {
+            return 0;
+        }
+        long skewedPartitionMinRows = max(SKEWED_PARTITION_MIN_ROWS, SKEWED_PARTITION_ROWS_FACTOR * (getTotalRows() / rowCounts.length));
+        return Arrays.stream(rowCounts)
+                .filter(rows -> rows > skewedPartitionMinRows)
+                .count();
+    }
+
+    @Override
+    public PartitionRowCounts mergeWith(PartitionRowCounts other)
+    {
+        checkArgument(rowCounts.length == other.rowCounts.length, "Partition counts differ: %s and %s", rowCounts.length, other.rowCounts.length);
+        long[] merged = new long[rowCounts.length];
+        for (int partition = 0; partition < rowCounts.length; partition++) {
+            merged[partition] = rowCounts[partition] + other.rowCounts[partition];
+        }
+        return new PartitionRowCounts(merged);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PartitionRowCounts that = (PartitionRowCounts) o;
+        return Arrays.equals(rowCounts, that.rowCounts);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(rowCounts);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper("")
+                .add("partitions", rowCounts.length)
+                .add("total", getTotalRows())
+                .add("max", getMaxRows())
+                .add("skewed", getSkewedPartitions())
+                .toString();
+    }
+}
@@ -145,6 +145,11 @@ public class PositionsAppenderPageBuilder
         return declaredPositions == 0;
     }
 
+    public int getPositionCount()
+    {
+        return declaredPositions;
+    }
+
     public Optional<Page> flushOrFlattenBeforeRelease()
     {
         if (declaredPositions == 0) {
@@ -33,6 +33,12 @@ import io.trino.cost.CostCalculator.EstimatedExchanges;
 import io.trino.cost.CostCalculatorUsingExchanges;
 import io.trino.cost.CostCalculatorWithEstimatedExchanges;
 import io.trino.cost.CostComparator;
+import io.trino.cost.FileHistoricalStatsStoreModule;
+import io.trino.cost.HistoricalStatsStore;
+import io.trino.cost.HistoricalStatsStoreConfig;
+import io.trino.cost.HistoricalStatsStoreConfig.HistoricalStatsStoreKind;
+import io.trino.cost.HistoryBasedStatsRecorder;
+import io.trino.cost.NoOpHistoricalStatsStore;
 import io.trino.cost.StatsAndCosts;
 import io.trino.cost.StatsCalculatorModule;
 import io.trino.cost.TaskCountEstimator;
@@ -204,6 +210,7 @@ public class CoordinatorModule
         newExporter(binder).export(SqlQueryManager.class).withGeneratedName();
         binder.bind(QueryManager.class).to(SqlQueryManager.class);
         binder.bind(QueryPreparer.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(QueryPreparer.class).withGeneratedName();
         OptionalBinder.newOptionalBinder(binder, SessionSupplier.class).setDefault().to(QuerySessionSupplier.class).in(Scopes.SINGLETON);
         binder.bind(ResourceGroupInfoProvider.class).to(ResourceGroupManager.class).in(Scopes.SINGLETON);
         binder.bind(InternalResourceGroupManager.class).in(Scopes.SINGLETON);
@@ -282,6 +289,18 @@ public class CoordinatorModule
         // statistics calculator
         binder.install(new StatsCalculatorModule());
 
+        // history based statistics
+        configBinder(binder).bindConfig(HistoricalStatsStoreConfig.class);
+        install(conditionalModule(
+                HistoricalStatsStoreConfig.class,
+                config -> config.getKind() == HistoricalStatsStoreKind.NONE,
+                innerBinder -> innerBinder.bind(HistoricalStatsStore.class).to(NoOpHistoricalStatsStore.class).in(Scopes.SINGLETON)));
+        install(conditionalModule(
+                HistoricalStatsStoreConfig.class,
+                config -> config.getKind() == HistoricalStatsStoreKind.FILE,
+                new FileHistoricalStatsStoreModule()));
+        binder.bind(HistoryBasedStatsRecorder.class).in(Scopes.SINGLETON);
+
         // cost calculator
         binder.bind(TaskCountEstimator.class).in(Scopes.SINGLETON);
         binder.bind(CostCalculator.class).to(CostCalculatorUsingExchanges.class).in(Scopes.SINGLETON);
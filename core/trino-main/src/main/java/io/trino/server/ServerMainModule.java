@@ -50,6 +50,7 @@ import io.trino.execution.TableExecuteContextManager;
 import io.trino.execution.TaskManagementExecutor;
 import io.trino.execution.TaskManagerConfig;
 import io.trino.execution.executor.TaskExecutor;
+import io.trino.execution.executor.dedicated.NumaNodeExporter;
 import io.trino.execution.executor.dedicated.ThreadPerDriverTaskExecutor;
 import io.trino.execution.executor.timesharing.MultilevelSplitQueue;
 import io.trino.execution.executor.timesharing.TimeSharingTaskExecutor;
@@ -126,6 +127,7 @@ import io.trino.split.PageSinkManager;
 import io.trino.split.PageSinkProvider;
 import io.trino.split.PageSourceManager;
 import io.trino.split.PageSourceProviderFactory;
+import io.trino.split.SharedScanManager;
 import io.trino.split.SplitManager;
 import io.trino.sql.PlannerContext;
 import io.trino.sql.SqlEnvironmentConfig;
@@ -323,6 +325,9 @@ public class ServerMainModule
                     .to(ThreadPerDriverTaskExecutor.class)
                     .in(Scopes.SINGLETON);
             binder.bind(ThreadPerDriverTaskExecutor.class).in(Scopes.SINGLETON);
+            if (taskManagerConfig.isThreadPerDriverSchedulerNumaAwareEnabled()) {
+                binder.bind(NumaNodeExporter.class).in(Scopes.SINGLETON);
+            }
         }
         else {
             jaxrsBinder(binder).bind(TaskExecutorResource.class);
@@ -385,6 +390,8 @@ public class ServerMainModule
         jsonCodecBinder(binder).bindJsonCodec(MemoryInfo.class);
 
         // data stream provider
+        binder.bind(SharedScanManager.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(SharedScanManager.class).withGeneratedName();
         binder.bind(PageSourceManager.class).in(Scopes.SINGLETON);
         binder.bind(PageSourceProviderFactory.class).to(PageSourceManager.class).in(Scopes.SINGLETON);
 
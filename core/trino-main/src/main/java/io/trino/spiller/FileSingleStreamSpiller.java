@@ -23,15 +23,17 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import io.airlift.slice.OutputStreamSliceOutput;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
 import io.trino.annotation.NotThreadSafe;
 import io.trino.execution.buffer.PageDeserializer;
 import io.trino.execution.buffer.PageSerializer;
 import io.trino.execution.buffer.PagesSerdeFactory;
-import io.trino.execution.buffer.PagesSerdeUtil;
 import io.trino.memory.context.LocalMemoryContext;
 import io.trino.operator.SpillContext;
 import io.trino.spi.Page;
 import io.trino.spi.TrinoException;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import jakarta.annotation.Nullable;
 
 import javax.crypto.SecretKey;
 
@@ -39,18 +41,26 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
+import static io.trino.execution.buffer.PagesSerdeUtil.readSerializedPages;
 import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.trino.spiller.FileSingleStreamSpillerFactory.SPILL_FILE_PREFIX;
 import static io.trino.spiller.FileSingleStreamSpillerFactory.SPILL_FILE_SUFFIX;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.READ;
 import static java.util.Objects.requireNonNull;
 
 @NotThreadSafe
@@ -65,6 +75,8 @@ public class FileSingleStreamSpiller
     private final PagesSerdeFactory serdeFactory;
     private volatile Optional<SecretKey> encryptionKey;
     private final boolean encrypted;
+    private final boolean memoryMapped;
+    private final long readAheadBytes;
     private final SpillerStats spillerStats;
     private final SpillContext localSpillContext;
     private final LocalMemoryContext memoryContext;
@@ -72,9 +84,14 @@ public class FileSingleStreamSpiller
     private final ListeningExecutorService executor;
 
     private boolean writable = true;
+    private boolean rereadable;
     private long spilledPagesInMemorySize;
     private ListenableFuture<Void> spillInProgress = immediateVoidFuture();
 
+    // only used when memory mapped
+    private long fileSize;
+    private final IntArrayList pageLengths = new IntArrayList();
+
     private final Runnable fileSystemErrorHandler;
 
     public FileSingleStreamSpiller(
@@ -82,6 +99,8 @@ public class FileSingleStreamSpiller
             Optional<SecretKey> encryptionKey,
             ListeningExecutorService executor,
             Path spillPath,
+            boolean memoryMapped,
+            long readAheadBytes,
             SpillerStats spillerStats,
             SpillContext spillContext,
             LocalMemoryContext memoryContext,
@@ -91,6 +110,9 @@ public class FileSingleStreamSpiller
         this.encryptionKey = requireNonNull(encryptionKey, "encryptionKey is null");
         this.encrypted = encryptionKey.isPresent();
         this.executor = requireNonNull(executor, "executor is null");
+        this.memoryMapped = memoryMapped;
+        checkArgument(readAheadBytes >= 0, "readAheadBytes is negative");
+        this.readAheadBytes = readAheadBytes;
         this.spillerStats = requireNonNull(spillerStats, "spillerStats is null");
         this.localSpillContext = spillContext.newLocalSpillContext();
         this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
@@ -124,6 +146,15 @@ public class FileSingleStreamSpiller
         return spillInProgress;
     }
 
+    @Override
+    public Iterator<Page> getRereadableSpilledPages()
+    {
+        checkNoSpillInProgress();
+        checkState(writable || rereadable, "Spilled pages have already been read once");
+        rereadable = true;
+        return readPages(true);
+    }
+
     @Override
     public long getSpilledPagesInMemorySize()
     {
@@ -134,13 +165,22 @@ public class FileSingleStreamSpiller
     public Iterator<Page> getSpilledPages()
     {
         checkNoSpillInProgress();
-        return readPages();
+        Iterator<Page> pages = readPages();
+        if (readAheadBytes == 0) {
+            return pages;
+        }
+        // read-ahead buffer is reserved upfront, for the same reason as the read buffer (see constructor)
+        memoryContext.setBytes(BUFFER_SIZE + readAheadBytes);
+        return closer.register(new ReadAheadPageIterator(pages, executor, readAheadBytes));
     }
 
     @Override
     public ListenableFuture<List<Page>> getAllSpilledPages()
     {
-        return executor.submit(() -> ImmutableList.copyOf(getSpilledPages()));
+        return executor.submit(() -> {
+            checkNoSpillInProgress();
+            return ImmutableList.copyOf(readPages());
+        });
     }
 
     private void writePages(Iterator<Page> pageIterator)
@@ -159,6 +199,10 @@ public class FileSingleStreamSpiller
                 localSpillContext.updateBytes(pageSize);
                 spillerStats.addToTotalSpilledBytes(pageSize);
                 output.writeBytes(serializedPage);
+                if (memoryMapped) {
+                    pageLengths.add(serializedPage.length());
+                    fileSize += pageSize;
+                }
             }
         }
         catch (UncheckedIOException | IOException e) {
@@ -170,16 +214,27 @@ public class FileSingleStreamSpiller
     private Iterator<Page> readPages()
     {
         checkState(writable, "Repeated reads are disallowed to prevent potential resource leaks");
+        return readPages(false);
+    }
+
+    private Iterator<Page> readPages(boolean rereadable)
+    {
         writable = false;
 
         try {
             Optional<SecretKey> encryptionKey = this.encryptionKey;
             checkState(encrypted == encryptionKey.isPresent(), "encryptionKey has been discarded");
             PageDeserializer deserializer = serdeFactory.createDeserializer(encryptionKey);
-            // encryption key is safe to discard since it now belongs to the PageDeserializer and repeated reads are disallowed
-            this.encryptionKey = Optional.empty();
+            if (!rereadable) {
+                // encryption key is safe to discard since it now belongs to the PageDeserializer and repeated reads are disallowed
+                this.encryptionKey = Optional.empty();
+            }
+            if (memoryMapped) {
+                MemoryMappedReader reader = closer.register(new MemoryMappedReader(targetFile.newFileChannel(READ), pageLengths.toIntArray(), fileSize));
+                return closeWhenExhausted(deserializePages(deserializer, reader), reader);
+            }
             InputStream input = closer.register(targetFile.newInputStream());
-            Iterator<Page> pages = PagesSerdeUtil.readPages(deserializer, input);
+            Iterator<Page> pages = deserializePages(deserializer, readSerializedPages(input));
             return closeWhenExhausted(pages, input);
         }
         catch (IOException e) {
@@ -188,6 +243,31 @@ public class FileSingleStreamSpiller
         }
     }
 
+    private Iterator<Page> deserializePages(PageDeserializer deserializer, Iterator<Slice> serializedPages)
+    {
+        return new AbstractIterator<>()
+        {
+            @Override
+            protected Page computeNext()
+            {
+                long start = System.nanoTime();
+                if (!serializedPages.hasNext()) {
+                    return endOfData();
+                }
+                Slice serializedPage = serializedPages.next();
+                Page page = deserializer.deserialize(serializedPage);
+                long elapsedNanos = System.nanoTime() - start;
+                if (memoryMapped) {
+                    spillerStats.addMemoryMappedUnspill(serializedPage.length(), elapsedNanos);
+                }
+                else {
+                    spillerStats.addStreamedUnspill(serializedPage.length(), elapsedNanos);
+                }
+                return page;
+            }
+        };
+    }
+
     @Override
     public void close()
     {
@@ -232,4 +312,72 @@ public class FileSingleStreamSpiller
             }
         };
     }
+
+    /**
+     * Reads serialized pages from a single mapping of the whole spill file, owned by one arena that is closed with the reader.
+     * Each serialized page is copied once from the mapping into a heap slice, as slices cannot point to off-heap memory.
+     * When the page is neither compressed nor encrypted, the deserializer shares values with that slice instead of copying them again.
+     */
+    private class MemoryMappedReader
+            extends AbstractIterator<Slice>
+            implements Closeable
+    {
+        private final FileChannel channel;
+        private final int[] pageLengths;
+        private final Arena arena = Arena.ofShared();
+
+        @Nullable
+        private MemorySegment mappedFile;
+        private int pageIndex;
+        private long pageOffset;
+        private boolean closed;
+
+        public MemoryMappedReader(FileChannel channel, int[] pageLengths, long fileSize)
+        {
+            this.channel = requireNonNull(channel, "channel is null");
+            this.pageLengths = requireNonNull(pageLengths, "pageLengths is null");
+            if (fileSize > 0) {
+                try {
+                    mappedFile = channel.map(READ_ONLY, 0, fileSize, arena);
+                }
+                catch (IOException e) {
+                    close();
+                    fileSystemErrorHandler.run();
+                    throw new TrinoException(GENERIC_INTERNAL_ERROR, "Failed to read spilled pages", e);
+                }
+            }
+        }
+
+        @Override
+        protected Slice computeNext()
+        {
+            if (pageIndex == pageLengths.length) {
+                return endOfData();
+            }
+
+            int pageLength = pageLengths[pageIndex];
+            byte[] serializedPage = new byte[pageLength];
+            MemorySegment.copy(requireNonNull(mappedFile, "mappedFile is null"), JAVA_BYTE, pageOffset, serializedPage, 0, pageLength);
+            pageIndex++;
+            pageOffset += pageLength;
+            return Slices.wrappedBuffer(serializedPage);
+        }
+
+        @Override
+        public void close()
+        {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            mappedFile = null;
+            try {
+                arena.close();
+                channel.close();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
@@ -20,6 +20,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
 import io.trino.FeaturesConfig;
 import io.trino.cache.NonKeyEvictableLoadingCache;
 import io.trino.execution.buffer.CompressionCodec;
@@ -80,6 +81,8 @@ public class FileSingleStreamSpillerFactory
     private final SpillerStats spillerStats;
     private final double maxUsedSpaceThreshold;
     private final boolean spillEncryptionEnabled;
+    private final boolean spillMemoryMappedEnabled;
+    private final long spillReadAheadBytes;
     private int roundRobinIndex;
     private final NonKeyEvictableLoadingCache<Path, Boolean> spillPathHealthCache;
 
@@ -95,7 +98,9 @@ public class FileSingleStreamSpillerFactory
                 featuresConfig.getSpillerSpillPaths(),
                 featuresConfig.getSpillMaxUsedSpaceThreshold(),
                 nodeSpillConfig.getSpillCompressionCodec(),
-                nodeSpillConfig.isSpillEncryptionEnabled());
+                nodeSpillConfig.isSpillEncryptionEnabled(),
+                nodeSpillConfig.isSpillMemoryMappedEnabled(),
+                nodeSpillConfig.getSpillReadAheadSize());
     }
 
     @VisibleForTesting
@@ -106,7 +111,9 @@ public class FileSingleStreamSpillerFactory
             List<Path> spillPaths,
             double maxUsedSpaceThreshold,
             CompressionCodec compressionCodec,
-            boolean spillEncryptionEnabled)
+            boolean spillEncryptionEnabled,
+            boolean spillMemoryMappedEnabled,
+            DataSize spillReadAheadSize)
     {
         this.serdeFactory = createSpillingPagesSerdeFactory(blockEncodingSerde, compressionCodec);
         this.executor = requireNonNull(executor, "executor is null");
@@ -126,6 +133,8 @@ public class FileSingleStreamSpillerFactory
         });
         this.maxUsedSpaceThreshold = maxUsedSpaceThreshold;
         this.spillEncryptionEnabled = spillEncryptionEnabled;
+        this.spillMemoryMappedEnabled = spillMemoryMappedEnabled;
+        this.spillReadAheadBytes = spillReadAheadSize.toBytes();
         this.roundRobinIndex = 0;
 
         this.spillPathHealthCache = buildNonEvictableCacheWithWeakInvalidateAll(
@@ -173,6 +182,8 @@ public class FileSingleStreamSpillerFactory
                 encryptionKey,
                 executor,
                 getNextSpillPath(),
+                spillMemoryMappedEnabled,
+                spillReadAheadBytes,
                 spillerStats,
                 spillContext,
                 memoryContext,
@@ -99,6 +99,16 @@ public class GenericPartitioningSpiller
         return getSpiller(partition).getSpilledPages();
     }
 
+    @Override
+    public synchronized ListenableFuture<List<Page>> getAllSpilledPages(int partition)
+    {
+        readingStarted = true;
+        ListenableFuture<Void> flushFuture = flush(partition);
+        spilledPartitions.remove(partition);
+        SingleStreamSpiller spiller = getSpiller(partition);
+        return Futures.transformAsync(flushFuture, ignored -> spiller.getAllSpilledPages(), directExecutor());
+    }
+
     @Override
     public synchronized void verifyAllPartitionsRead()
     {
@@ -32,6 +32,8 @@ public class NodeSpillConfig
 
     private CompressionCodec spillCompressionCodec = NONE;
     private boolean spillEncryptionEnabled;
+    private boolean spillMemoryMappedEnabled;
+    private DataSize spillReadAheadSize = DataSize.of(0, DataSize.Unit.BYTE);
 
     @NotNull
     public DataSize getMaxSpillPerNode()
@@ -94,4 +96,31 @@ public class NodeSpillConfig
         this.spillEncryptionEnabled = spillEncryptionEnabled;
         return this;
     }
+
+    public boolean isSpillMemoryMappedEnabled()
+    {
+        return spillMemoryMappedEnabled;
+    }
+
+    @Config("spill-memory-mapped-enabled")
+    @ConfigDescription("Read spilled data by memory mapping spill files instead of streaming them")
+    public NodeSpillConfig setSpillMemoryMappedEnabled(boolean spillMemoryMappedEnabled)
+    {
+        this.spillMemoryMappedEnabled = spillMemoryMappedEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getSpillReadAheadSize()
+    {
+        return spillReadAheadSize;
+    }
+
+    @Config("spill-read-ahead-size")
+    @ConfigDescription("Size of spilled data read ahead of the operator for every spill file while unspilling, 0 disables read-ahead")
+    public NodeSpillConfig setSpillReadAheadSize(DataSize spillReadAheadSize)
+    {
+        this.spillReadAheadSize = spillReadAheadSize;
+        return this;
+    }
 }
@@ -0,0 +1,236 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.spiller;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import io.trino.operator.WorkProcessor;
+import io.trino.operator.WorkProcessor.ProcessState;
+import io.trino.spi.Page;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads pages from the source iterator on the executor, ahead of the consumer. At most one read
+ * task is running at a time and it stops before the buffered pages would exceed the read-ahead size,
+ * so the source iterator is never accessed concurrently and the executor threads are not held
+ * by slow consumers. The read-ahead size is reserved upfront by the spiller.
+ * <p>
+ * Consumers should wait for {@link #isBlocked()} before calling {@link #hasNext()}, which otherwise
+ * waits for the read in progress.
+ */
+@ThreadSafe
+final class ReadAheadPageIterator
+        extends AbstractIterator<Page>
+        implements Closeable
+{
+    private final Iterator<Page> source;
+    private final Executor executor;
+    private final long readAheadBytes;
+
+    @GuardedBy("this")
+    private final Queue<Page> buffer = new ArrayDeque<>();
+    @GuardedBy("this")
+    private long bufferedBytes;
+    @GuardedBy("this")
+    private long maxPageBytes;
+    @GuardedBy("this")
+    private boolean readInProgress;
+    @GuardedBy("this")
+    private boolean sourceFinished;
+    @GuardedBy("this")
+    private Throwable failure;
+    @GuardedBy("this")
+    private boolean closed;
+    // completed when a page is read or the read task stops
+    @GuardedBy("this")
+    private SettableFuture<Void> nextPageReady = SettableFuture.create();
+
+    public ReadAheadPageIterator(Iterator<Page> source, Executor executor, long readAheadBytes)
+    {
+        checkArgument(readAheadBytes > 0, "readAheadBytes must be positive");
+        this.source = requireNonNull(source, "source is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.readAheadBytes = readAheadBytes;
+    }
+
+    /**
+     * Returns a processor over the pages, which is blocked instead of waiting while the next page is read ahead.
+     */
+    static WorkProcessor<Page> toWorkProcessor(Iterator<Page> pages)
+    {
+        if (!(pages instanceof ReadAheadPageIterator readAheadPages)) {
+            return WorkProcessor.fromIterator(pages);
+        }
+        return WorkProcessor.create(() -> {
+            ListenableFuture<Void> blocked = readAheadPages.isBlocked();
+            if (!blocked.isDone()) {
+                return ProcessState.blocked(blocked);
+            }
+            if (!readAheadPages.hasNext()) {
+                return ProcessState.finished();
+            }
+            return ProcessState.ofResult(readAheadPages.next());
+        });
+    }
+
+    /**
+     * Completed once the next page can be returned without waiting for the read in progress.
+     */
+    public synchronized ListenableFuture<Void> isBlocked()
+    {
+        if (!buffer.isEmpty() || sourceFinished || closed || failure != null) {
+            return immediateVoidFuture();
+        }
+        if (!readInProgress) {
+            scheduleRead();
+        }
+        if (nextPageReady.isDone()) {
+            nextPageReady = SettableFuture.create();
+        }
+        return nextPageReady;
+    }
+
+    @Override
+    protected synchronized Page computeNext()
+    {
+        while (true) {
+            if (failure != null) {
+                throwIfUnchecked(failure);
+                throw new RuntimeException(failure);
+            }
+            if (!buffer.isEmpty()) {
+                break;
+            }
+            if (sourceFinished || closed) {
+                return endOfData();
+            }
+            if (!readInProgress) {
+                scheduleRead();
+                continue;
+            }
+            waitForRead();
+        }
+
+        Page page = buffer.poll();
+        bufferedBytes -= page.getSizeInBytes();
+        if (!readInProgress && !sourceFinished) {
+            scheduleRead();
+        }
+        return page;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        closed = true;
+        buffer.clear();
+        bufferedBytes = 0;
+        // the source is closed after this iterator, so wait until the read in progress stops using it
+        while (readInProgress) {
+            waitForRead();
+        }
+    }
+
+    @GuardedBy("this")
+    private void waitForRead()
+    {
+        try {
+            wait();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @GuardedBy("this")
+    private void scheduleRead()
+    {
+        readInProgress = true;
+        try {
+            executor.execute(this::readPages);
+        }
+        catch (RuntimeException e) {
+            readInProgress = false;
+            throw e;
+        }
+    }
+
+    private void readPages()
+    {
+        try {
+            while (true) {
+                synchronized (this) {
+                    // stop when the next page, estimated by the largest page so far, would not fit in the read-ahead size
+                    if (closed || (!buffer.isEmpty() && bufferedBytes + maxPageBytes > readAheadBytes)) {
+                        finishRead();
+                        return;
+                    }
+                }
+                // source is only accessed by the single read task in progress
+                if (!source.hasNext()) {
+                    synchronized (this) {
+                        sourceFinished = true;
+                        finishRead();
+                    }
+                    return;
+                }
+                Page page = source.next();
+                synchronized (this) {
+                    if (!closed) {
+                        buffer.add(page);
+                        bufferedBytes += page.getSizeInBytes();
+                        maxPageBytes = max(maxPageBytes, page.getSizeInBytes());
+                    }
+                    notifyConsumer();
+                }
+            }
+        }
+        catch (Throwable t) {
+            synchronized (this) {
+                failure = t;
+                finishRead();
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private void finishRead()
+    {
+        readInProgress = false;
+        notifyConsumer();
+    }
+
+    @GuardedBy("this")
+    private void notifyConsumer()
+    {
+        notifyAll();
+        // listeners only reschedule the blocked driver, so they can run under the lock
+        nextPageReady.set(null);
+    }
+}
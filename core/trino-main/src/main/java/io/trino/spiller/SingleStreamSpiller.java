@@ -47,6 +47,12 @@ public interface SingleStreamSpiller
      */
     Iterator<Page> getSpilledPages();
 
+    /**
+     * Returns list of previously spilled Pages as a single stream, like {@link #getSpilledPages()}, but
+     * can be called again to read the same pages once more. Spilling is no longer allowed after the first read.
+     */
+    Iterator<Page> getRereadableSpilledPages();
+
     /**
      * Returns estimate size of pages that would be returned by {@link #getAllSpilledPages()}.
      */
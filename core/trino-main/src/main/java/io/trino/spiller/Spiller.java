@@ -14,12 +14,15 @@
 package io.trino.spiller;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import io.trino.operator.WorkProcessor;
 import io.trino.spi.Page;
 
 import java.io.Closeable;
 import java.util.Iterator;
 import java.util.List;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
 public interface Spiller
         extends Closeable
 {
@@ -33,6 +36,16 @@ public interface Spiller
      */
     List<Iterator<Page>> getSpills();
 
+    /**
+     * Returns list of previously spilled Pages streams. Streams that read pages ahead are blocked, instead of waiting, until the next page is read.
+     */
+    default List<WorkProcessor<Page>> getSpillProcessors()
+    {
+        return getSpills().stream()
+                .map(ReadAheadPageIterator::toWorkProcessor)
+                .collect(toImmutableList());
+    }
+
     /**
      * Close releases/removes all underlying resources used during spilling
      * like for example all created temporary files.
@@ -20,6 +20,10 @@ import java.util.concurrent.atomic.AtomicLong;
 public class SpillerStats
 {
     protected final AtomicLong totalSpilledBytes = new AtomicLong();
+    private final AtomicLong streamedUnspilledBytes = new AtomicLong();
+    private final AtomicLong streamedUnspillWallNanos = new AtomicLong();
+    private final AtomicLong memoryMappedUnspilledBytes = new AtomicLong();
+    private final AtomicLong memoryMappedUnspillWallNanos = new AtomicLong();
 
     @Managed
     public long getTotalSpilledBytes()
@@ -31,4 +35,40 @@ public class SpillerStats
     {
         totalSpilledBytes.addAndGet(delta);
     }
+
+    @Managed
+    public long getStreamedUnspilledBytes()
+    {
+        return streamedUnspilledBytes.get();
+    }
+
+    @Managed
+    public long getStreamedUnspillWallNanos()
+    {
+        return streamedUnspillWallNanos.get();
+    }
+
+    public void addStreamedUnspill(long bytes, long wallNanos)
+    {
+        streamedUnspilledBytes.addAndGet(bytes);
+        streamedUnspillWallNanos.addAndGet(wallNanos);
+    }
+
+    @Managed
+    public long getMemoryMappedUnspilledBytes()
+    {
+        return memoryMappedUnspilledBytes.get();
+    }
+
+    @Managed
+    public long getMemoryMappedUnspillWallNanos()
+    {
+        return memoryMappedUnspillWallNanos.get();
+    }
+
+    public void addMemoryMappedUnspill(long bytes, long wallNanos)
+    {
+        memoryMappedUnspilledBytes.addAndGet(bytes);
+        memoryMappedUnspillWallNanos.addAndGet(wallNanos);
+    }
 }
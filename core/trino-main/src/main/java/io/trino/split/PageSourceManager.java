@@ -26,37 +26,42 @@ import io.trino.spi.connector.ConnectorPageSourceProviderFactory;
 import io.trino.spi.connector.DynamicFilter;
 import io.trino.spi.connector.EmptyPageSource;
 import io.trino.spi.predicate.TupleDomain;
+import io.trino.split.SharedScanManager.SharedScanKey;
 
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.trino.SystemSessionProperties.isAllowPushdownIntoConnectors;
+import static io.trino.SystemSessionProperties.isSharedScanEnabled;
 import static java.util.Objects.requireNonNull;
 
 public class PageSourceManager
         implements PageSourceProviderFactory
 {
     private final CatalogServiceProvider<ConnectorPageSourceProviderFactory> pageSourceProviderFactory;
+    private final SharedScanManager sharedScanManager;
 
     @Inject
-    public PageSourceManager(CatalogServiceProvider<ConnectorPageSourceProviderFactory> pageSourceProviderFactory)
+    public PageSourceManager(CatalogServiceProvider<ConnectorPageSourceProviderFactory> pageSourceProviderFactory, SharedScanManager sharedScanManager)
     {
         this.pageSourceProviderFactory = requireNonNull(pageSourceProviderFactory, "pageSourceProviderFactory is null");
+        this.sharedScanManager = requireNonNull(sharedScanManager, "sharedScanManager is null");
     }
 
     @Override
     public PageSourceProvider createPageSourceProvider(CatalogHandle catalogHandle)
     {
         ConnectorPageSourceProviderFactory provider = pageSourceProviderFactory.getService(catalogHandle);
-        return new PageSourceProviderInstance(provider.createPageSourceProvider());
+        return new PageSourceProviderInstance(provider.createPageSourceProvider(), sharedScanManager);
     }
 
-    private record PageSourceProviderInstance(ConnectorPageSourceProvider pageSourceProvider)
+    private record PageSourceProviderInstance(ConnectorPageSourceProvider pageSourceProvider, SharedScanManager sharedScanManager)
             implements PageSourceProvider
     {
         private PageSourceProviderInstance
         {
             requireNonNull(pageSourceProvider, "pageSourceProvider is null");
+            requireNonNull(sharedScanManager, "sharedScanManager is null");
         }
 
         @Override
@@ -76,6 +81,24 @@ public class PageSourceManager
             if (!isAllowPushdownIntoConnectors(session)) {
                 dynamicFilter = DynamicFilter.EMPTY;
             }
+            if (isSharedScanEnabled(session) &&
+                    dynamicFilter.isComplete() &&
+                    dynamicFilter.getCurrentPredicate().isAll() &&
+                    pageSourceProvider.supportsSharedScan(session.toConnectorSession(table.catalogHandle()), split.getConnectorSplit(), table.connectorHandle())) {
+                // queries with dynamic filters read different data, so they cannot share the scan
+                SharedScanKey key = new SharedScanKey(
+                        table.catalogHandle(),
+                        table.connectorHandle(),
+                        split.getConnectorSplit(),
+                        session.getUser(),
+                        session.getCatalogProperties(table.catalogHandle().getCatalogName().toString()));
+                return sharedScanManager.createPageSource(key, session.getQueryId(), columns, sharedColumns -> createPageSource(session, split, table, sharedColumns, DynamicFilter.EMPTY));
+            }
+            return createPageSource(session, split, table, columns, dynamicFilter);
+        }
+
+        private ConnectorPageSource createPageSource(Session session, Split split, TableHandle table, List<ColumnHandle> columns, DynamicFilter dynamicFilter)
+        {
             return pageSourceProvider.createPageSource(
                     table.transaction(),
                     session.toConnectorSession(table.catalogHandle()),
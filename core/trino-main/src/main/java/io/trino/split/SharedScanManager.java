@@ -0,0 +1,638 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.split;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import io.airlift.units.DataSize;
+import io.trino.spi.Page;
+import io.trino.spi.QueryId;
+import io.trino.spi.connector.CatalogHandle;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.ConnectorPageSourceProvider;
+import io.trino.spi.connector.ConnectorSplit;
+import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.spi.connector.SourcePage;
+import io.trino.spi.metrics.Metrics;
+import org.weakref.jmx.Managed;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lets concurrent queries on a worker read a split through a single page source.
+ * <p>
+ * A query reading a split joins a scan of an equal split of an equal table started by another
+ * query, when the scan has not started reading yet. The columns read are the union of the
+ * columns the queries need. Scans of the same query are never shared, as one scan of a query can
+ * depend on another one, such as the two sides of a self join.
+ * <p>
+ * The query which started the scan owns the connector page source. It is created with the session
+ * of the owner, it is closed when the owner is done, and its memory usage, input and metrics are
+ * reported only by the owner. Every query reads the page source when it needs a page, and the page
+ * is queued for the other queries. One query reads the page source at a time, without holding the
+ * lock of the scan, and the other queries are blocked until the read is done. Each query reports
+ * its queued pages as the memory usage of its page source, and no query waits for another one to
+ * consume pages:
+ * <ul>
+ * <li>A query which has more than {@link #MAX_BUFFERED_BYTES} queued stops sharing the scan.
+ * <li>A query stops sharing the scan instead of reading a page, when the owner has more than
+ * {@link #MAX_BUFFERED_BYTES} queued.
+ * <li>All queries stop sharing the scan when the owner is done before the scan is finished.
+ * </ul>
+ * A query which stopped sharing the scan consumes its queued pages, and then reads the rest of the
+ * split through its own page source, skipping the positions it already received.
+ * <p>
+ * Only scans of connectors which opt in with {@link ConnectorPageSourceProvider#supportsSharedScan}
+ * are shared. Such connectors guarantee that page sources for equal splits of equal tables return
+ * the same rows in the same order, whatever the transaction which creates them.
+ */
+@ThreadSafe
+public class SharedScanManager
+{
+    @VisibleForTesting
+    static final long MAX_BUFFERED_BYTES = DataSize.of(32, MEGABYTE).toBytes();
+
+    @GuardedBy("this")
+    private final Map<SharedScanKey, SharedScan> scans = new HashMap<>();
+
+    private final AtomicLong startedScans = new AtomicLong();
+    private final AtomicLong sharedScans = new AtomicLong();
+    private final AtomicLong detachedScans = new AtomicLong();
+
+    /**
+     * @param pageSourceFactory creates a page source for the given columns with the session of the query
+     */
+    public ConnectorPageSource createPageSource(
+            SharedScanKey key,
+            QueryId queryId,
+            List<ColumnHandle> columns,
+            Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory)
+    {
+        requireNonNull(key, "key is null");
+        requireNonNull(queryId, "queryId is null");
+        requireNonNull(columns, "columns is null");
+        requireNonNull(pageSourceFactory, "pageSourceFactory is null");
+
+        synchronized (this) {
+            SharedScan scan = scans.get(key);
+            if (scan != null) {
+                ConnectorPageSource pageSource = scan.attach(queryId, columns, pageSourceFactory);
+                if (pageSource != null) {
+                    sharedScans.incrementAndGet();
+                    return pageSource;
+                }
+            }
+
+            scan = new SharedScan(key);
+            scans.put(key, scan);
+            startedScans.incrementAndGet();
+            return requireNonNull(scan.attach(queryId, columns, pageSourceFactory), "new scan is not attachable");
+        }
+    }
+
+    private synchronized void scanClosed(SharedScan scan)
+    {
+        scans.remove(scan.key, scan);
+    }
+
+    @Managed
+    public synchronized int getActiveScans()
+    {
+        return scans.size();
+    }
+
+    @Managed
+    public long getStartedScans()
+    {
+        return startedScans.get();
+    }
+
+    @Managed(description = "Number of page sources which joined a scan started by another query")
+    public long getSharedScans()
+    {
+        return sharedScans.get();
+    }
+
+    @Managed(description = "Number of page sources which stopped sharing a scan, and read the rest of the split on their own")
+    public long getDetachedScans()
+    {
+        return detachedScans.get();
+    }
+
+    /**
+     * Identifies the data read by a page source. The user and catalog session properties are
+     * part of the key, since they can affect what the connector returns.
+     */
+    public record SharedScanKey(
+            CatalogHandle catalogHandle,
+            ConnectorTableHandle table,
+            ConnectorSplit split,
+            String user,
+            Map<String, String> catalogProperties)
+    {
+        public SharedScanKey
+        {
+            requireNonNull(catalogHandle, "catalogHandle is null");
+            requireNonNull(table, "table is null");
+            requireNonNull(split, "split is null");
+            requireNonNull(user, "user is null");
+            requireNonNull(catalogProperties, "catalogProperties is null");
+        }
+    }
+
+    private class SharedScan
+    {
+        private final SharedScanKey key;
+
+        @GuardedBy("this")
+        private final List<ColumnHandle> columns = new ArrayList<>();
+        @GuardedBy("this")
+        private final Set<QueryId> queries = new HashSet<>();
+        @GuardedBy("this")
+        private final List<SharedScanPageSource> consumers = new ArrayList<>();
+        @GuardedBy("this")
+        private SharedScanPageSource owner;
+        @GuardedBy("this")
+        private ConnectorPageSource delegate;
+        // once the page source is being created, queries cannot join anymore
+        @GuardedBy("this")
+        private boolean started;
+        // completed when the query reading the page source is done, or null when no query reads it
+        @GuardedBy("this")
+        private CompletableFuture<Void> reading;
+        // state of the page source after the last read, as only the query reading it may access it
+        @GuardedBy("this")
+        private PageSourceState delegateState = PageSourceState.INITIAL;
+        @GuardedBy("this")
+        private boolean closed;
+        @GuardedBy("this")
+        private Throwable failure;
+
+        private SharedScan(SharedScanKey key)
+        {
+            this.key = requireNonNull(key, "key is null");
+        }
+
+        /**
+         * @return page source reading the given columns from this scan, or null if the scan cannot be joined
+         */
+        private synchronized SharedScanPageSource attach(QueryId queryId, List<ColumnHandle> requiredColumns, Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory)
+        {
+            if (started || closed || !queries.add(queryId)) {
+                return null;
+            }
+
+            int[] channels = new int[requiredColumns.size()];
+            for (int i = 0; i < requiredColumns.size(); i++) {
+                ColumnHandle column = requiredColumns.get(i);
+                int channel = columns.indexOf(column);
+                if (channel < 0) {
+                    channel = columns.size();
+                    columns.add(column);
+                }
+                channels[i] = channel;
+            }
+
+            SharedScanPageSource consumer = new SharedScanPageSource(this, ImmutableList.copyOf(requiredColumns), channels, pageSourceFactory);
+            if (owner == null) {
+                owner = consumer;
+            }
+            consumers.add(consumer);
+            return consumer;
+        }
+
+        /**
+         * @return the next page of the consumer, or null if there is none now, or the consumer does not share the scan anymore
+         */
+        private Page getNextPage(SharedScanPageSource consumer)
+        {
+            ConnectorPageSource pageSource;
+            List<ColumnHandle> scanColumns;
+            Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory;
+            synchronized (this) {
+                Page page = consumer.pollPage();
+                if (page != null || !consumer.attached) {
+                    return page;
+                }
+
+                if (consumer == owner) {
+                    checkFailure();
+                }
+                else if (failure != null || closed || owner.queuedBytes >= MAX_BUFFERED_BYTES) {
+                    // the owner would have to catch up, or the scan failed, so read the split on its own
+                    detach(consumer);
+                    return null;
+                }
+
+                if (reading != null || delegateState.finished()) {
+                    // the query reading the page source queues the page for this one
+                    return null;
+                }
+                reading = new CompletableFuture<>();
+                started = true;
+                pageSource = delegate;
+                scanColumns = ImmutableList.copyOf(columns);
+                pageSourceFactory = owner.pageSourceFactory;
+            }
+
+            Page page = null;
+            PageSourceState state = null;
+            RuntimeException readFailure = null;
+            try {
+                if (pageSource == null) {
+                    pageSource = pageSourceFactory.apply(scanColumns);
+                }
+                if (!pageSource.isFinished()) {
+                    SourcePage sourcePage = pageSource.getNextSourcePage();
+                    if (sourcePage != null) {
+                        page = sourcePage.getPage();
+                    }
+                }
+                state = PageSourceState.of(pageSource);
+            }
+            catch (RuntimeException e) {
+                readFailure = e;
+            }
+            return finishRead(consumer, pageSource, page, state, readFailure);
+        }
+
+        private Page finishRead(SharedScanPageSource consumer, ConnectorPageSource pageSource, Page page, PageSourceState state, RuntimeException readFailure)
+        {
+            CompletableFuture<Void> readFinished;
+            ConnectorPageSource closedDelegate = null;
+            synchronized (this) {
+                readFinished = reading;
+                reading = null;
+                delegate = pageSource;
+                if (closed) {
+                    // the owner was done during the read, and left closing the page source to this query
+                    closedDelegate = pageSource;
+                }
+
+                if (readFailure != null) {
+                    failure = readFailure;
+                    if (consumer != owner && consumer.attached) {
+                        detach(consumer);
+                    }
+                    page = null;
+                }
+                else {
+                    delegateState = state;
+                    if (page != null) {
+                        for (SharedScanPageSource other : ImmutableList.copyOf(consumers)) {
+                            if (other != consumer) {
+                                other.queuePage(page);
+                                if (other != owner && other.queuedBytes > MAX_BUFFERED_BYTES) {
+                                    detach(other);
+                                }
+                            }
+                        }
+                        consumer.deliveredPositions += page.getPositionCount();
+                    }
+                }
+            }
+            readFinished.complete(null);
+
+            if (closedDelegate != null) {
+                try {
+                    closedDelegate.close();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (readFailure != null && consumer == owner) {
+                throw readFailure;
+            }
+            return page;
+        }
+
+        @GuardedBy("this")
+        private void detach(SharedScanPageSource consumer)
+        {
+            consumers.remove(consumer);
+            consumer.attached = false;
+            detachedScans.incrementAndGet();
+        }
+
+        @GuardedBy("this")
+        private void checkFailure()
+        {
+            if (failure != null) {
+                throwIfUnchecked(failure);
+                throw new RuntimeException(failure);
+            }
+        }
+
+        private synchronized boolean isFinished(SharedScanPageSource consumer)
+        {
+            if (consumer.hasQueuedPages()) {
+                return false;
+            }
+            if (!consumer.attached) {
+                return consumer.scanFinished;
+            }
+            return failure == null && delegateState.finished();
+        }
+
+        private synchronized CompletableFuture<?> isBlocked(SharedScanPageSource consumer)
+        {
+            if (consumer.hasQueuedPages() || !consumer.attached || failure != null) {
+                return ConnectorPageSource.NOT_BLOCKED;
+            }
+            if (reading != null) {
+                return reading.copy();
+            }
+            return delegateState.blocked();
+        }
+
+        private synchronized long getMemoryUsage(SharedScanPageSource consumer)
+        {
+            long delegateMemoryUsage = consumer == owner && !closed ? delegateState.memoryUsage() : 0;
+            return consumer.queuedBytes + delegateMemoryUsage;
+        }
+
+        private synchronized long getCompletedBytes(SharedScanPageSource consumer)
+        {
+            return consumer == owner ? delegateState.completedBytes() : 0;
+        }
+
+        private synchronized long getReadTimeNanos(SharedScanPageSource consumer)
+        {
+            return consumer == owner ? delegateState.readTimeNanos() : 0;
+        }
+
+        private synchronized Metrics getMetrics(SharedScanPageSource consumer)
+        {
+            return consumer == owner ? delegateState.metrics() : Metrics.EMPTY;
+        }
+
+        private void close(SharedScanPageSource consumer)
+                throws IOException
+        {
+            ConnectorPageSource closedDelegate = null;
+            synchronized (this) {
+                consumer.clearQueuedPages();
+                if (consumer != owner) {
+                    consumers.remove(consumer);
+                    consumer.attached = false;
+                    return;
+                }
+
+                // the page source belongs to the owner, so the other queries continue on their own
+                boolean scanFinished = failure == null && delegateState.finished();
+                for (SharedScanPageSource other : consumers) {
+                    if (other != owner) {
+                        other.attached = false;
+                        other.scanFinished = scanFinished;
+                        if (!scanFinished) {
+                            detachedScans.incrementAndGet();
+                        }
+                    }
+                }
+                consumers.clear();
+                owner.attached = false;
+                if (!closed) {
+                    closed = true;
+                    // a page source being read is closed by the query reading it
+                    if (reading == null) {
+                        closedDelegate = delegate;
+                    }
+                }
+            }
+
+            scanClosed(this);
+            if (closedDelegate != null) {
+                closedDelegate.close();
+            }
+        }
+    }
+
+    private record PageSourceState(boolean finished, CompletableFuture<?> blocked, long memoryUsage, long completedBytes, long readTimeNanos, Metrics metrics)
+    {
+        private static final PageSourceState INITIAL = new PageSourceState(false, ConnectorPageSource.NOT_BLOCKED, 0, 0, 0, Metrics.EMPTY);
+
+        private PageSourceState
+        {
+            requireNonNull(blocked, "blocked is null");
+            requireNonNull(metrics, "metrics is null");
+        }
+
+        private static PageSourceState of(ConnectorPageSource pageSource)
+        {
+            return new PageSourceState(
+                    pageSource.isFinished(),
+                    pageSource.isBlocked(),
+                    pageSource.getMemoryUsage(),
+                    pageSource.getCompletedBytes(),
+                    pageSource.getReadTimeNanos(),
+                    pageSource.getMetrics());
+        }
+    }
+
+    private static class SharedScanPageSource
+            implements ConnectorPageSource
+    {
+        private final SharedScan scan;
+        private final List<ColumnHandle> columns;
+        private final int[] channels;
+        private final Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory;
+
+        @GuardedBy("scan")
+        private final ArrayDeque<Page> queuedPages = new ArrayDeque<>();
+        @GuardedBy("scan")
+        private long queuedBytes;
+        // positions of the pages read from the scan for this page source, including the queued ones
+        @GuardedBy("scan")
+        private long deliveredPositions;
+        @GuardedBy("scan")
+        private boolean attached = true;
+        // the scan was finished when this page source stopped sharing it
+        @GuardedBy("scan")
+        private boolean scanFinished;
+
+        // page source reading the rest of the split, once this page source stopped sharing the scan
+        private ConnectorPageSource detachedPageSource;
+        private long positionsToSkip;
+
+        private SharedScanPageSource(SharedScan scan, List<ColumnHandle> columns, int[] channels, Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory)
+        {
+            this.scan = requireNonNull(scan, "scan is null");
+            this.columns = requireNonNull(columns, "columns is null");
+            this.channels = requireNonNull(channels, "channels is null");
+            this.pageSourceFactory = requireNonNull(pageSourceFactory, "pageSourceFactory is null");
+        }
+
+        @GuardedBy("scan")
+        private void queuePage(Page page)
+        {
+            queuedPages.add(page);
+            queuedBytes += page.getRetainedSizeInBytes();
+            deliveredPositions += page.getPositionCount();
+        }
+
+        @GuardedBy("scan")
+        private Page pollPage()
+        {
+            Page page = queuedPages.poll();
+            if (page != null) {
+                queuedBytes -= page.getRetainedSizeInBytes();
+            }
+            return page;
+        }
+
+        @GuardedBy("scan")
+        private boolean hasQueuedPages()
+        {
+            return !queuedPages.isEmpty();
+        }
+
+        @GuardedBy("scan")
+        private void clearQueuedPages()
+        {
+            queuedPages.clear();
+            queuedBytes = 0;
+        }
+
+        @Override
+        public long getCompletedBytes()
+        {
+            long detachedCompletedBytes = detachedPageSource == null ? 0 : detachedPageSource.getCompletedBytes();
+            return scan.getCompletedBytes(this) + detachedCompletedBytes;
+        }
+
+        @Override
+        public OptionalLong getCompletedPositions()
+        {
+            return OptionalLong.empty();
+        }
+
+        @Override
+        public long getReadTimeNanos()
+        {
+            long detachedReadTimeNanos = detachedPageSource == null ? 0 : detachedPageSource.getReadTimeNanos();
+            return scan.getReadTimeNanos(this) + detachedReadTimeNanos;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            if (detachedPageSource != null) {
+                return detachedPageSource.isFinished();
+            }
+            return scan.isFinished(this);
+        }
+
+        @Override
+        public SourcePage getNextSourcePage()
+        {
+            if (detachedPageSource != null) {
+                return getNextDetachedPage();
+            }
+
+            Page page = scan.getNextPage(this);
+            if (page != null) {
+                return SourcePage.create(page.getColumns(channels));
+            }
+
+            synchronized (scan) {
+                if (attached || hasQueuedPages() || scanFinished) {
+                    return null;
+                }
+                positionsToSkip = deliveredPositions;
+            }
+            detachedPageSource = pageSourceFactory.apply(columns);
+            return getNextDetachedPage();
+        }
+
+        private SourcePage getNextDetachedPage()
+        {
+            SourcePage page = detachedPageSource.getNextSourcePage();
+            if (page == null || positionsToSkip == 0) {
+                return page;
+            }
+
+            int positionCount = page.getPositionCount();
+            if (positionsToSkip >= positionCount) {
+                positionsToSkip -= positionCount;
+                return null;
+            }
+            int skipped = toIntExact(positionsToSkip);
+            positionsToSkip = 0;
+            int[] positions = new int[positionCount - skipped];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = skipped + i;
+            }
+            page.selectPositions(positions, 0, positions.length);
+            return page;
+        }
+
+        @Override
+        public long getMemoryUsage()
+        {
+            long detachedMemoryUsage = detachedPageSource == null ? 0 : detachedPageSource.getMemoryUsage();
+            return scan.getMemoryUsage(this) + detachedMemoryUsage;
+        }
+
+        @Override
+        public CompletableFuture<?> isBlocked()
+        {
+            if (detachedPageSource != null) {
+                return detachedPageSource.isBlocked();
+            }
+            return scan.isBlocked(this);
+        }
+
+        @Override
+        public Metrics getMetrics()
+        {
+            Metrics metrics = scan.getMetrics(this);
+            return detachedPageSource == null ? metrics : metrics.mergeWith(detachedPageSource.getMetrics());
+        }
+
+        @Override
+        public void close()
+        {
+            try {
+                scan.close(this);
+                if (detachedPageSource != null) {
+                    detachedPageSource.close();
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
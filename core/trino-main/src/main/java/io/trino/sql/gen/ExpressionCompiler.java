@@ -91,6 +91,17 @@ public class ExpressionCompiler
         };
     }
 
+    public Supplier<FilterEvaluator> compileFilterEvaluator(boolean columnarFilterEvaluationEnabled, RowExpression filter, Optional<String> classNameSuffix)
+    {
+        Optional<Supplier<FilterEvaluator>> columnarFilterEvaluatorSupplier = createColumnarFilterEvaluator(columnarFilterEvaluationEnabled, Optional.of(filter), columnarFilterCompiler);
+        if (columnarFilterEvaluatorSupplier.isPresent()) {
+            return columnarFilterEvaluatorSupplier.get();
+        }
+
+        Supplier<PageFilter> filterFunctionSupplier = pageFunctionCompiler.compileFilter(filter, classNameSuffix);
+        return () -> new PageFilterEvaluator(filterFunctionSupplier.get());
+    }
+
     @VisibleForTesting
     public Supplier<PageProcessor> compilePageProcessor(Optional<RowExpression> filter, List<? extends RowExpression> projections)
     {
@@ -67,6 +67,7 @@ import static io.trino.sql.gen.BytecodeUtils.invoke;
 import static io.trino.sql.gen.columnar.FilterEvaluator.isNotExpression;
 import static io.trino.sql.gen.columnar.IsNotNullColumnarFilter.createIsNotNullColumnarFilter;
 import static io.trino.sql.gen.columnar.IsNullColumnarFilter.createIsNullColumnarFilter;
+import static io.trino.sql.gen.columnar.StringMatchColumnarFilter.createStringMatchColumnarFilter;
 import static io.trino.sql.relational.SpecialForm.Form.BETWEEN;
 import static io.trino.sql.relational.SpecialForm.Form.IN;
 import static io.trino.sql.relational.SpecialForm.Form.IS_NULL;
@@ -134,6 +135,11 @@ public class ColumnarFilterCompiler
                     }
                     return Optional.empty();
                 }
+                // LIKE and starts_with with a constant pattern are matched on raw bytes instead of generic per-position invocation
+                Optional<Supplier<ColumnarFilter>> stringMatchFilter = createStringMatchColumnarFilter(callExpression);
+                if (stringMatchFilter.isPresent()) {
+                    return stringMatchFilter;
+                }
                 return Optional.of(new CallColumnarFilterGenerator(callExpression, functionManager).generateColumnarFilter());
             }
             else if (filter instanceof SpecialForm specialForm) {
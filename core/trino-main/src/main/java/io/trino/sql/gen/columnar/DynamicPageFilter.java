@@ -13,10 +13,12 @@
  */
 package io.trino.sql.gen.columnar;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
 import io.trino.Session;
 import io.trino.metadata.Metadata;
+import io.trino.operator.BlockedBloomFilter;
 import io.trino.operator.project.SelectedPositions;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ConnectorSession;
@@ -24,9 +26,11 @@ import io.trino.spi.connector.DynamicFilter;
 import io.trino.spi.connector.SourcePage;
 import io.trino.spi.predicate.TupleDomain;
 import io.trino.spi.type.TypeManager;
+import io.trino.spi.type.TypeOperators;
 import io.trino.sql.PlannerContext;
 import io.trino.sql.ir.Expression;
 import io.trino.sql.ir.optimizer.IrExpressionOptimizer;
+import io.trino.sql.planner.BloomFilterDynamicFilter;
 import io.trino.sql.planner.DomainTranslator;
 import io.trino.sql.planner.Symbol;
 import io.trino.sql.relational.RowExpression;
@@ -50,6 +54,7 @@ public final class DynamicPageFilter
 {
     private final Metadata metadata;
     private final TypeManager typeManager;
+    private final TypeOperators typeOperators;
     private final Session session;
     private final IrExpressionOptimizer irExpressionOptimizer;
     private final DomainTranslator domainTranslator;
@@ -76,6 +81,7 @@ public final class DynamicPageFilter
     {
         this.metadata = requireNonNull(plannerContext.getMetadata(), "metadata is null");
         this.typeManager = requireNonNull(plannerContext.getTypeManager(), "typeManager is null");
+        this.typeOperators = requireNonNull(plannerContext.getTypeOperators(), "typeOperators is null");
         this.session = requireNonNull(session, "session is null");
         this.irExpressionOptimizer = newOptimizer(plannerContext);
         this.domainTranslator = new DomainTranslator(plannerContext.getMetadata());
@@ -106,7 +112,7 @@ public final class DynamicPageFilter
         if (compiledDynamicFilter == null || isBlocked.isDone()) {
             isBlocked = dynamicFilter.isBlocked();
             boolean isAwaitable = dynamicFilter.isAwaitable();
-            compiledDynamicFilter = createDynamicFilterEvaluator(compiler, dynamicFilter.getCurrentPredicate());
+            compiledDynamicFilter = createDynamicFilterEvaluator(compiler, dynamicFilter.getCurrentPredicate(), getCurrentBloomFilters(dynamicFilter));
             if (!isAwaitable) {
                 isBlocked = null; // Dynamic filter will not narrow down anymore
             }
@@ -114,7 +120,10 @@ public final class DynamicPageFilter
         return compiledDynamicFilter;
     }
 
-    private Supplier<FilterEvaluator> createDynamicFilterEvaluator(ColumnarFilterCompiler compiler, TupleDomain<ColumnHandle> currentPredicate)
+    private Supplier<FilterEvaluator> createDynamicFilterEvaluator(
+            ColumnarFilterCompiler compiler,
+            TupleDomain<ColumnHandle> currentPredicate,
+            Map<ColumnHandle, BlockedBloomFilter> currentBloomFilters)
     {
         if (currentPredicate.isNone()) {
             return SelectNoneEvaluator::new;
@@ -134,11 +143,35 @@ public final class DynamicPageFilter
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 .collect(toImmutableList());
+        // Bloom filters are evaluated after the domains, as they are more expensive to evaluate
+        List<Supplier<FilterEvaluator>> bloomFilterEvaluators = currentBloomFilters.entrySet().stream()
+                .filter(entry -> columnHandles.containsKey(entry.getKey()))
+                .map(entry -> createBloomFilterEvaluator(columnHandles.get(entry.getKey()), entry.getValue()))
+                .collect(toImmutableList());
+        List<Supplier<FilterEvaluator>> filterEvaluators = ImmutableList.<Supplier<FilterEvaluator>>builder()
+                .addAll(subExpressionEvaluators)
+                .addAll(bloomFilterEvaluators)
+                .build();
         return () -> new DynamicFilterEvaluator(
-                subExpressionEvaluators.stream().map(Supplier::get).collect(toImmutableList()),
+                filterEvaluators.stream().map(Supplier::get).collect(toImmutableList()),
                 selectivityThreshold);
     }
 
+    private Supplier<FilterEvaluator> createBloomFilterEvaluator(Symbol symbol, BlockedBloomFilter bloomFilter)
+    {
+        int channel = requireNonNull(sourceLayout.get(symbol), () -> "Missing channel for " + symbol);
+        return () -> new ColumnarFilterEvaluator(new DictionaryAwareColumnarFilter(
+                new BloomFilterColumnarFilter(channel, symbol.type(), bloomFilter, typeOperators)));
+    }
+
+    private static Map<ColumnHandle, BlockedBloomFilter> getCurrentBloomFilters(DynamicFilter dynamicFilter)
+    {
+        if (dynamicFilter instanceof BloomFilterDynamicFilter bloomFilterDynamicFilter) {
+            return bloomFilterDynamicFilter.getCurrentBloomFilters();
+        }
+        return ImmutableMap.of();
+    }
+
     static final class DynamicFilterEvaluator
             implements FilterEvaluator
     {
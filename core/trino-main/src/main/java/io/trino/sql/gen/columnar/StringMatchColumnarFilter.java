@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.sql.gen.columnar;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+import io.trino.likematcher.LikeMatcher;
+import io.trino.likematcher.Matcher;
+import io.trino.operator.project.InputChannels;
+import io.trino.spi.block.VariableWidthBlock;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.SourcePage;
+import io.trino.spi.function.CatalogSchemaFunctionName;
+import io.trino.spi.type.VarcharType;
+import io.trino.sql.relational.CallExpression;
+import io.trino.sql.relational.ConstantExpression;
+import io.trino.sql.relational.InputReferenceExpression;
+import io.trino.sql.relational.RowExpression;
+import io.trino.type.LikePattern;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static io.trino.metadata.GlobalFunctionCatalog.builtinFunctionName;
+import static io.trino.type.LikeFunctions.LIKE_FUNCTION_NAME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates {@code LIKE} and {@code starts_with} with a constant pattern over a varchar column.
+ * Values are matched directly on the raw bytes of the {@link VariableWidthBlock}, without creating
+ * a {@link Slice} for every position. Null values never match.
+ */
+public final class StringMatchColumnarFilter
+        implements ColumnarFilter
+{
+    private static final CatalogSchemaFunctionName LIKE_NAME = builtinFunctionName(LIKE_FUNCTION_NAME);
+    private static final CatalogSchemaFunctionName STARTS_WITH_NAME = builtinFunctionName("starts_with");
+
+    private final InputChannels inputChannels;
+    private final Matcher matcher;
+
+    public static Optional<Supplier<ColumnarFilter>> createStringMatchColumnarFilter(CallExpression callExpression)
+    {
+        List<RowExpression> arguments = callExpression.arguments();
+        if (arguments.size() != 2
+                || !(arguments.get(0) instanceof InputReferenceExpression inputReference)
+                || !(inputReference.type() instanceof VarcharType)
+                || !(arguments.get(1) instanceof ConstantExpression constant)
+                || constant.value() == null) {
+            return Optional.empty();
+        }
+
+        CatalogSchemaFunctionName name = callExpression.resolvedFunction().name();
+        if (name.equals(LIKE_NAME)) {
+            LikeMatcher likeMatcher = ((LikePattern) constant.value()).getMatcher();
+            return Optional.of(() -> new StringMatchColumnarFilter(inputReference, likeMatcher::match));
+        }
+        if (name.equals(STARTS_WITH_NAME)) {
+            byte[] prefix = ((Slice) constant.value()).getBytes();
+            return Optional.of(() -> new StringMatchColumnarFilter(inputReference, (input, offset, length) ->
+                    length >= prefix.length && Arrays.equals(input, offset, offset + prefix.length, prefix, 0, prefix.length)));
+        }
+        return Optional.empty();
+    }
+
+    private StringMatchColumnarFilter(InputReferenceExpression inputReference, Matcher matcher)
+    {
+        this.inputChannels = new InputChannels(ImmutableList.of(inputReference.field()), ImmutableSet.of(inputReference.field()));
+        this.matcher = requireNonNull(matcher, "matcher is null");
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public int filterPositionsRange(ConnectorSession session, int[] outputPositions, int offset, int size, SourcePage page)
+    {
+        VariableWidthBlock variableWidthBlock = (VariableWidthBlock) page.getBlock(0);
+        Slice rawSlice = variableWidthBlock.getRawSlice();
+        byte[] bytes = rawSlice.byteArray();
+        int bytesOffset = rawSlice.byteArrayOffset();
+        boolean mayHaveNull = variableWidthBlock.mayHaveNull();
+        int outputPositionsCount = 0;
+        for (int position = offset; position < offset + size; position++) {
+            outputPositions[outputPositionsCount] = position;
+            boolean matches = (!mayHaveNull || !variableWidthBlock.isNull(position)) &&
+                    matcher.match(bytes, bytesOffset + variableWidthBlock.getRawSliceOffset(position), variableWidthBlock.getSliceLength(position));
+            outputPositionsCount += matches ? 1 : 0;
+        }
+        return outputPositionsCount;
+    }
+
+    @Override
+    public int filterPositionsList(ConnectorSession session, int[] outputPositions, int[] activePositions, int offset, int size, SourcePage page)
+    {
+        VariableWidthBlock variableWidthBlock = (VariableWidthBlock) page.getBlock(0);
+        Slice rawSlice = variableWidthBlock.getRawSlice();
+        byte[] bytes = rawSlice.byteArray();
+        int bytesOffset = rawSlice.byteArrayOffset();
+        boolean mayHaveNull = variableWidthBlock.mayHaveNull();
+        int outputPositionsCount = 0;
+        for (int index = offset; index < offset + size; index++) {
+            int position = activePositions[index];
+            outputPositions[outputPositionsCount] = position;
+            boolean matches = (!mayHaveNull || !variableWidthBlock.isNull(position)) &&
+                    matcher.match(bytes, bytesOffset + variableWidthBlock.getRawSliceOffset(position), variableWidthBlock.getSliceLength(position));
+            outputPositionsCount += matches ? 1 : 0;
+        }
+        return outputPositionsCount;
+    }
+}
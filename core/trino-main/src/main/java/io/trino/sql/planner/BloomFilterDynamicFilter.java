@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.sql.planner;
+
+import io.trino.operator.BlockedBloomFilter;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.DynamicFilter;
+
+import java.util.Map;
+
+/**
+ * Dynamic filter which, in addition to the predicate, can narrow down values of columns with Bloom filters.
+ * Bloom filters are evaluated by the engine only, and are not exposed to connectors.
+ */
+public interface BloomFilterDynamicFilter
+        extends DynamicFilter
+{
+    /**
+     * Returns Bloom filters of the values which can match, by column. A Bloom filter is built
+     * over hashes of values computed by the hash code operator of the column type.
+     */
+    Map<ColumnHandle, BlockedBloomFilter> getCurrentBloomFilters();
+}
@@ -13,13 +13,25 @@
  */
 package io.trino.sql.planner;
 
+import io.trino.operator.BlockedBloomFilter;
 import io.trino.spi.predicate.TupleDomain;
 import io.trino.sql.planner.plan.DynamicFilterId;
 
+import java.util.Map;
+
 public interface DynamicFilterSourceConsumer
 {
     void addPartition(TupleDomain<DynamicFilterId> tupleDomain);
 
+    /**
+     * Adds a partition together with Bloom filters of its values. A Bloom filter narrows down
+     * the domain of its dynamic filter, and is ignored by consumers which do not support them.
+     */
+    default void addPartition(TupleDomain<DynamicFilterId> tupleDomain, Map<DynamicFilterId, BlockedBloomFilter> bloomFilters)
+    {
+        addPartition(tupleDomain);
+    }
+
     void setPartitionCount(int partitionCount);
 
     boolean isDomainCollectionComplete();
@@ -17,6 +17,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
 import io.airlift.units.DataSize;
+import io.trino.operator.BlockedBloomFilter;
 import io.trino.spi.predicate.Domain;
 import io.trino.spi.predicate.TupleDomain;
 import io.trino.spi.type.Type;
@@ -26,6 +27,7 @@ import io.trino.sql.planner.plan.PlanNode;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -51,6 +53,8 @@ public class LocalDynamicFilterConsumer
     // Mapping from dynamic filter ID to its build channel type.
     private final Map<DynamicFilterId, Type> filterBuildTypes;
     private final List<Consumer<Map<DynamicFilterId, Domain>>> collectors;
+    // Bloom filters are delivered before the domains, so that they are available once dynamic filter domains are complete
+    private final List<Consumer<Map<DynamicFilterId, BlockedBloomFilter>>> bloomFilterCollectors;
     private final long domainSizeLimitInBytes;
 
     // Number of build-side partitions to be collected, must be provided by setPartitionCount
@@ -60,11 +64,26 @@ public class LocalDynamicFilterConsumer
     private int collectedPartitionCount;
     @GuardedBy("this")
     private volatile boolean collected;
+    @GuardedBy("this")
+    private final Map<DynamicFilterId, BlockedBloomFilter> bloomFilters = new HashMap<>();
+    // Dynamic filters for which at least one partition with values did not provide a Bloom filter
+    @GuardedBy("this")
+    private final Set<DynamicFilterId> incompleteBloomFilters = new HashSet<>();
 
     private final Queue<TupleDomain<DynamicFilterId>> summaryDomains = new ConcurrentLinkedQueue<>();
     private final AtomicLong summaryDomainsRetainedSizeInBytes = new AtomicLong();
 
     public LocalDynamicFilterConsumer(Map<DynamicFilterId, Integer> buildChannels, Map<DynamicFilterId, Type> filterBuildTypes, List<Consumer<Map<DynamicFilterId, Domain>>> collectors, DataSize domainSizeLimit)
+    {
+        this(buildChannels, filterBuildTypes, collectors, ImmutableList.of(), domainSizeLimit);
+    }
+
+    public LocalDynamicFilterConsumer(
+            Map<DynamicFilterId, Integer> buildChannels,
+            Map<DynamicFilterId, Type> filterBuildTypes,
+            List<Consumer<Map<DynamicFilterId, Domain>>> collectors,
+            List<Consumer<Map<DynamicFilterId, BlockedBloomFilter>>> bloomFilterCollectors,
+            DataSize domainSizeLimit)
     {
         this.buildChannels = requireNonNull(buildChannels, "buildChannels is null");
         this.filterBuildTypes = requireNonNull(filterBuildTypes, "filterBuildTypes is null");
@@ -72,15 +91,33 @@ public class LocalDynamicFilterConsumer
         requireNonNull(collectors, "collectors is null");
         checkArgument(!collectors.isEmpty(), "collectors is empty");
         this.collectors = ImmutableList.copyOf(collectors);
+        this.bloomFilterCollectors = ImmutableList.copyOf(requireNonNull(bloomFilterCollectors, "bloomFilterCollectors is null"));
         this.domainSizeLimitInBytes = domainSizeLimit.toBytes();
     }
 
+    /**
+     * Whether Bloom filters provided with partitions are used.
+     */
+    public boolean isBloomFilterCollectionEnabled()
+    {
+        return !bloomFilterCollectors.isEmpty();
+    }
+
     @Override
     public void addPartition(TupleDomain<DynamicFilterId> domain)
+    {
+        addPartition(domain, ImmutableMap.of());
+    }
+
+    @Override
+    public void addPartition(TupleDomain<DynamicFilterId> domain, Map<DynamicFilterId, BlockedBloomFilter> partitionBloomFilters)
     {
         if (collected) {
             return;
         }
+        if (!isBloomFilterCollectionEnabled()) {
+            partitionBloomFilters = ImmutableMap.of();
+        }
 
         long domainRetainedSizeInBytes = getRetainedSizeInBytes(domain);
         summaryDomainsRetainedSizeInBytes.addAndGet(domainRetainedSizeInBytes);
@@ -93,6 +130,7 @@ public class LocalDynamicFilterConsumer
         unionSummaryDomainsIfNecessary(false);
 
         TupleDomain<DynamicFilterId> result;
+        Map<DynamicFilterId, BlockedBloomFilter> resultBloomFilters;
         synchronized (this) {
             verify(expectedPartitionCount == null || collectedPartitionCount < expectedPartitionCount);
 
@@ -101,6 +139,9 @@ public class LocalDynamicFilterConsumer
                 return;
             }
             collectedPartitionCount++;
+            mergeBloomFilters(domain, partitionBloomFilters);
+            // partition without any constraint, unless its values are narrowed down by Bloom filters
+            boolean isAll = domain.isAll() && partitionBloomFilters.isEmpty();
 
             boolean allPartitionsCollected = expectedPartitionCount != null && collectedPartitionCount == expectedPartitionCount;
             if (allPartitionsCollected) {
@@ -122,13 +163,14 @@ public class LocalDynamicFilterConsumer
                 }
             }
 
-            if (!allPartitionsCollected && !sizeLimitExceeded && !domain.isAll()) {
+            if (!allPartitionsCollected && !sizeLimitExceeded && !isAll) {
                 return;
             }
 
-            if (sizeLimitExceeded || domain.isAll()) {
+            if (sizeLimitExceeded || isAll) {
                 clearSummaryDomains();
                 result = TupleDomain.all();
+                resultBloomFilters = ImmutableMap.of();
             }
             else {
                 verify(expectedPartitionCount != null && collectedPartitionCount == expectedPartitionCount);
@@ -137,17 +179,20 @@ public class LocalDynamicFilterConsumer
                 verify(result != null);
                 long currentSize = summaryDomainsRetainedSizeInBytes.addAndGet(-getRetainedSizeInBytes(result));
                 verify(currentSize == 0, "currentSize is expected to be zero: %s", currentSize);
+                resultBloomFilters = getCollectedBloomFilters(result);
             }
+            bloomFilters.clear();
             collected = true;
         }
 
-        collectors.forEach(collector -> collector.accept(convertTupleDomain(result)));
+        notifyCollectors(result, resultBloomFilters);
     }
 
     @Override
     public void setPartitionCount(int partitionCount)
     {
         TupleDomain<DynamicFilterId> result;
+        Map<DynamicFilterId, BlockedBloomFilter> resultBloomFilters;
         synchronized (this) {
             if (collected) {
                 return;
@@ -169,9 +214,50 @@ public class LocalDynamicFilterConsumer
                 long currentSize = summaryDomainsRetainedSizeInBytes.addAndGet(-getRetainedSizeInBytes(result));
                 verify(currentSize == 0, "currentSize is expected to be zero: %s", currentSize);
             }
+            resultBloomFilters = getCollectedBloomFilters(result);
+            bloomFilters.clear();
             collected = true;
         }
 
+        notifyCollectors(result, resultBloomFilters);
+    }
+
+    @GuardedBy("this")
+    private void mergeBloomFilters(TupleDomain<DynamicFilterId> domain, Map<DynamicFilterId, BlockedBloomFilter> partitionBloomFilters)
+    {
+        if (!isBloomFilterCollectionEnabled() || domain.isNone()) {
+            // partition without values does not need to be present in Bloom filters
+            return;
+        }
+        for (DynamicFilterId filterId : buildChannels.keySet()) {
+            BlockedBloomFilter bloomFilter = partitionBloomFilters.get(filterId);
+            if (bloomFilter == null || incompleteBloomFilters.contains(filterId)) {
+                // values of this partition are missing in the Bloom filter, so it cannot be used for filtering
+                incompleteBloomFilters.add(filterId);
+                bloomFilters.remove(filterId);
+                continue;
+            }
+            BlockedBloomFilter current = bloomFilters.putIfAbsent(filterId, bloomFilter);
+            if (current != null) {
+                current.merge(bloomFilter);
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private Map<DynamicFilterId, BlockedBloomFilter> getCollectedBloomFilters(TupleDomain<DynamicFilterId> result)
+    {
+        if (result.isNone()) {
+            return ImmutableMap.of();
+        }
+        return ImmutableMap.copyOf(bloomFilters);
+    }
+
+    private void notifyCollectors(TupleDomain<DynamicFilterId> result, Map<DynamicFilterId, BlockedBloomFilter> resultBloomFilters)
+    {
+        if (!resultBloomFilters.isEmpty()) {
+            bloomFilterCollectors.forEach(collector -> collector.accept(resultBloomFilters));
+        }
         collectors.forEach(collector -> collector.accept(convertTupleDomain(result)));
     }
 
@@ -250,6 +336,17 @@ public class LocalDynamicFilterConsumer
             Set<DynamicFilterId> collectedFilters,
             List<Consumer<Map<DynamicFilterId, Domain>>> collectors,
             DataSize domainSizeLimit)
+    {
+        return create(planNode, buildSourceTypes, collectedFilters, collectors, ImmutableList.of(), domainSizeLimit);
+    }
+
+    public static LocalDynamicFilterConsumer create(
+            JoinNode planNode,
+            List<Type> buildSourceTypes,
+            Set<DynamicFilterId> collectedFilters,
+            List<Consumer<Map<DynamicFilterId, Domain>>> collectors,
+            List<Consumer<Map<DynamicFilterId, BlockedBloomFilter>>> bloomFilterCollectors,
+            DataSize domainSizeLimit)
     {
         checkArgument(!planNode.getDynamicFilters().isEmpty(), "Join node dynamicFilters is empty.");
         checkArgument(!collectedFilters.isEmpty(), "Collected dynamic filters set is empty");
@@ -273,7 +370,7 @@ public class LocalDynamicFilterConsumer
                 .collect(toImmutableMap(
                         Map.Entry::getKey,
                         entry -> buildSourceTypes.get(entry.getValue())));
-        return new LocalDynamicFilterConsumer(buildChannels, filterBuildTypes, collectors, domainSizeLimit);
+        return new LocalDynamicFilterConsumer(buildChannels, filterBuildTypes, collectors, bloomFilterCollectors, domainSizeLimit);
     }
 
     public Map<DynamicFilterId, Integer> getBuildChannels()
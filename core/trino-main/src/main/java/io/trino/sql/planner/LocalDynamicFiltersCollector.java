@@ -13,6 +13,7 @@
  */
 package io.trino.sql.planner;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.Futures;
@@ -20,6 +21,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
 import io.trino.Session;
+import io.trino.operator.BlockedBloomFilter;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.DynamicFilter;
 import io.trino.spi.predicate.Domain;
@@ -28,11 +30,13 @@ import io.trino.spi.type.Type;
 import io.trino.sql.PlannerContext;
 import io.trino.sql.planner.plan.DynamicFilterId;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
@@ -43,6 +47,7 @@ import static io.airlift.concurrent.MoreFutures.addSuccessCallback;
 import static io.airlift.concurrent.MoreFutures.unmodifiableFuture;
 import static io.trino.sql.DynamicFilters.Descriptor;
 import static io.trino.sql.DynamicFilters.extractSourceSymbols;
+import static io.trino.sql.ir.Comparison.Operator.EQUAL;
 import static io.trino.sql.planner.DomainCoercer.applySaturatedCasts;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -52,6 +57,8 @@ public class LocalDynamicFiltersCollector
     private final Session session;
     // Each future blocks until its dynamic filter is collected.
     private final Map<DynamicFilterId, SettableFuture<Domain>> futures = new HashMap<>();
+    // Bloom filters are collected before the domains of their dynamic filters
+    private final Map<DynamicFilterId, BlockedBloomFilter> bloomFilters = new ConcurrentHashMap<>();
 
     public LocalDynamicFiltersCollector(Session session)
     {
@@ -86,6 +93,17 @@ public class LocalDynamicFiltersCollector
         });
     }
 
+    // Used during execution, before the domains of the same dynamic filters are collected.
+    public void collectDynamicFilterBloomFilters(Map<DynamicFilterId, BlockedBloomFilter> dynamicFilterBloomFilters)
+    {
+        dynamicFilterBloomFilters.forEach((key, value) -> {
+            // Skip dynamic filters that are not applied locally.
+            if (futures.containsKey(key)) {
+                bloomFilters.putIfAbsent(key, value);
+            }
+        });
+    }
+
     // Called during TableScan planning (no need to be synchronized as local planning is single threaded)
     public DynamicFilter createDynamicFilter(
             List<Descriptor> descriptors,
@@ -97,14 +115,14 @@ public class LocalDynamicFiltersCollector
         // Iterate over dynamic filters that are collected (correspond to one of the futures), and required for filtering (correspond to one of the descriptors).
         // It is possible that some dynamic filters are collected in a different stage - and will not available here.
         // It is also possible that not all local dynamic filters are needed for this specific table scan.
-        List<ListenableFuture<TupleDomain<ColumnHandle>>> predicateFutures = descriptorMap.keySet().stream()
+        List<ListenableFuture<CollectedPredicate>> predicateFutures = descriptorMap.keySet().stream()
                 .filter(futures.keySet()::contains)
                 .map(filterId -> {
                     // Probe-side columns that can be filtered with this dynamic filter resulting domain.
                     return Futures.transform(
                             requireNonNull(futures.get(filterId), () -> format("Missing dynamic filter %s", filterId)),
                             // Construct a probe-side predicate by duplicating the resulting domain over the corresponding columns.
-                            domain -> TupleDomain.withColumnDomains(
+                            domain -> new CollectedPredicate(TupleDomain.withColumnDomains(
                                     descriptorMap.get(filterId).stream()
                                             .collect(toImmutableMap(
                                                     descriptor -> {
@@ -125,7 +143,8 @@ public class LocalDynamicFiltersCollector
                                                                     targetType);
                                                         }
                                                         return updatedDomain;
-                                                    }))),
+                                                    })),
+                                    getBloomFilters(filterId, domain, descriptorMap.get(filterId), columnsMap)),
                             directExecutor());
                 })
                 .collect(toImmutableList());
@@ -139,9 +158,32 @@ public class LocalDynamicFiltersCollector
         return new TableSpecificDynamicFilter(columnsCovered, predicateFutures);
     }
 
+    private Map<ColumnHandle, BlockedBloomFilter> getBloomFilters(
+            DynamicFilterId filterId,
+            Domain domain,
+            Collection<Descriptor> descriptors,
+            Map<Symbol, ColumnHandle> columnsMap)
+    {
+        BlockedBloomFilter bloomFilter = bloomFilters.get(filterId);
+        if (bloomFilter == null || domain.isNone()) {
+            return ImmutableMap.of();
+        }
+        ImmutableMap.Builder<ColumnHandle, BlockedBloomFilter> columnBloomFilters = ImmutableMap.builder();
+        for (Descriptor descriptor : descriptors) {
+            Symbol probeSymbol = Symbol.from(descriptor.getInput());
+            // Bloom filter contains hashes of the build-side values, so it can only be used for equality with probe-side values of the same type
+            if (descriptor.getOperator() == EQUAL && !descriptor.isNullAllowed() && probeSymbol.type().equals(domain.getType())) {
+                columnBloomFilters.put(columnsMap.get(probeSymbol), bloomFilter);
+            }
+        }
+        return columnBloomFilters.buildKeepingLast();
+    }
+
+    private record CollectedPredicate(TupleDomain<ColumnHandle> predicate, Map<ColumnHandle, BlockedBloomFilter> bloomFilters) {}
+
     // Table-specific dynamic filter (collects all domains for a specific table scan)
     private static class TableSpecificDynamicFilter
-            implements DynamicFilter
+            implements BloomFilterDynamicFilter
     {
         private final Set<ColumnHandle> columnsCovered;
         @GuardedBy("this")
@@ -150,10 +192,13 @@ public class LocalDynamicFiltersCollector
         @GuardedBy("this")
         private TupleDomain<ColumnHandle> currentPredicate;
 
+        @GuardedBy("this")
+        private final Map<ColumnHandle, BlockedBloomFilter> currentBloomFilters = new HashMap<>();
+
         @GuardedBy("this")
         private int futuresLeft;
 
-        private TableSpecificDynamicFilter(Set<ColumnHandle> columnsCovered, List<ListenableFuture<TupleDomain<ColumnHandle>>> predicateFutures)
+        private TableSpecificDynamicFilter(Set<ColumnHandle> columnsCovered, List<ListenableFuture<CollectedPredicate>> predicateFutures)
         {
             this.columnsCovered = ImmutableSet.copyOf(requireNonNull(columnsCovered, "columnsCovered is null"));
             this.futuresLeft = predicateFutures.size();
@@ -162,13 +207,14 @@ public class LocalDynamicFiltersCollector
             predicateFutures.forEach(future -> addSuccessCallback(future, this::update, directExecutor()));
         }
 
-        private void update(TupleDomain<ColumnHandle> predicate)
+        private void update(CollectedPredicate predicate)
         {
             CompletableFuture<?> currentFuture;
             synchronized (this) {
                 futuresLeft -= 1;
                 verify(futuresLeft >= 0);
-                currentPredicate = currentPredicate.intersect(predicate);
+                currentPredicate = currentPredicate.intersect(predicate.predicate());
+                predicate.bloomFilters().forEach(currentBloomFilters::putIfAbsent);
                 currentFuture = isBlocked;
                 // create next blocking future (if needed)
                 isBlocked = isComplete() ? NOT_BLOCKED : new CompletableFuture<>();
@@ -206,5 +252,11 @@ public class LocalDynamicFiltersCollector
         {
             return currentPredicate;
         }
+
+        @Override
+        public synchronized Map<ColumnHandle, BlockedBloomFilter> getCurrentBloomFilters()
+        {
+            return ImmutableMap.copyOf(currentBloomFilters);
+        }
     }
 }
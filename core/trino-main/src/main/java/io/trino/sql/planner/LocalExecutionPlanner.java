@@ -50,6 +50,7 @@ import io.trino.metadata.TableExecuteHandle;
 import io.trino.metadata.TableHandle;
 import io.trino.operator.AggregationOperator.AggregationOperatorFactory;
 import io.trino.operator.AssignUniqueIdOperator;
+import io.trino.operator.BlockedBloomFilter;
 import io.trino.operator.DevNullOperator.DevNullOperatorFactory;
 import io.trino.operator.DirectExchangeClientSupplier;
 import io.trino.operator.DriverFactory;
@@ -62,6 +63,7 @@ import io.trino.operator.FilterAndProjectOperator;
 import io.trino.operator.FlatHashStrategyCompiler;
 import io.trino.operator.GroupIdOperator;
 import io.trino.operator.HashAggregationOperator.HashAggregationOperatorFactory;
+import io.trino.operator.HashAggregationOperator.InputFilter;
 import io.trino.operator.HashSemiJoinOperator;
 import io.trino.operator.JoinOperatorType;
 import io.trino.operator.LeafTableFunctionOperator.LeafTableFunctionOperatorFactory;
@@ -199,6 +201,7 @@ import io.trino.sql.gen.JoinFilterFunctionCompiler.JoinFilterFunctionFactory;
 import io.trino.sql.gen.OrderingCompiler;
 import io.trino.sql.gen.PageFunctionCompiler;
 import io.trino.sql.gen.columnar.DynamicPageFilter;
+import io.trino.sql.gen.columnar.FilterEvaluator;
 import io.trino.sql.ir.Call;
 import io.trino.sql.ir.Comparison;
 import io.trino.sql.ir.Constant;
@@ -321,11 +324,14 @@ import static io.trino.SystemSessionProperties.getTaskConcurrency;
 import static io.trino.SystemSessionProperties.getTaskMaxWriterCount;
 import static io.trino.SystemSessionProperties.getTaskMinWriterCount;
 import static io.trino.SystemSessionProperties.getWriterScalingMinDataProcessed;
+import static io.trino.SystemSessionProperties.isAdaptivePartialAggregationCardinalitySamplingEnabled;
 import static io.trino.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
 import static io.trino.SystemSessionProperties.isColumnarFilterEvaluationEnabled;
+import static io.trino.SystemSessionProperties.isEnableDynamicFilteringBloomFilters;
 import static io.trino.SystemSessionProperties.isEnableDynamicRowFiltering;
 import static io.trino.SystemSessionProperties.isEnableLargeDynamicFilters;
 import static io.trino.SystemSessionProperties.isForceSpillingOperator;
+import static io.trino.SystemSessionProperties.isFusedFilterAggregationEnabled;
 import static io.trino.SystemSessionProperties.isSpillEnabled;
 import static io.trino.cache.CacheUtils.uncheckedCacheGet;
 import static io.trino.cache.SafeCaches.buildNonEvictableCache;
@@ -368,6 +374,7 @@ import static io.trino.sql.ir.Booleans.TRUE;
 import static io.trino.sql.ir.Comparison.Operator.LESS_THAN;
 import static io.trino.sql.ir.Comparison.Operator.LESS_THAN_OR_EQUAL;
 import static io.trino.sql.ir.IrUtils.combineConjuncts;
+import static io.trino.sql.ir.IrUtils.extractConjuncts;
 import static io.trino.sql.planner.ExpressionExtractor.extractExpressions;
 import static io.trino.sql.planner.ExpressionNodeInliner.replaceExpression;
 import static io.trino.sql.planner.SortExpressionExtractor.extractSortExpression;
@@ -452,6 +459,7 @@ public class LocalExecutionPlanner
     private final DataSize largePartitionedMaxSizePerOperator;
     private final DataSize smallMaxSizePerOperator;
     private final DataSize smallPartitionedMaxSizePerOperator;
+    private final DataSize bloomFilterSizePerDriver;
     private final BlockTypeOperators blockTypeOperators;
     private final TypeOperators typeOperators;
     private final TableExecuteContextManager tableExecuteContextManager;
@@ -539,6 +547,7 @@ public class LocalExecutionPlanner
         this.smallMaxSizePerOperator = dynamicFilterConfig.getSmallMaxSizePerOperator();
         this.smallPartitionedMaxSizePerOperator = dynamicFilterConfig.getSmallPartitionedMaxSizePerOperator();
         this.largePartitionedMaxDistinctValuesPerDriver = dynamicFilterConfig.getLargePartitionedMaxDistinctValuesPerDriver();
+        this.bloomFilterSizePerDriver = dynamicFilterConfig.getBloomFilterSizePerDriver();
         this.blockTypeOperators = requireNonNull(blockTypeOperators, "blockTypeOperators is null");
         this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
         this.tableExecuteContextManager = requireNonNull(tableExecuteContextManager, "tableExecuteContextManager is null");
@@ -1084,6 +1093,8 @@ public class LocalExecutionPlanner
             boolean isPartial = node.isPartial();
             Optional<DataSize> maxPartialTopNMemorySize = isPartial ? Optional.of(SystemSessionProperties.getMaxPartialTopNMemory(session)).filter(
                     maxSize -> maxSize.compareTo(DataSize.ofBytes(0)) > 0) : Optional.empty();
+            // without partitioning there is a single group, which is already bounded by the ranking limit
+            boolean spillEnabled = isSpillEnabled(session) && !isPartial && !partitionChannels.isEmpty();
             OperatorFactory operatorFactory = new TopNRankingOperator.TopNRankingOperatorFactory(
                     context.getNextOperatorId(),
                     node.getId(),
@@ -1100,7 +1111,11 @@ public class LocalExecutionPlanner
                     maxPartialTopNMemorySize,
                     hashStrategyCompiler,
                     orderingCompiler.compilePageWithPositionComparator(sortTypes, sortChannels, sortOrder),
-                    blockTypeOperators);
+                    blockTypeOperators,
+                    spillEnabled,
+                    Optional.of(spillerFactory),
+                    getAggregationOperatorUnspillMemoryLimit(session),
+                    typeOperators);
 
             return new PhysicalOperation(operatorFactory, makeLayout(node), source);
         }
@@ -1933,7 +1948,10 @@ public class LocalExecutionPlanner
                     distinctChannels,
                     node.getLimit(),
                     hashChannel,
-                    hashStrategyCompiler);
+                    hashStrategyCompiler,
+                    isSpillEnabled(session),
+                    partitioningSpillerFactory,
+                    typeOperators);
             return new PhysicalOperation(operatorFactory, makeLayout(node), source);
         }
 
@@ -1990,6 +2008,13 @@ public class LocalExecutionPlanner
         @Override
         public PhysicalOperation visitAggregation(AggregationNode node, LocalExecutionPlanContext context)
         {
+            if (isFusedFilterAggregationEnabled(session)) {
+                Optional<FilterNode> fusableFilter = getFusableFilter(node);
+                if (fusableFilter.isPresent()) {
+                    return planFusedFilterAggregation(node, fusableFilter.get(), context);
+                }
+            }
+
             PhysicalOperation source = node.getSource().accept(this, context);
 
             if (node.getGroupingKeys().isEmpty()) {
@@ -1999,7 +2024,68 @@ public class LocalExecutionPlanner
             boolean spillEnabled = isSpillEnabled(session);
             DataSize unspillMemoryLimit = getAggregationOperatorUnspillMemoryLimit(session);
 
-            return planGroupByAggregation(node, source, spillEnabled, unspillMemoryLimit, context);
+            return planGroupByAggregation(node, source, spillEnabled, unspillMemoryLimit, Optional.empty(), context);
+        }
+
+        private Optional<FilterNode> getFusableFilter(AggregationNode node)
+        {
+            if (node.getGroupingKeys().isEmpty() || !node.getStep().isInputRaw() || node.isStreamable()) {
+                return Optional.empty();
+            }
+            // column pruning leaves identity projections between the aggregation and the filter, which only drop the columns read by the filter alone
+            PlanNode source = node.getSource();
+            while (source instanceof ProjectNode projectNode && projectNode.isIdentity()) {
+                source = projectNode.getSource();
+            }
+            if (source instanceof FilterNode filterNode &&
+                    filterNode.getSource() instanceof TableScanNode &&
+                    getStaticFilter(filterNode.getPredicate()).isPresent()) {
+                return Optional.of(filterNode);
+            }
+            return Optional.empty();
+        }
+
+        /**
+         * Plans the table scan without the static filter, and evaluates the filter in the hash aggregation
+         * instead. The aggregation then reads the selected positions of the scanned blocks in place, rather
+         * than the scan copying every column for the positions that pass the filter. The scan reports its
+         * stats under the table scan id, as it outputs the rows before the static filter, and the filter
+         * reports the positions it selects under the id of the aggregation source.
+         */
+        private PhysicalOperation planFusedFilterAggregation(AggregationNode node, FilterNode filterNode, LocalExecutionPlanContext context)
+        {
+            // dynamic filters are still evaluated by the table scan
+            Expression dynamicFilter = combineConjuncts(extractConjuncts(filterNode.getPredicate()).stream()
+                    .filter(DynamicFilters::isDynamicFilter)
+                    .collect(toImmutableList()));
+            Expression staticFilter = getStaticFilter(filterNode.getPredicate()).orElseThrow();
+            // the scan outputs the columns of the aggregation and of the static filter
+            Set<Symbol> requiredSymbols = ImmutableSet.<Symbol>builder()
+                    .addAll(node.getSource().getOutputSymbols())
+                    .addAll(SymbolsExtractor.extractUnique(staticFilter))
+                    .build();
+            List<Symbol> outputSymbols = filterNode.getOutputSymbols().stream()
+                    .filter(requiredSymbols::contains)
+                    .collect(toImmutableList());
+            PhysicalOperation source = visitScanFilterAndProject(
+                    context,
+                    filterNode.getSource().getId(),
+                    filterNode.getSource(),
+                    Optional.of(dynamicFilter),
+                    Assignments.identity(outputSymbols),
+                    outputSymbols);
+
+            Supplier<FilterEvaluator> filterEvaluator = expressionCompiler.compileFilterEvaluator(
+                    isColumnarFilterEvaluationEnabled(session),
+                    toRowExpression(staticFilter, source.getLayout()),
+                    Optional.of(context.getStageId() + "_" + node.getId()));
+            // EXPLAIN ANALYZE prints a pruning projection together with the filter below it, under the id of the projection
+            InputFilter inputFilter = new InputFilter(context.getNextOperatorId(), node.getSource().getId(), filterEvaluator);
+
+            boolean spillEnabled = isSpillEnabled(session);
+            DataSize unspillMemoryLimit = getAggregationOperatorUnspillMemoryLimit(session);
+
+            return planGroupByAggregation(node, source, spillEnabled, unspillMemoryLimit, Optional.of(inputFilter), context);
         }
 
         @Override
@@ -2009,7 +2095,16 @@ public class LocalExecutionPlanner
 
             List<Integer> channels = getChannelsForSymbols(node.getDistinctSymbols(), source.getLayout());
             Optional<Integer> hashChannel = node.getHashSymbol().map(channelGetter(source));
-            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(context.getNextOperatorId(), node.getId(), source.getTypes(), channels, hashChannel, hashStrategyCompiler);
+            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    source.getTypes(),
+                    channels,
+                    hashChannel,
+                    hashStrategyCompiler,
+                    isSpillEnabled(session),
+                    partitioningSpillerFactory,
+                    typeOperators);
             return new PhysicalOperation(operator, makeLayout(node), source);
         }
 
@@ -2735,10 +2830,16 @@ public class LocalExecutionPlanner
                     false,
                     new NestedLoopJoinPagesSupplier(),
                     buildSource.getTypes());
+            // probe side must join its input with each spilled block, so the number of probe operators must be known upfront
+            OptionalInt probeOperatorsCount = context.getDriverInstanceCount();
+            boolean spillEnabled = isSpillEnabled(session) && probeOperatorsCount.isPresent();
             NestedLoopBuildOperatorFactory nestedLoopBuildOperatorFactory = new NestedLoopBuildOperatorFactory(
                     buildContext.getNextOperatorId(),
                     node.getId(),
-                    nestedLoopJoinBridgeManager);
+                    nestedLoopJoinBridgeManager,
+                    spillEnabled,
+                    singleStreamSpillerFactory,
+                    spillEnabled ? probeOperatorsCount : OptionalInt.empty());
 
             int partitionCount = buildContext.getDriverInstanceCount().orElse(1);
             checkArgument(partitionCount == 1, "Expected local execution to not be parallel");
@@ -2772,7 +2873,14 @@ public class LocalExecutionPlanner
             List<Integer> probeChannels = getChannelsForSymbols(node.getLeftOutputSymbols(), probeSource.getLayout());
             List<Integer> buildChannels = getChannelsForSymbols(node.getRightOutputSymbols(), buildSource.getLayout());
 
-            OperatorFactory operatorFactory = new NestedLoopJoinOperatorFactory(context.getNextOperatorId(), node.getId(), nestedLoopJoinBridgeManager, probeChannels, buildChannels);
+            OperatorFactory operatorFactory = new NestedLoopJoinOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    nestedLoopJoinBridgeManager,
+                    probeChannels,
+                    buildChannels,
+                    probeSource.getTypes(),
+                    singleStreamSpillerFactory);
             return new PhysicalOperation(operatorFactory, outputMappings.buildOrThrow(), probeSource);
         }
 
@@ -3178,11 +3286,29 @@ public class LocalExecutionPlanner
                             multipleIf(getDynamicFilteringMaxDistinctValuesPerDriver(session, partitioned), taskConcurrency, isBuildSideSingle),
                             multipleIf(getDynamicFilteringMaxSizePerDriver(session, partitioned), taskConcurrency, isBuildSideSingle),
                             multipleIf(getDynamicFilteringRangeRowLimitPerDriver(session, partitioned), taskConcurrency, isBuildSideSingle),
+                            getBloomFilterSize(dynamicFilter),
                             typeOperators),
                     buildSource.getLayout(),
                     buildSource);
         }
 
+        // Bloom filters are only used by table scans in the same task
+        private List<Consumer<Map<DynamicFilterId, BlockedBloomFilter>>> getBloomFilterCollectors(TaskContext taskContext, boolean hasLocalDynamicFilters)
+        {
+            if (hasLocalDynamicFilters && isEnableDynamicFilteringBloomFilters(session)) {
+                return ImmutableList.of(taskContext::addDynamicFilterBloomFilters);
+            }
+            return ImmutableList.of();
+        }
+
+        private Optional<DataSize> getBloomFilterSize(LocalDynamicFilterConsumer dynamicFilter)
+        {
+            if (dynamicFilter.isBloomFilterCollectionEnabled()) {
+                return Optional.of(bloomFilterSizePerDriver);
+            }
+            return Optional.empty();
+        }
+
         private int multipleIf(int value, int multiplier, boolean shouldMultiply)
         {
             return shouldMultiply ? value * multiplier : value;
@@ -3222,6 +3348,7 @@ public class LocalExecutionPlanner
                     buildSource.getTypes(),
                     collectedDynamicFilters,
                     collectors.build(),
+                    getBloomFilterCollectors(taskContext, !localDynamicFilters.isEmpty()),
                     getDynamicFilteringMaxSizePerOperator(session, partitioned));
 
             return Optional.of(filterConsumer);
@@ -3292,6 +3419,7 @@ public class LocalExecutionPlanner
                         ImmutableMap.of(filterId, buildChannel),
                         ImmutableMap.of(filterId, buildSource.getTypes().get(buildChannel)),
                         collectors.build(),
+                        getBloomFilterCollectors(taskContext, isLocalDynamicFilter),
                         getDynamicFilteringMaxSizePerOperator(session, partitioned));
                 buildSource = new PhysicalOperation(
                         new DynamicFilterSourceOperatorFactory(
@@ -3302,6 +3430,7 @@ public class LocalExecutionPlanner
                                 getDynamicFilteringMaxDistinctValuesPerDriver(session, partitioned),
                                 getDynamicFilteringMaxSizePerDriver(session, partitioned),
                                 getDynamicFilteringRangeRowLimitPerDriver(session, partitioned),
+                                getBloomFilterSize(filterConsumer),
                                 typeOperators),
                         buildSource.getLayout(),
                         buildSource);
@@ -3310,6 +3439,10 @@ public class LocalExecutionPlanner
             Optional<Integer> buildHashChannel = node.getFilteringSourceHashSymbol().map(channelGetter(buildSource));
             Optional<Integer> probeHashChannel = node.getSourceHashSymbol().map(channelGetter(probeSource));
 
+            // probe side must be able to process each spilled partition, so the number of probe operators must be known upfront
+            OptionalInt probeOperatorsCount = context.getDriverInstanceCount();
+            boolean spillEnabled = isSpillEnabled(session) && probeOperatorsCount.isPresent();
+
             SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(
                     buildContext.getNextOperatorId(),
                     node.getId(),
@@ -3318,7 +3451,11 @@ public class LocalExecutionPlanner
                     buildHashChannel,
                     10_000,
                     joinCompiler,
-                    typeOperators);
+                    typeOperators,
+                    spillEnabled,
+                    partitioningSpillerFactory,
+                    getTaskConcurrency(session),
+                    spillEnabled ? probeOperatorsCount : OptionalInt.empty());
             SetSupplier setProvider = setBuilderOperatorFactory.getSetProvider();
             context.addDriverFactory(
                     false,
@@ -3331,7 +3468,15 @@ public class LocalExecutionPlanner
                     .put(node.getSemiJoinOutput(), probeSource.getLayout().size())
                     .buildOrThrow();
 
-            OperatorFactory operator = HashSemiJoinOperator.createOperatorFactory(context.getNextOperatorId(), node.getId(), setProvider, probeSource.getTypes(), probeChannel, probeHashChannel);
+            OperatorFactory operator = HashSemiJoinOperator.createOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    setProvider,
+                    probeSource.getTypes(),
+                    probeChannel,
+                    probeHashChannel,
+                    partitioningSpillerFactory,
+                    typeOperators);
             return new PhysicalOperation(operator, outputMappings, probeSource);
         }
 
@@ -3413,6 +3558,7 @@ public class LocalExecutionPlanner
                         // is not possible, as it doesn't accept raw input data.
                         // Disabling partial pre-aggregation memory limit effectively
                         // turns PARTIAL aggregation into INTERMEDIATE.
+                        Optional.empty(),
                         Optional.empty());
             }).orElseGet(() -> new DevNullOperatorFactory(context.getNextOperatorId(), node.getId()));
 
@@ -3486,6 +3632,7 @@ public class LocalExecutionPlanner
                         outputMapping,
                         200,
                         // final aggregation ignores partial pre-aggregation memory limit
+                        Optional.empty(),
                         Optional.empty());
             }).orElseGet(() -> new DevNullOperatorFactory(context.getNextOperatorId(), node.getId()));
 
@@ -4050,6 +4197,7 @@ public class LocalExecutionPlanner
                 PhysicalOperation source,
                 boolean spillEnabled,
                 DataSize unspillMemoryLimit,
+                Optional<InputFilter> inputFilter,
                 LocalExecutionPlanContext context)
         {
             ImmutableMap.Builder<Symbol, Integer> mappings = ImmutableMap.builder();
@@ -4070,7 +4218,8 @@ public class LocalExecutionPlanner
                     0,
                     mappings,
                     10_000,
-                    Optional.of(maxPartialAggregationMemorySize));
+                    Optional.of(maxPartialAggregationMemorySize),
+                    inputFilter);
             return new PhysicalOperation(operatorFactory, mappings.buildOrThrow(), source);
         }
 
@@ -4091,7 +4240,8 @@ public class LocalExecutionPlanner
                 int startOutputChannel,
                 ImmutableMap.Builder<Symbol, Integer> outputMappings,
                 int expectedGroups,
-                Optional<DataSize> maxPartialAggregationMemorySize)
+                Optional<DataSize> maxPartialAggregationMemorySize,
+                Optional<InputFilter> inputFilter)
         {
             List<Symbol> aggregationOutputSymbols = new ArrayList<>();
             List<AggregatorFactory> aggregatorFactories = new ArrayList<>();
@@ -4131,6 +4281,7 @@ public class LocalExecutionPlanner
                     .collect(toImmutableList());
 
             if (isStreamable) {
+                checkArgument(inputFilter.isEmpty(), "inputFilter is not supported for streaming aggregation");
                 return StreamingAggregationOperator.createOperatorFactory(
                         context.getNextOperatorId(),
                         planNodeId,
@@ -4159,7 +4310,8 @@ public class LocalExecutionPlanner
                     spillerFactory,
                     hashStrategyCompiler,
                     typeOperators,
-                    createPartialAggregationController(maxPartialAggregationMemorySize, step, session));
+                    createPartialAggregationController(maxPartialAggregationMemorySize, step, session),
+                    inputFilter);
         }
     }
 
@@ -4178,7 +4330,8 @@ public class LocalExecutionPlanner
         return maxPartialAggregationMemorySize.isPresent() && step.isOutputPartial() && isAdaptivePartialAggregationEnabled(session) ?
                 Optional.of(new PartialAggregationController(
                         maxPartialAggregationMemorySize.get(),
-                        getAdaptivePartialAggregationUniqueRowsRatioThreshold(session))) :
+                        getAdaptivePartialAggregationUniqueRowsRatioThreshold(session),
+                        isAdaptivePartialAggregationCardinalitySamplingEnabled(session))) :
                 Optional.empty();
     }
 
@@ -29,6 +29,7 @@ import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 @DefunctConfig({
         "adaptive-partial-aggregation.min-rows",
@@ -49,6 +50,7 @@ public class OptimizerConfig
 
     private JoinReorderingStrategy joinReorderingStrategy = JoinReorderingStrategy.AUTOMATIC;
     private int maxReorderedJoins = 8;
+    private int greedyJoinReorderingThreshold = 20;
     private int maxPrefetchedInformationSchemaPrefixes = 100;
 
     private boolean enableStatsCalculator = true;
@@ -56,6 +58,7 @@ public class OptimizerConfig
     private boolean collectPlanStatisticsForAllQueries;
     private boolean ignoreStatsCalculatorFailures = true;
     private boolean defaultFilterFactorEnabled;
+    private boolean useHistoryBasedStatistics = true;
     private double filterConjunctionIndependenceFactor = 0.75;
     private boolean nonEstimatablePredicateApproximationEnabled = true;
 
@@ -66,6 +69,8 @@ public class OptimizerConfig
     private boolean usePreferredWritePartitioning = true;
 
     private Duration iterativeOptimizerTimeout = new Duration(3, MINUTES); // by default let optimizer wait a long time in case it retrieves some data from ConnectorMetadata
+    private Duration iterativeOptimizerRuleTimeBudget = new Duration(10, SECONDS);
+    private Duration iterativeOptimizerPhaseTimeBudget = new Duration(30, SECONDS);
 
     private boolean optimizeMetadataQueries;
     private boolean pushTableWriteThroughUnion = true;
@@ -96,6 +101,7 @@ public class OptimizerConfig
     // adaptive partial aggregation
     private boolean adaptivePartialAggregationEnabled = true;
     private double adaptivePartialAggregationUniqueRowsRatioThreshold = 0.8;
+    private boolean adaptivePartialAggregationCardinalitySamplingEnabled;
     private long joinPartitionedBuildMinRowCount = 1_000_000L;
     private DataSize minInputSizePerTask = DataSize.of(5, GIGABYTE);
     private long minInputRowsPerTask = 10_000_000L;
@@ -246,6 +252,20 @@ public class OptimizerConfig
         return this;
     }
 
+    @Min(1)
+    public int getGreedyJoinReorderingThreshold()
+    {
+        return greedyJoinReorderingThreshold;
+    }
+
+    @Config("optimizer.greedy-join-reordering-threshold")
+    @ConfigDescription("The number of joins above which cost-based join reordering picks the join order greedily instead of exhaustively")
+    public OptimizerConfig setGreedyJoinReorderingThreshold(int greedyJoinReorderingThreshold)
+    {
+        this.greedyJoinReorderingThreshold = greedyJoinReorderingThreshold;
+        return this;
+    }
+
     @Min(1)
     public int getMaxPrefetchedInformationSchemaPrefixes()
     {
@@ -324,6 +344,19 @@ public class OptimizerConfig
         return this;
     }
 
+    public boolean isUseHistoryBasedStatistics()
+    {
+        return useHistoryBasedStatistics;
+    }
+
+    @Config("optimizer.use-history-based-statistics")
+    @ConfigDescription("Prefer statistics observed in previous executions of the same table scans and filters over estimates")
+    public OptimizerConfig setUseHistoryBasedStatistics(boolean useHistoryBasedStatistics)
+    {
+        this.useHistoryBasedStatistics = useHistoryBasedStatistics;
+        return this;
+    }
+
     @Min(0)
     @Max(1)
     public double getFilterConjunctionIndependenceFactor()
@@ -415,6 +448,34 @@ public class OptimizerConfig
         return this;
     }
 
+    @NotNull
+    public Duration getIterativeOptimizerRuleTimeBudget()
+    {
+        return iterativeOptimizerRuleTimeBudget;
+    }
+
+    @Config("iterative-optimizer-rule-time-budget")
+    @ConfigDescription("Time after which an exploration rule is no longer applied in an optimizer phase")
+    public OptimizerConfig setIterativeOptimizerRuleTimeBudget(Duration iterativeOptimizerRuleTimeBudget)
+    {
+        this.iterativeOptimizerRuleTimeBudget = iterativeOptimizerRuleTimeBudget;
+        return this;
+    }
+
+    @NotNull
+    public Duration getIterativeOptimizerPhaseTimeBudget()
+    {
+        return iterativeOptimizerPhaseTimeBudget;
+    }
+
+    @Config("iterative-optimizer-phase-time-budget")
+    @ConfigDescription("Time after which exploration rules are no longer applied in an optimizer phase")
+    public OptimizerConfig setIterativeOptimizerPhaseTimeBudget(Duration iterativeOptimizerPhaseTimeBudget)
+    {
+        this.iterativeOptimizerPhaseTimeBudget = iterativeOptimizerPhaseTimeBudget;
+        return this;
+    }
+
     public boolean isEnableIntermediateAggregations()
     {
         return enableIntermediateAggregations;
@@ -729,6 +790,19 @@ public class OptimizerConfig
         return this;
     }
 
+    public boolean isAdaptivePartialAggregationCardinalitySamplingEnabled()
+    {
+        return adaptivePartialAggregationCardinalitySamplingEnabled;
+    }
+
+    @Config("adaptive-partial-aggregation.cardinality-sampling-enabled")
+    @ConfigDescription("Sample group cardinality of input rows to re-evaluate whether partial aggregation should be turned off or back on")
+    public OptimizerConfig setAdaptivePartialAggregationCardinalitySamplingEnabled(boolean adaptivePartialAggregationCardinalitySamplingEnabled)
+    {
+        this.adaptivePartialAggregationCardinalitySamplingEnabled = adaptivePartialAggregationCardinalitySamplingEnabled;
+        return this;
+    }
+
     @Min(0)
     public long getJoinPartitionedBuildMinRowCount()
     {
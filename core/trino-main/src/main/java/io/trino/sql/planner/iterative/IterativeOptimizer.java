@@ -45,9 +45,11 @@ import io.trino.sql.planner.plan.PlanNode;
 import io.trino.sql.planner.plan.PlanNodeId;
 import io.trino.sql.planner.planprinter.PlanPrinter;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -58,6 +60,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static io.trino.execution.querystats.PlanOptimizersStatsCollector.createPlanOptimizersStatsCollector;
 import static io.trino.matching.Capture.newCapture;
 import static io.trino.spi.StandardErrorCode.OPTIMIZER_TIMEOUT;
+import static java.lang.Math.min;
 import static java.lang.String.format;
 import static java.lang.System.nanoTime;
 import static java.util.Objects.requireNonNull;
@@ -122,6 +125,8 @@ public class IterativeOptimizer
                 context.symbolAllocator(),
                 nanoTime(),
                 timeout.toMillis(),
+                SystemSessionProperties.getOptimizerRuleTimeBudget(context.session()).roundTo(NANOSECONDS),
+                SystemSessionProperties.getOptimizerPhaseTimeBudget(context.session()).roundTo(NANOSECONDS),
                 context.session(),
                 context.warningCollector(),
                 context.tableStatsProvider(),
@@ -176,7 +181,7 @@ public class IterativeOptimizer
                 boolean invoked = false;
                 boolean applied = false;
 
-                if (rule.isEnabled(context.session)) {
+                if (rule.isEnabled(context.session) && context.isWithinTimeBudget(rule)) {
                     invoked = true;
                     Rule.Result result = transform(node, rule, context);
                     timeEnd = nanoTime();
@@ -213,7 +218,7 @@ public class IterativeOptimizer
             Rule.Result result;
             try {
                 long start = nanoTime();
-                result = rule.apply(match.capture(nodeCapture), match.captures(), ruleContext(context));
+                result = rule.apply(match.capture(nodeCapture), match.captures(), ruleContext(context, rule));
 
                 if (LOG.isDebugEnabled() && !result.isEmpty()) {
                     LOG.debug(
@@ -269,8 +274,10 @@ public class IterativeOptimizer
         return progress;
     }
 
-    private Rule.Context ruleContext(Context context)
+    private Rule.Context ruleContext(Context context, Rule<?> rule)
     {
+        long ruleStartInNanos = nanoTime();
+        long timeBudgetInNanos = context.getRemainingTimeBudget(rule);
         StatsProvider statsProvider = new CachingStatsProvider(statsCalculator, Optional.of(context.memo), context.lookup, context.session, context.tableStatsProvider, context.runtimeStatsProvider);
         CostProvider costProvider = new CachingCostProvider(costCalculator, statsProvider, Optional.of(context.memo), context.session);
 
@@ -318,6 +325,12 @@ public class IterativeOptimizer
                 context.checkTimeoutNotExhausted();
             }
 
+            @Override
+            public boolean isTimeBudgetExhausted()
+            {
+                return nanoTime() - ruleStartInNanos >= timeBudgetInNanos;
+            }
+
             @Override
             public WarningCollector getWarningCollector()
             {
@@ -334,12 +347,17 @@ public class IterativeOptimizer
         private final SymbolAllocator symbolAllocator;
         private final long startTimeInNanos;
         private final long timeoutInMilliseconds;
+        private final long ruleTimeBudgetInNanos;
+        private final long phaseTimeBudgetInNanos;
         private final Session session;
         private final WarningCollector warningCollector;
         private final TableStatsProvider tableStatsProvider;
         private final RuntimeInfoProvider runtimeStatsProvider;
 
         private final PlanOptimizersStatsCollector iterativeOptimizerStatsCollector;
+        // time spent in each exploration rule, to skip the rules that exhausted their time budget
+        private final Map<Rule<?>, Long> explorationRuleNanos = new HashMap<>();
+        private final Set<Rule<?>> skippedRules = new HashSet<>();
 
         public Context(
                 Memo memo,
@@ -348,6 +366,8 @@ public class IterativeOptimizer
                 SymbolAllocator symbolAllocator,
                 long startTimeInNanos,
                 long timeoutInMilliseconds,
+                long ruleTimeBudgetInNanos,
+                long phaseTimeBudgetInNanos,
                 Session session,
                 WarningCollector warningCollector,
                 TableStatsProvider tableStatsProvider,
@@ -361,6 +381,8 @@ public class IterativeOptimizer
             this.symbolAllocator = symbolAllocator;
             this.startTimeInNanos = startTimeInNanos;
             this.timeoutInMilliseconds = timeoutInMilliseconds;
+            this.ruleTimeBudgetInNanos = ruleTimeBudgetInNanos;
+            this.phaseTimeBudgetInNanos = phaseTimeBudgetInNanos;
             this.session = session;
             this.warningCollector = warningCollector;
             this.iterativeOptimizerStatsCollector = createPlanOptimizersStatsCollector();
@@ -390,6 +412,27 @@ public class IterativeOptimizer
             }
         }
 
+        public boolean isWithinTimeBudget(Rule<?> rule)
+        {
+            if (getRemainingTimeBudget(rule) > 0) {
+                return true;
+            }
+            if (skippedRules.add(rule)) {
+                LOG.debug("Skipping rule %s, which exhausted its time budget", rule.getClass().getName());
+            }
+            return false;
+        }
+
+        public long getRemainingTimeBudget(Rule<?> rule)
+        {
+            if (!rule.isExploration()) {
+                return Long.MAX_VALUE;
+            }
+            return min(
+                    phaseTimeBudgetInNanos - (nanoTime() - startTimeInNanos),
+                    ruleTimeBudgetInNanos - explorationRuleNanos.getOrDefault(rule, 0L));
+        }
+
         public PlanOptimizersStatsCollector getIterativeOptimizerStatsCollector()
         {
             return iterativeOptimizerStatsCollector;
@@ -397,6 +440,9 @@ public class IterativeOptimizer
 
         void recordRuleInvocation(Rule<?> rule, boolean invoked, boolean applied, long elapsedNanos)
         {
+            if (invoked && rule.isExploration()) {
+                explorationRuleNanos.merge(rule, elapsedNanos, Long::sum);
+            }
             iterativeOptimizerStatsCollector.recordRule(rule, invoked, applied, elapsedNanos);
         }
     }
@@ -39,6 +39,16 @@ public interface Rule<T>
         return true;
     }
 
+    /**
+     * Returns whether the rule only explores alternative plans, such as different join orders.
+     * Such a rule can be skipped without affecting the correctness of the plan, so it is no longer
+     * applied once it exhausted its time budget, or the time budget of the optimizer phase.
+     */
+    default boolean isExploration()
+    {
+        return false;
+    }
+
     Result apply(T node, Captures captures, Context context);
 
     interface Context
@@ -57,6 +67,12 @@ public interface Rule<T>
 
         void checkTimeoutNotExhausted();
 
+        /**
+         * Returns whether the rule exhausted its time budget, so the rule should give up exploring
+         * alternative plans. It is never exhausted for rules which are not {@link Rule#isExploration()}.
+         */
+        boolean isTimeBudgetExhausted();
+
         WarningCollector getWarningCollector();
     }
 
@@ -20,12 +20,20 @@ import com.google.common.reflect.TypeToken;
 import io.trino.matching.Pattern;
 import io.trino.matching.pattern.TypeOfPattern;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
 public class RuleIndex
 {
     private final ListMultimap<Class<?>, Rule<?>> rulesByRootType;
+    // candidates are resolved once per node class, as walking the supertypes is expensive
+    // compared to the number of times the optimizer looks up the rules for a node
+    private final Map<Class<?>, List<Rule<?>>> candidatesByType = new ConcurrentHashMap<>();
 
     private RuleIndex(ListMultimap<Class<?>, Rule<?>> rulesByRootType)
     {
@@ -34,8 +42,14 @@ public class RuleIndex
 
     public Stream<Rule<?>> getCandidates(Object object)
     {
-        return supertypes(object.getClass())
-                .flatMap(clazz -> rulesByRootType.get(clazz).stream());
+        return candidatesByType.computeIfAbsent(object.getClass(), this::resolveCandidates).stream();
+    }
+
+    private List<Rule<?>> resolveCandidates(Class<?> type)
+    {
+        return supertypes(type)
+                .flatMap(clazz -> rulesByRootType.get(clazz).stream())
+                .collect(toImmutableList());
     }
 
     private static Stream<Class<?>> supertypes(Class<?> type)
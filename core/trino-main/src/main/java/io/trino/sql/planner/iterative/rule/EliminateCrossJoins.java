@@ -69,6 +69,12 @@ public class EliminateCrossJoins
         return joinReorderingStrategy == ELIMINATE_CROSS_JOINS || joinReorderingStrategy == AUTOMATIC;
     }
 
+    @Override
+    public boolean isExploration()
+    {
+        return true;
+    }
+
     @Override
     public Result apply(JoinNode node, Captures captures, Context context)
     {
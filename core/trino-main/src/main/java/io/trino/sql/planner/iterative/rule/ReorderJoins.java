@@ -58,7 +58,6 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
-import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -66,7 +65,7 @@ import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.getOnlyElement;
-import static com.google.common.collect.Sets.powerSet;
+import static io.trino.SystemSessionProperties.getGreedyJoinReorderingThreshold;
 import static io.trino.SystemSessionProperties.getJoinDistributionType;
 import static io.trino.SystemSessionProperties.getJoinReorderingStrategy;
 import static io.trino.SystemSessionProperties.getMaxReorderedJoins;
@@ -128,6 +127,12 @@ public class ReorderJoins
         return getJoinReorderingStrategy(session) == AUTOMATIC;
     }
 
+    @Override
+    public boolean isExploration()
+    {
+        return true;
+    }
+
     @Override
     public Result apply(JoinNode joinNode, Captures captures, Context context)
     {
@@ -166,6 +171,12 @@ public class ReorderJoins
     @VisibleForTesting
     static class JoinEnumerator
     {
+        // sources are tracked as bits of a long in the join graph
+        private static final int MAX_EXHAUSTIVELY_REORDERED_SOURCES = Long.SIZE - 1;
+        // bound the planning time of join graphs with many join orders, such as stars or cliques, which are reordered greedily instead
+        private static final int MAX_ENUMERATED_PARTITIONINGS = 10_000;
+        private static final int MAX_ENUMERATED_SOURCE_SETS = 1_000_000;
+
         private final Session session;
         private final StatsProvider statsProvider;
         private final CostProvider costProvider;
@@ -178,6 +189,14 @@ public class ReorderJoins
 
         private final Map<Set<PlanNode>, JoinEnumerationResult> memo = new HashMap<>();
         private final List<Expression> residuals;
+        private final Set<Symbol> filterSymbols;
+
+        // join graph of the sources being reordered, with the sources identified by their bit in the masks
+        private final Map<PlanNode, Long> sourceMasks = new HashMap<>();
+        private long[] adjacency = new long[0];
+        private int enumeratedPartitionings;
+        private int enumeratedSourceSets;
+        private boolean enumerationLimitExceeded;
 
         @VisibleForTesting
         JoinEnumerator(CostComparator costComparator, Expression filter, Context context, PlannerContext plannerContext)
@@ -203,16 +222,34 @@ public class ReorderJoins
 
             this.residuals = residuals.build();
             this.allFilterInference = new EqualityInference(inferenceCandidates);
+            this.filterSymbols = extractUnique(filter);
+        }
+
+        @VisibleForTesting
+        Set<Set<PlanNode>> getMemoizedSources()
+        {
+            return ImmutableSet.copyOf(memo.keySet());
         }
 
         public JoinEnumerationResult choose(LinkedHashSet<PlanNode> sources, List<Symbol> outputSymbols)
         {
-            JoinEnumerationResult result = chooseJoinOrder(
-                    sources,
-                    ImmutableSet.<Symbol>builder()
-                            .addAll(outputSymbols)
-                            .addAll(residuals.stream().flatMap(e -> extractAll(e).stream()).toList())
-                            .build());
+            Set<Symbol> requiredOutputs = ImmutableSet.<Symbol>builder()
+                    .addAll(outputSymbols)
+                    .addAll(residuals.stream().flatMap(e -> extractAll(e).stream()).toList())
+                    .build();
+            // the number of joins is the number of sources - 1
+            JoinEnumerationResult result;
+            if (sources.size() - 1 > getGreedyJoinReorderingThreshold(session) || sources.size() > MAX_EXHAUSTIVELY_REORDERED_SOURCES) {
+                result = chooseJoinOrderGreedily(sources, requiredOutputs);
+            }
+            else {
+                buildJoinGraph(sources);
+                result = chooseJoinOrder(sources, requiredOutputs);
+                if (enumerationLimitExceeded) {
+                    memo.clear();
+                    result = chooseJoinOrderGreedily(sources, requiredOutputs);
+                }
+            }
 
             if (result.getPlanNode().isPresent()) {
                 PlanNode plan = result.getPlanNode().get();
@@ -237,15 +274,23 @@ public class ReorderJoins
         private JoinEnumerationResult chooseJoinOrder(LinkedHashSet<PlanNode> sources, Set<Symbol> requiredOutputs)
         {
             context.checkTimeoutNotExhausted();
+            if (context.isTimeBudgetExhausted()) {
+                // give up, so that the join order is left unchanged
+                return UNKNOWN_COST_RESULT;
+            }
 
             Set<PlanNode> multiJoinKey = ImmutableSet.copyOf(sources);
             JoinEnumerationResult bestResult = memo.get(multiJoinKey);
             if (bestResult == null) {
                 checkState(sources.size() > 1, "sources size is less than or equal to one");
                 ImmutableList.Builder<JoinEnumerationResult> resultBuilder = ImmutableList.builder();
-                Set<Set<Integer>> partitions = generatePartitions(sources.size());
-                for (Set<Integer> partition : partitions) {
-                    JoinEnumerationResult result = createJoinAccordingToPartitioning(sources, requiredOutputs, partition);
+                List<Long> partitionings = getConnectedPartitionings(getMask(sources));
+                if (enumerationLimitExceeded) {
+                    // give up, so that the join order is chosen greedily
+                    return UNKNOWN_COST_RESULT;
+                }
+                for (long leftMask : partitionings) {
+                    JoinEnumerationResult result = createJoin(getSources(sources, leftMask), getSources(sources, ~leftMask), requiredOutputs);
                     if (result.equals(UNKNOWN_COST_RESULT)) {
                         memo.put(multiJoinKey, result);
                         return result;
@@ -270,25 +315,151 @@ public class ReorderJoins
         }
 
         /**
-         * This method generates all the ways of dividing totalNodes into two sets
-         * each containing at least one node. It will generate one set for each
-         * possible partitioning. The other partition is implied in the absent values.
-         * In order not to generate the inverse of any set, we always include the 0th
-         * node in our sets.
-         *
-         * @return A set of sets each of which defines a partitioning of totalNodes
+         * Picks the join order bottom-up, one join at a time: in every step the two already joined groups of sources
+         * that can be joined at the lowest cost are joined. Unlike {@link #chooseJoinOrder}, planning time
+         * is polynomial in the number of sources, at the expense of not considering all the possible join orders.
          */
-        @VisibleForTesting
-        static Set<Set<Integer>> generatePartitions(int totalNodes)
+        private JoinEnumerationResult chooseJoinOrderGreedily(LinkedHashSet<PlanNode> sources, Set<Symbol> requiredOutputs)
         {
-            checkArgument(totalNodes > 1, "totalNodes must be greater than 1");
-            Set<Integer> numbers = IntStream.range(0, totalNodes)
-                    .boxed()
-                    .collect(toImmutableSet());
-            return powerSet(numbers).stream()
-                    .filter(subSet -> subSet.contains(0))
-                    .filter(subSet -> subSet.size() < numbers.size())
-                    .collect(toImmutableSet());
+            // symbols used in join conditions must be kept until the join which uses them is formed
+            Set<Symbol> requiredSymbols = ImmutableSet.<Symbol>builder()
+                    .addAll(requiredOutputs)
+                    .addAll(filterSymbols)
+                    .build();
+
+            List<LinkedHashSet<PlanNode>> groups = sources.stream()
+                    .map(source -> new LinkedHashSet<>(ImmutableList.of(source)))
+                    .collect(toCollection(ArrayList::new));
+            while (groups.size() > 1) {
+                context.checkTimeoutNotExhausted();
+                if (context.isTimeBudgetExhausted()) {
+                    return UNKNOWN_COST_RESULT;
+                }
+
+                JoinEnumerationResult bestResult = INFINITE_COST_RESULT;
+                int bestLeft = -1;
+                int bestRight = -1;
+                for (int left = 0; left < groups.size(); left++) {
+                    for (int right = left + 1; right < groups.size(); right++) {
+                        JoinEnumerationResult result = createJoin(groups.get(left), groups.get(right), groups.size() == 2 ? requiredOutputs : requiredSymbols);
+                        if (result.equals(UNKNOWN_COST_RESULT)) {
+                            return UNKNOWN_COST_RESULT;
+                        }
+                        if (!result.equals(INFINITE_COST_RESULT) && (bestResult.equals(INFINITE_COST_RESULT) || resultComparator.compare(result, bestResult) < 0)) {
+                            bestResult = result;
+                            bestLeft = left;
+                            bestRight = right;
+                        }
+                    }
+                }
+                if (bestResult.equals(INFINITE_COST_RESULT)) {
+                    // the remaining groups can only be joined with cross joins
+                    return INFINITE_COST_RESULT;
+                }
+
+                LinkedHashSet<PlanNode> joined = new LinkedHashSet<>(groups.get(bestLeft));
+                joined.addAll(groups.get(bestRight));
+                // later joins get the plan of this group from the memo
+                memo.put(ImmutableSet.copyOf(joined), bestResult);
+                groups.set(bestLeft, joined);
+                groups.remove(bestRight);
+            }
+
+            JoinEnumerationResult result = memo.get(ImmutableSet.copyOf(getOnlyElement(groups)));
+            result.planNode.ifPresent(planNode -> log.debug("Greedily chosen join was: %s", planNode));
+            return result;
+        }
+
+        private void buildJoinGraph(LinkedHashSet<PlanNode> sources)
+        {
+            List<PlanNode> sourceList = ImmutableList.copyOf(sources);
+            adjacency = new long[sourceList.size()];
+            for (int i = 0; i < sourceList.size(); i++) {
+                sourceMasks.put(sourceList.get(i), 1L << i);
+            }
+            for (int i = 0; i < sourceList.size(); i++) {
+                Set<Symbol> leftSymbols = ImmutableSet.copyOf(sourceList.get(i).getOutputSymbols());
+                for (int j = i + 1; j < sourceList.size(); j++) {
+                    if (!getJoinPredicates(leftSymbols, ImmutableSet.copyOf(sourceList.get(j).getOutputSymbols())).isEmpty()) {
+                        adjacency[i] |= 1L << j;
+                        adjacency[j] |= 1L << i;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the ways of splitting the connected sources into two groups, which are both connected in the join graph,
+         * so that neither of them, nor the join between them, is a cross join. A group is returned as the mask of its
+         * sources, and it always contains the first source, so that each split is returned once. Only the connected
+         * groups of sources are visited, by extending the group with the neighbors of its sources, rather than all
+         * the subsets of the sources.
+         */
+        private List<Long> getConnectedPartitionings(long mask)
+        {
+            ImmutableList.Builder<Long> partitionings = ImmutableList.builder();
+            long first = Long.lowestOneBit(mask);
+            addConnectedPartitioning(mask, first, partitionings);
+            addConnectedPartitionings(mask, first, first | ~mask, partitionings);
+            return partitionings.build();
+        }
+
+        private void addConnectedPartitionings(long mask, long group, long excluded, ImmutableList.Builder<Long> partitionings)
+        {
+            // each connected group is visited once, as the neighbors not added in one step are excluded from the next steps
+            long candidates = neighbors(group) & ~excluded;
+            for (long added = candidates; added != 0 && !enumerationLimitExceeded; added = (added - 1) & candidates) {
+                addConnectedPartitioning(mask, group | added, partitionings);
+                addConnectedPartitionings(mask, group | added, excluded | candidates, partitionings);
+            }
+        }
+
+        private void addConnectedPartitioning(long mask, long group, ImmutableList.Builder<Long> partitionings)
+        {
+            enumeratedSourceSets++;
+            if (group != mask && isConnected(mask & ~group)) {
+                partitionings.add(group);
+                enumeratedPartitionings++;
+            }
+            if (enumeratedSourceSets > MAX_ENUMERATED_SOURCE_SETS || enumeratedPartitionings > MAX_ENUMERATED_PARTITIONINGS) {
+                enumerationLimitExceeded = true;
+            }
+        }
+
+        private long getMask(Set<PlanNode> sources)
+        {
+            long mask = 0;
+            for (PlanNode source : sources) {
+                mask |= sourceMasks.get(source);
+            }
+            return mask;
+        }
+
+        private LinkedHashSet<PlanNode> getSources(LinkedHashSet<PlanNode> sources, long mask)
+        {
+            return sources.stream()
+                    .filter(source -> (sourceMasks.get(source) & mask) != 0)
+                    .collect(toCollection(LinkedHashSet::new));
+        }
+
+        private boolean isConnected(long mask)
+        {
+            long reached = Long.lowestOneBit(mask);
+            long frontier = reached;
+            while (frontier != 0) {
+                frontier = neighbors(frontier) & mask & ~reached;
+                reached |= frontier;
+            }
+            return reached == mask;
+        }
+
+        private long neighbors(long mask)
+        {
+            long neighbors = 0;
+            for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                neighbors |= adjacency[Long.numberOfTrailingZeros(remaining)];
+            }
+            return neighbors;
         }
 
         @VisibleForTesting
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cost;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestFileHistoricalStatsStore
+{
+    @Test
+    public void testPersistence(@TempDir Path tempDir)
+    {
+        FileHistoricalStatsStoreConfig config = new FileHistoricalStatsStoreConfig()
+                .setFile(tempDir.resolve("stats.json").toFile());
+
+        FileHistoricalStatsStore store = new FileHistoricalStatsStore(config);
+        assertThat(store.getStats("scan(a)")).isEmpty();
+        store.recordStats("scan(a)", new HistoricalPlanNodeStats(10, 100));
+        store.recordStats("scan(b)", new HistoricalPlanNodeStats(20, 200));
+        store.recordStats("scan(a)", new HistoricalPlanNodeStats(15, 150));
+        assertThat(store.getStats("scan(a)")).contains(new HistoricalPlanNodeStats(15, 150));
+        store.flush();
+
+        FileHistoricalStatsStore reloaded = new FileHistoricalStatsStore(config);
+        assertThat(reloaded.getEntries()).isEqualTo(2);
+        assertThat(reloaded.getStats("scan(a)")).contains(new HistoricalPlanNodeStats(15, 150));
+        assertThat(reloaded.getStats("scan(b)")).contains(new HistoricalPlanNodeStats(20, 200));
+    }
+
+    @Test
+    public void testCorruptedFile(@TempDir Path tempDir)
+            throws IOException
+    {
+        Path file = tempDir.resolve("stats.json");
+        Files.writeString(file, "not json");
+
+        FileHistoricalStatsStore store = new FileHistoricalStatsStore(new FileHistoricalStatsStoreConfig().setFile(file.toFile()));
+        assertThat(store.getEntries()).isEqualTo(0);
+        store.recordStats("scan(a)", new HistoricalPlanNodeStats(10, 100));
+        store.flush();
+        assertThat(new FileHistoricalStatsStore(new FileHistoricalStatsStoreConfig().setFile(file.toFile())).getStats("scan(a)"))
+                .contains(new HistoricalPlanNodeStats(10, 100));
+    }
+}
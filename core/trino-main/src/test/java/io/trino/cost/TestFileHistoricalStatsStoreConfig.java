@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cost;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.Duration;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Map;
+
+import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
+import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static io.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public class TestFileHistoricalStatsStoreConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        assertRecordedDefaults(recordDefaults(FileHistoricalStatsStoreConfig.class)
+                .setFile(null)
+                .setMaxEntries(100_000)
+                .setFlushInterval(new Duration(1, MINUTES)));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = ImmutableMap.<String, String>builder()
+                .put("history-based-statistics.file", "/tmp/stats.json")
+                .put("history-based-statistics.max-entries", "1000")
+                .put("history-based-statistics.flush-interval", "30s")
+                .buildOrThrow();
+
+        FileHistoricalStatsStoreConfig expected = new FileHistoricalStatsStoreConfig()
+                .setFile(new File("/tmp/stats.json"))
+                .setMaxEntries(1000)
+                .setFlushInterval(new Duration(30, SECONDS));
+
+        assertFullMapping(properties, expected);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cost;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.metadata.TableHandle;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.sql.ir.Comparison;
+import io.trino.sql.ir.Constant;
+import io.trino.sql.ir.Reference;
+import io.trino.sql.planner.Symbol;
+import io.trino.sql.planner.iterative.rule.test.PlanBuilder;
+import io.trino.sql.planner.plan.DynamicFilterId;
+import io.trino.sql.planner.plan.PlanNode;
+import io.trino.testing.TestingMetadata.TestingColumnHandle;
+import io.trino.testing.TestingTransactionHandle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.SystemSessionProperties.USE_HISTORY_BASED_STATISTICS;
+import static io.trino.cost.HistoricalStatsKeys.planKey;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.sql.DynamicFilters.createDynamicFilterExpression;
+import static io.trino.sql.ir.Comparison.Operator.EQUAL;
+import static io.trino.sql.planner.TestingPlannerContext.PLANNER_CONTEXT;
+import static io.trino.sql.planner.iterative.Lookup.noLookup;
+import static io.trino.testing.TestingHandles.TEST_CATALOG_HANDLE;
+import static io.trino.testing.TestingSession.testSessionBuilder;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestHistoryBasedStatsRule
+        extends BaseStatsCalculatorTest
+{
+    private static final ConnectorSession SESSION = TEST_SESSION.toConnectorSession();
+    private static final PlanNodeStatsEstimate SOURCE_STATS = PlanNodeStatsEstimate.builder()
+            .setOutputRowCount(10)
+            .addSymbolStatistics(new Symbol(BIGINT, "a"), SymbolStatsEstimate.builder()
+                    .setLowValue(1)
+                    .setHighValue(10)
+                    .setDistinctValuesCount(5)
+                    .setNullsFraction(0)
+                    .build())
+            .build();
+
+    private final StatsNormalizer normalizer = new StatsNormalizer();
+    private final FilterStatsCalculator filterStatsCalculator = new FilterStatsCalculator(PLANNER_CONTEXT, new ScalarStatsCalculator(PLANNER_CONTEXT), normalizer);
+
+    @Test
+    public void testObservedRowCountOverridesEstimate(@TempDir Path tempDir)
+    {
+        HistoricalStatsStore store = new FileHistoricalStatsStore(new FileHistoricalStatsStoreConfig().setFile(tempDir.resolve("stats.json").toFile()));
+        HistoryBasedStatsRule<?> rule = new HistoryBasedStatsRule<>(new FilterStatsRule(normalizer, filterStatsCalculator), store, normalizer);
+        AtomicReference<PlanNode> filter = new AtomicReference<>();
+
+        StatsCalculatorAssertion assertion = tester().assertStatsFor(planBuilder -> {
+            filter.set(filterOverTableScan(planBuilder, 5));
+            return filter.get();
+        }).withSourceStats(0, SOURCE_STATS);
+        assertion.check(rule, check -> check.outputRowsCount(2));
+
+        store.recordStats(planKey(filter.get(), noLookup(), SESSION).orElseThrow(), new HistoricalPlanNodeStats(7, 70));
+        assertion.check(rule, check -> check
+                .outputRowsCount(7)
+                .symbolStats("a", BIGINT, symbol -> symbol
+                        .lowValue(5)
+                        .highValue(5)
+                        .distinctValuesCount(1)));
+
+        // same filter in another query
+        tester().assertStatsFor(planBuilder -> filterOverTableScan(planBuilder, 5))
+                .withSourceStats(0, SOURCE_STATS)
+                .check(rule, check -> check.outputRowsCount(7));
+
+        // different filter
+        tester().assertStatsFor(planBuilder -> filterOverTableScan(planBuilder, 6))
+                .withSourceStats(0, SOURCE_STATS)
+                .check(rule, check -> check.outputRowsCount(2));
+
+        tester().assertStatsFor(testSessionBuilder().setSystemProperty(USE_HISTORY_BASED_STATISTICS, "false").build(), planBuilder -> filterOverTableScan(planBuilder, 5))
+                .withSourceStats(0, SOURCE_STATS)
+                .check(rule, check -> check.outputRowsCount(2));
+    }
+
+    @Test
+    public void testPlanKey()
+    {
+        tester().assertStatsFor(planBuilder -> {
+            PlanNode filter = filterOverTableScan(planBuilder, 5);
+            PlanNode tableScan = filter.getSources().getFirst();
+            assertThat(planKey(tableScan, noLookup(), SESSION)).isPresent();
+            assertThat(planKey(filter, noLookup(), SESSION).orElseThrow())
+                    .contains("column(" + new TestingColumnHandle("a") + ")")
+                    .endsWith(planKey(tableScan, noLookup(), SESSION).orElseThrow() + ")");
+            assertThat(planKey(planBuilder.values(planBuilder.symbol("b", BIGINT)), noLookup(), SESSION)).isEmpty();
+
+            // values of the constraint enforced by the connector are part of the key
+            Symbol symbol = planBuilder.symbol("a", BIGINT);
+            PlanNode constrainedTableScan = planBuilder.tableScan(tableScan -> tableScan
+                    .setSymbols(ImmutableList.of(symbol))
+                    .setAssignments(ImmutableMap.of(symbol, new TestingColumnHandle("a")))
+                    .setEnforcedConstraint(TupleDomain.withColumnDomains(ImmutableMap.of(new TestingColumnHandle("a"), Domain.singleValue(BIGINT, 5L)))));
+            PlanNode otherConstrainedTableScan = planBuilder.tableScan(tableScan -> tableScan
+                    .setSymbols(ImmutableList.of(symbol))
+                    .setAssignments(ImmutableMap.of(symbol, new TestingColumnHandle("a")))
+                    .setEnforcedConstraint(TupleDomain.withColumnDomains(ImmutableMap.of(new TestingColumnHandle("a"), Domain.singleValue(BIGINT, 6L)))));
+            assertThat(planKey(constrainedTableScan, noLookup(), SESSION).orElseThrow())
+                    .isNotEqualTo(planKey(tableScan, noLookup(), SESSION).orElseThrow())
+                    .isNotEqualTo(planKey(otherConstrainedTableScan, noLookup(), SESSION).orElseThrow());
+
+            // string form of the handle does not identify the table
+            PlanNode opaqueTableScan = planBuilder.tableScan(tableScan -> tableScan
+                    .setTableHandle(new TableHandle(TEST_CATALOG_HANDLE, new ConnectorTableHandle() {}, TestingTransactionHandle.create()))
+                    .setSymbols(ImmutableList.of(symbol))
+                    .setAssignments(ImmutableMap.of(symbol, new TestingColumnHandle("a"))));
+            assertThat(planKey(opaqueTableScan, noLookup(), SESSION)).isEmpty();
+            assertThat(planKey(planBuilder.filter(new Comparison(EQUAL, new Reference(BIGINT, "a"), new Constant(BIGINT, 5L)), opaqueTableScan), noLookup(), SESSION)).isEmpty();
+
+            // output of a dynamically filtered scan depends on the join it belongs to
+            PlanNode dynamicFilter = planBuilder.filter(
+                    createDynamicFilterExpression(PLANNER_CONTEXT.getMetadata(), new DynamicFilterId("df"), BIGINT, new Reference(BIGINT, "a")),
+                    tableScan);
+            assertThat(planKey(dynamicFilter, noLookup(), SESSION)).isEmpty();
+            return filter;
+        });
+    }
+
+    private static PlanNode filterOverTableScan(PlanBuilder planBuilder, long value)
+    {
+        Symbol symbol = planBuilder.symbol("a", BIGINT);
+        return planBuilder.filter(
+                new Comparison(EQUAL, new Reference(BIGINT, "a"), new Constant(BIGINT, value)),
+                planBuilder.tableScan(ImmutableList.of(symbol), ImmutableMap.of(symbol, new TestingColumnHandle("a"))));
+    }
+}
@@ -48,6 +48,7 @@ public class TestOptimizerConfig
                 .setJoinMultiClauseIndependenceFactor(0.25)
                 .setJoinReorderingStrategy(JoinReorderingStrategy.AUTOMATIC)
                 .setMaxReorderedJoins(8)
+                .setGreedyJoinReorderingThreshold(20)
                 .setMaxPrefetchedInformationSchemaPrefixes(100)
                 .setColocatedJoinsEnabled(true)
                 .setSpatialJoinsEnabled(true)
@@ -57,12 +58,15 @@ public class TestOptimizerConfig
                 .setCollectPlanStatisticsForAllQueries(false)
                 .setIgnoreStatsCalculatorFailures(true)
                 .setDefaultFilterFactorEnabled(false)
+                .setUseHistoryBasedStatistics(true)
                 .setFilterConjunctionIndependenceFactor(0.75)
                 .setNonEstimatablePredicateApproximationEnabled(true)
                 .setOptimizeMetadataQueries(false)
                 .setPushTableWriteThroughUnion(true)
                 .setDictionaryAggregation(false)
                 .setIterativeOptimizerTimeout(new Duration(3, MINUTES))
+                .setIterativeOptimizerRuleTimeBudget(new Duration(10, SECONDS))
+                .setIterativeOptimizerPhaseTimeBudget(new Duration(30, SECONDS))
                 .setEnableForcedExchangeBelowGroupId(true)
                 .setEnableIntermediateAggregations(false)
                 .setPushAggregationThroughOuterJoin(true)
@@ -85,6 +89,7 @@ public class TestOptimizerConfig
                 .setForceSingleNodeOutput(false)
                 .setAdaptivePartialAggregationEnabled(true)
                 .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.8)
+                .setAdaptivePartialAggregationCardinalitySamplingEnabled(false)
                 .setJoinPartitionedBuildMinRowCount(1_000_000)
                 .setMinInputSizePerTask(DataSize.of(5, GIGABYTE))
                 .setMinInputRowsPerTask(10_000_000L)
@@ -106,6 +111,7 @@ public class TestOptimizerConfig
                 .put("collect-plan-statistics-for-all-queries", "true")
                 .put("optimizer.ignore-stats-calculator-failures", "false")
                 .put("optimizer.default-filter-factor-enabled", "true")
+                .put("optimizer.use-history-based-statistics", "false")
                 .put("optimizer.filter-conjunction-independence-factor", "1.0")
                 .put("optimizer.non-estimatable-predicate-approximation.enabled", "false")
                 .put("join-distribution-type", "BROADCAST")
@@ -113,8 +119,11 @@ public class TestOptimizerConfig
                 .put("optimizer.join-multi-clause-independence-factor", "0.75")
                 .put("optimizer.join-reordering-strategy", "NONE")
                 .put("optimizer.max-reordered-joins", "5")
+                .put("optimizer.greedy-join-reordering-threshold", "3")
                 .put("optimizer.experimental-max-prefetched-information-schema-prefixes", "10")
                 .put("iterative-optimizer-timeout", "10s")
+                .put("iterative-optimizer-rule-time-budget", "2s")
+                .put("iterative-optimizer-phase-time-budget", "5s")
                 .put("enable-forced-exchange-below-group-id", "false")
                 .put("colocated-joins-enabled", "false")
                 .put("spatial-joins-enabled", "false")
@@ -143,6 +152,7 @@ public class TestOptimizerConfig
                 .put("optimizer.merge-project-with-values", "false")
                 .put("adaptive-partial-aggregation.enabled", "false")
                 .put("adaptive-partial-aggregation.unique-rows-ratio-threshold", "0.99")
+                .put("adaptive-partial-aggregation.cardinality-sampling-enabled", "true")
                 .put("optimizer.join-partitioned-build-min-row-count", "1")
                 .put("optimizer.min-input-size-per-task", "1MB")
                 .put("optimizer.min-input-rows-per-task", "1000000")
@@ -165,13 +175,17 @@ public class TestOptimizerConfig
                 .setJoinMultiClauseIndependenceFactor(0.75)
                 .setJoinReorderingStrategy(NONE)
                 .setMaxReorderedJoins(5)
+                .setGreedyJoinReorderingThreshold(3)
                 .setMaxPrefetchedInformationSchemaPrefixes(10)
                 .setIterativeOptimizerTimeout(new Duration(10, SECONDS))
+                .setIterativeOptimizerRuleTimeBudget(new Duration(2, SECONDS))
+                .setIterativeOptimizerPhaseTimeBudget(new Duration(5, SECONDS))
                 .setEnableForcedExchangeBelowGroupId(false)
                 .setColocatedJoinsEnabled(false)
                 .setSpatialJoinsEnabled(false)
                 .setUsePreferredWritePartitioning(false)
                 .setDefaultFilterFactorEnabled(true)
+                .setUseHistoryBasedStatistics(false)
                 .setFilterConjunctionIndependenceFactor(1.0)
                 .setNonEstimatablePredicateApproximationEnabled(false)
                 .setOptimizeMetadataQueries(true)
@@ -198,6 +212,7 @@ public class TestOptimizerConfig
                 .setForceSingleNodeOutput(true)
                 .setAdaptivePartialAggregationEnabled(false)
                 .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.99)
+                .setAdaptivePartialAggregationCardinalitySamplingEnabled(true)
                 .setJoinPartitionedBuildMinRowCount(1)
                 .setMinInputSizePerTask(DataSize.of(1, MEGABYTE))
                 .setMinInputRowsPerTask(1_000_000L)
@@ -263,6 +263,7 @@ public class TestQueryInfo
                 ImmutableList.of(),
                 count == 1 ? ImmutableList.of() : ImmutableList.of(createStageInfo(count - 1, state, baseValue)),
                 ImmutableMap.of(),
+                ImmutableList.of(),
                 new ExecutionFailureInfo("", "", null, ImmutableList.of(), ImmutableList.of(), null, null, null));
     }
 
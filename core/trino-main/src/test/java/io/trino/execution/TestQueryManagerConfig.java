@@ -46,6 +46,7 @@ public class TestQueryManagerConfig
                 .setMinQueryExpireAge(new Duration(15, MINUTES))
                 .setMaxQueryHistory(100)
                 .setMaxQueryLength(1_000_000)
+                .setPreparedStatementCacheMaxLength(1_000_000)
                 .setMaxStageCount(150)
                 .setStageCountWarningThreshold(50)
                 .setClientTimeout(new Duration(5, MINUTES))
@@ -130,6 +131,7 @@ public class TestQueryManagerConfig
                 .put("query.min-expire-age", "30s")
                 .put("query.max-history", "10")
                 .put("query.max-length", "10000")
+                .put("query.prepared-statement-cache-max-length", "10000")
                 .put("query.max-stage-count", "12345")
                 .put("query.stage-count-warning-threshold", "12300")
                 .put("query.schedule-split-batch-size", "99")
@@ -209,6 +211,7 @@ public class TestQueryManagerConfig
                 .setMinQueryExpireAge(new Duration(30, SECONDS))
                 .setMaxQueryHistory(10)
                 .setMaxQueryLength(10000)
+                .setPreparedStatementCacheMaxLength(10000)
                 .setMaxStageCount(12345)
                 .setStageCountWarningThreshold(12300)
                 .setClientTimeout(new Duration(10, SECONDS))
@@ -54,6 +54,43 @@ public class TestQueryPreparer
         assertThat(preparedQuery.getStatement()).isEqualTo(simpleQuery(selectList(new AllColumns()), table(QualifiedName.of("foo"))));
     }
 
+    @Test
+    public void testPreparedStatementCache()
+    {
+        QueryPreparer queryPreparer = new QueryPreparer(SQL_PARSER, 1000);
+        Session session = testSessionBuilder()
+                .addPreparedStatement("my_query", "SELECT * FROM foo WHERE col1 = ?")
+                .build();
+
+        PreparedQuery first = queryPreparer.prepareQuery(session, "EXECUTE my_query USING 1");
+        PreparedQuery second = queryPreparer.prepareQuery(session, "EXECUTE my_query USING 2");
+        assertThat(second.getStatement()).isSameAs(first.getStatement());
+        assertThat(second.getParameters()).isNotEqualTo(first.getParameters());
+        assertThat(queryPreparer.getPreparedStatementCache().getRequestCount()).isEqualTo(2);
+        assertThat(queryPreparer.getPreparedStatementCache().getHitRate()).isEqualTo(0.5);
+        assertThat(queryPreparer.getPreparedStatementCache().size()).isEqualTo(1);
+
+        // statements that are not prepared are not cached
+        queryPreparer.prepareQuery(session, "SELECT * FROM foo");
+        assertThat(queryPreparer.getPreparedStatementCache().getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testPreparedStatementCacheMaxLength()
+    {
+        // statement text is longer than the cache
+        QueryPreparer queryPreparer = new QueryPreparer(SQL_PARSER, 10);
+        Session session = testSessionBuilder()
+                .addPreparedStatement("my_query", "SELECT * FROM foo WHERE col1 = ?")
+                .build();
+
+        queryPreparer.prepareQuery(session, "EXECUTE my_query USING 1");
+        queryPreparer.prepareQuery(session, "EXECUTE my_query USING 2");
+        assertThat(queryPreparer.getPreparedStatementCache().getHitRate()).isEqualTo(0.0);
+        assertThat(queryPreparer.getPreparedStatementCache().size()).isEqualTo(0);
+        assertThat(queryPreparer.getParsingTimeSavedNanos()).isEqualTo(0);
+    }
+
     @Test
     public void testExecuteImmediateStatement()
     {
@@ -40,6 +40,9 @@ public class TestTaskManagerConfig
     {
         assertRecordedDefaults(recordDefaults(TaskManagerConfig.class)
                 .setThreadPerDriverSchedulerEnabled(true)
+                .setThreadPerDriverSchedulerVirtualThreadsEnabled(false)
+                .setThreadPerDriverSchedulerVirtualThreadsMaxRunningDrivers(Runtime.getRuntime().availableProcessors() * 2 * 4)
+                .setThreadPerDriverSchedulerNumaAwareEnabled(false)
                 .setInitialSplitsPerNode(Runtime.getRuntime().availableProcessors() * 2)
                 .setSplitConcurrencyAdjustmentInterval(new Duration(100, TimeUnit.MILLISECONDS))
                 .setStatusRefreshMaxWait(new Duration(1, TimeUnit.SECONDS))
@@ -86,6 +89,9 @@ public class TestTaskManagerConfig
         int maxWriterCount = DEFAULT_MAX_WRITER_COUNT == 32 ? 16 : 32;
         Map<String, String> properties = ImmutableMap.<String, String>builder()
                 .put("experimental.thread-per-driver-scheduler-enabled", "false")
+                .put("experimental.thread-per-driver-scheduler-virtual-threads-enabled", "true")
+                .put("experimental.thread-per-driver-scheduler-virtual-threads-max-running-drivers", "500")
+                .put("experimental.thread-per-driver-scheduler-numa-aware-enabled", "true")
                 .put("task.initial-splits-per-node", "1")
                 .put("task.split-concurrency-adjustment-interval", "3s")
                 .put("task.status-refresh-max-wait", "2s")
@@ -127,6 +133,9 @@ public class TestTaskManagerConfig
 
         TaskManagerConfig expected = new TaskManagerConfig()
                 .setThreadPerDriverSchedulerEnabled(false)
+                .setThreadPerDriverSchedulerVirtualThreadsEnabled(true)
+                .setThreadPerDriverSchedulerVirtualThreadsMaxRunningDrivers(500)
+                .setThreadPerDriverSchedulerNumaAwareEnabled(true)
                 .setInitialSplitsPerNode(1)
                 .setSplitConcurrencyAdjustmentInterval(new Duration(3, TimeUnit.SECONDS))
                 .setStatusRefreshMaxWait(new Duration(2, TimeUnit.SECONDS))
@@ -21,6 +21,7 @@ import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 import io.trino.metadata.BlockEncodingManager;
 import io.trino.metadata.InternalBlockEncodingSerde;
+import io.trino.plugin.base.metrics.LongCount;
 import io.trino.spi.Page;
 import io.trino.spi.PageBuilder;
 import io.trino.spi.block.Block;
@@ -41,10 +42,13 @@ import javax.crypto.SecretKey;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import java.util.stream.IntStream;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.execution.buffer.CompressionCodec.LZ4;
 import static io.trino.execution.buffer.CompressionCodec.NONE;
+import static io.trino.execution.buffer.PagesSerdeUtil.getSerializedPageUncompressedSizeInBytes;
 import static io.trino.execution.buffer.PagesSerdeUtil.readPages;
 import static io.trino.execution.buffer.PagesSerdeUtil.writePages;
 import static io.trino.operator.PageAssertions.assertPageEquals;
@@ -248,6 +252,55 @@ public class TestPagesSerde
         return slice.length();
     }
 
+    @Test
+    public void testVariableWidthDataSharedWithReceivedPage()
+    {
+        Page page = generatePage(ImmutableList.of(VARCHAR), 1000, new LineItemGenerator(1, 1, 1).iterator());
+
+        PagesSerdeFactory serdeFactory = new PagesSerdeFactory(blockEncodingSerde, NONE);
+        Slice serialized = Slices.copyOf(serdeFactory.createSerializer(Optional.empty()).serialize(page));
+        PageDeserializer deserializer = serdeFactory.createDeserializer(Optional.empty());
+        Page deserialized = deserializer.deserialize(serialized);
+        assertPageEquals(ImmutableList.of(VARCHAR), deserialized, page);
+
+        VariableWidthBlock block = (VariableWidthBlock) deserialized.getBlock(0);
+        assertThat(block.getRawSlice().byteArray()).isSameAs(serialized.byteArray());
+        assertThat(deserializer.getMetrics().getMetrics())
+                .containsEntry("exchangeDeserializerSharedBytes", new LongCount(block.getRawSlice().length()));
+
+        // compressed pages are decoded into a reused buffer, so values must be copied
+        serdeFactory = new PagesSerdeFactory(blockEncodingSerde, LZ4);
+        serialized = Slices.copyOf(serdeFactory.createSerializer(Optional.empty()).serialize(page));
+        deserializer = serdeFactory.createDeserializer(Optional.empty());
+        deserialized = deserializer.deserialize(serialized);
+        assertPageEquals(ImmutableList.of(VARCHAR), deserialized, page);
+        assertThat(deserializer.getMetrics().getMetrics())
+                .containsEntry("exchangeDeserializerSharedBytes", new LongCount(0))
+                .containsEntry("exchangeDeserializerCopiedBytes", new LongCount(getSerializedPageUncompressedSizeInBytes(serialized)));
+    }
+
+    @Test
+    public void testCompressionSkippedForIncompressibleData()
+    {
+        Random random = new Random(42);
+        BlockBuilder builder = BIGINT.createFixedSizeBlockBuilder(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            BIGINT.writeLong(builder, random.nextLong());
+        }
+        Page page = new Page(builder.build());
+
+        PagesSerdeFactory serdeFactory = new PagesSerdeFactory(blockEncodingSerde, LZ4, 1024);
+        PageSerializer serializer = serdeFactory.createSerializer(Optional.empty());
+        PageDeserializer deserializer = serdeFactory.createDeserializer(Optional.empty());
+        Page deserialized = deserializer.deserialize(serializer.serialize(page));
+        assertPageEquals(ImmutableList.of(BIGINT), deserialized, page);
+
+        LongCount skippedBytes = (LongCount) serializer.getAndResetMetrics().getMetrics().get("exchangeSerializerCompressionSkippedBytes");
+        assertThat(skippedBytes.getTotal()).isGreaterThan(0);
+        assertThat(serializer.getMetrics().getMetrics())
+                .containsEntry("exchangeSerializerCompressionSkippedBytes", new LongCount(0));
+    }
+
     @Test
     public void testDeserializationWithRollover()
     {
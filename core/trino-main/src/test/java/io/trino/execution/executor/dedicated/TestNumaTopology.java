@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.executor.dedicated;
+
+import com.google.common.collect.ImmutableSortedSet;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.trino.execution.executor.dedicated.NumaTopology.parseCpuList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestNumaTopology
+{
+    @Test
+    public void testParseCpuList()
+    {
+        assertThat(parseCpuList("")).isEmpty();
+        assertThat(parseCpuList("\n")).isEmpty();
+        assertThat(parseCpuList("5\n")).containsExactly(5);
+        assertThat(parseCpuList("0-3,8,10-11\n")).containsExactly(0, 1, 2, 3, 8, 10, 11);
+        assertThatThrownBy(() -> parseCpuList("3-1"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid CPU range: 3-1");
+    }
+
+    @Test
+    public void testDiscover()
+            throws IOException
+    {
+        Path nodesDirectory = Files.createTempDirectory("numa");
+        try {
+            writeCpuList(nodesDirectory.resolve("node0"), "0-3,8-11\n");
+            writeCpuList(nodesDirectory.resolve("node10"), "12-15\n");
+            writeCpuList(nodesDirectory.resolve("node2"), "4-7\n");
+            // memory only node
+            writeCpuList(nodesDirectory.resolve("node3"), "\n");
+            Files.writeString(nodesDirectory.resolve("possible"), "0-10\n", UTF_8);
+
+            NumaTopology topology = NumaTopology.discover(nodesDirectory);
+            assertThat(topology.nodeCount()).isEqualTo(3);
+            assertThat(topology.totalCpuCount()).isEqualTo(16);
+            assertThat(topology.nodeCpus()).containsExactly(
+                    ImmutableSortedSet.of(0, 1, 2, 3, 8, 9, 10, 11),
+                    ImmutableSortedSet.of(4, 5, 6, 7),
+                    ImmutableSortedSet.of(12, 13, 14, 15));
+        }
+        finally {
+            deleteRecursively(nodesDirectory, ALLOW_INSECURE);
+        }
+    }
+
+    @Test
+    public void testDiscoverMissingDirectory()
+    {
+        NumaTopology topology = NumaTopology.discover(Path.of("/nonexistent/node"));
+        assertThat(topology.nodeCount()).isEqualTo(0);
+        assertThat(topology.totalCpuCount()).isEqualTo(0);
+    }
+
+    private static void writeCpuList(Path nodeDirectory, String cpuList)
+            throws IOException
+    {
+        Files.createDirectories(nodeDirectory);
+        Files.writeString(nodeDirectory.resolve("cpulist"), cpuList, UTF_8);
+    }
+}
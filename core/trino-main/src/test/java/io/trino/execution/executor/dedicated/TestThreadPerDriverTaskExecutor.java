@@ -13,6 +13,7 @@
  */
 package io.trino.execution.executor.dedicated;
 
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.AbstractFuture;
 import com.google.common.util.concurrent.Futures;
@@ -36,6 +37,8 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
 import static io.airlift.tracing.Tracing.noopTracer;
@@ -114,6 +117,239 @@ public class TestThreadPerDriverTaskExecutor
         }
     }
 
+    @Test
+    @Timeout(10)
+    public void testVirtualThreads()
+            throws ExecutionException, InterruptedException
+    {
+        ThreadPerDriverTaskExecutor executor = new ThreadPerDriverTaskExecutor(
+                new TaskManagerConfig().setThreadPerDriverSchedulerVirtualThreadsEnabled(true),
+                noopTracer(),
+                testingVersionEmbedder());
+        executor.start();
+
+        try {
+            TaskId taskId = new TaskId(new StageId("query", 1), 1, 1);
+            TaskHandle task = executor.addTask(taskId, () -> 0, 10, new Duration(1, MILLISECONDS), OptionalInt.empty());
+
+            AtomicBoolean virtual = new AtomicBoolean();
+            TestFuture blocked = new TestFuture();
+
+            SplitRunner split = new TestingSplitRunner(ImmutableList.of(
+                    duration -> blocked,
+                    duration -> {
+                        virtual.set(Thread.currentThread().isVirtual());
+                        return Futures.immediateVoidFuture();
+                    }));
+
+            ListenableFuture<Void> splitDone = executor.enqueueSplits(task, false, ImmutableList.of(split)).get(0);
+
+            blocked.awaitListenerAdded();
+            blocked.set(null); // unblock the split
+
+            splitDone.get();
+            assertThat(split.isFinished()).isTrue();
+            assertThat(virtual.get()).isTrue();
+        }
+        finally {
+            executor.stop();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    public void testBlockedDriverOnVirtualThreadDoesNotHoldSlot()
+            throws ExecutionException, InterruptedException
+    {
+        ThreadPerDriverTaskExecutor executor = new ThreadPerDriverTaskExecutor(
+                new TaskManagerConfig()
+                        .setMaxWorkerThreads("4")
+                        .setThreadPerDriverSchedulerVirtualThreadsEnabled(true)
+                        .setThreadPerDriverSchedulerVirtualThreadsMaxRunningDrivers(1),
+                noopTracer(),
+                testingVersionEmbedder());
+        executor.start();
+
+        try {
+            // running drivers are limited independently of the worker threads
+            assertThat(executor.getConcurrencyControlTotalSlots()).isEqualTo(1);
+
+            TaskId taskId = new TaskId(new StageId("query", 1), 1, 1);
+            TaskHandle task = executor.addTask(taskId, () -> 0, 10, new Duration(1, MILLISECONDS), OptionalInt.empty());
+
+            TestFuture blocked = new TestFuture();
+            SplitRunner blockedSplit = new TestingSplitRunner(ImmutableList.of(
+                    duration -> blocked,
+                    duration -> Futures.immediateVoidFuture()));
+            ListenableFuture<Void> blockedSplitDone = executor.enqueueSplits(task, false, ImmutableList.of(blockedSplit)).get(0);
+            blocked.awaitListenerAdded();
+            assertThat(executor.getConcurrencyControlAvailableSlots()).isEqualTo(1);
+
+            // the only slot is used by another driver while the first one is blocked
+            SplitRunner split = new TestingSplitRunner(ImmutableList.of(duration -> Futures.immediateVoidFuture()));
+            executor.enqueueSplits(task, false, ImmutableList.of(split)).get(0).get();
+            assertThat(split.isFinished()).isTrue();
+            assertThat(blockedSplit.isFinished()).isFalse();
+
+            blocked.set(null); // unblock the split
+            blockedSplitDone.get();
+            assertThat(blockedSplit.isFinished()).isTrue();
+        }
+        finally {
+            executor.stop();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    public void testDriversBlockedSynchronouslyOnVirtualThreads()
+            throws ExecutionException, InterruptedException
+    {
+        // more drivers than carrier threads of virtual threads, each blocked until all of them run
+        int drivers = Runtime.getRuntime().availableProcessors() * 2 + 1;
+        ThreadPerDriverTaskExecutor executor = new ThreadPerDriverTaskExecutor(
+                new TaskManagerConfig()
+                        .setMaxWorkerThreads("1")
+                        .setThreadPerDriverSchedulerVirtualThreadsEnabled(true)
+                        .setThreadPerDriverSchedulerVirtualThreadsMaxRunningDrivers(drivers),
+                noopTracer(),
+                testingVersionEmbedder());
+        executor.start();
+
+        try {
+            TaskId taskId = new TaskId(new StageId("query", 1), 1, 1);
+            TaskHandle task = executor.addTask(taskId, () -> 0, 10, new Duration(1, MILLISECONDS), OptionalInt.empty());
+
+            CountDownLatch running = new CountDownLatch(drivers);
+            ImmutableList.Builder<SplitRunner> splits = ImmutableList.builder();
+            for (int i = 0; i < drivers; i++) {
+                splits.add(new TestingSplitRunner(ImmutableList.of(duration -> {
+                    running.countDown();
+                    try {
+                        // a blocked virtual thread releases its carrier thread to the other drivers
+                        running.await();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    }
+                    return Futures.immediateVoidFuture();
+                })));
+            }
+
+            for (ListenableFuture<Void> splitDone : executor.enqueueSplits(task, true, splits.build())) {
+                splitDone.get();
+            }
+            assertThat(running.getCount()).isEqualTo(0);
+        }
+        finally {
+            executor.stop();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    public void testNumaNodePlacement()
+            throws ExecutionException, InterruptedException
+    {
+        NumaNode node0 = new NumaNode(0, 4, new FairScheduler(2, "Node0-%d", Ticker.systemTicker()));
+        NumaNode node1 = new NumaNode(1, 4, new FairScheduler(2, "Node1-%d", Ticker.systemTicker()));
+        ThreadPerDriverTaskExecutor executor = new ThreadPerDriverTaskExecutor(noopTracer(), testingVersionEmbedder(), ImmutableList.of(node0, node1), 1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        executor.start();
+
+        try {
+            TaskHandle task1 = executor.addTask(new TaskId(new StageId("query", 1), 1, 1), () -> 0, 10, new Duration(1, MILLISECONDS), OptionalInt.empty());
+            TaskHandle task2 = executor.addTask(new TaskId(new StageId("query", 1), 2, 1), () -> 0, 10, new Duration(1, MILLISECONDS), OptionalInt.empty());
+            assertThat(node0.getTasks()).isEqualTo(1);
+            assertThat(node1.getTasks()).isEqualTo(1);
+
+            // all drivers of a task run on its node
+            AtomicReference<String> leafThread = new AtomicReference<>();
+            AtomicReference<String> intermediateThread = new AtomicReference<>();
+            SplitRunner leafSplit = new TestingSplitRunner(ImmutableList.of(duration -> {
+                leafThread.set(Thread.currentThread().getName());
+                return Futures.immediateVoidFuture();
+            }));
+            SplitRunner intermediateSplit = new TestingSplitRunner(ImmutableList.of(duration -> {
+                intermediateThread.set(Thread.currentThread().getName());
+                return Futures.immediateVoidFuture();
+            }));
+            executor.enqueueSplits(task2, false, ImmutableList.of(leafSplit)).get(0).get();
+            executor.enqueueSplits(task2, true, ImmutableList.of(intermediateSplit)).get(0).get();
+            assertThat(leafThread.get()).startsWith("Node1-");
+            assertThat(intermediateThread.get()).startsWith("Node1-");
+
+            executor.removeTask(task1);
+            assertThat(node0.getTasks()).isEqualTo(0);
+
+            executor.addTask(new TaskId(new StageId("query", 1), 3, 1), () -> 0, 10, new Duration(1, MILLISECONDS), OptionalInt.empty());
+            assertThat(node0.getTasks()).isEqualTo(1);
+            assertThat(node1.getTasks()).isEqualTo(1);
+        }
+        finally {
+            executor.stop();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    public void testLeafDriversOverflowToOtherNumaNode()
+            throws ExecutionException, InterruptedException
+    {
+        NumaNode node0 = new NumaNode(0, 4, new FairScheduler(1, "Node0-%d", Ticker.systemTicker()));
+        NumaNode node1 = new NumaNode(1, 4, new FairScheduler(1, "Node1-%d", Ticker.systemTicker()));
+        ThreadPerDriverTaskExecutor executor = new ThreadPerDriverTaskExecutor(noopTracer(), testingVersionEmbedder(), ImmutableList.of(node0, node1), 1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        executor.start();
+
+        try {
+            TaskHandle task = executor.addTask(new TaskId(new StageId("query", 1), 1, 1), () -> 0, 10, new Duration(1, MILLISECONDS), OptionalInt.empty());
+            assertThat(node0.getTasks()).isEqualTo(1);
+
+            // occupy the only slot of the node of the task
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch finish = new CountDownLatch(1);
+            AtomicReference<String> firstThread = new AtomicReference<>();
+            SplitRunner first = new TestingSplitRunner(ImmutableList.of(duration -> {
+                firstThread.set(Thread.currentThread().getName());
+                started.countDown();
+                try {
+                    finish.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Futures.immediateVoidFuture();
+            }));
+            ListenableFuture<Void> firstDone = executor.enqueueSplits(task, false, ImmutableList.of(first)).get(0);
+            started.await();
+            assertThat(firstThread.get()).startsWith("Node0-");
+            assertThat(node0.getConcurrencyControlAvailableSlots()).isEqualTo(0);
+
+            // next leaf driver runs on the idle node instead of waiting for the slot
+            AtomicReference<String> secondThread = new AtomicReference<>();
+            SplitRunner second = new TestingSplitRunner(ImmutableList.of(duration -> {
+                secondThread.set(Thread.currentThread().getName());
+                return Futures.immediateVoidFuture();
+            }));
+            executor.enqueueSplits(task, false, ImmutableList.of(second)).get(0).get();
+            assertThat(secondThread.get()).startsWith("Node1-");
+            assertThat(executor.getOverflowedLeafDrivers()).isEqualTo(1);
+
+            finish.countDown();
+            firstDone.get();
+            assertThat(first.isFinished()).isTrue();
+            assertThat(second.isFinished()).isTrue();
+
+            // executor stats are summed across the nodes
+            assertThat(executor.getTaskExecutor().getExecutorCount()).isEqualTo(2);
+            assertThat(executor.getTaskExecutor().getTaskCount())
+                    .isEqualTo(node0.getTaskExecutor().getTaskCount() + node1.getTaskExecutor().getTaskCount());
+        }
+        finally {
+            executor.stop();
+        }
+    }
+
     @Test
     @Timeout(10)
     public void testYielding()
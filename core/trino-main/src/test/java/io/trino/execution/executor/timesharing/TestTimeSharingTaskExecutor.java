@@ -17,8 +17,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
 import io.airlift.testing.TestingTicker;
 import io.airlift.units.Duration;
+import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.trace.Span;
 import io.trino.execution.SplitRunner;
 import io.trino.execution.StageId;
@@ -39,6 +42,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
 import static io.trino.execution.executor.timesharing.MultilevelSplitQueue.LEVEL_CONTRIBUTION_CAP;
@@ -339,6 +343,35 @@ public class TestTimeSharingTaskExecutor
         }
     }
 
+    @Test
+    public void testQueuedLeafSplitsOrderedByWeight()
+    {
+        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2);
+        TimeSharingTaskHandle handle = new TimeSharingTaskHandle(new TaskId(new StageId("test", 0), 0, 0), splitQueue, () -> 1, 10, new Duration(1, SECONDS), OptionalInt.empty());
+
+        List<PrioritizedSplitRunner> splits = Arrays.stream(new long[] {100, 300, 100, 200})
+                .mapToObj(weight -> new PrioritizedSplitRunner(
+                        handle,
+                        handle.getNextSplitId(),
+                        new WeightedSplit(weight),
+                        Span.getInvalid(),
+                        OpenTelemetry.noop().getTracer("test"),
+                        new TestingTicker(),
+                        new CounterStat(),
+                        new CounterStat(),
+                        new TimeStat(),
+                        new TimeStat()))
+                .collect(toImmutableList());
+        splits.forEach(handle::enqueueSplit);
+
+        // heaviest split first, splits with the same weight in the order they were enqueued
+        assertThat(handle.pollNextSplit()).isSameAs(splits.get(1));
+        assertThat(handle.pollNextSplit()).isSameAs(splits.get(3));
+        assertThat(handle.pollNextSplit()).isSameAs(splits.get(0));
+        assertThat(handle.pollNextSplit()).isSameAs(splits.get(2));
+        assertThat(handle.pollNextSplit()).isNull();
+    }
+
     @Test
     public void testLevelContributionCap()
     {
@@ -376,6 +409,39 @@ public class TestTimeSharingTaskExecutor
         }
     }
 
+    @Test
+    public void testCpuWeight()
+    {
+        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2);
+        TimeSharingTaskExecutor taskExecutor = new TimeSharingTaskExecutor(4, 16, 1, 2, splitQueue, new TestingTicker());
+        TimeSharingTaskHandle handle0 = taskExecutor.addTask(new TaskId(new StageId("test0", 0), 0, 0), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty());
+        TimeSharingTaskHandle handle1 = taskExecutor.addTask(new TaskId(new StageId("test1", 0), 0, 0), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty(), 4);
+        assertThat(taskExecutor.getCpuShareByCpuWeight()).isEmpty();
+
+        // the task with the higher weight is charged a quarter of its scheduled time
+        handle0.addScheduledNanos(MILLISECONDS.toNanos(500));
+        handle1.addScheduledNanos(MILLISECONDS.toNanos(500));
+        assertThat(handle0.getPriority().getLevelPriority()).isEqualTo(MILLISECONDS.toNanos(500));
+        assertThat(handle1.getPriority().getLevelPriority()).isEqualTo(MILLISECONDS.toNanos(125));
+        // while the level is charged the full scheduled time
+        assertThat(splitQueue.getLevelScheduledTime(0)).isEqualTo(MILLISECONDS.toNanos(1000));
+
+        // and stays in the first level for longer
+        handle0.addScheduledNanos(SECONDS.toNanos(2));
+        handle1.addScheduledNanos(SECONDS.toNanos(2));
+        assertThat(handle0.getPriority().getLevel()).isEqualTo(1);
+        assertThat(handle1.getPriority().getLevel()).isEqualTo(0);
+        assertThat(handle1.getPriority().getLevelPriority()).isEqualTo(MILLISECONDS.toNanos(625));
+
+        handle1.addScheduledNanos(SECONDS.toNanos(5));
+        assertThat(handle1.getPriority().getLevel()).isEqualTo(1);
+
+        assertThat(taskExecutor.getCpuShareByCpuWeight()).isEqualTo("1=0.2500, 4=0.7500");
+
+        taskExecutor.removeTask(handle0);
+        taskExecutor.removeTask(handle1);
+    }
+
     @Test
     @Timeout(30)
     public void testMinMaxDriversPerTask()
@@ -555,6 +621,49 @@ public class TestTimeSharingTaskExecutor
         }
     }
 
+    private record WeightedSplit(long splitWeight)
+            implements SplitRunner
+    {
+        @Override
+        public long getSplitWeight()
+        {
+            return splitWeight;
+        }
+
+        @Override
+        public int getPipelineId()
+        {
+            return 0;
+        }
+
+        @Override
+        public Span getPipelineSpan()
+        {
+            return Span.getInvalid();
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return false;
+        }
+
+        @Override
+        public ListenableFuture<Void> processFor(Duration duration)
+        {
+            return immediateVoidFuture();
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "weighted-split";
+        }
+
+        @Override
+        public void close() {}
+    }
+
     private static class TestingJob
             implements SplitRunner
     {
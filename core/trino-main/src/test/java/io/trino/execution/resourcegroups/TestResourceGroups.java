@@ -50,6 +50,7 @@ import static io.trino.spi.resourcegroups.SchedulingPolicy.WEIGHTED;
 import static io.trino.spi.resourcegroups.SchedulingPolicy.WEIGHTED_FAIR;
 import static java.util.Collections.reverse;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TestResourceGroups
 {
@@ -899,6 +900,23 @@ public class TestResourceGroups
         }
     }
 
+    @Test
+    public void testCpuWeightInherited()
+    {
+        InternalResourceGroup root = new InternalResourceGroup("root", (group, export) -> {}, directExecutor());
+        assertThat(root.getCpuWeight()).isEqualTo(1);
+        root.setCpuWeight(4);
+        InternalResourceGroup interactive = root.getOrCreateSubGroup("interactive");
+        assertThat(interactive.getCpuWeight()).isEqualTo(4);
+        InternalResourceGroup batch = root.getOrCreateSubGroup("batch");
+        batch.setCpuWeight(1);
+        assertThat(batch.getCpuWeight()).isEqualTo(1);
+        assertThat(batch.getOrCreateSubGroup("etl").getCpuWeight()).isEqualTo(1);
+        assertThatThrownBy(() -> batch.setCpuWeight(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("weight must be positive");
+    }
+
     @Test
     @Timeout(10)
     public void testWeightedScheduling()
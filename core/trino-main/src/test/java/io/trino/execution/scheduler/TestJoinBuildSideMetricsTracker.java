@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.scheduler;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import io.trino.execution.JoinBuildSideMetrics;
+import io.trino.sql.planner.PlanNodeIdAllocator;
+import io.trino.sql.planner.Symbol;
+import io.trino.sql.planner.iterative.rule.test.PlanBuilder;
+import io.trino.sql.planner.plan.Assignments;
+import io.trino.sql.planner.plan.JoinNode;
+import io.trino.sql.planner.plan.JoinNode.EquiJoinClause;
+import io.trino.sql.planner.plan.JoinType;
+import io.trino.sql.planner.plan.PlanFragmentId;
+import io.trino.sql.planner.plan.PlanNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.execution.scheduler.JoinBuildSideMetricsTracker.createMetrics;
+import static io.trino.execution.scheduler.JoinBuildSideMetricsTracker.getBuildSourceFragments;
+import static io.trino.execution.scheduler.JoinBuildSideMetricsTracker.isTracked;
+import static io.trino.operator.RetryPolicy.NONE;
+import static io.trino.sql.planner.TestingPlannerContext.PLANNER_CONTEXT;
+import static io.trino.sql.planner.plan.ExchangeNode.Type.REPARTITION;
+import static io.trino.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static io.trino.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static io.trino.sql.planner.plan.JoinType.FULL;
+import static io.trino.sql.planner.plan.JoinType.INNER;
+import static io.trino.sql.planner.plan.JoinType.LEFT;
+import static io.trino.sql.planner.plan.JoinType.RIGHT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestJoinBuildSideMetricsTracker
+{
+    private final PlanBuilder planBuilder = new PlanBuilder(new PlanNodeIdAllocator(), PLANNER_CONTEXT, TEST_SESSION);
+    private final Symbol probeSymbol = planBuilder.symbol("probe");
+    private final Symbol buildSymbol = planBuilder.symbol("build");
+
+    @Test
+    public void testIsTracked()
+    {
+        assertThat(isTracked(join(INNER, PARTITIONED))).isTrue();
+        assertThat(isTracked(join(LEFT, REPLICATED))).isTrue();
+
+        // distribution type cannot be changed
+        assertThat(isTracked(join(RIGHT, PARTITIONED))).isFalse();
+        assertThat(isTracked(join(FULL, PARTITIONED))).isFalse();
+        assertThat(isTracked(planBuilder.join(INNER, planBuilder.values(probeSymbol), planBuilder.values(buildSymbol), new EquiJoinClause(probeSymbol, buildSymbol)))).isFalse();
+        assertThat(isTracked(planBuilder.join(INNER, REPLICATED, planBuilder.values(probeSymbol), planBuilder.values(buildSymbol)))).isFalse();
+    }
+
+    @Test
+    public void testGetBuildSourceFragments()
+    {
+        PlanNode remoteSource = planBuilder.remoteSource(
+                ImmutableList.of(new PlanFragmentId("1"), new PlanFragmentId("2")),
+                ImmutableList.of(buildSymbol),
+                Optional.empty(),
+                REPARTITION,
+                NONE);
+        assertThat(getBuildSourceFragments(remoteSource))
+                .containsExactly(new PlanFragmentId("1"), new PlanFragmentId("2"));
+        assertThat(getBuildSourceFragments(planBuilder.project(Assignments.identity(buildSymbol), remoteSource)))
+                .containsExactly(new PlanFragmentId("1"), new PlanFragmentId("2"));
+
+        // build side is computed in the join stage
+        assertThat(getBuildSourceFragments(planBuilder.values(buildSymbol))).isEmpty();
+    }
+
+    @Test
+    public void testCreateMetrics()
+    {
+        JoinNode join = join(INNER, PARTITIONED);
+
+        JoinBuildSideMetrics small = createMetrics(join, DataSize.of(1, MEGABYTE).toBytes(), DataSize.of(100, MEGABYTE));
+        assertThat(small.joinNodeId()).isEqualTo(join.getId());
+        assertThat(small.plannedDistributionType()).isEqualTo(PARTITIONED);
+        assertThat(small.sizeBasedDistributionType()).isEqualTo(REPLICATED);
+        assertThat(small.buildOutputDataSize().toBytes()).isEqualTo(DataSize.of(1, MEGABYTE).toBytes());
+
+        JoinBuildSideMetrics large = createMetrics(join, DataSize.of(101, MEGABYTE).toBytes(), DataSize.of(100, MEGABYTE));
+        assertThat(large.plannedDistributionType()).isEqualTo(PARTITIONED);
+        assertThat(large.sizeBasedDistributionType()).isEqualTo(PARTITIONED);
+    }
+
+    private JoinNode join(JoinType type, JoinNode.DistributionType distributionType)
+    {
+        return planBuilder.join(type, distributionType, planBuilder.values(probeSymbol), planBuilder.values(buildSymbol), new EquiJoinClause(probeSymbol, buildSymbol));
+    }
+}
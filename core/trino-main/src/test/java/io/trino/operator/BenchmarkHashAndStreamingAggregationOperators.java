@@ -263,6 +263,7 @@ public class BenchmarkHashAndStreamingAggregationOperators
                     spillerFactory,
                     new FlatHashStrategyCompiler(TYPE_OPERATORS),
                     TYPE_OPERATORS,
+                    Optional.empty(),
                     Optional.empty());
         }
 
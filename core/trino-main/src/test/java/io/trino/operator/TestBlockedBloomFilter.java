@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator;
+
+import io.airlift.slice.XxHash64;
+import io.airlift.units.DataSize;
+import org.junit.jupiter.api.Test;
+
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestBlockedBloomFilter
+{
+    @Test
+    public void testNoFalseNegatives()
+    {
+        BlockedBloomFilter bloomFilter = new BlockedBloomFilter(DataSize.of(16, KILOBYTE));
+        for (long value = 0; value < 10_000; value++) {
+            bloomFilter.put(XxHash64.hash(value));
+        }
+        for (long value = 0; value < 10_000; value++) {
+            assertThat(bloomFilter.mightContain(XxHash64.hash(value))).isTrue();
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate()
+    {
+        // 16kB gives 13 bits per value, for which the expected false positive rate is below 1%
+        BlockedBloomFilter bloomFilter = new BlockedBloomFilter(DataSize.of(16, KILOBYTE));
+        for (long value = 0; value < 10_000; value++) {
+            bloomFilter.put(XxHash64.hash(value));
+        }
+        int falsePositives = 0;
+        for (long value = 10_000; value < 110_000; value++) {
+            if (bloomFilter.mightContain(XxHash64.hash(value))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    public void testMerge()
+    {
+        BlockedBloomFilter first = new BlockedBloomFilter(DataSize.of(1, KILOBYTE));
+        BlockedBloomFilter second = new BlockedBloomFilter(DataSize.of(1, KILOBYTE));
+        for (long value = 0; value < 100; value++) {
+            first.put(XxHash64.hash(value));
+            second.put(XxHash64.hash(value + 100));
+        }
+        first.merge(second);
+        for (long value = 0; value < 200; value++) {
+            assertThat(first.mightContain(XxHash64.hash(value))).isTrue();
+        }
+
+        assertThatThrownBy(() -> first.merge(new BlockedBloomFilter(DataSize.of(2, KILOBYTE))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Cannot merge Bloom filters of different sizes");
+    }
+
+    @Test
+    public void testSize()
+    {
+        BlockedBloomFilter bloomFilter = new BlockedBloomFilter(DataSize.of(1, KILOBYTE));
+        assertThat(bloomFilter.getSizeInBytes()).isEqualTo(1024);
+        assertThat(bloomFilter.getRetainedSizeInBytes()).isGreaterThan(1024);
+
+        assertThatThrownBy(() -> new BlockedBloomFilter(DataSize.ofBytes(16)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("size must be at least 32 bytes");
+    }
+}
@@ -175,7 +175,8 @@ public class TestDirectExchangeClient
         DirectExchangeClientStatus status = exchangeClient.getStatus();
         assertThat(status.getBufferedPages()).isEqualTo(0);
 
-        // client should have sent only 3 requests: one to get all pages, one to acknowledge and one to get the done signal
+        // client should have sent only 3 requests: one to get all pages, one to get the done signal, whose token acknowledges
+        // the small pages without a separate acknowledge request, and one to delete the buffer
         assertStatus(status.getPageBufferClientStatuses().get(0), location, "closed", 3, 3, 3, "not scheduled");
         assertThat(status.getRequestDuration().getDigest().getCount()).isEqualTo(2.0);
 
@@ -232,7 +233,8 @@ public class TestDirectExchangeClient
         DirectExchangeClientStatus status = exchangeClient.getStatus();
         assertThat(status.getBufferedPages()).isEqualTo(0);
 
-        // client should have sent only 3 requests: one to get all pages, one to acknowledge and one to get the done signal
+        // client should have sent only 3 requests: one to get all pages, one to get the done signal, whose token acknowledges
+        // the small pages without a separate acknowledge request, and one to delete the buffer
         assertStatus(status.getPageBufferClientStatuses().get(0), location, "closed", 3, 3, 3, "not scheduled");
 
         exchangeClient.close();
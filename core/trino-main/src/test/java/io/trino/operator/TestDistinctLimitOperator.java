@@ -16,9 +16,12 @@ package io.trino.operator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import io.trino.RowPagesBuilder;
+import io.trino.Session;
+import io.trino.operator.join.JoinTestUtils.DummySpillerFactory;
 import io.trino.spi.Page;
 import io.trino.spi.type.Type;
 import io.trino.spi.type.TypeOperators;
+import io.trino.spiller.GenericPartitioningSpillerFactory;
 import io.trino.sql.planner.plan.PlanNodeId;
 import io.trino.testing.MaterializedResult;
 import org.junit.jupiter.api.AfterAll;
@@ -31,12 +34,15 @@ import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.trino.RowPagesBuilder.rowPagesBuilder;
 import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.SystemSessionProperties.DISTINCT_LIMIT_MIN_SPILLABLE_LIMIT;
 import static io.trino.operator.GroupByHashYieldAssertion.createPagesWithDistinctHashKeys;
 import static io.trino.operator.GroupByHashYieldAssertion.finishOperatorWithYieldingGroupByHash;
 import static io.trino.operator.OperatorAssertion.assertOperatorEquals;
+import static io.trino.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.VarcharType.VARCHAR;
 import static io.trino.testing.MaterializedResult.resultBuilder;
@@ -51,6 +57,11 @@ import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
 @Execution(CONCURRENT)
 public class TestDistinctLimitOperator
 {
+    private static final long SPILLABLE_LIMIT = 100;
+    private static final Session SPILLABLE_LIMIT_SESSION = Session.builder(TEST_SESSION)
+            .setSystemProperty(DISTINCT_LIMIT_MIN_SPILLABLE_LIMIT, String.valueOf(SPILLABLE_LIMIT))
+            .build();
+
     private final ExecutorService executor = newCachedThreadPool(daemonThreadsNamed(getClass().getSimpleName() + "-%s"));
     private final ScheduledExecutorService scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed(getClass().getSimpleName() + "-scheduledExecutor-%s"));
     private final FlatHashStrategyCompiler hashStrategyCompiler = new FlatHashStrategyCompiler(new TypeOperators());
@@ -168,6 +179,82 @@ public class TestDistinctLimitOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected, hashEnabled, ImmutableList.of(1));
     }
 
+    @Test
+    public void testDistinctLimitWithSpill()
+    {
+        testDistinctLimitWithSpill(true);
+        testDistinctLimitWithSpill(false);
+    }
+
+    @Test
+    public void testMinSpillableLimit()
+            throws Exception
+    {
+        // distinct values of a limit below the minimum spillable limit are kept in user memory
+        DriverContext driverContext = newDriverContext(SPILLABLE_LIMIT_SESSION);
+        try (Operator operator = createSpillableOperator(driverContext, SPILLABLE_LIMIT - 1)) {
+            assertThat(driverContext.getRevocableMemoryUsage()).isEqualTo(0);
+            assertThat(driverContext.getMemoryUsage()).isGreaterThan(0);
+        }
+
+        driverContext = newDriverContext(SPILLABLE_LIMIT_SESSION);
+        try (Operator operator = createSpillableOperator(driverContext, SPILLABLE_LIMIT)) {
+            assertThat(driverContext.getRevocableMemoryUsage()).isGreaterThan(0);
+        }
+    }
+
+    private Operator createSpillableOperator(DriverContext driverContext, long limit)
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(false, Ints.asList(0), BIGINT);
+        Page input = getOnlyElement(rowPagesBuilder.addSequencePage(5, 1).build());
+
+        OperatorFactory operatorFactory = new DistinctLimitOperator.DistinctLimitOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes(),
+                Ints.asList(0),
+                limit,
+                rowPagesBuilder.getHashChannel(),
+                hashStrategyCompiler,
+                true,
+                new GenericPartitioningSpillerFactory(new DummySpillerFactory()),
+                new TypeOperators());
+
+        Operator operator = operatorFactory.createOperator(driverContext);
+        operator.addInput(input);
+        return operator;
+    }
+
+    private void testDistinctLimitWithSpill(boolean hashEnabled)
+    {
+        DriverContext driverContext = newDriverContext(SPILLABLE_LIMIT_SESSION);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(3, 1)
+                .addSequencePage(5, 2)
+                .addSequencePage(5, 5)
+                .build();
+
+        OperatorFactory operatorFactory = new DistinctLimitOperator.DistinctLimitOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes(),
+                Ints.asList(0),
+                SPILLABLE_LIMIT,
+                rowPagesBuilder.getHashChannel(),
+                hashStrategyCompiler,
+                true,
+                new GenericPartitioningSpillerFactory(new DummySpillerFactory()),
+                new TypeOperators());
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT);
+        for (long i = 1; i < 10; i++) {
+            expected.row(i);
+        }
+
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected.build(), hashEnabled, Optional.of(1), true);
+    }
+
     @Test
     public void testMemoryReservationYield()
     {
@@ -196,7 +283,12 @@ public class TestDistinctLimitOperator
 
     private DriverContext newDriverContext()
     {
-        return createTaskContext(executor, scheduledExecutor, TEST_SESSION)
+        return newDriverContext(TEST_SESSION);
+    }
+
+    private DriverContext newDriverContext(Session session)
+    {
+        return createTaskContext(executor, scheduledExecutor, session)
                 .addPipelineContext(0, true, true, false)
                 .addDriverContext();
     }
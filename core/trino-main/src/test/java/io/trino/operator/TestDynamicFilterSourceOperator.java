@@ -33,9 +33,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.IntStream;
@@ -63,6 +67,9 @@ import static io.trino.operator.OperatorAssertion.finishOperator;
 import static io.trino.operator.OperatorAssertion.toMaterializedResult;
 import static io.trino.operator.OperatorAssertion.toPages;
 import static io.trino.operator.OperatorAssertion.toPagesPartial;
+import static io.trino.spi.function.InvocationConvention.InvocationArgumentConvention.NEVER_NULL;
+import static io.trino.spi.function.InvocationConvention.InvocationReturnConvention.FAIL_ON_NULL;
+import static io.trino.spi.function.InvocationConvention.simpleConvention;
 import static io.trino.spi.predicate.Range.equal;
 import static io.trino.spi.predicate.Range.range;
 import static io.trino.spi.type.BigintType.BIGINT;
@@ -420,6 +427,70 @@ public class TestDynamicFilterSourceOperator
                                 false)))));
     }
 
+    @Test
+    public void testSingleColumnCollectBloomFilterWhenTooManyDistinctValues()
+            throws Throwable
+    {
+        List<Map<DynamicFilterId, BlockedBloomFilter>> bloomFilters = new ArrayList<>();
+        OperatorFactory operatorFactory = new DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory(
+                0,
+                new PlanNodeId("PLAN_NODE_ID"),
+                new DynamicFilterSourceConsumer() {
+                    @Override
+                    public void addPartition(TupleDomain<DynamicFilterId> tupleDomain)
+                    {
+                        addPartition(tupleDomain, ImmutableMap.of());
+                    }
+
+                    @Override
+                    public void addPartition(TupleDomain<DynamicFilterId> tupleDomain, Map<DynamicFilterId, BlockedBloomFilter> partitionBloomFilters)
+                    {
+                        partitions.add(tupleDomain);
+                        bloomFilters.add(partitionBloomFilters);
+                    }
+
+                    @Override
+                    public void setPartitionCount(int partitionCount) {}
+
+                    @Override
+                    public boolean isDomainCollectionComplete()
+                    {
+                        return false;
+                    }
+                },
+                ImmutableList.of(channel(0, BIGINT)),
+                100,
+                DataSize.of(10, KILOBYTE),
+                1_000_000,
+                Optional.of(DataSize.of(4, KILOBYTE)),
+                typeOperators);
+
+        // values of the first page are added to the Bloom filter once there are too many distinct values,
+        // values of the second page are added directly
+        verifyPassthrough(createOperator(operatorFactory),
+                ImmutableList.of(BIGINT),
+                new Page(createLongSequenceBlock(0, 1_000)),
+                new Page(createLongSequenceBlock(1_000, 2_000)));
+        operatorFactory.noMoreOperators();
+
+        assertThat(partitions.build()).isEqualTo(ImmutableList.of(TupleDomain.withColumnDomains(ImmutableMap.of(
+                new DynamicFilterId("0"),
+                Domain.create(ValueSet.ofRanges(range(BIGINT, 0L, true, 1_999L, true)), false)))));
+        assertThat(bloomFilters).hasSize(1);
+        BlockedBloomFilter bloomFilter = bloomFilters.getFirst().get(new DynamicFilterId("0"));
+        MethodHandle hashCode = typeOperators.getHashCodeOperator(BIGINT, simpleConvention(FAIL_ON_NULL, NEVER_NULL));
+        for (long value = 0; value < 2_000; value++) {
+            assertThat(bloomFilter.mightContain((long) hashCode.invokeExact(value))).isTrue();
+        }
+        int falsePositives = 0;
+        for (long value = 2_000; value < 12_000; value++) {
+            if (bloomFilter.mightContain((long) hashCode.invokeExact(value))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(1_000);
+    }
+
     @Test
     public void testMultipleColumnsCollectBelowDistinctValuesLimit()
     {
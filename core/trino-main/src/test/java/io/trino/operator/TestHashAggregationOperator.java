@@ -24,6 +24,7 @@ import io.trino.RowPagesBuilder;
 import io.trino.memory.context.AggregatedMemoryContext;
 import io.trino.metadata.TestingFunctionResolution;
 import io.trino.operator.HashAggregationOperator.HashAggregationOperatorFactory;
+import io.trino.operator.HashAggregationOperator.InputFilter;
 import io.trino.operator.aggregation.TestingAggregationFunction;
 import io.trino.operator.aggregation.builder.HashAggregationBuilder;
 import io.trino.operator.aggregation.builder.InMemoryHashAggregationBuilder;
@@ -37,6 +38,7 @@ import io.trino.spi.type.TypeOperators;
 import io.trino.spiller.Spiller;
 import io.trino.spiller.SpillerFactory;
 import io.trino.sql.planner.plan.PlanNodeId;
+import io.trino.sql.relational.RowExpression;
 import io.trino.testing.MaterializedResult;
 import io.trino.testing.TestingTaskContext;
 import org.junit.jupiter.api.AfterAll;
@@ -67,6 +69,8 @@ import static io.trino.SessionTestUtils.TEST_SESSION;
 import static io.trino.block.BlockAssertions.createLongsBlock;
 import static io.trino.block.BlockAssertions.createRepeatedValuesBlock;
 import static io.trino.operator.AggregationMetrics.INPUT_ROWS_WITH_PARTIAL_AGGREGATION_DISABLED_METRIC_NAME;
+import static io.trino.operator.AggregationMetrics.PARTIAL_AGGREGATION_DISABLED_METRIC_NAME;
+import static io.trino.operator.AggregationMetrics.PARTIAL_AGGREGATION_ENABLED_METRIC_NAME;
 import static io.trino.operator.GroupByHashYieldAssertion.GroupByHashYieldResult;
 import static io.trino.operator.GroupByHashYieldAssertion.createPagesWithDistinctHashKeys;
 import static io.trino.operator.GroupByHashYieldAssertion.finishOperatorWithYieldingGroupByHash;
@@ -75,6 +79,7 @@ import static io.trino.operator.OperatorAssertion.assertPagesEqualIgnoreOrder;
 import static io.trino.operator.OperatorAssertion.dropChannel;
 import static io.trino.operator.OperatorAssertion.toMaterializedResult;
 import static io.trino.operator.OperatorAssertion.toPages;
+import static io.trino.spi.function.OperatorType.LESS_THAN;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.BooleanType.BOOLEAN;
 import static io.trino.spi.type.DoubleType.DOUBLE;
@@ -82,6 +87,9 @@ import static io.trino.spi.type.VarcharType.VARCHAR;
 import static io.trino.sql.analyzer.TypeSignatureProvider.fromTypes;
 import static io.trino.sql.planner.plan.AggregationNode.Step.PARTIAL;
 import static io.trino.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static io.trino.sql.relational.Expressions.call;
+import static io.trino.sql.relational.Expressions.constant;
+import static io.trino.sql.relational.Expressions.field;
 import static io.trino.testing.MaterializedResult.resultBuilder;
 import static io.trino.testing.TestingTaskContext.createTaskContext;
 import static java.lang.String.format;
@@ -192,6 +200,78 @@ public class TestHashAggregationOperator
                 .isTrue();
     }
 
+    @Test
+    public void testHashAggregationWithInputFilter()
+    {
+        testHashAggregationWithInputFilter(true);
+        testHashAggregationWithInputFilter(false);
+    }
+
+    private void testHashAggregationWithInputFilter(boolean columnarFilterEvaluationEnabled)
+    {
+        List<Long> keys = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            keys.add(i);
+            values.add((i * 7) % 100);
+        }
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(false, hashChannels, BIGINT, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addBlocksPage(createLongsBlock(keys), createLongsBlock(values))
+                // no position passes the filter
+                .addBlocksPage(createLongsBlock(keys), createRepeatedValuesBlock(99L, keys.size()))
+                .addBlocksPage(createLongsBlock(keys), createLongsBlock(values))
+                .build();
+
+        RowExpression filter = call(
+                FUNCTION_RESOLUTION.resolveOperator(LESS_THAN, ImmutableList.of(BIGINT, BIGINT)),
+                field(1, BIGINT),
+                constant(30L, BIGINT));
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                SINGLE,
+                false,
+                ImmutableList.of(COUNT.createAggregatorFactory(SINGLE, ImmutableList.of(0), OptionalInt.empty()),
+                        LONG_SUM.createAggregatorFactory(SINGLE, ImmutableList.of(1), OptionalInt.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                Optional.of(DataSize.of(16, MEGABYTE)),
+                false,
+                succinctBytes(0),
+                new DummySpillerFactory(),
+                hashStrategyCompiler,
+                typeOperators,
+                Optional.empty(),
+                Optional.of(new InputFilter(
+                        1,
+                        new PlanNodeId("filter"),
+                        FUNCTION_RESOLUTION.getExpressionCompiler().compileFilterEvaluator(columnarFilterEvaluationEnabled, filter, Optional.empty()))));
+
+        DriverContext driverContext = createDriverContext();
+
+        // groups are only created for the positions passing the filter
+        MaterializedResult.Builder expectedBuilder = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+        for (int i = 0; i < keys.size(); i++) {
+            if (values.get(i) < 30) {
+                expectedBuilder.row(keys.get(i), 2L, 2 * values.get(i));
+            }
+        }
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expectedBuilder.build());
+
+        // the filter reports the positions it reads and selects under its own plan node
+        OperatorStats filterStats = getOnlyElement(driverContext.getOperatorStats().stream()
+                .filter(operatorStats -> operatorStats.getPlanNodeId().equals(new PlanNodeId("filter")))
+                .toList());
+        assertThat(filterStats.getInputPositions()).isEqualTo(3L * keys.size());
+        assertThat(filterStats.getOutputPositions()).isEqualTo(2 * values.stream().filter(value -> value < 30).count());
+    }
+
     @Test
     public void testHashAggregationWithGlobals()
     {
@@ -677,6 +757,7 @@ public class TestHashAggregationOperator
                 spillerFactory,
                 hashStrategyCompiler,
                 typeOperators,
+                Optional.empty(),
                 Optional.empty());
 
         DriverContext driverContext = createDriverContext(smallPagesSpillThresholdSize);
@@ -733,6 +814,7 @@ public class TestHashAggregationOperator
                 new FailingSpillerFactory(),
                 hashStrategyCompiler,
                 typeOperators,
+                Optional.empty(),
                 Optional.empty());
 
         assertThatThrownBy(() -> toPages(operatorFactory, driverContext, input))
@@ -863,6 +945,77 @@ public class TestHashAggregationOperator
         assertThat(partialAggregationController.isPartialAggregationDisabled()).isFalse();
     }
 
+    @Test
+    public void testAdaptivePartialAggregationWithCardinalitySampling()
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+
+        DataSize maxPartialMemory = DataSize.ofBytes(1);
+        PartialAggregationController partialAggregationController = new PartialAggregationController(maxPartialMemory, 0.8, true);
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                PARTIAL,
+                ImmutableList.of(LONG_MIN.createAggregatorFactory(PARTIAL, ImmutableList.of(0), OptionalInt.empty())),
+                Optional.empty(),
+                Optional.empty(),
+                100,
+                Optional.of(maxPartialMemory), // this setting makes operator to flush after each page
+                hashStrategyCompiler,
+                typeOperators,
+                // 1 byte maxPartialMemory causes every flush and every sampled page to complete an evaluation window
+                Optional.of(partialAggregationController));
+
+        // the first page is almost unique, so partial aggregation is turned off after its flush.
+        // the second page passes through, but its sampled cardinality turns partial aggregation back on
+        DriverContext driverContext = createDriverContext(1024);
+        List<Page> operator1Input = rowPagesBuilder(false, hashChannels, BIGINT)
+                .addBlocksPage(createLongsBlock(0, 1, 2, 3, 4, 5, 6, 7, 8, 8))
+                .addBlocksPage(createRepeatedValuesBlock(1, 10))
+                .build();
+        List<Page> operator1Expected = rowPagesBuilder(BIGINT, BIGINT)
+                .addBlocksPage(createLongsBlock(0, 1, 2, 3, 4, 5, 6, 7, 8), createLongsBlock(0, 1, 2, 3, 4, 5, 6, 7, 8))
+                .addBlocksPage(createRepeatedValuesBlock(1, 10), createRepeatedValuesBlock(1, 10))
+                .build();
+        assertOperatorEquals(driverContext, operatorFactory, operator1Input, operator1Expected);
+        assertThat(partialAggregationController.isPartialAggregationDisabled()).isFalse();
+        assertLongCountMetric(driverContext, PARTIAL_AGGREGATION_DISABLED_METRIC_NAME, 1);
+        assertLongCountMetric(driverContext, PARTIAL_AGGREGATION_ENABLED_METRIC_NAME, 0);
+
+        // well reduced input does not carry over to the next evaluation window, so unique input turns partial aggregation off again
+        List<Page> operator2Input = rowPagesBuilder(false, hashChannels, BIGINT)
+                .addBlocksPage(createRepeatedValuesBlock(1, 10))
+                .addBlocksPage(createLongsBlock(0, 1, 2, 3, 4, 5, 6, 7, 8, 9))
+                .build();
+        List<Page> operator2Expected = rowPagesBuilder(BIGINT, BIGINT)
+                .addBlocksPage(createRepeatedValuesBlock(1, 1), createRepeatedValuesBlock(1, 1))
+                .addBlocksPage(createLongsBlock(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), createLongsBlock(0, 1, 2, 3, 4, 5, 6, 7, 8, 9))
+                .build();
+        assertOperatorEquals(operatorFactory, operator2Input, operator2Expected);
+        assertThat(partialAggregationController.isPartialAggregationDisabled()).isTrue();
+
+        // unique input keeps partial aggregation turned off, until low cardinality input is sampled
+        driverContext = createDriverContext(1024);
+        List<Page> operator3Input = rowPagesBuilder(false, hashChannels, BIGINT)
+                .addBlocksPage(createLongsBlock(0, 1, 2, 3, 4, 5, 6, 7, 8, 9))
+                .addBlocksPage(createRepeatedValuesBlock(5, 10))
+                .addBlocksPage(createRepeatedValuesBlock(5, 10))
+                .build();
+        List<Page> operator3Expected = rowPagesBuilder(BIGINT, BIGINT)
+                .addBlocksPage(createLongsBlock(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), createLongsBlock(0, 1, 2, 3, 4, 5, 6, 7, 8, 9))
+                .addBlocksPage(createRepeatedValuesBlock(5, 10), createRepeatedValuesBlock(5, 10))
+                .addBlocksPage(createRepeatedValuesBlock(5, 1), createRepeatedValuesBlock(5, 1))
+                .build();
+        assertOperatorEquals(driverContext, operatorFactory, operator3Input, operator3Expected);
+        assertThat(partialAggregationController.isPartialAggregationDisabled()).isFalse();
+        assertLongCountMetric(driverContext, PARTIAL_AGGREGATION_DISABLED_METRIC_NAME, 1);
+        assertLongCountMetric(driverContext, PARTIAL_AGGREGATION_ENABLED_METRIC_NAME, 1);
+        assertInputRowsWithPartialAggregationDisabled(driverContext, 20);
+    }
+
     @Test
     public void testAdaptivePartialAggregationTriggeredOnlyOnFlush()
     {
@@ -916,6 +1069,12 @@ public class TestHashAggregationOperator
         assertInputRowsWithPartialAggregationDisabled(driverContext, 20);
     }
 
+    private static void assertLongCountMetric(DriverContext context, String metricName, long expectedCount)
+    {
+        LongCount metric = (LongCount) context.getDriverStats().getOperatorStats().get(0).getMetrics().getMetrics().get(metricName);
+        assertThat(metric.getTotal()).isEqualTo(expectedCount);
+    }
+
     private void assertInputRowsWithPartialAggregationDisabled(DriverContext context, long expectedRowCount)
     {
         LongCount metric = ((LongCount) context.getDriverStats().getOperatorStats().get(0).getMetrics().getMetrics().get(INPUT_ROWS_WITH_PARTIAL_AGGREGATION_DISABLED_METRIC_NAME));
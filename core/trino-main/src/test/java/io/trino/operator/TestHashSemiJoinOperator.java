@@ -19,9 +19,12 @@ import io.airlift.units.DataSize;
 import io.trino.ExceededMemoryLimitException;
 import io.trino.RowPagesBuilder;
 import io.trino.operator.SetBuilderOperator.SetBuilderOperatorFactory;
+import io.trino.operator.join.JoinTestUtils.DummySpillerFactory;
 import io.trino.spi.Page;
 import io.trino.spi.type.Type;
 import io.trino.spi.type.TypeOperators;
+import io.trino.spiller.GenericPartitioningSpillerFactory;
+import io.trino.spiller.PartitioningSpillerFactory;
 import io.trino.sql.gen.JoinCompiler;
 import io.trino.sql.planner.plan.PlanNodeId;
 import io.trino.testing.MaterializedResult;
@@ -31,15 +34,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.parallel.Execution;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
 import static com.google.common.collect.Iterables.concat;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.trino.RowPagesBuilder.rowPagesBuilder;
 import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.operator.OperatorAssertion.assertPagesEqualIgnoreOrder;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.BooleanType.BOOLEAN;
 import static io.trino.spi.type.VarcharType.VARCHAR;
@@ -47,6 +54,7 @@ import static io.trino.testing.MaterializedResult.resultBuilder;
 import static io.trino.testing.TestingTaskContext.createTaskContext;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
 import static org.junit.jupiter.api.parallel.ExecutionMode.SAME_THREAD;
@@ -147,6 +155,109 @@ public class TestHashSemiJoinOperator
         OperatorAssertion.assertOperatorEquals(joinOperatorFactory, driverContext, probeInput, expected, hashEnabled, ImmutableList.of(probeTypes.size()));
     }
 
+    @Test
+    public void testSemiJoinWithSpill()
+    {
+        testSemiJoinWithSpill(true);
+        testSemiJoinWithSpill(false);
+    }
+
+    private void testSemiJoinWithSpill(boolean hashEnabled)
+    {
+        DriverContext driverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+        PartitioningSpillerFactory partitioningSpillerFactory = new GenericPartitioningSpillerFactory(new DummySpillerFactory());
+
+        // build
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT);
+        List<Page> buildInput = rowPagesBuilder
+                .row(10L)
+                .row(30L)
+                .row(30L)
+                .row(35L)
+                .pageBreak()
+                .row(36L)
+                .row(37L)
+                .row(50L)
+                .build();
+        SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(
+                1,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes().get(0),
+                0,
+                rowPagesBuilder.getHashChannel(),
+                10,
+                new JoinCompiler(typeOperators),
+                typeOperators,
+                true,
+                partitioningSpillerFactory,
+                4,
+                OptionalInt.of(1));
+        Operator setBuilderOperator = setBuilderOperatorFactory.createOperator(driverContext);
+
+        setBuilderOperator.addInput(buildInput.get(0));
+        // spill the set built so far, subsequent input is spilled directly
+        getFutureValue(setBuilderOperator.startMemoryRevoke());
+        setBuilderOperator.finishMemoryRevoke();
+        assertThat(driverContext.getRevocableMemoryUsage()).isEqualTo(0);
+        setBuilderOperator.addInput(buildInput.get(1));
+        setBuilderOperator.finish();
+
+        // probe
+        List<Type> probeTypes = ImmutableList.of(BIGINT, BIGINT);
+        RowPagesBuilder rowPagesBuilderProbe = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT, BIGINT);
+        List<Page> probeInput = rowPagesBuilderProbe
+                .addSequencePage(10, 30, 0)
+                .build();
+        Optional<Integer> probeHashChannel = hashEnabled ? Optional.of(probeTypes.size()) : Optional.empty();
+        OperatorFactory joinOperatorFactory = HashSemiJoinOperator.createOperatorFactory(
+                2,
+                new PlanNodeId("test"),
+                setBuilderOperatorFactory.getSetProvider(),
+                rowPagesBuilderProbe.getTypes(),
+                0,
+                probeHashChannel,
+                partitioningSpillerFactory,
+                typeOperators);
+        Operator joinOperator = joinOperatorFactory.createOperator(driverContext);
+
+        // build operator unspills partitions as they are requested by the probe operator
+        ImmutableList.Builder<Page> output = ImmutableList.builder();
+        Iterator<Page> probePages = probeInput.iterator();
+        while (!joinOperator.isFinished() || !setBuilderOperator.isFinished()) {
+            if (!setBuilderOperator.isFinished() && setBuilderOperator.isBlocked().isDone()) {
+                setBuilderOperator.finish();
+            }
+            if (!probePages.hasNext()) {
+                joinOperator.finish();
+            }
+            else if (joinOperator.needsInput()) {
+                joinOperator.addInput(probePages.next());
+            }
+            Page outputPage = joinOperator.getOutput();
+            if (outputPage != null) {
+                output.add(outputPage);
+            }
+        }
+        joinOperator.close();
+        setBuilderOperator.close();
+
+        // expected
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), concat(probeTypes, ImmutableList.of(BOOLEAN)))
+                .row(30L, 0L, true)
+                .row(31L, 1L, false)
+                .row(32L, 2L, false)
+                .row(33L, 3L, false)
+                .row(34L, 4L, false)
+                .row(35L, 5L, true)
+                .row(36L, 6L, true)
+                .row(37L, 7L, true)
+                .row(38L, 8L, false)
+                .row(39L, 9L, false)
+                .build();
+
+        assertPagesEqualIgnoreOrder(driverContext, output.build(), expected, hashEnabled, probeHashChannel);
+    }
+
     @Test
     public void testSemiJoinOnVarcharType()
     {
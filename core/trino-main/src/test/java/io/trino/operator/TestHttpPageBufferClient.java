@@ -33,6 +33,7 @@ import io.trino.operator.HttpPageBufferClient.ClientCallback;
 import io.trino.spi.HostAddress;
 import io.trino.spi.Page;
 import io.trino.spi.TrinoException;
+import io.trino.spi.block.LongArrayBlock;
 import io.trino.spi.block.RunLengthEncodedBlock;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -45,6 +46,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
@@ -68,6 +70,7 @@ import static io.trino.spi.StandardErrorCode.PAGE_TOO_LARGE;
 import static io.trino.spi.StandardErrorCode.PAGE_TRANSPORT_ERROR;
 import static io.trino.spi.StandardErrorCode.PAGE_TRANSPORT_TIMEOUT;
 import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.testing.assertions.Assert.assertEventually;
 import static io.trino.util.Failures.WORKER_NODE_ERROR;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -193,6 +196,63 @@ public class TestHttpPageBufferClient
         assertStatus(client, location, "closed", 3, 5, 5, 0, "not scheduled");
     }
 
+    @Test
+    public void testOnlyLargeResponsesAcknowledged()
+            throws Exception
+    {
+        DataSize expectedMaxSize = DataSize.of(11, Unit.MEGABYTE);
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(expectedMaxSize);
+        AtomicInteger acknowledgeRequests = new AtomicInteger();
+
+        CyclicBarrier requestComplete = new CyclicBarrier(2);
+        TestingClientCallback callback = new TestingClientCallback(requestComplete);
+
+        URI location = URI.create("http://localhost:8080");
+        HttpPageBufferClient client = new HttpPageBufferClient(
+                "localhost",
+                new TestingHttpClient(
+                        request -> {
+                            if (request.getUri().getPath().endsWith("/acknowledge")) {
+                                acknowledgeRequests.incrementAndGet();
+                                return new TestingResponse(HttpStatus.OK, ImmutableListMultimap.of(), new byte[0]);
+                            }
+                            return processor.handle(request);
+                        },
+                        scheduler),
+                DataIntegrityVerification.ABORT,
+                expectedMaxSize,
+                new Duration(1, TimeUnit.MINUTES),
+                true,
+                TASK_ID,
+                location,
+                callback,
+                scheduler,
+                pageBufferClientCallbackExecutor);
+
+        // small response is acknowledged by the next request
+        processor.addPage(location, new Page(100));
+        client.scheduleRequest();
+        requestComplete.await(10, TimeUnit.SECONDS);
+        assertThat(callback.getPages()).hasSize(1);
+
+        // large response is acknowledged right away
+        Random random = new Random(42);
+        long[] values = new long[20_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong();
+        }
+        Page largePage = new Page(new LongArrayBlock(values.length, Optional.empty(), values));
+        processor.addPage(location, largePage);
+        callback.resetStats();
+        client.scheduleRequest();
+        requestComplete.await(10, TimeUnit.SECONDS);
+        assertThat(callback.getPages()).hasSize(1);
+        assertPageEquals(largePage, callback.getPages().get(0));
+
+        assertEventually(() -> assertThat(acknowledgeRequests.get()).isEqualTo(1));
+        client.close();
+    }
+
     @Test
     public void testLifecycle()
             throws Exception
@@ -85,6 +85,24 @@ public class TestOperationTimer
                 .isLessThanOrEqualTo(overallTiming.getTiming().getCpuNanos());
     }
 
+    @Test
+    public void testCpuTimeOnVirtualThread()
+            throws InterruptedException
+    {
+        OperationTiming timing = new OperationTiming();
+        Thread thread = Thread.ofVirtual().start(() -> {
+            OperationTimer timer = new OperationTimer(true, false);
+            doSomething();
+            timer.end(timing);
+        });
+        thread.join();
+
+        // wall time must not be reported as CPU time
+        assertThat(timing.getCalls()).isEqualTo(1);
+        assertThat(timing.getWallNanos()).isGreaterThan(0);
+        assertThat(timing.getCpuNanos()).isEqualTo(0);
+    }
+
     @Test
     public void testOperationAfterEndAreNotAllowed()
     {
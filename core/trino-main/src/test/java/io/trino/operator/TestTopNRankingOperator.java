@@ -24,6 +24,7 @@ import io.trino.spi.type.Type;
 import io.trino.spi.type.TypeOperators;
 import io.trino.sql.gen.OrderingCompiler;
 import io.trino.sql.planner.plan.PlanNodeId;
+import io.trino.sql.planner.plan.TopNRankingNode.RankingType;
 import io.trino.testing.MaterializedResult;
 import io.trino.type.BlockTypeOperators;
 import org.junit.jupiter.api.AfterAll;
@@ -43,6 +44,7 @@ import static io.trino.SessionTestUtils.TEST_SESSION;
 import static io.trino.operator.GroupByHashYieldAssertion.createPagesWithDistinctHashKeys;
 import static io.trino.operator.GroupByHashYieldAssertion.finishOperatorWithYieldingGroupByHash;
 import static io.trino.operator.OperatorAssertion.assertOperatorEquals;
+import static io.trino.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
 import static io.trino.spi.connector.SortOrder.ASC_NULLS_FIRST;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.DoubleType.DOUBLE;
@@ -115,7 +117,11 @@ public class TestTopNRankingOperator
                     Optional.empty(),
                     hashStrategyCompiler,
                     orderingCompiler.compilePageWithPositionComparator(ImmutableList.of(DOUBLE), Ints.asList(1), ImmutableList.of(SortOrder.ASC_NULLS_LAST)),
-                    blockTypeOperators);
+                    blockTypeOperators,
+                    false,
+                    Optional.empty(),
+                    DataSize.ofBytes(0),
+                    typeOperators);
 
             MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE, VARCHAR, BIGINT)
                     .row(0.3, "a", 1L)
@@ -132,6 +138,74 @@ public class TestTopNRankingOperator
         }
     }
 
+    @Test
+    public void testPartitionedWithSpill()
+    {
+        testPartitionedWithSpill(ROW_NUMBER, DataSize.ofBytes(1));
+        testPartitionedWithSpill(ROW_NUMBER, DataSize.of(16, DataSize.Unit.MEGABYTE));
+        testPartitionedWithSpill(RANK, DataSize.ofBytes(1));
+        testPartitionedWithSpill(RANK, DataSize.of(16, DataSize.Unit.MEGABYTE));
+    }
+
+    private void testPartitionedWithSpill(RankingType rankingType, DataSize unspillMemoryLimit)
+    {
+        DriverContext driverContext = newDriverContext();
+        DummySpillerFactory spillerFactory = new DummySpillerFactory();
+
+        List<Page> input = rowPagesBuilder(VARCHAR, DOUBLE)
+                .row("a", 0.3)
+                .row("b", 0.2)
+                .row("c", 0.1)
+                .row("c", 0.91)
+                .pageBreak()
+                .row("a", 0.4)
+                .pageBreak()
+                .row("a", 0.5)
+                .row("a", 0.3)
+                .row("b", 0.7)
+                .row("b", 0.8)
+                .pageBreak()
+                .row("b", 0.9)
+                .row("a", 0.1)
+                .build();
+
+        TopNRankingOperatorFactory operatorFactory = new TopNRankingOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                rankingType,
+                ImmutableList.of(VARCHAR, DOUBLE),
+                Ints.asList(1, 0),
+                Ints.asList(0),
+                ImmutableList.of(VARCHAR),
+                Ints.asList(1),
+                3,
+                false,
+                Optional.empty(),
+                10,
+                Optional.empty(),
+                hashStrategyCompiler,
+                orderingCompiler.compilePageWithPositionComparator(ImmutableList.of(DOUBLE), Ints.asList(1), ImmutableList.of(SortOrder.ASC_NULLS_LAST)),
+                blockTypeOperators,
+                true,
+                Optional.of(spillerFactory),
+                unspillMemoryLimit,
+                typeOperators);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE, VARCHAR, BIGINT)
+                .row(0.1, "a", 1L)
+                .row(0.3, "a", 2L)
+                .row(0.3, "a", rankingType == RANK ? 2L : 3L)
+                .row(0.2, "b", 1L)
+                .row(0.7, "b", 2L)
+                .row(0.8, "b", 3L)
+                .row(0.1, "c", 1L)
+                .row(0.91, "c", 2L)
+                .build();
+
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected, true);
+        assertThat(spillerFactory.getSpillsCount()).isGreaterThan(0);
+    }
+
     @Test
     public void testUnPartitioned()
     {
@@ -170,7 +244,11 @@ public class TestTopNRankingOperator
                     partial ? Optional.of(DataSize.ofBytes(1)) : Optional.empty(),
                     hashStrategyCompiler,
                     orderingCompiler.compilePageWithPositionComparator(ImmutableList.of(DOUBLE), Ints.asList(1), ImmutableList.of(SortOrder.ASC_NULLS_LAST)),
-                    blockTypeOperators);
+                    blockTypeOperators,
+                    false,
+                    Optional.empty(),
+                    DataSize.ofBytes(0),
+                    typeOperators);
 
             MaterializedResult expected;
             if (partial) {
@@ -235,7 +313,11 @@ public class TestTopNRankingOperator
                     partial ? Optional.of(DataSize.of(1, DataSize.Unit.BYTE)) : Optional.empty(),
                     hashStrategyCompiler,
                     orderingCompiler.compilePageWithPositionComparator(ImmutableList.of(DOUBLE), Ints.asList(1), ImmutableList.of(SortOrder.ASC_NULLS_LAST)),
-                    blockTypeOperators);
+                    blockTypeOperators,
+                    false,
+                    Optional.empty(),
+                    DataSize.ofBytes(0),
+                    typeOperators);
 
             TopNRankingOperator operator = (TopNRankingOperator) operatorFactory.createOperator(driverContext);
             for (Page inputPage : input) {
@@ -278,7 +360,11 @@ public class TestTopNRankingOperator
                 Optional.empty(),
                 hashStrategyCompiler,
                 orderingCompiler.compilePageWithPositionComparator(ImmutableList.of(type), Ints.asList(0), ImmutableList.of(SortOrder.ASC_NULLS_LAST)),
-                blockTypeOperators);
+                blockTypeOperators,
+                false,
+                Optional.empty(),
+                DataSize.ofBytes(0),
+                typeOperators);
 
         // get result with yield; pick a relatively small buffer for heaps
         GroupByHashYieldAssertion.GroupByHashYieldResult result = finishOperatorWithYieldingGroupByHash(
@@ -338,7 +424,11 @@ public class TestTopNRankingOperator
                 Optional.empty(),
                 hashStrategyCompiler,
                 orderingCompiler.compilePageWithPositionComparator(ImmutableList.of(DOUBLE), Ints.asList(1), ImmutableList.of(ASC_NULLS_FIRST)),
-                blockTypeOperators);
+                blockTypeOperators,
+                false,
+                Optional.empty(),
+                DataSize.ofBytes(0),
+                typeOperators);
 
         MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE, VARCHAR, BIGINT)
                 .row(null, "a", 1L)
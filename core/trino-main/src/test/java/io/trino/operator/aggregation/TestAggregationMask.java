@@ -166,6 +166,39 @@ public class TestAggregationMask
         }
     }
 
+    @Test
+    public void testRetainPositions()
+    {
+        AggregationMask aggregationMask = AggregationMask.createSelectAll(0);
+        assertAggregationMaskAll(aggregationMask, 0);
+
+        for (int positionCount = 7; positionCount < 10; positionCount++) {
+            aggregationMask.reset(positionCount);
+            assertAggregationMaskAll(aggregationMask, positionCount);
+
+            aggregationMask.retainPositions(new int[] {1, 3, 5, 6}, 4);
+            assertAggregationMaskPositions(aggregationMask, positionCount, 1, 3, 5, 6);
+
+            boolean[] nullFlags = new boolean[positionCount];
+            nullFlags[3] = true;
+            aggregationMask.unselectNullPositions(new IntArrayBlock(positionCount, Optional.of(nullFlags), new int[positionCount]));
+            assertAggregationMaskPositions(aggregationMask, positionCount, 1, 5, 6);
+
+            // only the first positions of the array are used
+            aggregationMask.retainPositions(new int[] {0, 1, 6, 5}, 3);
+            assertAggregationMaskPositions(aggregationMask, positionCount, 1, 6);
+
+            aggregationMask.retainPositions(new int[0], 0);
+            assertAggregationMaskPositions(aggregationMask, positionCount);
+
+            aggregationMask.reset(positionCount);
+            int[] allPositions = new int[positionCount];
+            Arrays.setAll(allPositions, position -> position);
+            aggregationMask.retainPositions(allPositions, positionCount);
+            assertAggregationMaskAll(aggregationMask, positionCount);
+        }
+    }
+
     private static void assertAggregationMaskAll(AggregationMask aggregationMask, int expectedPositionCount)
     {
         assertThat(aggregationMask.isSelectAll()).isTrue();
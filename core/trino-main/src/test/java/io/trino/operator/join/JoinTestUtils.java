@@ -356,6 +356,12 @@ public final class JoinTestUtils
                     return unmodifiableIterator(spills.iterator());
                 }
 
+                @Override
+                public Iterator<Page> getRereadableSpilledPages()
+                {
+                    return getSpilledPages();
+                }
+
                 @Override
                 public long getSpilledPagesInMemorySize()
                 {
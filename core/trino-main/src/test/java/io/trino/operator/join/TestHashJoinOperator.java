@@ -23,6 +23,7 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.trino.ExceededMemoryLimitException;
 import io.trino.RowPagesBuilder;
+import io.trino.Session;
 import io.trino.connector.CatalogServiceProvider;
 import io.trino.execution.NodeTaskMap;
 import io.trino.execution.StageId;
@@ -78,6 +79,7 @@ import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.trino.RowPagesBuilder.rowPagesBuilder;
 import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.SystemSessionProperties.JOIN_MAX_UNSPILLED_PARTITION_SIZE;
 import static io.trino.operator.JoinOperatorType.fullOuterJoin;
 import static io.trino.operator.JoinOperatorType.innerJoin;
 import static io.trino.operator.JoinOperatorType.lookupOuterJoin;
@@ -86,6 +88,7 @@ import static io.trino.operator.OperatorAssertion.assertOperatorEquals;
 import static io.trino.operator.OperatorAssertion.dropChannel;
 import static io.trino.operator.OperatorAssertion.without;
 import static io.trino.operator.OperatorFactories.spillingJoin;
+import static io.trino.operator.join.HashBuilderOperator.MAX_SPILL_REPARTITIONING_LEVEL;
 import static io.trino.operator.join.JoinTestUtils.buildLookupSource;
 import static io.trino.operator.join.JoinTestUtils.getHashChannelAsInt;
 import static io.trino.operator.join.JoinTestUtils.innerJoinOperatorFactory;
@@ -94,6 +97,7 @@ import static io.trino.operator.join.JoinTestUtils.runDriverInThread;
 import static io.trino.operator.join.JoinTestUtils.setupBuildSide;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.VarcharType.VARCHAR;
+import static io.trino.testing.TestingSession.testSessionBuilder;
 import static java.util.Arrays.asList;
 import static java.util.Collections.nCopies;
 import static java.util.Collections.singletonList;
@@ -370,11 +374,40 @@ public class TestHashJoinOperator
                 .hasMessage("Unspill failed");
     }
 
+    @Test
+    public void testInnerJoinWithSpillRepartitioning()
+            throws Exception
+    {
+        // every partition spilled during build is too large to be unspilled, so it is repartitioned up to the maximum level
+        Session session = testSessionBuilder()
+                .setSystemProperty(JOIN_MAX_UNSPILLED_PARTITION_SIZE, "1B")
+                .build();
+        for (boolean probeHashEnabled : ImmutableList.of(false, true)) {
+            JoinOperatorInfo info = innerJoinWithSpill(session, probeHashEnabled, nCopies(PARTITION_COUNT, WhenSpill.DURING_BUILD), SINGLE_STREAM_SPILLER_FACTORY, PARTITIONING_SPILLER_FACTORY);
+            assertThat(info.getRepartitionedPartitions()[0]).isEqualTo(PARTITION_COUNT);
+            assertThat(info.getRepartitionedPartitions()[MAX_SPILL_REPARTITIONING_LEVEL - 1]).isPositive();
+            assertThat(info.getSpilledPartitions()[MAX_SPILL_REPARTITIONING_LEVEL]).isPositive();
+            assertThat(info.getRepartitionedProbePositions()[1]).isPositive();
+
+            // partitions spilled after the lookup source has been built are never repartitioned
+            info = innerJoinWithSpill(session, probeHashEnabled, concat(asList(WhenSpill.DURING_BUILD, WhenSpill.AFTER_BUILD), nCopies(PARTITION_COUNT - 2, WhenSpill.NEVER)), SINGLE_STREAM_SPILLER_FACTORY, PARTITIONING_SPILLER_FACTORY);
+            assertThat(info.getRepartitionedPartitions()[0]).isEqualTo(1);
+            assertThat(info.getSpilledPartitions()[0]).isEqualTo(1);
+            innerJoinWithSpill(session, probeHashEnabled, concat(asList(WhenSpill.DURING_BUILD, WhenSpill.DURING_USAGE), nCopies(PARTITION_COUNT - 2, WhenSpill.NEVER)), SINGLE_STREAM_SPILLER_FACTORY, PARTITIONING_SPILLER_FACTORY);
+        }
+    }
+
     private void innerJoinWithSpill(boolean probeHashEnabled, List<WhenSpill> whenSpill, SingleStreamSpillerFactory buildSpillerFactory, PartitioningSpillerFactory joinSpillerFactory)
             throws Exception
+    {
+        innerJoinWithSpill(TEST_SESSION, probeHashEnabled, whenSpill, buildSpillerFactory, joinSpillerFactory);
+    }
+
+    private JoinOperatorInfo innerJoinWithSpill(Session session, boolean probeHashEnabled, List<WhenSpill> whenSpill, SingleStreamSpillerFactory buildSpillerFactory, PartitioningSpillerFactory joinSpillerFactory)
+            throws Exception
     {
         TaskStateMachine taskStateMachine = new TaskStateMachine(new TaskId(new StageId("query", 0), 0, 0), executor);
-        TaskContext taskContext = TestingTaskContext.createTaskContext(executor, scheduledExecutor, TEST_SESSION, taskStateMachine);
+        TaskContext taskContext = TestingTaskContext.createTaskContext(executor, scheduledExecutor, session, taskStateMachine);
 
         DriverContext joinDriverContext = taskContext.addPipelineContext(2, true, true, false).addDriverContext();
 
@@ -484,6 +517,8 @@ public class TestHashJoinOperator
                     .build();
 
             assertThat(getProperColumns(joinOperator, concat(probePages.getTypes(), buildPages.getTypes()), probePages, actualPages).getMaterializedRows()).containsExactlyInAnyOrderElementsOf(expected.getMaterializedRows());
+
+            return (JoinOperatorInfo) joinOperator.getOperatorContext().getOperatorStats().getInfo();
         }
         finally {
             joinOperatorFactory.noMoreOperators();
@@ -32,14 +32,20 @@ public class TestJoinOperatorInfo
                 makeHistogramArray(12, 22, 32, 42, 52, 62, 72, 82),
                 OptionalLong.of(1L),
                 2,
-                3);
+                3,
+                makeSpillLevelsArray(4, 1, 0, 0),
+                makeSpillLevelsArray(1, 0, 0, 0),
+                makeSpillLevelsArray(0, 100, 0, 0));
         JoinOperatorInfo other = new JoinOperatorInfo(
                 INNER,
                 makeHistogramArray(11, 21, 31, 41, 51, 61, 71, 81),
                 makeHistogramArray(15, 25, 35, 45, 55, 65, 75, 85),
                 OptionalLong.of(2L),
                 4,
-                7);
+                7,
+                makeSpillLevelsArray(3, 8, 2, 0),
+                makeSpillLevelsArray(1, 1, 0, 0),
+                makeSpillLevelsArray(0, 50, 20, 0));
 
         JoinOperatorInfo merged = base.mergeWith(other);
         assertThat(makeHistogramArray(21, 41, 61, 81, 101, 121, 141, 161)).isEqualTo(merged.getLogHistogramProbes());
@@ -47,6 +53,9 @@ public class TestJoinOperatorInfo
         assertThat(merged.getLookupSourcePositions()).isEqualTo(OptionalLong.of(3L));
         assertThat(merged.getRleProbes()).isEqualTo(6);
         assertThat(merged.getTotalProbes()).isEqualTo(10);
+        assertThat(merged.getSpilledPartitions()).isEqualTo(makeSpillLevelsArray(7, 9, 2, 0));
+        assertThat(merged.getRepartitionedPartitions()).isEqualTo(makeSpillLevelsArray(2, 1, 0, 0));
+        assertThat(merged.getRepartitionedProbePositions()).isEqualTo(makeSpillLevelsArray(0, 150, 20, 0));
     }
 
     private long[] makeHistogramArray(long... longArray)
@@ -54,4 +63,10 @@ public class TestJoinOperatorInfo
         checkArgument(longArray.length == 8);
         return longArray;
     }
+
+    private long[] makeSpillLevelsArray(long... longArray)
+    {
+        checkArgument(longArray.length == 4);
+        return longArray;
+    }
 }
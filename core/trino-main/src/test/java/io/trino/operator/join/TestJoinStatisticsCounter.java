@@ -114,6 +114,27 @@ public class TestJoinStatisticsCounter
         assertThat(makeHistogramArray(0, 2, 4, 6, 8, 21, 111, 1001101)).isEqualTo(info.getLogHistogramOutput());
     }
 
+    @Test
+    public void testRecordSpill()
+    {
+        JoinStatisticsCounter counter = new JoinStatisticsCounter(INNER);
+        JoinOperatorInfo info = counter.get();
+        assertThat(info.getSpilledPartitions()).isEqualTo(new long[] {0, 0, 0, 0});
+        assertThat(info.getRepartitionedPartitions()).isEqualTo(new long[] {0, 0, 0, 0});
+        assertThat(info.getRepartitionedProbePositions()).isEqualTo(new long[] {0, 0, 0, 0});
+
+        counter.recordSpilledPartition(0);
+        counter.recordRepartitionedPartition(0);
+        counter.recordRepartitionedProbePositions(1, 10);
+        counter.recordSpilledPartition(1);
+        counter.recordSpilledPartition(1);
+        counter.recordRepartitionedProbePositions(1, 5);
+        info = counter.get();
+        assertThat(info.getSpilledPartitions()).isEqualTo(new long[] {1, 2, 0, 0});
+        assertThat(info.getRepartitionedPartitions()).isEqualTo(new long[] {1, 0, 0, 0});
+        assertThat(info.getRepartitionedProbePositions()).isEqualTo(new long[] {0, 15, 0, 0});
+    }
+
     private long[] makeHistogramArray(long... longArray)
     {
         checkArgument(longArray.length == 8);
@@ -19,6 +19,7 @@ import io.trino.operator.Driver;
 import io.trino.operator.DriverContext;
 import io.trino.operator.Operator;
 import io.trino.operator.TaskContext;
+import io.trino.operator.join.JoinTestUtils.DummySpillerFactory;
 import io.trino.operator.join.NestedLoopBuildOperator.NestedLoopBuildOperatorFactory;
 import io.trino.operator.join.NestedLoopJoinOperator.NestedLoopJoinOperatorFactory;
 import io.trino.operator.join.NestedLoopJoinOperator.NestedLoopOutputIterator;
@@ -33,15 +34,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.parallel.Execution;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
 import static com.google.common.collect.Iterables.concat;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.trino.RowPagesBuilder.rowPagesBuilder;
 import static io.trino.SessionTestUtils.TEST_SESSION;
 import static io.trino.operator.OperatorAssertion.assertOperatorEquals;
+import static io.trino.operator.OperatorAssertion.assertPagesEqualIgnoreOrder;
 import static io.trino.operator.ValuesOperator.ValuesOperatorFactory;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.VarcharType.VARCHAR;
@@ -504,6 +510,95 @@ public class TestNestedLoopJoinOperator
         assertThat((Integer.MAX_VALUE - 10) * 45L).isEqualTo(result);
     }
 
+    @Test
+    public void testNestedLoopJoinWithSpill()
+    {
+        TaskContext taskContext = createTaskContext();
+        DriverContext driverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+        DummySpillerFactory spillerFactory = new DummySpillerFactory();
+
+        // build
+        RowPagesBuilder buildPages = rowPagesBuilder(ImmutableList.of(VARCHAR, BIGINT))
+                .addSequencePage(2, 20, 30)
+                .addSequencePage(1, 22, 32)
+                .addSequencePage(1, 23, 33);
+        List<Page> buildInput = buildPages.build();
+        JoinBridgeManager<NestedLoopJoinBridge> nestedLoopJoinBridgeManager = new JoinBridgeManager<>(
+                false,
+                new NestedLoopJoinPagesSupplier(),
+                buildPages.getTypes());
+        NestedLoopBuildOperatorFactory nestedLoopBuildOperatorFactory = new NestedLoopBuildOperatorFactory(
+                1,
+                new PlanNodeId("test"),
+                nestedLoopJoinBridgeManager,
+                true,
+                spillerFactory,
+                OptionalInt.of(1));
+        Operator buildOperator = nestedLoopBuildOperatorFactory.createOperator(driverContext);
+
+        // every revocation spills a separate block, the remaining pages are spilled as the last block
+        buildOperator.addInput(buildInput.get(0));
+        getFutureValue(buildOperator.startMemoryRevoke());
+        buildOperator.finishMemoryRevoke();
+        assertThat(driverContext.getRevocableMemoryUsage()).isEqualTo(0);
+        buildOperator.addInput(buildInput.get(1));
+        getFutureValue(buildOperator.startMemoryRevoke());
+        buildOperator.finishMemoryRevoke();
+        buildOperator.addInput(buildInput.get(2));
+        buildOperator.finish();
+
+        NestedLoopJoinPages nestedLoopJoinPages = getFutureValue(nestedLoopJoinBridgeManager.getJoinBridge().getPagesFuture());
+        assertThat(nestedLoopJoinPages.getSpilledPages().orElseThrow().getBlockCount()).isEqualTo(3);
+
+        // probe, only the second probe channel is spilled and produced
+        RowPagesBuilder probePages = rowPagesBuilder(ImmutableList.of(VARCHAR, BIGINT));
+        List<Page> probeInput = probePages
+                .addSequencePage(2, 0, 1000)
+                .addSequencePage(1, 2, 1002)
+                .build();
+        NestedLoopJoinOperatorFactory joinOperatorFactory = new NestedLoopJoinOperatorFactory(
+                3,
+                new PlanNodeId("test"),
+                nestedLoopJoinBridgeManager,
+                ImmutableList.of(1),
+                ImmutableList.of(0, 1),
+                probePages.getTypes(),
+                spillerFactory);
+        Operator joinOperator = joinOperatorFactory.createOperator(driverContext);
+
+        // build operator unspills blocks as they are requested by the probe operator
+        ImmutableList.Builder<Page> output = ImmutableList.builder();
+        Iterator<Page> probe = probeInput.iterator();
+        while (!joinOperator.isFinished() || !buildOperator.isFinished()) {
+            if (!buildOperator.isFinished() && buildOperator.isBlocked().isDone()) {
+                buildOperator.finish();
+            }
+            if (!probe.hasNext()) {
+                joinOperator.finish();
+            }
+            else if (joinOperator.needsInput()) {
+                joinOperator.addInput(probe.next());
+            }
+            Page outputPage = joinOperator.getOutput();
+            if (outputPage != null) {
+                output.add(outputPage);
+            }
+        }
+        joinOperator.close();
+        buildOperator.close();
+        assertThat(driverContext.getMemoryUsage()).isEqualTo(0);
+
+        // expected
+        MaterializedResult.Builder expected = resultBuilder(taskContext.getSession(), BIGINT, VARCHAR, BIGINT);
+        for (long probeValue = 1000; probeValue <= 1002; probeValue++) {
+            for (int buildValue = 20; buildValue <= 23; buildValue++) {
+                expected.row(probeValue, String.valueOf(buildValue), buildValue + 10L);
+            }
+        }
+
+        assertPagesEqualIgnoreOrder(driverContext, output.build(), expected.build(), false, Optional.empty());
+    }
+
     private TaskContext createTaskContext()
     {
         return TestingTaskContext.createTaskContext(executor, scheduledExecutor, TEST_SESSION);
@@ -75,6 +75,7 @@ import static io.trino.block.BlockAssertions.createRandomBlockForType;
 import static io.trino.block.BlockAssertions.createRepeatedValuesBlock;
 import static io.trino.execution.buffer.TestingPagesSerdes.createTestingPagesSerdeFactory;
 import static io.trino.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.trino.operator.output.PagePartitioner.OUTPUT_PARTITION_ROWS_METRIC_NAME;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.BooleanType.BOOLEAN;
 import static io.trino.spi.type.CharType.createCharType;
@@ -550,6 +551,47 @@ public class TestPagePartitioner
         assertThat(output).hasSize(1);
     }
 
+    @Test
+    public void testPartitionRowsMetrics()
+    {
+        int partitionCount = 8;
+        TestOutputBuffer outputBuffer = new TestOutputBuffer();
+        PagePartitioner pagePartitioner = pagePartitioner(outputBuffer, BIGINT)
+                .withPartitionFunction(new SumModuloPartitionFunction(partitionCount, 0))
+                .build();
+        OperatorContext operatorContext = operatorContext();
+
+        // all rows go to partition 0
+        pagePartitioner.partitionPage(new Page(createRepeatedValuesBlock(0L, 20_000)), operatorContext);
+        pagePartitioner.partitionPage(new Page(createLongSequenceBlock(0, 16)), operatorContext);
+
+        // rows still buffered are counted too
+        PartitionRowCounts rowCounts = (PartitionRowCounts) pagePartitioner.prepareForRelease(operatorContext).getMetrics().get(OUTPUT_PARTITION_ROWS_METRIC_NAME);
+        assertThat(rowCounts.getRowCounts()).containsExactly(20_002, 2, 2, 2, 2, 2, 2, 2);
+        assertThat(rowCounts.getSkewedPartitions()).isEqualTo(1);
+
+        // metrics are reset on release, and rows reported while buffered are not counted again
+        pagePartitioner.partitionPage(new Page(createLongSequenceBlock(0, 8)), operatorContext);
+        rowCounts = (PartitionRowCounts) pagePartitioner.prepareForRelease(operatorContext).getMetrics().get(OUTPUT_PARTITION_ROWS_METRIC_NAME);
+        assertThat(rowCounts.getRowCounts()).containsExactly(1, 1, 1, 1, 1, 1, 1, 1);
+        pagePartitioner.close();
+    }
+
+    @Test
+    public void testSkewedPartitionsAcrossPartitioners()
+    {
+        // skew is computed after merging the counts of all partitioners, so it is detected even when
+        // each partitioner sends too few rows to a partition to be considered skewed on its own
+        PartitionRowCounts first = new PartitionRowCounts(new long[] {6_000, 100, 100, 100});
+        PartitionRowCounts second = new PartitionRowCounts(new long[] {6_000, 100, 100, 100});
+        assertThat(first.getSkewedPartitions()).isEqualTo(0);
+        assertThat(second.getSkewedPartitions()).isEqualTo(0);
+
+        PartitionRowCounts merged = first.mergeWith(second);
+        assertThat(merged.getRowCounts()).containsExactly(12_000, 200, 200, 200);
+        assertThat(merged.getSkewedPartitions()).isEqualTo(1);
+    }
+
     @Test
     public void testMemoryReleased()
     {
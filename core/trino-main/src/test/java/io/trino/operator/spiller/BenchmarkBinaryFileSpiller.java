@@ -15,6 +15,7 @@ package io.trino.operator.spiller;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.MoreExecutors;
+import io.airlift.units.DataSize;
 import io.trino.execution.buffer.CompressionCodec;
 import io.trino.spi.Page;
 import io.trino.spi.PageBuilder;
@@ -102,6 +103,12 @@ public class BenchmarkBinaryFileSpiller
         @Param("true")
         private boolean encryptionEnabled;
 
+        @Param({"false", "true"})
+        private boolean memoryMapped;
+
+        @Param({"0B", "1MB"})
+        private String readAheadSize;
+
         private List<Page> pages;
         private Spiller readSpiller;
 
@@ -119,7 +126,9 @@ public class BenchmarkBinaryFileSpiller
                     ImmutableList.of(SPILL_PATH),
                     1.0,
                     compressionCodec,
-                    encryptionEnabled);
+                    encryptionEnabled,
+                    memoryMapped,
+                    DataSize.valueOf(readAheadSize));
             spillerFactory = new GenericSpillerFactory(singleStreamSpillerFactory);
             pages = createInputPages();
             readSpiller = spillerFactory.create(TYPES, bytes -> {}, newSimpleAggregatedMemoryContext());
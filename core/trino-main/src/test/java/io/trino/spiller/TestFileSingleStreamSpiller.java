@@ -18,6 +18,7 @@ import com.google.common.collect.Iterators;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
 import io.trino.execution.buffer.CompressionCodec;
 import io.trino.execution.buffer.PagesSerdeUtil;
 import io.trino.memory.context.LocalMemoryContext;
@@ -75,31 +76,68 @@ public class TestFileSingleStreamSpiller
     public void testSpill()
             throws Exception
     {
-        assertSpill(NONE, false);
+        assertSpill(NONE, false, false, 0);
     }
 
     @Test
     public void testSpillCompression()
             throws Exception
     {
-        assertSpill(LZ4, false);
+        assertSpill(LZ4, false, false, 0);
     }
 
     @Test
     public void testSpillEncryption()
             throws Exception
     {
-        assertSpill(NONE, true);
+        assertSpill(NONE, true, false, 0);
     }
 
     @Test
     public void testSpillEncryptionWithCompression()
             throws Exception
     {
-        assertSpill(LZ4, true);
+        assertSpill(LZ4, true, false, 0);
     }
 
-    private void assertSpill(CompressionCodec compressionCodec, boolean encryption)
+    @Test
+    public void testSpillMemoryMapped()
+            throws Exception
+    {
+        assertSpill(NONE, false, true, 0);
+    }
+
+    @Test
+    public void testSpillMemoryMappedWithCompressionAndEncryption()
+            throws Exception
+    {
+        assertSpill(LZ4, true, true, 0);
+    }
+
+    @Test
+    public void testSpillReadAhead()
+            throws Exception
+    {
+        assertSpill(NONE, false, false, 1);
+        assertSpill(NONE, false, false, 1024 * 1024);
+    }
+
+    @Test
+    public void testSpillMemoryMappedReadAhead()
+            throws Exception
+    {
+        assertSpill(LZ4, true, true, 1024 * 1024);
+    }
+
+    @Test
+    public void testRereadSpilledPages()
+            throws Exception
+    {
+        assertRereadSpilledPages(false);
+        assertRereadSpilledPages(true);
+    }
+
+    private void assertRereadSpilledPages(boolean memoryMapped)
             throws Exception
     {
         File spillPath = Files.createTempDirectory("tmp").toFile();
@@ -110,8 +148,53 @@ public class TestFileSingleStreamSpiller
                     new SpillerStats(),
                     ImmutableList.of(spillPath.toPath()),
                     1.0,
+                    LZ4,
+                    true,
+                    memoryMapped,
+                    DataSize.ofBytes(0));
+            LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+            try (SingleStreamSpiller spiller = spillerFactory.create(TYPES, bytes -> {}, memoryContext)) {
+                Page page = buildPage();
+                spiller.spill(Iterators.forArray(page, page)).get();
+
+                // encryption key is kept, so pages can be read again
+                for (int read = 0; read < 3; read++) {
+                    List<Page> spilledPages = ImmutableList.copyOf(spiller.getRereadableSpilledPages());
+                    assertThat(spilledPages).hasSize(2);
+                    for (Page spilledPage : spilledPages) {
+                        PageAssertions.assertPageEquals(TYPES, page, spilledPage);
+                    }
+                }
+
+                assertThatThrownBy(() -> spiller.spill(page).get())
+                        .hasMessageContaining("Spilling no longer allowed");
+                assertThatThrownBy(spiller::getSpilledPages)
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessage("Repeated reads are disallowed to prevent potential resource leaks");
+            }
+            assertThat(listFiles(spillPath.toPath())).isEmpty();
+        }
+        finally {
+            deleteRecursively(spillPath.toPath(), ALLOW_INSECURE);
+        }
+    }
+
+    private void assertSpill(CompressionCodec compressionCodec, boolean encryption, boolean memoryMapped, long readAheadBytes)
+            throws Exception
+    {
+        File spillPath = Files.createTempDirectory("tmp").toFile();
+        try {
+            SpillerStats spillerStats = new SpillerStats();
+            FileSingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(
+                    executor, // executor won't be closed, because we don't call destroy() on the spiller factory
+                    new TestingBlockEncodingSerde(),
+                    spillerStats,
+                    ImmutableList.of(spillPath.toPath()),
+                    1.0,
                     compressionCodec,
-                    encryption);
+                    encryption,
+                    memoryMapped,
+                    DataSize.ofBytes(readAheadBytes));
             LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
             SingleStreamSpiller singleStreamSpiller = spillerFactory.create(TYPES, bytes -> {}, memoryContext);
             assertThat(singleStreamSpiller).isInstanceOf(FileSingleStreamSpiller.class);
@@ -141,7 +224,7 @@ public class TestFileSingleStreamSpiller
             // assertEquals(memoryContext.getBytes(), 0);
 
             Iterator<Page> spilledPagesIterator = spiller.getSpilledPages();
-            assertThat(memoryContext.getBytes()).isEqualTo(FileSingleStreamSpiller.BUFFER_SIZE);
+            assertThat(memoryContext.getBytes()).isEqualTo(FileSingleStreamSpiller.BUFFER_SIZE + readAheadBytes);
             List<Page> spilledPages = ImmutableList.copyOf(spilledPagesIterator);
             // The spillers release their memory reservations when they are closed, therefore at this point
             // they will have non-zero memory reservation.
@@ -151,6 +234,14 @@ public class TestFileSingleStreamSpiller
             for (int i = 0; i < 4; ++i) {
                 PageAssertions.assertPageEquals(TYPES, page, spilledPages.get(i));
             }
+            if (memoryMapped) {
+                assertThat(spillerStats.getMemoryMappedUnspilledBytes()).isEqualTo(spillerStats.getTotalSpilledBytes());
+                assertThat(spillerStats.getStreamedUnspilledBytes()).isEqualTo(0);
+            }
+            else {
+                assertThat(spillerStats.getStreamedUnspilledBytes()).isEqualTo(spillerStats.getTotalSpilledBytes());
+                assertThat(spillerStats.getMemoryMappedUnspilledBytes()).isEqualTo(0);
+            }
 
             // Repeated reads are disallowed
             assertThatThrownBy(spiller::getSpilledPages)
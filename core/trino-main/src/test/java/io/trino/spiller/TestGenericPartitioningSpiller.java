@@ -155,6 +155,34 @@ public class TestGenericPartitioningSpiller
         }
     }
 
+    @Test
+    public void testGetAllSpilledPages()
+            throws Exception
+    {
+        List<Type> types = ImmutableList.of(BIGINT);
+        try (PartitioningSpiller spiller = factory.create(
+                types,
+                new ModuloPartitionFunction(0, 4),
+                mockSpillContext(),
+                mockMemoryContext(scheduledExecutor))) {
+            Page page = SequencePageBuilder.createSequencePage(types, 8, 0);
+            PartitioningSpillResult spillResult = spiller.partitionAndSpill(page, partition -> true);
+            assertThat(spillResult.getRetained().getPositionCount()).isEqualTo(0);
+            getFutureValue(spillResult.getSpillingFuture());
+
+            // partitioned rows are still buffered and must be flushed before reading
+            for (int partition = 0; partition < 4; partition++) {
+                List<Page> spilledPages = spiller.getAllSpilledPages(partition).get();
+                assertThat(spilledPages).hasSize(1);
+                Page spilledPage = spilledPages.get(0);
+                assertThat(spilledPage.getPositionCount()).isEqualTo(2);
+                assertThat(BIGINT.getLong(spilledPage.getBlock(0), 0)).isEqualTo(partition);
+                assertThat(BIGINT.getLong(spilledPage.getBlock(0), 1)).isEqualTo(partition + 4);
+            }
+            spiller.verifyAllPartitionsRead();
+        }
+    }
+
     @Test
     public void testCloseDuringReading()
             throws Exception
@@ -22,6 +22,7 @@ import java.util.Map;
 import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
 import static io.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.trino.execution.buffer.CompressionCodec.NONE;
@@ -36,7 +37,9 @@ public class TestNodeSpillConfig
                 .setMaxSpillPerNode(DataSize.of(100, GIGABYTE))
                 .setQueryMaxSpillPerNode(DataSize.of(100, GIGABYTE))
                 .setSpillCompressionCodec(NONE)
-                .setSpillEncryptionEnabled(false));
+                .setSpillEncryptionEnabled(false)
+                .setSpillMemoryMappedEnabled(false)
+                .setSpillReadAheadSize(DataSize.of(0, BYTE)));
     }
 
     @Test
@@ -47,13 +50,17 @@ public class TestNodeSpillConfig
                 .put("query-max-spill-per-node", "15 MB")
                 .put("spill-compression-codec", "ZSTD")
                 .put("spill-encryption-enabled", "true")
+                .put("spill-memory-mapped-enabled", "true")
+                .put("spill-read-ahead-size", "2MB")
                 .buildOrThrow();
 
         NodeSpillConfig expected = new NodeSpillConfig()
                 .setMaxSpillPerNode(DataSize.of(10, MEGABYTE))
                 .setQueryMaxSpillPerNode(DataSize.of(15, MEGABYTE))
                 .setSpillCompressionCodec(ZSTD)
-                .setSpillEncryptionEnabled(true);
+                .setSpillEncryptionEnabled(true)
+                .setSpillMemoryMappedEnabled(true)
+                .setSpillReadAheadSize(DataSize.of(2, MEGABYTE));
 
         assertFullMapping(properties, expected);
     }
@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.spiller;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.trino.spi.Page;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static io.trino.SequencePageBuilder.createSequencePage;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+public class TestReadAheadPageIterator
+{
+    private final ExecutorService executor = newCachedThreadPool();
+
+    @AfterAll
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBlockedUntilPageIsRead()
+    {
+        List<Page> pages = ImmutableList.of(
+                createSequencePage(ImmutableList.of(BIGINT), 100, 0),
+                createSequencePage(ImmutableList.of(BIGINT), 100, 100));
+        List<Runnable> tasks = new ArrayList<>();
+        // read ahead only a single page
+        ReadAheadPageIterator iterator = new ReadAheadPageIterator(pages.iterator(), tasks::add, pages.get(0).getSizeInBytes());
+
+        ListenableFuture<Void> blocked = iterator.isBlocked();
+        assertThat(blocked).isNotDone();
+        runTasks(tasks);
+        assertThat(blocked).isDone();
+        assertThat(iterator.next()).isSameAs(pages.get(0));
+
+        // second page is not buffered, as it would exceed the read-ahead size
+        blocked = iterator.isBlocked();
+        assertThat(blocked).isNotDone();
+        runTasks(tasks);
+        assertThat(blocked).isDone();
+        assertThat(iterator.next()).isSameAs(pages.get(1));
+
+        runTasks(tasks);
+        assertThat(iterator.isBlocked()).isDone();
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testCloseWaitsForReadInProgress()
+            throws Exception
+    {
+        Page page = createSequencePage(ImmutableList.of(BIGINT), 100, 0);
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch finishRead = new CountDownLatch(1);
+        AtomicBoolean readFinished = new AtomicBoolean();
+        Iterator<Page> source = new AbstractIterator<>()
+        {
+            @Override
+            protected Page computeNext()
+            {
+                readStarted.countDown();
+                awaitUninterruptibly(finishRead);
+                readFinished.set(true);
+                return page;
+            }
+        };
+        ReadAheadPageIterator iterator = new ReadAheadPageIterator(source, executor, page.getSizeInBytes());
+
+        assertThat(iterator.isBlocked()).isNotDone();
+        assertThat(readStarted.await(10, SECONDS)).isTrue();
+
+        Future<?> closeFuture = executor.submit(iterator::close);
+        Thread.sleep(100);
+        assertThat(closeFuture).isNotDone();
+
+        finishRead.countDown();
+        closeFuture.get(10, SECONDS);
+        assertThat(readFinished).isTrue();
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    private static void runTasks(List<Runnable> tasks)
+    {
+        while (!tasks.isEmpty()) {
+            tasks.removeFirst().run();
+        }
+    }
+}
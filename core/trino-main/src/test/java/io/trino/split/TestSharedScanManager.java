@@ -0,0 +1,377 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.split;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.spi.Page;
+import io.trino.spi.QueryId;
+import io.trino.spi.block.Block;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.FixedPageSource;
+import io.trino.spi.connector.SourcePage;
+import io.trino.split.SharedScanManager.SharedScanKey;
+import io.trino.testing.TestingMetadata.TestingColumnHandle;
+import io.trino.testing.TestingMetadata.TestingTableHandle;
+import io.trino.testing.TestingSplit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static io.trino.block.BlockAssertions.createLongSequenceBlock;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.split.SharedScanManager.MAX_BUFFERED_BYTES;
+import static io.trino.testing.TestingHandles.TEST_CATALOG_HANDLE;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestSharedScanManager
+{
+    private static final int PAGE_COUNT = 3;
+    // pages of this many positions exceed the buffer of a page source after a few pages
+    private static final int LARGE_PAGE_POSITIONS = 1_200_000;
+
+    private static final ColumnHandle COLUMN_A = new TestingColumnHandle("a");
+    private static final ColumnHandle COLUMN_B = new TestingColumnHandle("b");
+    private static final ColumnHandle COLUMN_C = new TestingColumnHandle("c");
+
+    private static final QueryId FIRST_QUERY = new QueryId("first");
+    private static final QueryId SECOND_QUERY = new QueryId("second");
+
+    @Test
+    public void testSharedScan()
+            throws IOException
+    {
+        SharedScanManager manager = new SharedScanManager();
+        SharedScanKey key = createKey();
+        List<List<ColumnHandle>> requestedColumns = new ArrayList<>();
+        Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory = columns -> {
+            requestedColumns.add(columns);
+            return createPageSource(columns);
+        };
+
+        ConnectorPageSource first = manager.createPageSource(key, FIRST_QUERY, ImmutableList.of(COLUMN_A, COLUMN_B), pageSourceFactory);
+        // joins before the scan starts, so the columns read are extended
+        ConnectorPageSource second = manager.createPageSource(key, SECOND_QUERY, ImmutableList.of(COLUMN_C, COLUMN_A), pageSourceFactory);
+        assertThat(requestedColumns).isEmpty();
+
+        assertPages(first, ImmutableList.of(COLUMN_A, COLUMN_B));
+        assertThat(requestedColumns).containsExactly(ImmutableList.of(COLUMN_A, COLUMN_B, COLUMN_C));
+
+        // the pages read by the first query are queued for the second one
+        assertThat(second.getMemoryUsage()).isPositive();
+        // input is reported by the query owning the scan
+        assertThat(first.getCompletedBytes()).isPositive();
+        assertThat(second.getCompletedBytes()).isZero();
+
+        assertPages(second, ImmutableList.of(COLUMN_C, COLUMN_A));
+        // the memory of the connector page source is accounted only by the query owning it
+        assertThat(first.getMemoryUsage()).isPositive();
+        assertThat(second.getMemoryUsage()).isZero();
+        assertThat(requestedColumns).hasSize(1);
+        assertThat(manager.getStartedScans()).isEqualTo(1);
+        assertThat(manager.getSharedScans()).isEqualTo(1);
+        assertThat(manager.getDetachedScans()).isEqualTo(0);
+
+        second.close();
+        assertThat(manager.getActiveScans()).isEqualTo(1);
+        first.close();
+        assertThat(manager.getActiveScans()).isEqualTo(0);
+    }
+
+    @Test
+    public void testJoinAfterScanStarted()
+            throws IOException
+    {
+        SharedScanManager manager = new SharedScanManager();
+        SharedScanKey key = createKey();
+        List<List<ColumnHandle>> requestedColumns = new ArrayList<>();
+        Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory = columns -> {
+            requestedColumns.add(columns);
+            return createPageSource(columns);
+        };
+
+        ConnectorPageSource first = manager.createPageSource(key, FIRST_QUERY, ImmutableList.of(COLUMN_A), pageSourceFactory);
+        assertThat(first.getNextSourcePage()).isNotNull();
+
+        ConnectorPageSource second = manager.createPageSource(key, SECOND_QUERY, ImmutableList.of(COLUMN_A, COLUMN_B), pageSourceFactory);
+        assertPages(second, ImmutableList.of(COLUMN_A, COLUMN_B));
+        assertThat(requestedColumns).containsExactly(
+                ImmutableList.of(COLUMN_A),
+                ImmutableList.of(COLUMN_A, COLUMN_B));
+        assertThat(manager.getStartedScans()).isEqualTo(2);
+        assertThat(manager.getSharedScans()).isEqualTo(0);
+
+        first.close();
+        second.close();
+        assertThat(manager.getActiveScans()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSelfJoin()
+            throws IOException
+    {
+        SharedScanManager manager = new SharedScanManager();
+        SharedScanKey key = createKey();
+        List<List<ColumnHandle>> requestedColumns = new ArrayList<>();
+        Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory = columns -> {
+            requestedColumns.add(columns);
+            return createPageSource(columns, LARGE_PAGE_POSITIONS);
+        };
+
+        // both sides of a self join read the same split, and the probe side is read only after the build side
+        ConnectorPageSource probe = manager.createPageSource(key, FIRST_QUERY, ImmutableList.of(COLUMN_A), pageSourceFactory);
+        ConnectorPageSource build = manager.createPageSource(key, FIRST_QUERY, ImmutableList.of(COLUMN_B), pageSourceFactory);
+        assertThat(manager.getStartedScans()).isEqualTo(2);
+        assertThat(manager.getSharedScans()).isEqualTo(0);
+
+        assertPages(build, ImmutableList.of(COLUMN_B));
+        assertPages(probe, ImmutableList.of(COLUMN_A));
+        assertThat(requestedColumns).containsExactlyInAnyOrder(
+                ImmutableList.of(COLUMN_A),
+                ImmutableList.of(COLUMN_B));
+
+        build.close();
+        probe.close();
+        assertThat(manager.getActiveScans()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSlowQueryStopsSharing()
+            throws IOException
+    {
+        SharedScanManager manager = new SharedScanManager();
+        SharedScanKey key = createKey();
+        List<List<ColumnHandle>> requestedColumns = new ArrayList<>();
+        Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory = columns -> {
+            requestedColumns.add(columns);
+            return createPageSource(columns, LARGE_PAGE_POSITIONS);
+        };
+
+        ConnectorPageSource first = manager.createPageSource(key, FIRST_QUERY, ImmutableList.of(COLUMN_A), pageSourceFactory);
+        ConnectorPageSource second = manager.createPageSource(key, SECOND_QUERY, ImmutableList.of(COLUMN_B), pageSourceFactory);
+
+        // the first query does not wait for the second one
+        assertPages(first, ImmutableList.of(COLUMN_A));
+        assertThat(manager.getDetachedScans()).isEqualTo(1);
+        assertThat(second.getMemoryUsage()).isLessThanOrEqualTo(MAX_BUFFERED_BYTES + sharedPageRetainedSize());
+
+        // the second query consumes the queued pages, and reads the rest of the split on its own
+        assertPages(second, ImmutableList.of(COLUMN_B));
+        assertThat(requestedColumns).containsExactly(
+                ImmutableList.of(COLUMN_A, COLUMN_B),
+                ImmutableList.of(COLUMN_B));
+
+        first.close();
+        second.close();
+        assertThat(manager.getActiveScans()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSlowOwner()
+            throws IOException
+    {
+        SharedScanManager manager = new SharedScanManager();
+        SharedScanKey key = createKey();
+        Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory = columns -> createPageSource(columns, LARGE_PAGE_POSITIONS);
+
+        ConnectorPageSource first = manager.createPageSource(key, FIRST_QUERY, ImmutableList.of(COLUMN_A), pageSourceFactory);
+        ConnectorPageSource second = manager.createPageSource(key, SECOND_QUERY, ImmutableList.of(COLUMN_B), pageSourceFactory);
+
+        // the second query does not wait for the first one to consume the pages queued for it
+        assertPages(second, ImmutableList.of(COLUMN_B));
+        assertThat(manager.getDetachedScans()).isEqualTo(1);
+        assertPages(first, ImmutableList.of(COLUMN_A));
+
+        second.close();
+        first.close();
+        assertThat(manager.getActiveScans()).isEqualTo(0);
+    }
+
+    @Test
+    public void testOwnerClosedBeforeScanFinished()
+            throws IOException
+    {
+        SharedScanManager manager = new SharedScanManager();
+        SharedScanKey key = createKey();
+        List<List<ColumnHandle>> requestedColumns = new ArrayList<>();
+        Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory = columns -> {
+            requestedColumns.add(columns);
+            return createPageSource(columns);
+        };
+
+        ConnectorPageSource first = manager.createPageSource(key, FIRST_QUERY, ImmutableList.of(COLUMN_A), pageSourceFactory);
+        ConnectorPageSource second = manager.createPageSource(key, SECOND_QUERY, ImmutableList.of(COLUMN_B, COLUMN_C), pageSourceFactory);
+
+        // the first query needs a single page, e.g. for a limit
+        assertThat(first.getNextSourcePage()).isNotNull();
+        first.close();
+        assertThat(manager.getActiveScans()).isEqualTo(0);
+
+        assertPages(second, ImmutableList.of(COLUMN_B, COLUMN_C));
+        assertThat(requestedColumns).containsExactly(
+                ImmutableList.of(COLUMN_A, COLUMN_B, COLUMN_C),
+                ImmutableList.of(COLUMN_B, COLUMN_C));
+        assertThat(manager.getDetachedScans()).isEqualTo(1);
+        second.close();
+    }
+
+    @Test
+    @Timeout(10)
+    public void testSingleReader()
+            throws Exception
+    {
+        SharedScanManager manager = new SharedScanManager();
+        SharedScanKey key = createKey();
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch readReleased = new CountDownLatch(1);
+        Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory = columns -> new FixedPageSource(createPages(columns, 2))
+        {
+            @Override
+            @SuppressWarnings("removal")
+            public Page getNextPage()
+            {
+                readStarted.countDown();
+                awaitUninterruptibly(readReleased);
+                return super.getNextPage();
+            }
+        };
+
+        ConnectorPageSource first = manager.createPageSource(key, FIRST_QUERY, ImmutableList.of(COLUMN_A), pageSourceFactory);
+        ConnectorPageSource second = manager.createPageSource(key, SECOND_QUERY, ImmutableList.of(COLUMN_B), pageSourceFactory);
+
+        ExecutorService executor = newSingleThreadExecutor();
+        try {
+            Future<SourcePage> firstPage = executor.submit(first::getNextSourcePage);
+            readStarted.await();
+
+            // the second query is not stuck behind the read of the first one, but blocked until the page is queued for it
+            assertThat(second.getNextSourcePage()).isNull();
+            CompletableFuture<?> blocked = second.isBlocked();
+            assertThat(blocked).isNotDone();
+
+            readReleased.countDown();
+            assertThat(firstPage.get()).isNotNull();
+            assertThat(blocked).isDone();
+            assertPages(second, ImmutableList.of(COLUMN_B));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        first.close();
+        second.close();
+        assertThat(manager.getActiveScans()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDifferentSplitsNotShared()
+            throws IOException
+    {
+        SharedScanManager manager = new SharedScanManager();
+        TestingTableHandle table = new TestingTableHandle();
+        Function<List<ColumnHandle>, ConnectorPageSource> pageSourceFactory = TestSharedScanManager::createPageSource;
+
+        ConnectorPageSource first = manager.createPageSource(
+                new SharedScanKey(TEST_CATALOG_HANDLE, table, TestingSplit.createLocalSplit(), "user", ImmutableMap.of()),
+                FIRST_QUERY,
+                ImmutableList.of(COLUMN_A),
+                pageSourceFactory);
+        ConnectorPageSource second = manager.createPageSource(
+                new SharedScanKey(TEST_CATALOG_HANDLE, table, TestingSplit.createLocalSplit(), "user", ImmutableMap.of()),
+                SECOND_QUERY,
+                ImmutableList.of(COLUMN_A),
+                pageSourceFactory);
+        assertThat(manager.getStartedScans()).isEqualTo(2);
+        assertThat(manager.getActiveScans()).isEqualTo(2);
+
+        assertPages(first, ImmutableList.of(COLUMN_A));
+        assertPages(second, ImmutableList.of(COLUMN_A));
+        first.close();
+        second.close();
+        assertThat(manager.getActiveScans()).isEqualTo(0);
+    }
+
+    private static SharedScanKey createKey()
+    {
+        return new SharedScanKey(TEST_CATALOG_HANDLE, new TestingTableHandle(), TestingSplit.createLocalSplit(), "user", ImmutableMap.of());
+    }
+
+    private static void assertPages(ConnectorPageSource pageSource, List<ColumnHandle> columns)
+    {
+        List<Page> pages = new ArrayList<>();
+        while (!pageSource.isFinished()) {
+            // the page source never waits for another query
+            assertThat(pageSource.isBlocked()).isDone();
+            SourcePage page = pageSource.getNextSourcePage();
+            if (page != null) {
+                pages.add(page.getPage());
+            }
+        }
+
+        assertThat(pages).hasSize(PAGE_COUNT);
+        for (int pageIndex = 0; pageIndex < PAGE_COUNT; pageIndex++) {
+            Page page = pages.get(pageIndex);
+            assertThat(page.getChannelCount()).isEqualTo(columns.size());
+            for (int channel = 0; channel < columns.size(); channel++) {
+                assertThat(BIGINT.getLong(page.getBlock(channel), 0)).isEqualTo(firstValue(columns.get(channel), pageIndex));
+            }
+        }
+    }
+
+    private static ConnectorPageSource createPageSource(List<ColumnHandle> columns)
+    {
+        return createPageSource(columns, 2);
+    }
+
+    private static ConnectorPageSource createPageSource(List<ColumnHandle> columns, int positionsPerPage)
+    {
+        return new FixedPageSource(createPages(columns, positionsPerPage));
+    }
+
+    private static List<Page> createPages(List<ColumnHandle> columns, int positionsPerPage)
+    {
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        for (int pageIndex = 0; pageIndex < PAGE_COUNT; pageIndex++) {
+            Block[] blocks = new Block[columns.size()];
+            for (int channel = 0; channel < columns.size(); channel++) {
+                int firstValue = firstValue(columns.get(channel), pageIndex);
+                blocks[channel] = createLongSequenceBlock(firstValue, firstValue + positionsPerPage);
+            }
+            pages.add(new Page(positionsPerPage, blocks));
+        }
+        return pages.build();
+    }
+
+    // size of a large page with the two columns read by the shared scan
+    private static long sharedPageRetainedSize()
+    {
+        return createLongSequenceBlock(0, LARGE_PAGE_POSITIONS).getRetainedSizeInBytes() * 2;
+    }
+
+    private static int firstValue(ColumnHandle column, int pageIndex)
+    {
+        return (((TestingColumnHandle) column).getName().charAt(0) - 'a') * 100_000_000 + pageIndex * 10_000_000;
+    }
+}
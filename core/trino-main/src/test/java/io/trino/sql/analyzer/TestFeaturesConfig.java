@@ -48,6 +48,8 @@ public class TestFeaturesConfig
                 .setRe2JDfaRetries(5)
                 .setSpillEnabled(false)
                 .setAggregationOperatorUnspillMemoryLimit(DataSize.valueOf("4MB"))
+                .setJoinMaxUnspilledPartitionSize(DataSize.of(1, GIGABYTE))
+                .setDistinctLimitMinSpillableLimit(1_000_000)
                 .setSpillerSpillPaths(ImmutableList.of())
                 .setSpillerThreads("4")
                 .setSpillMaxUsedSpaceThreshold(0.9)
@@ -66,6 +68,7 @@ public class TestFeaturesConfig
                 .setHideInaccessibleColumns(false)
                 .setForceSpillingJoin(false)
                 .setColumnarFilterEvaluationEnabled(true)
+                .setFusedFilterAggregationEnabled(false)
                 .setFaultTolerantExecutionExchangeEncryptionEnabled(true));
     }
 
@@ -82,6 +85,8 @@ public class TestFeaturesConfig
                 .put("re2j.dfa-retries", "42")
                 .put("spill-enabled", "true")
                 .put("aggregation-operator-unspill-memory-limit", "100MB")
+                .put("join-max-unspilled-partition-size", "256MB")
+                .put("distinct-limit-min-spillable-limit", "1000")
                 .put("spiller-spill-path", "/tmp/custom/spill/path1,/tmp/custom/spill/path2")
                 .put("spiller-threads", "42")
                 .put("spiller-max-used-space-threshold", "0.8")
@@ -100,6 +105,7 @@ public class TestFeaturesConfig
                 .put("hide-inaccessible-columns", "true")
                 .put("force-spilling-join-operator", "true")
                 .put("experimental.columnar-filter-evaluation.enabled", "false")
+                .put("experimental.fused-filter-aggregation.enabled", "true")
                 .put("fault-tolerant-execution-exchange-encryption-enabled", "false")
                 .buildOrThrow();
 
@@ -113,6 +119,8 @@ public class TestFeaturesConfig
                 .setRe2JDfaRetries(42)
                 .setSpillEnabled(true)
                 .setAggregationOperatorUnspillMemoryLimit(DataSize.valueOf("100MB"))
+                .setJoinMaxUnspilledPartitionSize(DataSize.of(256, MEGABYTE))
+                .setDistinctLimitMinSpillableLimit(1000)
                 .setSpillerSpillPaths(ImmutableList.of("/tmp/custom/spill/path1", "/tmp/custom/spill/path2"))
                 .setSpillerThreads("42")
                 .setSpillMaxUsedSpaceThreshold(0.8)
@@ -131,6 +139,7 @@ public class TestFeaturesConfig
                 .setHideInaccessibleColumns(true)
                 .setForceSpillingJoin(true)
                 .setColumnarFilterEvaluationEnabled(false)
+                .setFusedFilterAggregationEnabled(true)
                 .setFaultTolerantExecutionExchangeEncryptionEnabled(false);
         assertFullMapping(properties, expected);
     }
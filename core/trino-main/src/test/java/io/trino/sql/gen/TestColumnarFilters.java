@@ -282,6 +282,43 @@ public class TestColumnarFilters
         verifyFilter(inputPages, likeFilter);
     }
 
+    @ParameterizedTest
+    @MethodSource("inputProviders")
+    public void testLikePatterns(NullsProvider nullsProvider, boolean dictionaryEncoded)
+    {
+        List<Page> inputPages = createInputPages(nullsProvider, dictionaryEncoded);
+        String constant = Long.toString(CONSTANT);
+        for (String pattern : ImmutableList.of(
+                constant.substring(0, 6) + "%",
+                "%" + constant.substring(5),
+                "%" + constant.substring(2, 6) + "%",
+                constant.substring(0, 3) + "_" + constant.substring(4, 6) + "%",
+                "%")) {
+            RowExpression likeFilter = call(
+                    FUNCTION_RESOLUTION.resolveFunction("$like", fromTypes(VARCHAR, LIKE_PATTERN)),
+                    field(STRING_CHANNEL, VARCHAR),
+                    constant(LikePattern.compile(pattern, Optional.empty()), LIKE_PATTERN));
+            assertThatColumnarFilterEvaluationIsSupported(likeFilter);
+            verifyFilter(inputPages, likeFilter);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("inputProviders")
+    public void testStartsWith(NullsProvider nullsProvider, boolean dictionaryEncoded)
+    {
+        List<Page> inputPages = createInputPages(nullsProvider, dictionaryEncoded);
+        String constant = Long.toString(CONSTANT);
+        for (String prefix : ImmutableList.of(constant.substring(0, 7), constant, constant + "0", "")) {
+            RowExpression startsWithFilter = call(
+                    FUNCTION_RESOLUTION.resolveFunction("starts_with", fromTypes(VARCHAR, VARCHAR)),
+                    field(STRING_CHANNEL, VARCHAR),
+                    constant(Slices.utf8Slice(prefix), VARCHAR));
+            assertThatColumnarFilterEvaluationIsSupported(startsWithFilter);
+            verifyFilter(inputPages, startsWithFilter);
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("inputProviders")
     public void testLessThan(NullsProvider nullsProvider, boolean dictionaryEncoded)
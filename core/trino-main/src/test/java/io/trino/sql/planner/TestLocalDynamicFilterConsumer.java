@@ -18,7 +18,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.airlift.units.DataSize;
+import io.trino.operator.BlockedBloomFilter;
 import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
 import io.trino.spi.predicate.TupleDomain;
 import io.trino.spi.predicate.ValueSet;
 import io.trino.sql.planner.OptimizerConfig.JoinDistributionType;
@@ -30,6 +32,8 @@ import io.trino.sql.planner.plan.JoinNode;
 import io.trino.sql.planner.plan.JoinNode.EquiJoinClause;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -131,6 +135,70 @@ public class TestLocalDynamicFilterConsumer
                 new DynamicFilterId("123"), Domain.multipleValues(INTEGER, ImmutableList.of(10L, 20L))));
     }
 
+    @Test
+    public void testBloomFilters()
+    {
+        DynamicFilterId filterId = new DynamicFilterId("123");
+        TestingDynamicFilterCollector collector = new TestingDynamicFilterCollector();
+        List<Map<DynamicFilterId, BlockedBloomFilter>> collectedBloomFilters = new ArrayList<>();
+        LocalDynamicFilterConsumer filter = new LocalDynamicFilterConsumer(
+                ImmutableMap.of(filterId, 0),
+                ImmutableMap.of(filterId, INTEGER),
+                ImmutableList.of(collector),
+                ImmutableList.of(collectedBloomFilters::add),
+                DataSize.of(100, KILOBYTE));
+        assertThat(filter.isBloomFilterCollectionEnabled()).isTrue();
+
+        BlockedBloomFilter first = new BlockedBloomFilter(DataSize.of(1, KILOBYTE));
+        first.put(1);
+        BlockedBloomFilter second = new BlockedBloomFilter(DataSize.of(1, KILOBYTE));
+        second.put(2);
+
+        // partition with all domain is not a short circuit when its values are in a Bloom filter
+        filter.addPartition(TupleDomain.all(), ImmutableMap.of(filterId, first));
+        assertThat(collector.isCollectionComplete()).isFalse();
+        filter.addPartition(
+                TupleDomain.withColumnDomains(ImmutableMap.of(filterId, Domain.create(ValueSet.ofRanges(range(INTEGER, 0L, true, 10L, true)), false))),
+                ImmutableMap.of(filterId, second));
+        // partition without values does not need a Bloom filter
+        filter.addPartition(TupleDomain.none());
+        filter.setPartitionCount(3);
+
+        assertThat(collector.getCollectedDomains()).isEqualTo(ImmutableMap.of(filterId, Domain.all(INTEGER)));
+        assertThat(collectedBloomFilters).hasSize(1);
+        BlockedBloomFilter bloomFilter = collectedBloomFilters.getFirst().get(filterId);
+        assertThat(bloomFilter.mightContain(1)).isTrue();
+        assertThat(bloomFilter.mightContain(2)).isTrue();
+    }
+
+    @Test
+    public void testBloomFilterMissingInPartition()
+    {
+        DynamicFilterId filterId = new DynamicFilterId("123");
+        TestingDynamicFilterCollector collector = new TestingDynamicFilterCollector();
+        List<Map<DynamicFilterId, BlockedBloomFilter>> collectedBloomFilters = new ArrayList<>();
+        LocalDynamicFilterConsumer filter = new LocalDynamicFilterConsumer(
+                ImmutableMap.of(filterId, 0),
+                ImmutableMap.of(filterId, INTEGER),
+                ImmutableList.of(collector),
+                ImmutableList.of(collectedBloomFilters::add),
+                DataSize.of(100, KILOBYTE));
+        filter.setPartitionCount(2);
+
+        BlockedBloomFilter bloomFilter = new BlockedBloomFilter(DataSize.of(1, KILOBYTE));
+        bloomFilter.put(1);
+        filter.addPartition(
+                TupleDomain.withColumnDomains(ImmutableMap.of(filterId, Domain.create(ValueSet.ofRanges(range(INTEGER, 0L, true, 10L, true)), false))),
+                ImmutableMap.of(filterId, bloomFilter));
+        // values of this partition are not in the Bloom filter
+        filter.addPartition(TupleDomain.withColumnDomains(ImmutableMap.of(filterId, Domain.singleValue(INTEGER, 20L))));
+
+        assertThat(collector.getCollectedDomains()).isEqualTo(ImmutableMap.of(
+                filterId,
+                Domain.create(ValueSet.ofRanges(range(INTEGER, 0L, true, 10L, true), Range.equal(INTEGER, 20L)), false)));
+        assertThat(collectedBloomFilters).isEmpty();
+    }
+
     @Test
     public void testAllDomain()
     {
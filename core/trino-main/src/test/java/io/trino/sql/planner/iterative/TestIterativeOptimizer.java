@@ -116,6 +116,58 @@ public class TestIterativeOptimizer
         }
     }
 
+    @Test
+    @Timeout(10)
+    public void optimizerSkipsExplorationRulesOverTimeBudget()
+    {
+        assertConvergesWithTimeBudget("1ms", "1h");
+        assertConvergesWithTimeBudget("1h", "1ms");
+    }
+
+    private static void assertConvergesWithTimeBudget(String ruleTimeBudget, String phaseTimeBudget)
+    {
+        Session.SessionBuilder sessionBuilder = testSessionBuilder()
+                .setCatalog(TEST_CATALOG_NAME)
+                .setSchema("tiny")
+                .setSystemProperty("task_concurrency", "1")
+                .setSystemProperty("iterative_optimizer_timeout", "1h")
+                .setSystemProperty("iterative_optimizer_rule_time_budget", ruleTimeBudget)
+                .setSystemProperty("iterative_optimizer_phase_time_budget", phaseTimeBudget);
+
+        try (PlanTester planTester = PlanTester.create(sessionBuilder.build())) {
+            planTester.createCatalog(planTester.getDefaultSession().getCatalog().get(),
+                    new TpchConnectorFactory(1),
+                    ImmutableMap.of());
+
+            // the plan does not converge until the exploration rule is skipped
+            PlanOptimizer optimizer = new IterativeOptimizer(
+                    planTester.getPlannerContext(),
+                    new RuleStatsRecorder(),
+                    planTester.getStatsCalculator(),
+                    planTester.getCostCalculator(),
+                    ImmutableSet.of(new ExploreIdentityOverTableScan(), new RemoveRedundantIdentityProjections()));
+
+            planTester.inTransaction(planTester.getDefaultSession(), transactionSession ->
+                    planTester.createPlan(
+                            transactionSession,
+                            "SELECT nationkey FROM nation",
+                            ImmutableList.of(optimizer),
+                            OPTIMIZED_AND_VALIDATED,
+                            NOOP,
+                            createPlanOptimizersStatsCollector()));
+        }
+    }
+
+    private static class ExploreIdentityOverTableScan
+            extends AddIdentityOverTableScan
+    {
+        @Override
+        public boolean isExploration()
+        {
+            return true;
+        }
+    }
+
     private static class AddIdentityOverTableScan
             implements Rule<TableScanNode>
     {
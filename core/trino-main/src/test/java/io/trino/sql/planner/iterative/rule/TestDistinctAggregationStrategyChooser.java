@@ -437,6 +437,12 @@ public class TestDistinctAggregationStrategyChooser
                 throw new UnsupportedOperationException();
             }
 
+            @Override
+            public boolean isTimeBudgetExhausted()
+            {
+                throw new UnsupportedOperationException();
+            }
+
             @Override
             public WarningCollector getWarningCollector()
             {
@@ -26,6 +26,8 @@ import io.trino.cost.PlanCostEstimate;
 import io.trino.cost.RuntimeInfoProvider;
 import io.trino.cost.StatsProvider;
 import io.trino.execution.warnings.WarningCollector;
+import io.trino.sql.ir.Comparison;
+import io.trino.sql.ir.Expression;
 import io.trino.sql.planner.PlanNodeIdAllocator;
 import io.trino.sql.planner.Symbol;
 import io.trino.sql.planner.SymbolAllocator;
@@ -35,6 +37,8 @@ import io.trino.sql.planner.iterative.rule.ReorderJoins.JoinEnumerationResult;
 import io.trino.sql.planner.iterative.rule.ReorderJoins.JoinEnumerator;
 import io.trino.sql.planner.iterative.rule.ReorderJoins.MultiJoinNode;
 import io.trino.sql.planner.iterative.rule.test.PlanBuilder;
+import io.trino.sql.planner.plan.JoinNode;
+import io.trino.sql.planner.plan.PlanNode;
 import io.trino.testing.PlanTester;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -43,13 +47,20 @@ import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.parallel.Execution;
 
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.testing.Closeables.closeAllRuntimeException;
+import static io.trino.SystemSessionProperties.GREEDY_JOIN_REORDERING_THRESHOLD;
 import static io.trino.sql.ir.Booleans.TRUE;
+import static io.trino.sql.ir.Comparison.Operator.EQUAL;
+import static io.trino.sql.ir.IrUtils.and;
 import static io.trino.sql.planner.iterative.Lookup.noLookup;
-import static io.trino.sql.planner.iterative.rule.ReorderJoins.JoinEnumerator.generatePartitions;
+import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
 import static io.trino.testing.TestingSession.testSessionBuilder;
+import static java.util.stream.Collectors.toCollection;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
 import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
@@ -73,24 +84,6 @@ public class TestJoinEnumerator
         planTester = null;
     }
 
-    @Test
-    public void testGeneratePartitions()
-    {
-        assertThat(generatePartitions(4)).isEqualTo(ImmutableSet.of(
-                ImmutableSet.of(0),
-                ImmutableSet.of(0, 1),
-                ImmutableSet.of(0, 2),
-                ImmutableSet.of(0, 3),
-                ImmutableSet.of(0, 1, 2),
-                ImmutableSet.of(0, 1, 3),
-                ImmutableSet.of(0, 2, 3)));
-
-        assertThat(generatePartitions(3)).isEqualTo(ImmutableSet.of(
-                ImmutableSet.of(0),
-                ImmutableSet.of(0, 1),
-                ImmutableSet.of(0, 2)));
-    }
-
     @Test
     public void testDoesNotCreateJoinWhenPartitionedOnCrossJoin()
     {
@@ -113,7 +106,182 @@ public class TestJoinEnumerator
         assertThat(actual.getCost()).isEqualTo(PlanCostEstimate.infinite());
     }
 
+    @Test
+    public void testGreedyJoinOrder()
+    {
+        Session session = Session.builder(planTester.getDefaultSession())
+                .setSystemProperty(GREEDY_JOIN_REORDERING_THRESHOLD, "1")
+                .build();
+        PlanBuilder p = new PlanBuilder(new PlanNodeIdAllocator(), planTester.getPlannerContext(), session);
+        Symbol a1 = p.symbol("A1");
+        Symbol b1 = p.symbol("B1");
+        Symbol c1 = p.symbol("C1");
+        LinkedHashSet<PlanNode> sources = new LinkedHashSet<>(ImmutableList.of(p.values(a1), p.values(b1), p.values(c1)));
+
+        JoinEnumerationResult result = new JoinEnumerator(
+                new CostComparator(1, 1, 1),
+                and(new Comparison(EQUAL, a1.toSymbolReference(), b1.toSymbolReference()), new Comparison(EQUAL, b1.toSymbolReference(), c1.toSymbolReference())),
+                createContext(session),
+                planTester.getPlannerContext())
+                .choose(sources, ImmutableList.of(a1, b1, c1));
+        assertThat(result.getPlanNode()).isPresent();
+        assertThat(searchFrom(result.getPlanNode().get()).whereIsInstanceOfAny(JoinNode.class).findAll()).hasSize(2);
+
+        // C can only be joined with a cross join
+        JoinEnumerationResult disconnected = new JoinEnumerator(
+                new CostComparator(1, 1, 1),
+                new Comparison(EQUAL, a1.toSymbolReference(), b1.toSymbolReference()),
+                createContext(session),
+                planTester.getPlannerContext())
+                .choose(sources, ImmutableList.of(a1, b1, c1));
+        assertThat(disconnected.getPlanNode()).isEmpty();
+        assertThat(disconnected.getCost()).isEqualTo(PlanCostEstimate.infinite());
+    }
+
+    @Test
+    public void testDoesNotEnumerateCrossJoins()
+    {
+        PlanBuilder p = new PlanBuilder(new PlanNodeIdAllocator(), planTester.getPlannerContext(), planTester.getDefaultSession());
+        Symbol a1 = p.symbol("A1");
+        Symbol b1 = p.symbol("B1");
+        Symbol b2 = p.symbol("B2");
+        Symbol c1 = p.symbol("C1");
+        Symbol c2 = p.symbol("C2");
+        Symbol d1 = p.symbol("D1");
+        // chain A - B - C - D, in which joining A with C or D first would require a cross join
+        PlanNode a = p.values(a1);
+        PlanNode b = p.values(b1, b2);
+        PlanNode c = p.values(c1, c2);
+        PlanNode d = p.values(d1);
+        LinkedHashSet<PlanNode> sources = new LinkedHashSet<>(ImmutableList.of(a, b, c, d));
+
+        JoinEnumerator joinEnumerator = new JoinEnumerator(
+                new CostComparator(1, 1, 1),
+                and(
+                        new Comparison(EQUAL, a1.toSymbolReference(), b1.toSymbolReference()),
+                        new Comparison(EQUAL, b2.toSymbolReference(), c1.toSymbolReference()),
+                        new Comparison(EQUAL, c2.toSymbolReference(), d1.toSymbolReference())),
+                createContext(),
+                planTester.getPlannerContext());
+        JoinEnumerationResult result = joinEnumerator.choose(sources, ImmutableList.of(a1, d1));
+        assertThat(result.getPlanNode()).isPresent();
+        assertThat(searchFrom(result.getPlanNode().get()).whereIsInstanceOfAny(JoinNode.class).findAll())
+                .hasSize(3)
+                .noneMatch(join -> ((JoinNode) join).isCrossJoin());
+        // only connected groups of sources are enumerated, so groups like {A, C} or {A, B, D} are never planned
+        assertThat(joinEnumerator.getMemoizedSources()).containsExactlyInAnyOrder(
+                ImmutableSet.of(a, b),
+                ImmutableSet.of(b, c),
+                ImmutableSet.of(c, d),
+                ImmutableSet.of(a, b, c),
+                ImmutableSet.of(b, c, d),
+                ImmutableSet.of(a, b, c, d));
+    }
+
+    @Test
+    public void testEnumeratesLargeChain()
+    {
+        PlanBuilder p = new PlanBuilder(new PlanNodeIdAllocator(), planTester.getPlannerContext(), planTester.getDefaultSession());
+        // chain S0 - S1 - ... - S11, in which each source is joined with the next one on a different symbol
+        List<Symbol> leftSymbols = IntStream.range(0, 12)
+                .mapToObj(i -> p.symbol("L" + i))
+                .collect(toImmutableList());
+        List<Symbol> rightSymbols = IntStream.range(0, 12)
+                .mapToObj(i -> p.symbol("R" + i))
+                .collect(toImmutableList());
+        LinkedHashSet<PlanNode> sources = IntStream.range(0, 12)
+                .mapToObj(i -> p.values(leftSymbols.get(i), rightSymbols.get(i)))
+                .collect(toCollection(LinkedHashSet::new));
+        List<Expression> conjuncts = IntStream.range(0, 11)
+                .mapToObj(i -> (Expression) new Comparison(EQUAL, rightSymbols.get(i).toSymbolReference(), leftSymbols.get(i + 1).toSymbolReference()))
+                .collect(toImmutableList());
+
+        JoinEnumerator joinEnumerator = new JoinEnumerator(
+                new CostComparator(1, 1, 1),
+                and(conjuncts),
+                createContext(),
+                planTester.getPlannerContext());
+        JoinEnumerationResult result = joinEnumerator.choose(sources, ImmutableList.of(leftSymbols.getFirst(), rightSymbols.getLast()));
+        assertThat(result.getPlanNode()).isPresent();
+        assertThat(searchFrom(result.getPlanNode().get()).whereIsInstanceOfAny(JoinNode.class).findAll())
+                .hasSize(11)
+                .noneMatch(join -> ((JoinNode) join).isCrossJoin());
+        // every range of the chain is planned, while reordering greedily would only plan 11 groups of sources
+        assertThat(joinEnumerator.getMemoizedSources()).hasSize(12 * 11 / 2);
+    }
+
+    @Test
+    public void testReordersCliqueGreedily()
+    {
+        PlanBuilder p = new PlanBuilder(new PlanNodeIdAllocator(), planTester.getPlannerContext(), planTester.getDefaultSession());
+        List<Symbol> symbols = IntStream.range(0, 12)
+                .mapToObj(i -> p.symbol("S" + i))
+                .collect(toImmutableList());
+        LinkedHashSet<PlanNode> sources = symbols.stream()
+                .map(symbol -> p.values(symbol))
+                .collect(toCollection(LinkedHashSet::new));
+        // all the sources are joined on the same key, so any two groups of sources can be joined without a cross join
+        List<Expression> conjuncts = IntStream.range(0, 11)
+                .mapToObj(i -> (Expression) new Comparison(EQUAL, symbols.get(i).toSymbolReference(), symbols.get(i + 1).toSymbolReference()))
+                .collect(toImmutableList());
+
+        JoinEnumerator joinEnumerator = new JoinEnumerator(
+                new CostComparator(1, 1, 1),
+                and(conjuncts),
+                createContext(),
+                planTester.getPlannerContext());
+        JoinEnumerationResult result = joinEnumerator.choose(sources, symbols);
+        assertThat(result.getPlanNode()).isPresent();
+        assertThat(searchFrom(result.getPlanNode().get()).whereIsInstanceOfAny(JoinNode.class).findAll())
+                .hasSize(11)
+                .noneMatch(join -> ((JoinNode) join).isCrossJoin());
+        // there are too many join orders to enumerate, so only the groups of sources joined greedily are planned
+        assertThat(joinEnumerator.getMemoizedSources()).hasSize(11);
+    }
+
+    @Test
+    public void testGivesUpWhenTimeBudgetExhausted()
+    {
+        PlanBuilder p = new PlanBuilder(new PlanNodeIdAllocator(), planTester.getPlannerContext(), planTester.getDefaultSession());
+        Symbol a1 = p.symbol("A1");
+        Symbol b1 = p.symbol("B1");
+        Symbol c1 = p.symbol("C1");
+        LinkedHashSet<PlanNode> sources = new LinkedHashSet<>(ImmutableList.of(p.values(a1), p.values(b1), p.values(c1)));
+        Expression filter = and(new Comparison(EQUAL, a1.toSymbolReference(), b1.toSymbolReference()), new Comparison(EQUAL, b1.toSymbolReference(), c1.toSymbolReference()));
+
+        JoinEnumerationResult result = new JoinEnumerator(
+                new CostComparator(1, 1, 1),
+                filter,
+                createContext(planTester.getDefaultSession(), true),
+                planTester.getPlannerContext())
+                .choose(sources, ImmutableList.of(a1, b1, c1));
+        assertThat(result.getPlanNode()).isEmpty();
+        assertThat(result.getCost()).isEqualTo(PlanCostEstimate.unknown());
+
+        Session greedySession = Session.builder(planTester.getDefaultSession())
+                .setSystemProperty(GREEDY_JOIN_REORDERING_THRESHOLD, "1")
+                .build();
+        JoinEnumerationResult greedyResult = new JoinEnumerator(
+                new CostComparator(1, 1, 1),
+                filter,
+                createContext(greedySession, true),
+                planTester.getPlannerContext())
+                .choose(sources, ImmutableList.of(a1, b1, c1));
+        assertThat(greedyResult.getPlanNode()).isEmpty();
+        assertThat(greedyResult.getCost()).isEqualTo(PlanCostEstimate.unknown());
+    }
+
     private Rule.Context createContext()
+    {
+        return createContext(planTester.getDefaultSession());
+    }
+
+    private Rule.Context createContext(Session session)
+    {
+        return createContext(session, false);
+    }
+
+    private Rule.Context createContext(Session session, boolean timeBudgetExhausted)
     {
         PlanNodeIdAllocator planNodeIdAllocator = new PlanNodeIdAllocator();
         SymbolAllocator symbolAllocator = new SymbolAllocator();
@@ -121,14 +289,14 @@ public class TestJoinEnumerator
                 planTester.getStatsCalculator(),
                 Optional.empty(),
                 noLookup(),
-                planTester.getDefaultSession(),
-                new CachingTableStatsProvider(planTester.getPlannerContext().getMetadata(), planTester.getDefaultSession()),
+                session,
+                new CachingTableStatsProvider(planTester.getPlannerContext().getMetadata(), session),
                 RuntimeInfoProvider.noImplementation());
         CachingCostProvider costProvider = new CachingCostProvider(
                 planTester.getCostCalculator(),
                 statsProvider,
                 Optional.empty(),
-                planTester.getDefaultSession());
+                session);
 
         return new Rule.Context()
         {
@@ -153,7 +321,7 @@ public class TestJoinEnumerator
             @Override
             public Session getSession()
             {
-                return planTester.getDefaultSession();
+                return session;
             }
 
             @Override
@@ -171,6 +339,12 @@ public class TestJoinEnumerator
             @Override
             public void checkTimeoutNotExhausted() {}
 
+            @Override
+            public boolean isTimeBudgetExhausted()
+            {
+                return timeBudgetExhausted;
+            }
+
             @Override
             public WarningCollector getWarningCollector()
             {
@@ -229,6 +229,12 @@ public class RuleAssert
             @Override
             public void checkTimeoutNotExhausted() {}
 
+            @Override
+            public boolean isTimeBudgetExhausted()
+            {
+                return false;
+            }
+
             @Override
             public WarningCollector getWarningCollector()
             {
@@ -0,0 +1,185 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.sql.query;
+
+import com.google.common.collect.ImmutableMap;
+import io.trino.Session;
+import io.trino.operator.OperatorStats;
+import io.trino.plugin.tpch.TpchPlugin;
+import io.trino.sql.planner.plan.AggregationNode;
+import io.trino.sql.planner.plan.FilterNode;
+import io.trino.sql.planner.plan.PlanNode;
+import io.trino.sql.planner.plan.PlanNodeId;
+import io.trino.sql.planner.plan.ProjectNode;
+import io.trino.sql.planner.plan.TableScanNode;
+import io.trino.testing.QueryRunner.MaterializedResultWithPlan;
+import io.trino.testing.StandaloneQueryRunner;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.parallel.Execution;
+
+import java.util.List;
+
+import static io.trino.SystemSessionProperties.FUSED_FILTER_AGGREGATION_ENABLED;
+import static io.trino.plugin.tpch.TpchMetadata.TINY_SCHEMA_NAME;
+import static io.trino.sql.DynamicFilters.extractDynamicFilters;
+import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static io.trino.testing.TestingSession.testSessionBuilder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@TestInstance(PER_CLASS)
+@Execution(CONCURRENT)
+public class TestFusedFilterAggregation
+{
+    private static final String FUSED_FILTER_OPERATOR = "FusedFilterOperator";
+
+    private final StandaloneQueryRunner runner;
+    private final QueryAssertions assertions;
+    private final Session fusedSession;
+
+    public TestFusedFilterAggregation()
+    {
+        Session session = testSessionBuilder()
+                .setCatalog("local")
+                .setSchema(TINY_SCHEMA_NAME)
+                .build();
+
+        runner = new StandaloneQueryRunner(session);
+        runner.installPlugin(new TpchPlugin());
+        runner.createCatalog("local", "tpch", ImmutableMap.of());
+        assertions = new QueryAssertions(runner);
+
+        fusedSession = Session.builder(session)
+                .setSystemProperty(FUSED_FILTER_AGGREGATION_ENABLED, "true")
+                .build();
+    }
+
+    @AfterAll
+    public void teardown()
+    {
+        assertions.close();
+    }
+
+    @Test
+    public void testStaticFilter()
+    {
+        @Language("SQL") String query =
+                """
+                SELECT clerk, count(*), sum(totalprice)
+                FROM orders
+                WHERE totalprice > 100000 AND clerk < 'Clerk#000000500'
+                GROUP BY clerk
+                """;
+        assertThat(assertions.query(fusedSession, query))
+                .result()
+                .matches(assertions.execute(query));
+
+        // the fused scan outputs the rows before the filter, so it reports under the table scan
+        MaterializedResultWithPlan result = runner.executeWithPlan(fusedSession, query);
+        PlanNode tableScan = searchFrom(result.queryPlan().getRoot())
+                .where(TableScanNode.class::isInstance)
+                .findOnlyElement();
+        assertThat(getOperatorSummaries(result, tableScan.getId()).stream()
+                .mapToLong(OperatorStats::getOutputPositions)
+                .sum())
+                .isEqualTo(15000);
+
+        // the filter evaluated by the aggregation reports the positions it selects under the filter
+        PlanNode filter = searchFrom(result.queryPlan().getRoot())
+                .where(FilterNode.class::isInstance)
+                .findOnlyElement();
+        assertFusedFilterStats(result, filter.getId(), "SELECT count(*) FROM orders WHERE totalprice > 100000 AND clerk < 'Clerk#000000500'");
+    }
+
+    @Test
+    public void testDynamicFilter()
+    {
+        // the dynamic filter of the join is pushed through the aggregation into the fused filter
+        @Language("SQL") String query =
+                """
+                SELECT a.custkey, a.order_count, a.total
+                FROM (
+                    SELECT custkey, count(*) AS order_count, sum(custkey) AS total
+                    FROM orders
+                    WHERE custkey % 3 = 1
+                    GROUP BY custkey) a
+                JOIN customer c ON a.custkey = c.custkey
+                WHERE c.nationkey = 1
+                """;
+        assertThat(assertions.query(fusedSession, query))
+                .result()
+                .matches(assertions.execute(query));
+
+        MaterializedResultWithPlan result = runner.executeWithPlan(fusedSession, query);
+        PlanNode filter = searchFrom(result.queryPlan().getRoot())
+                .where(node -> node instanceof FilterNode filterNode && !extractDynamicFilters(filterNode.getPredicate()).getDynamicConjuncts().isEmpty())
+                .findOnlyElement();
+        assertThat(getOperatorSummaries(result, filter.getId()))
+                .isNotEmpty()
+                .allMatch(operatorStats -> operatorStats.getOperatorType().equals(FUSED_FILTER_OPERATOR));
+    }
+
+    @Test
+    public void testPruningProjection()
+    {
+        // orderdate is read only by the filter, so column pruning adds a projection between the aggregation and the filter
+        @Language("SQL") String query =
+                """
+                SELECT clerk, sum(totalprice)
+                FROM orders
+                WHERE orderdate >= DATE '1995-01-01'
+                GROUP BY clerk
+                """;
+        assertThat(assertions.query(fusedSession, query))
+                .result()
+                .matches(assertions.execute(query));
+
+        MaterializedResultWithPlan result = runner.executeWithPlan(fusedSession, query);
+        AggregationNode aggregation = (AggregationNode) searchFrom(result.queryPlan().getRoot())
+                .where(node -> node instanceof AggregationNode aggregationNode && aggregationNode.getStep().isInputRaw())
+                .findOnlyElement();
+        assertThat(aggregation.getSource()).isInstanceOf(ProjectNode.class);
+        assertFusedFilterStats(result, aggregation.getSource().getId(), "SELECT count(*) FROM orders WHERE orderdate >= DATE '1995-01-01'");
+    }
+
+    private void assertFusedFilterStats(MaterializedResultWithPlan result, PlanNodeId planNodeId, @Language("SQL") String selectedRowsQuery)
+    {
+        List<OperatorStats> operatorSummaries = getOperatorSummaries(result, planNodeId);
+        assertThat(operatorSummaries)
+                .isNotEmpty()
+                .allMatch(operatorStats -> operatorStats.getOperatorType().equals(FUSED_FILTER_OPERATOR));
+        assertThat(operatorSummaries.stream()
+                .mapToLong(OperatorStats::getInputPositions)
+                .sum())
+                .isEqualTo(15000);
+        assertThat(operatorSummaries.stream()
+                .mapToLong(OperatorStats::getOutputPositions)
+                .sum())
+                .isEqualTo((long) assertions.execute(selectedRowsQuery).getOnlyValue());
+    }
+
+    private List<OperatorStats> getOperatorSummaries(MaterializedResultWithPlan result, PlanNodeId planNodeId)
+    {
+        return runner.getCoordinator().getQueryManager().getFullQueryInfo(result.queryId())
+                .getQueryStats()
+                .getOperatorSummaries()
+                .stream()
+                .filter(operatorStats -> operatorStats.getPlanNodeId().equals(planNodeId))
+                .toList();
+    }
+}
@@ -16,7 +16,6 @@ package io.trino.spi.block;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
-import io.airlift.slice.Slices;
 
 import java.util.Arrays;
 
@@ -103,8 +102,8 @@ public class VariableWidthBlockEncoding
         }
 
         int blockSize = sliceInput.readInt();
-        Slice slice = Slices.allocate(blockSize);
-        sliceInput.readBytes(slice);
+        // inputs backed by an immutable buffer may return a view instead of a copy
+        Slice slice = sliceInput.readSlice(blockSize);
 
         return new VariableWidthBlock(0, positionCount, slice, offsets, valueIsNull);
     }
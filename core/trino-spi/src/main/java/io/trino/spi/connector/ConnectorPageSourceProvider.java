@@ -28,4 +28,16 @@ public interface ConnectorPageSourceProvider
             ConnectorTableHandle table,
             List<ColumnHandle> columns,
             DynamicFilter dynamicFilter);
+
+    /**
+     * Returns whether concurrent queries may read the split through a single page source, created with the
+     * transaction and session of one of them. The connector must then implement {@code equals} for the split
+     * and the table handle, and page sources for equal splits of equal tables must return the same rows in the
+     * same order in any transaction, for example because the split or the table handle identifies the snapshot
+     * of the data which is read.
+     */
+    default boolean supportsSharedScan(ConnectorSession session, ConnectorSplit split, ConnectorTableHandle table)
+    {
+        return false;
+    }
 }
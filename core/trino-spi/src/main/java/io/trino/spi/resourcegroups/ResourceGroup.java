@@ -80,6 +80,20 @@ public interface ResourceGroup
      */
     void setSchedulingWeight(int weight);
 
+    default int getCpuWeight()
+    {
+        return 1;
+    }
+
+    /**
+     * Weight of the queries of this group when sharing worker CPU with the queries of other groups.
+     * Queries of a group with a higher weight get proportionally more worker CPU under contention.
+     */
+    default void setCpuWeight(int weight)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     SchedulingPolicy getSchedulingPolicy();
 
     /**
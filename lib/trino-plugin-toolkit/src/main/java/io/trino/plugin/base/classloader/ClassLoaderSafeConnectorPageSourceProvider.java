@@ -48,4 +48,12 @@ public class ClassLoaderSafeConnectorPageSourceProvider
             return delegate.createPageSource(transaction, session, split, table, columns, dynamicFilter);
         }
     }
+
+    @Override
+    public boolean supportsSharedScan(ConnectorSession session, ConnectorSplit split, ConnectorTableHandle table)
+    {
+        try (ThreadContextClassLoader _ = new ThreadContextClassLoader(classLoader)) {
+            return delegate.supportsSharedScan(session, split, table);
+        }
+    }
 }
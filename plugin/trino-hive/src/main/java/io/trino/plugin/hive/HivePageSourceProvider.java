@@ -172,6 +172,14 @@ public class HivePageSourceProvider
                 hiveSplit.getPath()));
     }
 
+    @Override
+    public boolean supportsSharedScan(ConnectorSession session, ConnectorSplit split, ConnectorTableHandle table)
+    {
+        // a split reads a file of a known size and modification time, but the rows of ACID tables also depend on the transaction
+        HiveSplit hiveSplit = (HiveSplit) split;
+        return hiveSplit.getAcidInfo().isEmpty() && !((HiveTableHandle) table).getTransaction().isTransactional();
+    }
+
     public static Optional<ConnectorPageSource> createHivePageSource(
             Set<HivePageSourceFactory> pageSourceFactories,
             ConnectorSession session,
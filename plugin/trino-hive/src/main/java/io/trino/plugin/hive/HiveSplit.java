@@ -26,6 +26,7 @@ import io.trino.spi.connector.ConnectorSplit;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
 
@@ -282,6 +283,40 @@ public class HiveSplit
                 + splitWeight.getRetainedSizeInBytes();
     }
 
+    // equal splits of concurrent queries can share a scan on a worker
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HiveSplit that = (HiveSplit) o;
+        return start == that.start &&
+                length == that.length &&
+                estimatedFileSize == that.estimatedFileSize &&
+                fileModifiedTime == that.fileModifiedTime &&
+                forceLocalScheduling == that.forceLocalScheduling &&
+                path.equals(that.path) &&
+                partitionName.equals(that.partitionName) &&
+                schema.equals(that.schema) &&
+                partitionKeys.equals(that.partitionKeys) &&
+                readBucketNumber.equals(that.readBucketNumber) &&
+                tableBucketNumber.equals(that.tableBucketNumber) &&
+                hiveColumnCoercions.equals(that.hiveColumnCoercions) &&
+                bucketConversion.equals(that.bucketConversion) &&
+                bucketValidation.equals(that.bucketValidation) &&
+                acidInfo.equals(that.acidInfo);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(path, start, length, estimatedFileSize, fileModifiedTime, partitionName);
+    }
+
     @Override
     public String toString()
     {
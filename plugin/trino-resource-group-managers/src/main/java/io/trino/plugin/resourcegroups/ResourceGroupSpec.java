@@ -45,6 +45,7 @@ public class ResourceGroupSpec
     private final int hardConcurrencyLimit;
     private final Optional<SchedulingPolicy> schedulingPolicy;
     private final Optional<Integer> schedulingWeight;
+    private final Optional<Integer> cpuWeight;
     private final List<ResourceGroupSpec> subGroups;
     private final Optional<Boolean> jmxExport;
     private final Optional<Duration> softCpuLimit;
@@ -60,6 +61,7 @@ public class ResourceGroupSpec
             @JsonProperty("maxRunning") Optional<Integer> maxRunning,
             @JsonProperty("schedulingPolicy") Optional<String> schedulingPolicy,
             @JsonProperty("schedulingWeight") Optional<Integer> schedulingWeight,
+            @JsonProperty("cpuWeight") Optional<Integer> cpuWeight,
             @JsonProperty("subGroups") Optional<List<ResourceGroupSpec>> subGroups,
             @JsonProperty("jmxExport") Optional<Boolean> jmxExport,
             @JsonProperty("softCpuLimit") Optional<Duration> softCpuLimit,
@@ -81,6 +83,8 @@ public class ResourceGroupSpec
         softConcurrencyLimit.ifPresent(soft -> checkArgument(this.hardConcurrencyLimit >= soft, "hardConcurrencyLimit must be greater than or equal to softConcurrencyLimit"));
         this.schedulingPolicy = schedulingPolicy.map(value -> SchedulingPolicy.valueOf(value.toUpperCase(ENGLISH)));
         this.schedulingWeight = requireNonNull(schedulingWeight, "schedulingWeight is null");
+        this.cpuWeight = requireNonNull(cpuWeight, "cpuWeight is null");
+        cpuWeight.ifPresent(weight -> checkArgument(weight > 0, "cpuWeight must be positive"));
 
         requireNonNull(softMemoryLimit, "softMemoryLimit is null");
         Matcher matcher = PERCENT_PATTERN.matcher(softMemoryLimit);
@@ -136,6 +140,11 @@ public class ResourceGroupSpec
         return schedulingWeight;
     }
 
+    public Optional<Integer> getCpuWeight()
+    {
+        return cpuWeight;
+    }
+
     public ResourceGroupNameTemplate getName()
     {
         return name;
@@ -177,6 +186,7 @@ public class ResourceGroupSpec
                 hardConcurrencyLimit == that.hardConcurrencyLimit &&
                 schedulingPolicy.equals(that.schedulingPolicy) &&
                 schedulingWeight.equals(that.schedulingWeight) &&
+                cpuWeight.equals(that.cpuWeight) &&
                 subGroups.equals(that.subGroups) &&
                 jmxExport.equals(that.jmxExport) &&
                 softCpuLimit.equals(that.softCpuLimit) &&
@@ -196,6 +206,7 @@ public class ResourceGroupSpec
                 hardConcurrencyLimit == other.hardConcurrencyLimit &&
                 schedulingPolicy.equals(other.schedulingPolicy) &&
                 schedulingWeight.equals(other.schedulingWeight) &&
+                cpuWeight.equals(other.cpuWeight) &&
                 jmxExport.equals(other.jmxExport) &&
                 softCpuLimit.equals(other.softCpuLimit) &&
                 hardCpuLimit.equals(other.hardCpuLimit));
@@ -212,6 +223,7 @@ public class ResourceGroupSpec
                 hardConcurrencyLimit,
                 schedulingPolicy,
                 schedulingWeight,
+                cpuWeight,
                 subGroups,
                 jmxExport,
                 softCpuLimit,
@@ -229,6 +241,7 @@ public class ResourceGroupSpec
                 .add("hardConcurrencyLimit", hardConcurrencyLimit)
                 .add("schedulingPolicy", schedulingPolicy)
                 .add("schedulingWeight", schedulingWeight)
+                .add("cpuWeight", cpuWeight)
                 .add("jmxExport", jmxExport)
                 .add("softCpuLimit", softCpuLimit)
                 .add("hardCpuLimit", hardCpuLimit)
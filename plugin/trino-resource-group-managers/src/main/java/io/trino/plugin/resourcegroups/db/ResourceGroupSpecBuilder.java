@@ -111,6 +111,7 @@ public class ResourceGroupSpecBuilder
                 Optional.empty(),
                 schedulingPolicy,
                 schedulingWeight,
+                Optional.empty(),
                 Optional.of(subGroups.build()),
                 jmxExport,
                 softCpuLimit,
@@ -201,6 +201,7 @@ public class TestFileResourceGroupConfigurationManager
         assertThat(global.getHardConcurrencyLimit()).isEqualTo(100);
         assertThat(global.getSchedulingPolicy()).isEqualTo(WEIGHTED);
         assertThat(global.getSchedulingWeight()).isEqualTo(0);
+        assertThat(global.getCpuWeight()).isEqualTo(1);
         assertThat(global.getJmxExport()).isTrue();
 
         ResourceGroupId subId = new ResourceGroupId(globalId, "sub");
@@ -211,6 +212,7 @@ public class TestFileResourceGroupConfigurationManager
         assertThat(sub.getMaxQueuedQueries()).isEqualTo(4);
         assertThat(sub.getSchedulingPolicy()).isNull();
         assertThat(sub.getSchedulingWeight()).isEqualTo(5);
+        assertThat(sub.getCpuWeight()).isEqualTo(4);
         assertThat(sub.getJmxExport()).isFalse();
     }
 
@@ -33,6 +33,7 @@ public class TestingResourceGroup
     private int hardConcurrencyLimit;
     private int maxQueued;
     private int schedulingWeight;
+    private int cpuWeight = 1;
     private SchedulingPolicy policy;
     private boolean jmxExport;
     private boolean disabled;
@@ -144,6 +145,18 @@ public class TestingResourceGroup
         schedulingWeight = weight;
     }
 
+    @Override
+    public int getCpuWeight()
+    {
+        return cpuWeight;
+    }
+
+    @Override
+    public void setCpuWeight(int weight)
+    {
+        cpuWeight = weight;
+    }
+
     @Override
     public SchedulingPolicy getSchedulingPolicy()
     {
@@ -60,6 +60,7 @@ final class TestingResourceGroups
                 Optional.empty(),
                 Optional.empty(),
                 Optional.empty(),
+                Optional.empty(),
                 Optional.empty());
     }
 
@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cost;
+
+import com.google.inject.Key;
+import io.airlift.units.Duration;
+import io.trino.Session;
+import io.trino.execution.QueryInfo;
+import io.trino.execution.StageInfo;
+import io.trino.plugin.tpch.TpchPlugin;
+import io.trino.spi.QueryId;
+import io.trino.sql.planner.plan.FilterNode;
+import io.trino.sql.planner.plan.PlanNode;
+import io.trino.sql.planner.plan.TableScanNode;
+import io.trino.testing.AbstractTestQueryFramework;
+import io.trino.testing.DistributedQueryRunner;
+import io.trino.testing.QueryRunner;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.trino.execution.StageInfo.getAllStages;
+import static io.trino.sql.planner.iterative.Lookup.noLookup;
+import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static io.trino.testing.TestingSession.testSessionBuilder;
+import static io.trino.testing.assertions.Assert.assertEventually;
+import static java.nio.file.Files.createTempDirectory;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestHistoryBasedStatsRecorder
+        extends AbstractTestQueryFramework
+{
+    @Override
+    protected QueryRunner createQueryRunner()
+            throws Exception
+    {
+        Path directory = createTempDirectory("history-based-statistics");
+        closeAfterClass(() -> deleteRecursively(directory, ALLOW_INSECURE));
+        Session session = testSessionBuilder()
+                .setCatalog("tpch")
+                .setSchema("tiny")
+                .build();
+        QueryRunner queryRunner = DistributedQueryRunner.builder(session)
+                .addCoordinatorProperty("history-based-statistics.store", "FILE")
+                .addCoordinatorProperty("history-based-statistics.file", directory.resolve("stats.json").toString())
+                .build();
+        try {
+            queryRunner.installPlugin(new TpchPlugin());
+            queryRunner.createCatalog("tpch", "tpch");
+            return queryRunner;
+        }
+        catch (Exception e) {
+            queryRunner.close();
+            throw e;
+        }
+    }
+
+    @Test
+    public void testRecordTableScan()
+    {
+        QueryInfo queryInfo = execute("SELECT count(*) FROM nation");
+
+        TableScanNode tableScan = (TableScanNode) getOnlyPlanNode(queryInfo, node -> node instanceof TableScanNode);
+        assertRecorded(tableScan, 25);
+    }
+
+    @Test
+    public void testRecordFilter()
+    {
+        QueryInfo queryInfo = execute("SELECT count(*) FROM nation WHERE regionkey = 1");
+
+        FilterNode filter = (FilterNode) getOnlyPlanNode(queryInfo, node -> node instanceof FilterNode filterNode && filterNode.getSource() instanceof TableScanNode);
+        assertRecorded(filter, 5);
+    }
+
+    private QueryInfo execute(@Language("SQL") String sql)
+    {
+        QueryId queryId = getDistributedQueryRunner().executeWithPlan(getSession(), sql).queryId();
+        return getDistributedQueryRunner().getCoordinator().getQueryManager().getFullQueryInfo(queryId);
+    }
+
+    private void assertRecorded(PlanNode node, long expectedRowCount)
+    {
+        String planKey = HistoricalStatsKeys.planKey(node, noLookup(), getSession().toConnectorSession()).orElseThrow();
+        // statistics are recorded once the final query info is available
+        assertEventually(new Duration(10, SECONDS), () -> assertThat(getHistoricalStatsStore().getStats(planKey))
+                .hasValueSatisfying(stats -> assertThat(stats.outputRowCount()).isEqualTo(expectedRowCount)));
+    }
+
+    private HistoricalStatsStore getHistoricalStatsStore()
+    {
+        return getDistributedQueryRunner().getCoordinator().getInstance(Key.get(HistoricalStatsStore.class));
+    }
+
+    private static PlanNode getOnlyPlanNode(QueryInfo queryInfo, Predicate<PlanNode> predicate)
+    {
+        List<PlanNode> nodes = getAllStages(queryInfo.getOutputStage()).stream()
+                .map(StageInfo::getPlan)
+                .flatMap(fragment -> searchFrom(fragment.getRoot()).where(predicate).findAll().stream())
+                .collect(toImmutableList());
+        assertThat(nodes).hasSize(1);
+        return nodes.getFirst();
+    }
+}